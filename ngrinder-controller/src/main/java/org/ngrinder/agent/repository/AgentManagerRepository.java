@@ -22,6 +22,9 @@ import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Agent Repository. This is necessary due to lack of agent info in the Grinder.
  * We need to keep the additional info for each agent in the DB not memory.
@@ -31,7 +34,8 @@ import org.springframework.stereotype.Repository;
  * @since 3.0
  */
 @Repository
-public interface AgentManagerRepository extends JpaRepository<AgentInfo, Long>, JpaSpecificationExecutor<AgentInfo> {
+public interface AgentManagerRepository extends JpaRepository<AgentInfo, Long>, JpaSpecificationExecutor<AgentInfo>,
+		AgentManagerRepositoryCustom {
 
 	/**
 	 * Find a {@link AgentInfo} by ip and host name.
@@ -50,6 +54,13 @@ public interface AgentManagerRepository extends JpaRepository<AgentInfo, Long>,
 	 */
 	AgentInfo findByIp(String ip);
 
+	/**
+	 * Find all {@link AgentInfo}s having one of the given ips.
+	 *
+	 * @param ips ips of agents
+	 * @return found {@link AgentInfo}s
+	 */
+	List<AgentInfo> findByIpIn(Collection<String> ips);
 
 	/**
 	 * Get the count of {@link AgentInfo} matching the given specification.
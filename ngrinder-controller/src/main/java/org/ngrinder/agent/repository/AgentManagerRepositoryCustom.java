@@ -0,0 +1,42 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.agent.repository;
+
+import net.grinder.message.console.AgentControllerState;
+import org.ngrinder.model.AgentInfo;
+
+import java.util.Collection;
+import java.util.Map;
+
+/**
+ * {@link AgentInfo} updates which are not derived from the method names.
+ *
+ * @since 3.4
+ */
+public interface AgentManagerRepositoryCustom {
+
+	/**
+	 * Update the states of the given agents in a single JDBC batch.
+	 *
+	 * @param states agent states keyed by the agent id
+	 */
+	void updateStates(Map<Long, AgentControllerState> states);
+
+	/**
+	 * Update the system stats of the given agents in a single JDBC batch.
+	 *
+	 * @param systemStats pairs of system stat json, ip and host name
+	 */
+	void updateSystemStats(Collection<String[]> systemStats);
+}
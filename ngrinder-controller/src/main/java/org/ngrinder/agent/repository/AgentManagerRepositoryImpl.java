@@ -0,0 +1,60 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.agent.repository;
+
+import net.grinder.message.console.AgentControllerState;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * {@link AgentManagerRepositoryCustom} implementation.
+ * <p/>
+ * The updates go through the shared {@link JdbcTemplate} because the JPQL bulk updates are
+ * executed one by one and not batched by Hibernate.
+ *
+ * @since 3.4
+ */
+public class AgentManagerRepositoryImpl implements AgentManagerRepositoryCustom {
+
+	private static final String UPDATE_STATE = "update AGENT set state=? where id=?";
+
+	private static final String UPDATE_SYSTEM_STAT = "update AGENT set system_stat=? where ip=? and hostName=?";
+
+	@Autowired
+	private JdbcTemplate jdbcTemplate;
+
+	@Override
+	public void updateStates(Map<Long, AgentControllerState> states) {
+		List<Object[]> args = newArrayList(states.size());
+		for (Map.Entry<Long, AgentControllerState> each : states.entrySet()) {
+			args.add(new Object[]{each.getValue().name(), each.getKey()});
+		}
+		jdbcTemplate.batchUpdate(UPDATE_STATE, args);
+	}
+
+	@Override
+	public void updateSystemStats(Collection<String[]> systemStats) {
+		List<Object[]> args = newArrayList(systemStats.size());
+		for (String[] each : systemStats) {
+			args.add(each);
+		}
+		jdbcTemplate.batchUpdate(UPDATE_SYSTEM_STAT, args);
+	}
+}
@@ -409,8 +409,9 @@ public class AgentManagerService extends AbstractAgentManagerService {
 	}
 
 	/**
-	 * Stop agent. If it's in cluster mode, it queue to agentRequestCache.
-	 * otherwise, it send stop message to the agent.
+	 * Stop agent. It sends the stop message to the agent directly. In cluster mode,
+	 * {@link ClusteredAgentManagerService} publishes the request on the cluster event bus
+	 * to the controller of the agent region instead, and waits for its acknowledgement.
 	 *
 	 * @param id identity of agent to stop.
 	 */
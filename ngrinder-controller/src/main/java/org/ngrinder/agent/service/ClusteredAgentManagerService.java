@@ -17,6 +17,7 @@ import com.google.common.base.Predicate;
 import com.google.common.collect.Iterables;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
 import com.google.gson.Gson;
 import net.grinder.common.processidentity.AgentIdentity;
 import net.grinder.engine.controller.AgentControllerIdentityImplementation;
@@ -24,6 +25,9 @@ import net.sf.ehcache.Ehcache;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.mutable.MutableInt;
 import org.ngrinder.agent.model.ClusteredAgentRequest;
+import org.ngrinder.infra.cluster.ClusterEvent;
+import org.ngrinder.infra.cluster.ClusterEventBus;
+import org.ngrinder.infra.cluster.ClusterEventListener;
 import org.ngrinder.infra.logger.CoreLogger;
 import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.model.AgentInfo;
@@ -67,10 +71,17 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 	@Autowired
 	CacheManager cacheManager;
 
-	private Cache agentRequestCache;
+	/**
+	 * Prefix of the topic where the agent requests to each region are published.
+	 */
+	public static final String AGENT_REQUEST_TOPIC_PREFIX = "agent_request:";
+
+	private static final long AGENT_REQUEST_ACK_TIMEOUT = 3000;
 
 	private Cache agentMonitoringTargetsCache;
 
+	@Autowired
+	private ClusterEventBus clusterEventBus;
 
 	@Autowired
 	private RegionService regionService;
@@ -83,38 +94,48 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		super.init();
 		agentMonitoringTargetsCache = cacheManager.getCache("agent_monitoring_targets");
 		if (getConfig().isClustered()) {
-			agentRequestCache = cacheManager.getCache("agent_request");
-			scheduledTaskService.addFixedDelayedScheduledTask(new Runnable() {
-				@Override
-				public void run() {
-					List<String> keys = cast(((Ehcache) agentRequestCache.getNativeCache())
-							.getKeysWithExpiryCheck());
-					String region = getConfig().getRegion() + "|";
-					for (String each : keys) {
-						if (each.startsWith(region)) {
-							if (agentRequestCache.get(each) != null) {
-								try {
-									ClusteredAgentRequest agentRequest = cast(agentRequestCache.get(each).get());
-									if (agentRequest.getRequestType() ==
-											ClusteredAgentRequest.RequestType.EXPIRE_LOCAL_CACHE) {
-										expireLocalCache();
-									} else {
-										AgentControllerIdentityImplementation agentIdentity = getAgentIdentityByIpAndName(
-												agentRequest.getAgentIp(), agentRequest.getAgentName());
-										if (agentIdentity != null) {
-											agentRequest.getRequestType().process(ClusteredAgentManagerService.this,
-													agentIdentity);
-										}
-									}
-									agentRequestCache.evict(each);
-								} catch (Exception e) {
-									CoreLogger.LOGGER.error(e.getMessage(), e);
-								}
-							}
+			clusterEventBus.subscribe(AGENT_REQUEST_TOPIC_PREFIX + getConfig().getRegion(),
+					new ClusterEventListener() {
+						@Override
+						public void onEvent(ClusterEvent event) {
+							processAgentRequest((ClusteredAgentRequest) event.getPayload());
 						}
-					}
+					});
+		}
+	}
+
+	private void processAgentRequest(ClusteredAgentRequest agentRequest) {
+		try {
+			if (agentRequest.getRequestType() == ClusteredAgentRequest.RequestType.EXPIRE_LOCAL_CACHE) {
+				expireLocalCache();
+			} else {
+				AgentControllerIdentityImplementation agentIdentity = getAgentIdentityByIpAndName(
+						agentRequest.getAgentIp(), agentRequest.getAgentName());
+				if (agentIdentity != null) {
+					agentRequest.getRequestType().process(ClusteredAgentManagerService.this, agentIdentity);
 				}
-			}, 3000);
+			}
+		} catch (Exception e) {
+			CoreLogger.LOGGER.error(e.getMessage(), e);
+		}
+	}
+
+	/**
+	 * Send the request to the controller of the agent region.
+	 *
+	 * @param agent       agent
+	 * @param requestType request type
+	 * @param waitAck     true if it waits until the controller acknowledges the request
+	 */
+	private void sendAgentRequest(AgentInfo agent, ClusteredAgentRequest.RequestType requestType, boolean waitAck) {
+		ClusterEvent event = new ClusterEvent(AGENT_REQUEST_TOPIC_PREFIX
+				+ extractRegionFromAgentRegion(agent.getRegion()), getConfig().getRegion(),
+				new ClusteredAgentRequest(agent.getIp(), agent.getName(), requestType));
+		if (!waitAck) {
+			clusterEventBus.publish(event);
+		} else if (!clusterEventBus.request(event, AGENT_REQUEST_ACK_TIMEOUT)) {
+			LOGGER.warn("{} request to the agent {} is not acknowledged by the region {} in {} ms",
+					new Object[]{requestType, agent.getName(), agent.getRegion(), AGENT_REQUEST_ACK_TIMEOUT});
 		}
 	}
 
@@ -175,11 +196,20 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		}
 
 		// step2. check all attached agents, whether they are new, and not saved
-		// in DB.
-		for (AgentControllerIdentityImplementation agentIdentity : attachedAgentMap.values()) {
-			AgentInfo agentInfo = agentManagerRepository.findByIpAndHostName(
-					agentIdentity.getIp(),
-					agentIdentity.getName());
+		// in DB. The agents saved by the other regions are fetched at once.
+		Map<String, AgentInfo> agentsInOtherRegionMap = Maps.newHashMap();
+		if (!attachedAgentMap.isEmpty()) {
+			Set<String> ips = Sets.newHashSet();
+			for (AgentControllerIdentityImplementation agentIdentity : attachedAgentMap.values()) {
+				ips.add(agentIdentity.getIp());
+			}
+			for (AgentInfo each : agentManagerRepository.findByIpIn(ips)) {
+				agentsInOtherRegionMap.put(createKey(each), each);
+			}
+		}
+		for (Map.Entry<String, AgentControllerIdentityImplementation> each : attachedAgentMap.entrySet()) {
+			AgentControllerIdentityImplementation agentIdentity = each.getValue();
+			AgentInfo agentInfo = agentsInOtherRegionMap.get(each.getKey());
 			if (agentInfo == null) {
 				agentInfo = new AgentInfo();
 				newAgents.add(fillUp(agentInfo, agentIdentity));
@@ -223,14 +253,15 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		}
 	}
 
+	/**
+	 * Update the system stat of the given agent. It's kept in memory and written into DB in a batch
+	 * on the system stat flush interval.
+	 *
+	 * @param agentIdentity agent identity
+	 */
 	public void updateSystemStat(final AgentControllerIdentityImplementation agentIdentity) {
-		cachedLocalAgentService.doSthInTransaction(new Runnable() {
-			public void run() {
-				agentManagerRepository.updateSystemStat(agentIdentity.getIp(),
-						agentIdentity.getName(),
-						gson.toJson(getSystemDataModel(agentIdentity)));
-			}
-		});
+		cachedLocalAgentService.updateSystemStat(agentIdentity.getIp(), agentIdentity.getName(),
+				gson.toJson(getSystemDataModel(agentIdentity)));
 	}
 
 	private SystemDataModel getSystemDataModel(AgentIdentity agentIdentity) {
@@ -335,15 +366,14 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 	public AgentInfo approve(Long id, boolean approve) {
 		AgentInfo agent = super.approve(id, approve);
 		if (agent != null) {
-			agentRequestCache.put(extractRegionFromAgentRegion(agent.getRegion()) + "|" + createKey(agent),
-					new ClusteredAgentRequest(agent.getIp(), agent.getName(), EXPIRE_LOCAL_CACHE));
+			sendAgentRequest(agent, EXPIRE_LOCAL_CACHE, false);
 		}
 		return agent;
 	}
 
 	/**
-	 * Stop agent. In cluster mode, it queues the agent stop request to
-	 * agentRequestCache.
+	 * Stop agent. In cluster mode, it sends the agent stop request to the
+	 * controller of the agent region.
 	 *
 	 * @param id agent id in db
 	 */
@@ -353,12 +383,11 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		if (agent == null) {
 			return;
 		}
-		agentRequestCache.put(extractRegionFromAgentRegion(agent.getRegion()) + "|" + createKey(agent),
-				new ClusteredAgentRequest(agent.getIp(), agent.getName(), STOP_AGENT));
+		sendAgentRequest(agent, STOP_AGENT, true);
 	}
 
 	/**
-	 * Add the agent system data model share request on cache.
+	 * Send the agent system data model share request.
 	 *
 	 * @param id agent id in db.
 	 */
@@ -368,8 +397,7 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		if (agent == null) {
 			return;
 		}
-		agentRequestCache.put(extractRegionFromAgentRegion(agent.getRegion()) + "|" + createKey(agent),
-				new ClusteredAgentRequest(agent.getIp(), agent.getName(), SHARE_AGENT_SYSTEM_DATA_MODEL));
+		sendAgentRequest(agent, SHARE_AGENT_SYSTEM_DATA_MODEL, false);
 	}
 
 	/**
@@ -382,8 +410,11 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 	 */
 	@Override
 	public SystemDataModel getSystemDataModel(String ip, String name) {
-		AgentInfo found = agentManagerRepository.findByIpAndHostName(ip, name);
-		String systemStat = (found == null) ? null : found.getSystemStat();
+		String systemStat = cachedLocalAgentService.getSystemStat(ip, name);
+		if (systemStat == null) {
+			AgentInfo found = agentManagerRepository.findByIpAndHostName(ip, name);
+			systemStat = (found == null) ? null : found.getSystemStat();
+		}
 		return (StringUtils.isEmpty(systemStat)) ? new SystemDataModel() : gson.fromJson(systemStat,
 				SystemDataModel.class);
 	}
@@ -418,8 +449,7 @@ public class ClusteredAgentManagerService extends AgentManagerService {
 		if (agent == null) {
 			return;
 		}
-		agentRequestCache.put(extractRegionFromAgentRegion(agent.getRegion()) + "|" + createKey(agent),
-				new ClusteredAgentRequest(agent.getIp(), agent.getName(), UPDATE_AGENT));
+		sendAgentRequest(agent, UPDATE_AGENT, true);
 	}
 
 	/**
@@ -13,9 +13,11 @@
  */
 package org.ngrinder.agent.service;
 
+import net.grinder.message.console.AgentControllerState;
 import org.apache.commons.collections.CollectionUtils;
 import org.ngrinder.agent.repository.AgentManagerRepository;
 import org.ngrinder.infra.config.Config;
+import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.model.AgentInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -26,10 +28,24 @@ import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.ngrinder.agent.repository.AgentManagerSpecification.startWithRegion;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_AGENT_STATE_FLUSH_INTERVAL;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_AGENT_SYSTEM_STAT_FLUSH_INTERVAL;
+import static org.ngrinder.common.util.CollectionUtils.newHashMap;
 
+/**
+ * Local agent registry.
+ * <p/>
+ * The agents of this controller are kept in memory and the state and system stat changes are
+ * tracked there. Only the changed rows are written into DB in the JDBC batches on the configured
+ * interval, instead of the update per agent on each agent check.
+ */
 @Component
 public class LocalAgentService {
 
@@ -41,23 +57,65 @@ public class LocalAgentService {
 	@Autowired
 	private Config config;
 
+	@Autowired
+	private ScheduledTaskService scheduledTaskService;
+
 	private boolean clustered;
 	private String region;
 
+	private final Map<Long, AgentControllerState> persistedStates = new ConcurrentHashMap<Long, AgentControllerState>();
+	private final ConcurrentMap<Long, AgentControllerState> dirtyStates =
+			new ConcurrentHashMap<Long, AgentControllerState>();
+	private final Map<String, String> systemStats = new ConcurrentHashMap<String, String>();
+	private final ConcurrentMap<String, String[]> dirtySystemStats = new ConcurrentHashMap<String, String[]>();
+
+	private final Runnable stateFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flushStates();
+		}
+	};
+
+	private final Runnable systemStatFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flushSystemStats();
+		}
+	};
+
 	@PostConstruct
 	public void init() {
 		clustered = config.isClustered();
 		region = config.getRegion();
+		scheduledTaskService.addFixedDelayedScheduledTask(stateFlushRunnable,
+				config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_AGENT_STATE_FLUSH_INTERVAL));
+		scheduledTaskService.addFixedDelayedScheduledTask(systemStatFlushRunnable,
+				config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_AGENT_SYSTEM_STAT_FLUSH_INTERVAL));
+	}
+
+	@PreDestroy
+	public void destroy() {
+		scheduledTaskService.removeScheduledJob(stateFlushRunnable);
+		scheduledTaskService.removeScheduledJob(systemStatFlushRunnable);
+		flushStates();
+		flushSystemStats();
 	}
 
 	@Cacheable("local_agents")
 	public List<AgentInfo> getLocalAgents() {
 		LOGGER.debug("Local Cache is Updated.");
+		List<AgentInfo> agents;
 		if (clustered) {
-			return agentManagerRepository.findAll(startWithRegion(region));
+			agents = agentManagerRepository.findAll(startWithRegion(region));
 		} else {
-			return agentManagerRepository.findAll();
+			agents = agentManagerRepository.findAll();
+		}
+		for (AgentInfo each : agents) {
+			if (each.getId() != null && each.getState() != null && !dirtyStates.containsKey(each.getId())) {
+				persistedStates.put(each.getId(), each.getState());
+			}
 		}
+		return agents;
 	}
 
 
@@ -67,20 +125,128 @@ public class LocalAgentService {
 							 List<AgentInfo> stateUpdatedAgents,
 							 List<AgentInfo> removedAgents) {
 		if (CollectionUtils.isNotEmpty(newAgents)) {
-			agentManagerRepository.save(newAgents);
+			markPersisted(agentManagerRepository.save(newAgents));
 		}
 		if (CollectionUtils.isNotEmpty(updatedAgents)) {
-			agentManagerRepository.save(updatedAgents);
+			markPersisted(agentManagerRepository.save(updatedAgents));
 		}
 		for (AgentInfo each : stateUpdatedAgents) {
-			agentManagerRepository.updateState(each.getId(), each.getState());
+			updateState(each);
 		}
 		if (CollectionUtils.isNotEmpty(removedAgents)) {
 			agentManagerRepository.delete(removedAgents);
+			for (AgentInfo each : removedAgents) {
+				persistedStates.remove(each.getId());
+				dirtyStates.remove(each.getId());
+			}
 		}
 		agentManagerRepository.flush();
 	}
 
+	private void markPersisted(List<AgentInfo> agents) {
+		for (AgentInfo each : agents) {
+			if (each.getId() != null && each.getState() != null) {
+				persistedStates.put(each.getId(), each.getState());
+				dirtyStates.remove(each.getId());
+			}
+		}
+	}
+
+	/**
+	 * Mark the state of the given agent to be written into DB. Nothing is written if the state is
+	 * same as the state already written.
+	 *
+	 * @param agent agent whose state is changed
+	 */
+	public void updateState(AgentInfo agent) {
+		if (agent.getId() == null || agent.getState() == null) {
+			return;
+		}
+		if (agent.getState() == persistedStates.get(agent.getId())) {
+			dirtyStates.remove(agent.getId());
+		} else {
+			dirtyStates.put(agent.getId(), agent.getState());
+		}
+	}
+
+	/**
+	 * Write the changed agent states into DB in a batch. The failed ones are written again on the
+	 * next flush unless they are changed meanwhile.
+	 */
+	public void flushStates() {
+		if (dirtyStates.isEmpty()) {
+			return;
+		}
+		Map<Long, AgentControllerState> states = newHashMap();
+		for (Map.Entry<Long, AgentControllerState> each : dirtyStates.entrySet()) {
+			if (dirtyStates.remove(each.getKey(), each.getValue())) {
+				states.put(each.getKey(), each.getValue());
+				persistedStates.put(each.getKey(), each.getValue());
+			}
+		}
+		try {
+			agentManagerRepository.updateStates(states);
+		} catch (Exception e) {
+			LOGGER.error("Error while writing the agent states : {}", e.getMessage());
+			LOGGER.debug("Details : ", e);
+			for (Map.Entry<Long, AgentControllerState> each : states.entrySet()) {
+				persistedStates.remove(each.getKey());
+				dirtyStates.putIfAbsent(each.getKey(), each.getValue());
+			}
+		}
+	}
+
+	/**
+	 * Keep the system stat of the given agent in memory. It's written into DB on the system stat
+	 * flush interval only when it's changed.
+	 *
+	 * @param ip         agent ip
+	 * @param name       agent host name
+	 * @param systemStat system stat json
+	 */
+	public void updateSystemStat(String ip, String name, String systemStat) {
+		String key = ip + "|" + name;
+		if (!systemStat.equals(systemStats.put(key, systemStat))) {
+			dirtySystemStats.put(key, new String[]{systemStat, ip, name});
+		}
+	}
+
+	/**
+	 * Get the system stat of the given agent kept in memory.
+	 *
+	 * @param ip   agent ip
+	 * @param name agent host name
+	 * @return system stat json. null if this controller doesn't collect it.
+	 */
+	public String getSystemStat(String ip, String name) {
+		return systemStats.get(ip + "|" + name);
+	}
+
+	/**
+	 * Write the changed agent system stats into DB in a batch. The failed ones are written again
+	 * on the next flush unless they are changed meanwhile.
+	 */
+	public void flushSystemStats() {
+		if (dirtySystemStats.isEmpty()) {
+			return;
+		}
+		Map<String, String[]> stats = newHashMap();
+		for (Map.Entry<String, String[]> each : dirtySystemStats.entrySet()) {
+			if (dirtySystemStats.remove(each.getKey(), each.getValue())) {
+				stats.put(each.getKey(), each.getValue());
+			}
+		}
+		try {
+			agentManagerRepository.updateSystemStats(stats.values());
+		} catch (Exception e) {
+			LOGGER.error("Error while writing the agent system stats : {}", e.getMessage());
+			LOGGER.debug("Details : ", e);
+			for (Map.Entry<String, String[]> each : stats.entrySet()) {
+				dirtySystemStats.putIfAbsent(each.getKey(), each.getValue());
+			}
+		}
+	}
+
 	@Transactional
 	public void doSthInTransaction(Runnable runnable) {
 		runnable.run();
@@ -88,6 +254,7 @@ public class LocalAgentService {
 
 	@CacheEvict("local_agents")
 	public void expireCache() {
-
+		// Reloaded agents should have the latest states.
+		flushStates();
 	}
 }
@@ -50,6 +50,10 @@ public interface ControllerConstants {
 	public static final String PROP_CONTROLLER_DEMO_MODE = "controller.demo_mode";
 	public static final String PROP_CONTROLLER_DEV_MODE = "controller.dev_mode";
 	public static final String PROP_CONTROLLER_DIST_LOGBACK = "controller.dist_logback";
+	public static final String PROP_CONTROLLER_DIST_DATA_SPLIT_THRESHOLD = "controller.dist_data_split_threshold";
+	public static final String PROP_CONTROLLER_DIST_DATA_SPLIT_HEADER = "controller.dist_data_split_header";
+	public static final String PROP_CONTROLLER_DIST_GROOVY_PRECOMPILE = "controller.dist_groovy_precompile";
+	public static final String PROP_CONTROLLER_DIST_GROOVY_COMPILE_STATIC = "controller.dist_groovy_compile_static";
 	public static final String PROP_CONTROLLER_FRONT_PAGE_ENABLED = "controller.front_page_enabled";
 	public static final String PROP_CONTROLLER_FRONT_PAGE_ASK_QUESTION_URL = "controller.front_page_ask_question_url";
 	public static final String PROP_CONTROLLER_FRONT_PAGE_RESOURCES_RSS = "controller.front_page_resources_rss";
@@ -74,6 +78,8 @@ public interface ControllerConstants {
 	public static final String PROP_CONTROLLER_USER_PASSWORD_SHA256 = "controller.user_password_sha256";
 	public static final String PROP_CONTROLLER_USER_SECURITY = "controller.user_security";
 	public static final String PROP_CONTROLLER_VALIDATION_TIMEOUT = "controller.validation_timeout";
+	public static final String PROP_CONTROLLER_VALIDATION_MAX_CONCURRENCY = "controller.validation_max_concurrency";
+	public static final String PROP_CONTROLLER_VALIDATION_MAX_OUTPUT = "controller.validation_max_output";
 	public static final String PROP_CONTROLLER_VERBOSE = "controller.verbose";
 	public static final String PROP_CONTROLLER_MAX_CONNECTION_WAITING_MILLISECOND = "controller.max_connection_waiting_millisecond";
 	public static final String PROP_CONTROLLER_ADMIN_PASSWORD_RESET = "controller.admin_password_reset";
@@ -81,7 +87,20 @@ public interface ControllerConstants {
 	public static final String PROP_CONTROLLER_ENABLE_AGENT_AUTO_APPROVAL = "controller.enable_agent_auto_approval";
 	public static final String PROP_CONTROLLER_AGENT_FORCE_UPDATE = "controller.agent_force_update";
 	public static final String PROP_CONTROLLER_UPDATE_CHUNK_SIZE = "controller.update_chunk_size";
+	public static final String PROP_CONTROLLER_AGENT_STATE_FLUSH_INTERVAL = "controller.agent_state_flush_interval";
+	public static final String PROP_CONTROLLER_AGENT_SYSTEM_STAT_FLUSH_INTERVAL = "controller.agent_system_stat_flush_interval";
+	public static final String PROP_CONTROLLER_SVN_SESSION_POOL_SIZE = "controller.svn_session_pool_size";
+	public static final String PROP_CONTROLLER_SVN_SESSION_IDLE_TIMEOUT = "controller.svn_session_idle_timeout";
+	public static final String PROP_CONTROLLER_SVN_CACHE_SIZE = "controller.svn_cache_size";
+	public static final String PROP_CONTROLLER_PROGRESS_FLUSH_INTERVAL = "controller.progress_flush_interval";
+	public static final String PROP_CONTROLLER_REPORT_ARCHIVE_AFTER_DAYS = "controller.report_archive_after_days";
+	public static final String PROP_CONTROLLER_REPORT_LOG_RETENTION_DAYS = "controller.report_log_retention_days";
+	public static final String PROP_CONTROLLER_REPORT_RETENTION_DAYS = "controller.report_retention_days";
 	public static final String PROP_CONTROLLER_INACTIVE_CLIENT_TIME_OUT = "controller.inactive_client_time_out";
 	public static final String PROP_CONTROLLER_ENABLE_STATISTICS = "controller.enable_statistics";
+	public static final String PROP_CONTROLLER_METRICS_SAMPLING_RATE = "controller.metrics_sampling_rate";
 	public static final String PROP_CONTROLLER_CSV_SEPARATOR = "controller.csv_separator";
+	public static final String PROP_CONTROLLER_CONSOLE_SHARD_POOL_SIZE = "controller.console_shard_pool_size";
+	public static final String PROP_CONTROLLER_AGENTS_PER_CONSOLE = "controller.agents_per_console";
+	public static final String PROP_CONTROLLER_PEER_DISTRIBUTION_FANOUT = "controller.peer_distribution_fanout";
 }
@@ -42,18 +42,21 @@ public class Home {
 
 	// HOME_PATH
 	private static final String PATH_PLUGIN = "plugins";
+	private static final String PATH_COMPILED_SCRIPT = "compiled_script";
 	private static final String PATH_SCRIPT = "script";
 	private static final String PATH_USER_REPO = "repos";
 	private static final String PATH_PERF_TEST = "perftest";
 	private static final String PATH_DOWNLOAD = "download";
 	private static final String PATH_GLOBAL_LOG = "logs";
-	private static final String PATH_LOG = "logs";
-	private static final String PATH_REPORT = "report";
+	public static final String PATH_LOG = "logs";
+	public static final String PATH_REPORT = "report";
 	private static final String PATH_DIST = "dist";
 	private static final String PATH_STAT = "stat";
 	private final static Logger LOGGER = LoggerFactory.getLogger(Home.class);
 	private final File directory;
 	public static final String REPORT_CSV = "output.csv";
+	public static final String REPORT_SUMMARY = "summary.json";
+	public static final String REPORT_PROFILE = "profile_summary.profile";
 
 	/**
 	 * Constructor.
@@ -185,6 +188,15 @@ public class Home {
 		return getSubFile(PATH_PLUGIN + "_cache");
 	}
 
+	/**
+	 * Get the directory where the precompiled groovy script jars are cached.
+	 *
+	 * @return compiled script cache directory.
+	 */
+	public File getCompiledScriptCacheDirectory() {
+		return getSubFile(PATH_COMPILED_SCRIPT);
+	}
+
 	/**
 	 * Get the plugin directory.
 	 *
@@ -269,12 +281,24 @@ public class Home {
 	 * @return {@link PerfTest} sub directory.
 	 */
 	public File getPerfTestDirectory(String id) {
+		return mkDir(findPerfTestDirectory(id));
+	}
+
+	/**
+	 * Find the perftest base directory for the given perftest id. Unlike the other perftest paths,
+	 * the directory is not created.
+	 *
+	 * @param id perftest id
+	 * @return {@link PerfTest} directory.
+	 * @since 3.4
+	 */
+	public File findPerfTestDirectory(String id) {
 		File file = new File(getPerfTestDirectory(), id);
 		// For backward compatibility
 		if (!file.exists()) {
 			file = getDistributedFolderName(id);
 		}
-		return mkDir(file);
+		return file;
 	}
 
 	File getDistributedFolderName(String id) {
@@ -0,0 +1,91 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.common.service;
+
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.ngrinder.common.metrics.Metrics;
+import org.ngrinder.common.metrics.Timer;
+import org.springframework.data.repository.Repository;
+import org.springframework.stereotype.Service;
+
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Aspect to measure the time spent in each repository method.
+ * <p/>
+ * The timers are named as db.[repository name].[method name]. Nothing is measured while the
+ * metrics are disabled.
+ *
+ * @since 3.4
+ */
+@Aspect
+@Service
+public class RepositoryMetricsAspect {
+
+	public static final String EXECUTION_REPOSITORY =
+			"execution(public * org.springframework.data.repository.Repository+.*(..))";
+
+	private final ConcurrentMap<Class<?>, ConcurrentMap<Method, Timer>> timers =
+			new ConcurrentHashMap<Class<?>, ConcurrentMap<Method, Timer>>();
+
+	/**
+	 * Measure the given repository call.
+	 *
+	 * @param joinPoint joint point
+	 * @return the result of the repository call
+	 * @throws Throwable the exception thrown by the repository
+	 */
+	@Around(EXECUTION_REPOSITORY)
+	public Object measure(ProceedingJoinPoint joinPoint) throws Throwable {
+		if (!Metrics.isEnabled()) {
+			return joinPoint.proceed();
+		}
+		Timer timer = getTimer(joinPoint.getTarget().getClass(),
+				((MethodSignature) joinPoint.getSignature()).getMethod());
+		long start = timer.start();
+		try {
+			return joinPoint.proceed();
+		} finally {
+			timer.stop(start);
+		}
+	}
+
+	private Timer getTimer(Class<?> targetClass, Method method) {
+		ConcurrentMap<Method, Timer> methodTimers = timers.get(targetClass);
+		if (methodTimers == null) {
+			timers.putIfAbsent(targetClass, new ConcurrentHashMap<Method, Timer>());
+			methodTimers = timers.get(targetClass);
+		}
+		Timer timer = methodTimers.get(method);
+		if (timer == null) {
+			timer = Metrics.timer("db." + getRepositoryName(targetClass) + "." + method.getName());
+			methodTimers.putIfAbsent(method, timer);
+		}
+		return timer;
+	}
+
+	private String getRepositoryName(Class<?> targetClass) {
+		for (Class<?> each : targetClass.getInterfaces()) {
+			if (Repository.class.isAssignableFrom(each) && each.getName().startsWith("org.ngrinder")) {
+				return each.getSimpleName();
+			}
+		}
+		return targetClass.getSimpleName();
+	}
+}
@@ -13,12 +13,19 @@
  */
 package org.ngrinder.common.util;
 
+import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 import java.io.*;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.zip.GZIPOutputStream;
 
 /**
  * File download utilities.
@@ -32,6 +39,10 @@ public abstract class FileDownloadUtils {
 	private static final Logger LOGGER = LoggerFactory.getLogger(FileDownloadUtils.class);
 	public static final int FILE_CHUNK_BUFFER_SIZE = 1024 * 1024;
 
+	private static final Set<String> COMPRESSED_EXTENSIONS = new HashSet<String>(Arrays.asList("zip", "gz", "tgz",
+			"jar", "war", "bz2", "xz", "7z", "png", "jpg", "jpeg", "gif"));
+	private static final long[] UNSATISFIABLE_RANGE = new long[0];
+
 	/**
 	 * Download the given file to the given {@link HttpServletResponse}.
 	 *
@@ -40,8 +51,7 @@ public abstract class FileDownloadUtils {
 	 * @return true if succeeded
 	 */
 	public static boolean downloadFile(HttpServletResponse response, String fileName) {
-		File file = new File(fileName);
-		return downloadFile(response, file);
+		return downloadFile(response, new File(fileName));
 	}
 
 	/**
@@ -52,35 +62,238 @@ public abstract class FileDownloadUtils {
 	 * @return true if succeeded
 	 */
 	public static boolean downloadFile(HttpServletResponse response, File file) {
+		return downloadFile(null, response, file);
+	}
+
+	/**
+	 * Download the given file to the given {@link HttpServletResponse} answering the conditional
+	 * and range requests.
+	 *
+	 * @param request  {@link HttpServletRequest}
+	 * @param response {@link HttpServletResponse}
+	 * @param file     file path
+	 * @return true if succeeded
+	 * @see #downloadFile(HttpServletRequest, HttpServletResponse, String, long, long, InputStream)
+	 * @since 3.4
+	 */
+	public static boolean downloadFile(HttpServletRequest request, HttpServletResponse response, File file) {
 		if (file == null || !file.exists()) {
 			return false;
 		}
-		boolean result = true;
+		InputStream fis = null;
+		try {
+			fis = new FileInputStream(file);
+			return downloadFile(request, response, file.getName(), file.length(), file.lastModified(), fis);
+		} catch (FileNotFoundException e) {
+			LOGGER.error("file not found:" + file.getAbsolutePath(), e);
+			return false;
+		} finally {
+			IOUtils.closeQuietly(fis);
+		}
+	}
+
+	/**
+	 * Download the content of the given stream as a file to the given {@link HttpServletResponse}.
+	 * <p/>
+	 * When the request is given with the known length and modified time,
+	 * <ul>
+	 * <li>the strong ETag is made of the length and the modified time and the unchanged content is
+	 * answered with 304.</li>
+	 * <li>a single byte range is served with 206, so that the big files can be resumed or paged.</li>
+	 * <li>the content is gzipped on the fly if the client accepts it and the file is not
+	 * compressed already.</li>
+	 * </ul>
+	 *
+	 * @param request      {@link HttpServletRequest}. null if the request headers should be ignored.
+	 * @param response     {@link HttpServletResponse}
+	 * @param fileName     file name to be downloaded as
+	 * @param length       content length. -1 if unknown.
+	 * @param lastModified last modified time in ms. -1 if unknown.
+	 * @param inputStream  content. It's not closed.
+	 * @return true if succeeded
+	 * @since 3.4
+	 */
+	public static boolean downloadFile(HttpServletRequest request, HttpServletResponse response, String fileName,
+	                                   long length, long lastModified, InputStream inputStream) {
 		response.reset();
-		response.addHeader("Content-Disposition", "attachment;filename=" + file.getName());
+		response.addHeader("Content-Disposition", "attachment;filename=" + fileName);
 		response.setContentType("application/octet-stream");
-		response.addHeader("Content-Length", "" + file.length());
-		InputStream fis = null;
-		byte[] buffer = new byte[FILE_DOWNLOAD_BUFFER_SIZE];
+		long[] range = null;
+		boolean gzip = false;
+		if (request != null && length >= 0 && lastModified >= 0) {
+			String rangeHeader = request.getHeader("Range");
+			gzip = rangeHeader == null && isGzipAccepted(request) && isCompressible(fileName);
+			String etag = createETag(length, lastModified, gzip);
+			response.setHeader("ETag", etag);
+			response.setDateHeader("Last-Modified", lastModified);
+			response.setHeader("Accept-Ranges", "bytes");
+			response.setHeader("Vary", "Accept-Encoding");
+			if (isNotModified(request, etag, lastModified)) {
+				response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+				return true;
+			}
+			if (rangeHeader != null && isRangeApplicable(request, etag, lastModified)) {
+				range = parseRange(rangeHeader, length);
+			}
+			if (range == UNSATISFIABLE_RANGE) {
+				response.setStatus(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE);
+				response.setHeader("Content-Range", "bytes */" + length);
+				return false;
+			}
+		}
+		boolean result = true;
+		InputStream fis = new BufferedInputStream(inputStream);
 		OutputStream toClient = null;
 		try {
-			fis = new BufferedInputStream(new FileInputStream(file));
-			toClient = new BufferedOutputStream(response.getOutputStream());
-			int readLength;
-			while (((readLength = fis.read(buffer)) != -1)) {
-				toClient.write(buffer, 0, readLength);
+			if (range != null) {
+				response.setStatus(HttpServletResponse.SC_PARTIAL_CONTENT);
+				response.setHeader("Content-Range", "bytes " + range[0] + "-" + range[1] + "/" + length);
+				response.addHeader("Content-Length", "" + (range[1] - range[0] + 1));
+				skip(fis, range[0]);
+				toClient = new BufferedOutputStream(response.getOutputStream());
+				copy(fis, toClient, range[1] - range[0] + 1);
+			} else if (gzip) {
+				response.setHeader("Content-Encoding", "gzip");
+				toClient = new GZIPOutputStream(new BufferedOutputStream(response.getOutputStream()),
+						FILE_DOWNLOAD_BUFFER_SIZE);
+				copy(fis, toClient, Long.MAX_VALUE);
+			} else {
+				if (length >= 0) {
+					response.addHeader("Content-Length", "" + length);
+				}
+				toClient = new BufferedOutputStream(response.getOutputStream());
+				copy(fis, toClient, Long.MAX_VALUE);
 			}
-			toClient.flush();
-		} catch (FileNotFoundException e) {
-			LOGGER.error("file not found:" + file.getAbsolutePath(), e);
-			result = false;
+			toClient.close();
 		} catch (IOException e) {
-			LOGGER.error("read file error:" + file.getAbsolutePath(), e);
+			LOGGER.error("read file error:" + fileName, e);
 			result = false;
 		} finally {
-			IOUtils.closeQuietly(fis);
 			IOUtils.closeQuietly(toClient);
 		}
 		return result;
 	}
+
+	static String createETag(long length, long lastModified, boolean gzip) {
+		return "\"" + Long.toHexString(length) + "-" + Long.toHexString(lastModified) + (gzip ? "-gzip" : "") + "\"";
+	}
+
+	private static boolean isGzipAccepted(HttpServletRequest request) {
+		String acceptEncoding = request.getHeader("Accept-Encoding");
+		if (acceptEncoding == null) {
+			return false;
+		}
+		for (String each : StringUtils.split(acceptEncoding, ',')) {
+			String[] codingAndQuality = StringUtils.split(each, ';');
+			if (codingAndQuality.length > 0 && "gzip".equals(codingAndQuality[0].trim())) {
+				return codingAndQuality.length == 1 || !codingAndQuality[1].trim().matches("q=0(\\.0*)?");
+			}
+		}
+		return false;
+	}
+
+	private static boolean isCompressible(String fileName) {
+		return !COMPRESSED_EXTENSIONS.contains(FilenameUtils.getExtension(fileName).toLowerCase());
+	}
+
+	private static boolean isNotModified(HttpServletRequest request, String etag, long lastModified) {
+		String ifNoneMatch = request.getHeader("If-None-Match");
+		if (ifNoneMatch != null) {
+			for (String each : StringUtils.split(ifNoneMatch, ',')) {
+				String tag = StringUtils.removeStart(each.trim(), "W/");
+				if ("*".equals(tag) || etag.equals(tag)) {
+					return true;
+				}
+			}
+			return false;
+		}
+		long ifModifiedSince = getDateHeader(request, "If-Modified-Since");
+		return ifModifiedSince != -1 && lastModified / 1000 <= ifModifiedSince / 1000;
+	}
+
+	/*
+	 * The range is served only when the If-Range validator matches the current content.
+	 */
+	private static boolean isRangeApplicable(HttpServletRequest request, String etag, long lastModified) {
+		String ifRange = request.getHeader("If-Range");
+		if (ifRange == null) {
+			return true;
+		}
+		if (ifRange.trim().startsWith("\"")) {
+			return etag.equals(ifRange.trim());
+		}
+		long date = getDateHeader(request, "If-Range");
+		return date != -1 && lastModified / 1000 <= date / 1000;
+	}
+
+	private static long getDateHeader(HttpServletRequest request, String name) {
+		try {
+			return request.getDateHeader(name);
+		} catch (IllegalArgumentException e) {
+			return -1;
+		}
+	}
+
+	/**
+	 * Parse the given Range header. Only a single byte range is supported. The multiple ranges
+	 * and the malformed header are ignored, so that the whole content is served.
+	 *
+	 * @param range  Range header value
+	 * @param length content length
+	 * @return the first and the last byte positions. null if the header should be ignored.
+	 */
+	static long[] parseRange(String range, long length) {
+		if (!range.startsWith("bytes=") || range.contains(",")) {
+			return null;
+		}
+		String spec = range.substring("bytes=".length()).trim();
+		int dash = spec.indexOf('-');
+		if (dash < 0) {
+			return null;
+		}
+		try {
+			if (dash == 0) {
+				long suffixLength = Long.parseLong(spec.substring(1));
+				if (suffixLength <= 0 || length == 0) {
+					return UNSATISFIABLE_RANGE;
+				}
+				return new long[]{Math.max(length - suffixLength, 0), length - 1};
+			}
+			long first = Long.parseLong(spec.substring(0, dash));
+			long last = (dash == spec.length() - 1) ? Long.MAX_VALUE : Long.parseLong(spec.substring(dash + 1));
+			if (first > last) {
+				return null;
+			}
+			if (first >= length) {
+				return UNSATISFIABLE_RANGE;
+			}
+			return new long[]{first, Math.min(last, length - 1)};
+		} catch (NumberFormatException e) {
+			return null;
+		}
+	}
+
+	private static void skip(InputStream in, long count) throws IOException {
+		long remaining = count;
+		while (remaining > 0) {
+			long skipped = in.skip(remaining);
+			if (skipped <= 0) {
+				if (in.read() == -1) {
+					throw new EOFException("Content is shorter than " + count);
+				}
+				skipped = 1;
+			}
+			remaining -= skipped;
+		}
+	}
+
+	private static void copy(InputStream in, OutputStream out, long count) throws IOException {
+		byte[] buffer = new byte[FILE_DOWNLOAD_BUFFER_SIZE];
+		long remaining = count;
+		int readLength;
+		while (remaining > 0 && (readLength = in.read(buffer, 0, (int) Math.min(buffer.length, remaining))) != -1) {
+			out.write(buffer, 0, readLength);
+			remaining -= readLength;
+		}
+	}
 }
@@ -0,0 +1,75 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.cluster;
+
+import java.io.Serializable;
+import java.util.UUID;
+
+/**
+ * Event published to the {@link ClusterEventBus}.
+ *
+ * @since 3.4
+ */
+public class ClusterEvent implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String id;
+	private final String topic;
+	private final String sender;
+	private final Serializable payload;
+	private boolean ackRequired;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param topic   topic
+	 * @param sender  region of the controller which publishes this event
+	 * @param payload payload
+	 */
+	public ClusterEvent(String topic, String sender, Serializable payload) {
+		this.id = UUID.randomUUID().toString();
+		this.topic = topic;
+		this.sender = sender;
+		this.payload = payload;
+	}
+
+	public String getId() {
+		return id;
+	}
+
+	public String getTopic() {
+		return topic;
+	}
+
+	public String getSender() {
+		return sender;
+	}
+
+	public Serializable getPayload() {
+		return payload;
+	}
+
+	public boolean isAckRequired() {
+		return ackRequired;
+	}
+
+	void setAckRequired(boolean ackRequired) {
+		this.ackRequired = ackRequired;
+	}
+
+	@Override
+	public String toString() {
+		return "ClusterEvent{topic=" + topic + ", sender=" + sender + ", payload=" + payload + "}";
+	}
+}
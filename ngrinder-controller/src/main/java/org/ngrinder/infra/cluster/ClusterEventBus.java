@@ -0,0 +1,220 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.cluster;
+
+import net.sf.ehcache.CacheException;
+import net.sf.ehcache.Ehcache;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.event.CacheEventListenerAdapter;
+import org.ngrinder.infra.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Event bus b/w the controllers.
+ * <p/>
+ * Events are delivered to the listeners subscribing the topic of the event. In the cluster mode,
+ * events are pushed to the other controllers through the replicated "cluster_events" cache, so
+ * the listeners are called as soon as the event is replicated without polling. Otherwise, events
+ * are dispatched in the current JVM, which is also used in the unit tests.
+ * <p/>
+ * Requests published by {@link #request(ClusterEvent, long)} are acknowledged by the controller
+ * which has a listener on the topic.
+ *
+ * @since 3.4
+ */
+@Component
+public class ClusterEventBus {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ClusterEventBus.class);
+
+	/**
+	 * The name of the cache used as the event transport in the cluster mode.
+	 */
+	public static final String TRANSPORT_CACHE_NAME = "cluster_events";
+
+	private static final String ACK_TOPIC = "ack";
+
+	@Autowired(required = false)
+	private Config config;
+
+	@Autowired(required = false)
+	private CacheManager cacheManager;
+
+	private Ehcache transport;
+
+	private ExecutorService dispatcher;
+
+	private final ConcurrentMap<String, List<ClusterEventListener>> listeners =
+			new ConcurrentHashMap<String, List<ClusterEventListener>>();
+
+	private final ConcurrentMap<String, CountDownLatch> pendingRequests = new ConcurrentHashMap<String, CountDownLatch>();
+
+	/**
+	 * Connect to the other controllers when the cluster mode is enabled.
+	 */
+	@PostConstruct
+	public void init() {
+		if (config == null || !config.isClustered() || cacheManager == null
+				|| cacheManager.getCache(TRANSPORT_CACHE_NAME) == null) {
+			return;
+		}
+		dispatcher = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "cluster-event-dispatcher");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		transport = (Ehcache) cacheManager.getCache(TRANSPORT_CACHE_NAME).getNativeCache();
+		transport.getCacheEventNotificationService().registerListener(new CacheEventListenerAdapter() {
+			@Override
+			public void notifyElementPut(Ehcache cache, Element element) throws CacheException {
+				final Object value = element.getObjectValue();
+				if (value instanceof ClusterEvent) {
+					dispatcher.execute(new Runnable() {
+						@Override
+						public void run() {
+							dispatch((ClusterEvent) value);
+						}
+					});
+				}
+			}
+		});
+	}
+
+	/**
+	 * Stop dispatching the events.
+	 */
+	@PreDestroy
+	public void destroy() {
+		if (dispatcher != null) {
+			dispatcher.shutdownNow();
+		}
+	}
+
+	/**
+	 * Subscribe the given topic.
+	 *
+	 * @param topic    topic
+	 * @param listener listener
+	 */
+	public void subscribe(String topic, ClusterEventListener listener) {
+		List<ClusterEventListener> topicListeners = listeners.get(topic);
+		if (topicListeners == null) {
+			listeners.putIfAbsent(topic, new CopyOnWriteArrayList<ClusterEventListener>());
+			topicListeners = listeners.get(topic);
+		}
+		topicListeners.add(listener);
+	}
+
+	/**
+	 * Unsubscribe the given topic.
+	 *
+	 * @param topic    topic
+	 * @param listener listener
+	 */
+	public void unsubscribe(String topic, ClusterEventListener listener) {
+		List<ClusterEventListener> topicListeners = listeners.get(topic);
+		if (topicListeners != null) {
+			topicListeners.remove(listener);
+		}
+	}
+
+	/**
+	 * Publish the given event to all controllers.
+	 *
+	 * @param event event
+	 */
+	public void publish(ClusterEvent event) {
+		if (transport == null) {
+			dispatch(event);
+		} else {
+			transport.put(new Element(event.getId(), event));
+		}
+	}
+
+	/**
+	 * Publish the given event and wait until a controller acknowledges it.
+	 *
+	 * @param event   event
+	 * @param timeout timeout in ms
+	 * @return true if the event is acknowledged in the timeout
+	 */
+	public boolean request(ClusterEvent event, long timeout) {
+		CountDownLatch latch = new CountDownLatch(1);
+		event.setAckRequired(true);
+		pendingRequests.put(event.getId(), latch);
+		try {
+			publish(event);
+			return latch.await(timeout, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return false;
+		} finally {
+			pendingRequests.remove(event.getId());
+		}
+	}
+
+	void dispatch(ClusterEvent event) {
+		if (ACK_TOPIC.equals(event.getTopic())) {
+			CountDownLatch latch = pendingRequests.get(String.valueOf(event.getPayload()));
+			if (latch != null) {
+				latch.countDown();
+			}
+			return;
+		}
+		List<ClusterEventListener> topicListeners = listeners.get(event.getTopic());
+		if (topicListeners == null || topicListeners.isEmpty()) {
+			return;
+		}
+		for (ClusterEventListener each : topicListeners) {
+			try {
+				each.onEvent(event);
+			} catch (Exception e) {
+				LOGGER.error("Error while handling {} : {}", event, e.getMessage());
+				LOGGER.debug("Details : ", e);
+			}
+		}
+		if (event.isAckRequired()) {
+			publish(new ClusterEvent(ACK_TOPIC, getRegion(), event.getId()));
+		}
+	}
+
+	private String getRegion() {
+		return (config == null) ? "" : config.getRegion();
+	}
+
+	/**
+	 * For unit test.
+	 */
+	public void setConfig(Config config) {
+		this.config = config;
+	}
+}
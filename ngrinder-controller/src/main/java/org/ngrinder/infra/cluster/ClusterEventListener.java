@@ -0,0 +1,28 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.cluster;
+
+/**
+ * Listener of the {@link ClusterEvent}s on a topic.
+ *
+ * @since 3.4
+ */
+public interface ClusterEventListener {
+	/**
+	 * Called when the event is published on the subscribed topic.
+	 *
+	 * @param event event
+	 */
+	void onEvent(ClusterEvent event);
+}
@@ -0,0 +1,4 @@
+/**
+ * package containing the event bus b/w the clustered controllers.
+ */
+package org.ngrinder.infra.cluster;
@@ -26,6 +26,7 @@ import org.ngrinder.common.constant.ClusterConstants;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.constants.InternalConstants;
 import org.ngrinder.common.exception.ConfigurationException;
+import org.ngrinder.common.metrics.Metrics;
 import org.ngrinder.common.model.Home;
 import org.ngrinder.common.util.FileWatchdog;
 import org.ngrinder.common.util.PropertiesKeyMapper;
@@ -434,6 +435,8 @@ public class Config extends AbstractConfig implements ControllerConstants, Clust
 		// Override if exists
 		controllerProperties = new PropertiesWrapper(properties, controllerPropertiesKeyMapper);
 		clusterProperties = new PropertiesWrapper(properties, clusterPropertiesKeyMapper);
+		Metrics.configure(controllerProperties.getPropertyBoolean(PROP_CONTROLLER_ENABLE_STATISTICS),
+				controllerProperties.getPropertyInt(PROP_CONTROLLER_METRICS_SAMPLING_RATE));
 	}
 
 	/**
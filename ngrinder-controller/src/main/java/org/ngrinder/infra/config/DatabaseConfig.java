@@ -25,6 +25,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.orm.jpa.JpaTransactionManager;
 import org.springframework.orm.jpa.LocalContainerEntityManagerFactoryBean;
 import org.springframework.orm.jpa.persistenceunit.MutablePersistenceUnitInfo;
@@ -60,6 +61,17 @@ public class DatabaseConfig implements DatabaseConstants {
 		return dataSource;
 	}
 
+	/**
+	 * Create the {@link JdbcTemplate} shared by the repositories writing in JDBC batches.
+	 *
+	 * @return {@link JdbcTemplate}
+	 * @since 3.4
+	 */
+	@Bean
+	public JdbcTemplate jdbcTemplate() {
+		return new JdbcTemplate(dataSource());
+	}
+
 	/**
 	 * Create {@link LocalContainerEntityManagerFactoryBean} bean for Hibernate. Hibernate doesn't
 	 * support the search for the {@link Entity} classes in the other Jar files. This method
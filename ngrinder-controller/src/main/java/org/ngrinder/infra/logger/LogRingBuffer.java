@@ -0,0 +1,147 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.logger;
+
+import java.util.List;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * Fixed size ring buffer of log lines.
+ * <p/>
+ * Each line gets a monotonically increasing sequence number. Readers ask for the lines after the
+ * sequence they have read so far, so each read returns only the new lines. When the buffer is
+ * full, the oldest lines are overwritten and the readers are told how many lines they missed.
+ *
+ * @since 3.4
+ */
+public class LogRingBuffer {
+	private final String[] lines;
+	private final int maxLineLength;
+	private long nextSequence = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity      max count of the lines kept
+	 * @param maxLineLength max length of each line. The longer line is truncated.
+	 */
+	public LogRingBuffer(int capacity, int maxLineLength) {
+		this.lines = new String[capacity];
+		this.maxLineLength = maxLineLength;
+	}
+
+	/**
+	 * Append the given line.
+	 *
+	 * @param line log line
+	 */
+	public synchronized void append(String line) {
+		if (line.length() > maxLineLength) {
+			line = line.substring(0, maxLineLength) + "...";
+		}
+		lines[(int) (nextSequence % lines.length)] = line;
+		nextSequence++;
+		notifyAll();
+	}
+
+	/**
+	 * Get the lines after the given offset. If there is no new line, it waits for the new line
+	 * during the given wait time.
+	 *
+	 * @param offset   the sequence to read from. It's the offset returned by the previous read.
+	 * @param maxCount max count of the lines returned
+	 * @param wait     max wait time in milliseconds. 0 to return immediately.
+	 * @return log lines
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public synchronized LogLines getAfter(long offset, int maxCount, long wait) throws InterruptedException {
+		long deadline = System.currentTimeMillis() + wait;
+		long remaining = wait;
+		while (offset >= nextSequence && remaining > 0) {
+			wait(remaining);
+			remaining = deadline - System.currentTimeMillis();
+		}
+		long oldest = Math.max(0, nextSequence - lines.length);
+		long from = Math.max(Math.min(offset, nextSequence), oldest);
+		long to = Math.min(nextSequence, from + maxCount);
+		List<String> result = newArrayList();
+		for (long sequence = from; sequence < to; sequence++) {
+			result.add(lines[(int) (sequence % lines.length)]);
+		}
+		return new LogLines(from, to, Math.max(0, from - Math.max(offset, 0)), result);
+	}
+
+	/**
+	 * Get the latest lines.
+	 *
+	 * @param maxCount max count of the lines returned
+	 * @return log lines
+	 */
+	public synchronized LogLines getLast(int maxCount) {
+		try {
+			return getAfter(Math.max(0, nextSequence - maxCount), maxCount, 0);
+		} catch (InterruptedException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Log lines read from {@link LogRingBuffer}.
+	 */
+	public static class LogLines {
+		private final long from;
+		private final long offset;
+		private final long lost;
+		private final List<String> lines;
+
+		LogLines(long from, long offset, long lost, List<String> lines) {
+			this.from = from;
+			this.offset = offset;
+			this.lost = lost;
+			this.lines = lines;
+		}
+
+		/**
+		 * Get the sequence of the first line.
+		 *
+		 * @return sequence
+		 */
+		public long getFrom() {
+			return from;
+		}
+
+		/**
+		 * Get the offset to be used for the next read.
+		 *
+		 * @return offset
+		 */
+		public long getOffset() {
+			return offset;
+		}
+
+		/**
+		 * Get the count of the lines which were overwritten before being read.
+		 *
+		 * @return lost line count
+		 */
+		public long getLost() {
+			return lost;
+		}
+
+		public List<String> getLines() {
+			return lines;
+		}
+	}
+}
@@ -16,6 +16,8 @@ package org.ngrinder.operation.cotroller;
 import org.apache.commons.io.input.Tailer;
 import org.apache.commons.io.input.TailerListenerAdapter;
 import org.ngrinder.common.controller.BaseController;
+import org.ngrinder.infra.logger.LogRingBuffer;
+import org.ngrinder.infra.logger.LogRingBuffer.LogLines;
 import org.springframework.http.HttpEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.stereotype.Controller;
@@ -26,6 +28,7 @@ import org.springframework.web.bind.annotation.RequestParam;
 import javax.annotation.PostConstruct;
 import javax.annotation.PreDestroy;
 import java.io.File;
+import java.util.List;
 
 import static org.ngrinder.common.util.CollectionUtils.buildMap;
 
@@ -33,8 +36,8 @@ import static org.ngrinder.common.util.CollectionUtils.buildMap;
  * Log monitor controller.
  *
  * This class runs with {@link Tailer} implementation. Whenever the underlying log file is changed. this class gets the
- * changes. and keep them(max 10000 byte) in the memory. Whenever user requests the log, it returns latest changes with
- * the index of the log.
+ * changes. and keep the latest lines in the fixed size {@link LogRingBuffer}. Whenever user requests the log with the
+ * offset which is returned by the previous request, it returns only the lines after the offset.
  *
  * This is only available in the non-clustered instance.
  *
@@ -45,18 +48,21 @@ import static org.ngrinder.common.util.CollectionUtils.buildMap;
 @PreAuthorize("hasAnyRole('A')")
 public class LogMonitorController extends BaseController {
 
-	private static final int LOGGER_BUFFER_SIZE = 10000;
+	private static final int LOGGER_BUFFER_LINE_COUNT = 1000;
+
+	private static final int LOGGER_MAX_LINE_LENGTH = 2000;
+
+	private static final int MAX_LINE_COUNT_PER_REQUEST = 200;
+
+	private static final long MAX_WAIT = 30000;
 
 	/**
 	 * Buffer to store the latest log.
 	 */
-	private volatile StringBuffer stringBuffer = new StringBuffer(LOGGER_BUFFER_SIZE);
+	private final LogRingBuffer logBuffer = new LogRingBuffer(LOGGER_BUFFER_LINE_COUNT, LOGGER_MAX_LINE_LENGTH);
 
 	private Tailer tailer;
 
-	private long count = 0;
-	private long modification = 0;
-
 	/**
 	 * Initialize.
 	 */
@@ -83,18 +89,7 @@ public class LogMonitorController extends BaseController {
 			 *            the line.
 			 */
 			public void handle(String line) {
-				synchronized (this) {
-					if (stringBuffer.length() + line.length() > 5000) {
-						count++;
-						modification = 0;
-						stringBuffer = new StringBuffer();
-					}
-					modification++;
-					if (stringBuffer.length() > 0) {
-						stringBuffer.append("<br>");
-					}
-					stringBuffer.append(line.replace("\n", "<br>"));
-				}
+				logBuffer.append(line);
 			}
 		}, 1000, true);
 	}
@@ -138,7 +133,41 @@ public class LogMonitorController extends BaseController {
 	 */
 	@RequestMapping("/last")
 	public HttpEntity<String> getLast() {
-		return toJsonHttpEntity(buildMap("index", count, "modification", modification, "log", stringBuffer));
+		LogLines lines = logBuffer.getLast(MAX_LINE_COUNT_PER_REQUEST);
+		return toJsonHttpEntity(buildMap("index", lines.getFrom(), "offset", lines.getOffset(), "log",
+				join(lines.getLines())));
+	}
+
+	/**
+	 * Get the log lines after the given offset in the form of json. If there is no new line, it
+	 * waits for the new line during the given wait time.
+	 *
+	 * @param offset offset returned by the previous request. 0 for the first request.
+	 * @param wait   max wait time in milliseconds. It's limited to 30 seconds.
+	 * @return log json which has the lines, the offset for the next request and the count of the
+	 * lines which were overwritten before being read.
+	 * @throws InterruptedException if interrupted while waiting
+	 * @since 3.4
+	 */
+	@RequestMapping("/after")
+	public HttpEntity<String> getAfter(@RequestParam(value = "offset", defaultValue = "0") long offset,
+	                                   @RequestParam(value = "wait", defaultValue = "0") long wait)
+			throws InterruptedException {
+		LogLines lines = logBuffer.getAfter(offset, MAX_LINE_COUNT_PER_REQUEST,
+				Math.max(0, Math.min(wait, MAX_WAIT)));
+		return toJsonHttpEntity(buildMap("offset", lines.getOffset(), "lost", lines.getLost(), "lines",
+				lines.getLines()));
+	}
+
+	private String join(List<String> lines) {
+		StringBuilder builder = new StringBuilder();
+		for (String each : lines) {
+			if (builder.length() > 0) {
+				builder.append("<br>");
+			}
+			builder.append(each);
+		}
+		return builder.toString();
 	}
 
 	/**
@@ -0,0 +1,62 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.operation.cotroller;
+
+import org.ngrinder.common.controller.BaseController;
+import org.ngrinder.common.metrics.Metrics;
+import org.springframework.http.HttpEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.stereotype.Controller;
+import org.springframework.ui.Model;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+import java.util.Map;
+
+/**
+ * Controller which shows the internal metrics of the controller.
+ * <p/>
+ * The metrics are recorded only when controller.enable_statistics is true.
+ *
+ * @since 3.4
+ */
+@Controller
+@RequestMapping("/operation/metrics")
+@PreAuthorize("hasAnyRole('A')")
+public class MetricsController extends BaseController {
+
+	/**
+	 * Open the metrics page.
+	 *
+	 * @param model model
+	 * @return operation/metrics
+	 */
+	@RequestMapping("")
+	public String open(Model model) {
+		model.addAttribute("enabled", Metrics.isEnabled());
+		return "operation/metrics";
+	}
+
+	/**
+	 * Get the current metrics in the form of json.
+	 *
+	 * @return metrics json
+	 */
+	@RequestMapping("/api")
+	public HttpEntity<String> getMetrics() {
+		Map<String, Object> metrics = Metrics.getSnapshot();
+		metrics.put("enabled", Metrics.isEnabled());
+		metrics.put("samplingRate", Metrics.getSamplingRate());
+		return toJsonHttpEntity(metrics);
+	}
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.controller.BaseController;
+import org.ngrinder.common.metrics.Metrics;
 import org.ngrinder.infra.config.Config;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.cache.Cache;
@@ -61,7 +62,7 @@ public class StatisticsController extends BaseController implements ControllerCo
 	/**
 	 * Get collect current statistics.
 	 * 
-	 * @return json string, for jvm/ehcache/dbcp statistics
+	 * @return json string, for jvm/ehcache/dbcp statistics and the internal metrics
 	 */
 	@ResponseBody
 	@RequestMapping(value = {"", "/"}, method = RequestMethod.GET)
@@ -78,6 +79,7 @@ public class StatisticsController extends BaseController implements ControllerCo
 		data.put("jvm", getJVMStat());
 		data.put("ehcache", getEhcacheStat());
 		data.put("dbcp", getDbcpStat());
+		data.put("metrics", Metrics.getSnapshot());
 
 		result.put("success", true);
 		result.put("data", data);
@@ -16,6 +16,7 @@ package org.ngrinder.perftest.controller;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
+import net.grinder.StopRules;
 import net.grinder.util.LogCompressUtils;
 import net.grinder.util.Pair;
 import org.apache.commons.io.FilenameUtils;
@@ -27,15 +28,21 @@ import org.ngrinder.agent.service.AgentManagerService;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.controller.BaseController;
 import org.ngrinder.common.controller.RestAPI;
+import org.ngrinder.common.model.Home;
 import org.ngrinder.common.util.DateUtils;
 import org.ngrinder.common.util.FileDownloadUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.logger.CoreLogger;
 import org.ngrinder.infra.spring.RemainedPath;
 import org.ngrinder.model.*;
+import org.ngrinder.perftest.model.ProfiledMethod;
 import org.ngrinder.perftest.service.AgentManager;
+import org.ngrinder.perftest.service.PerfTestComparisonService;
+import org.ngrinder.perftest.service.PerfTestMetricsService;
 import org.ngrinder.perftest.service.PerfTestService;
+import org.ngrinder.perftest.service.ReportArchive;
 import org.ngrinder.perftest.service.TagService;
+import org.ngrinder.profile.ProfileSummary;
 import org.ngrinder.region.service.RegionService;
 import org.ngrinder.script.handler.ScriptHandlerFactory;
 import org.ngrinder.script.model.FileCategory;
@@ -53,15 +60,20 @@ import org.springframework.data.web.PageableDefault;
 import org.springframework.http.HttpEntity;
 import org.springframework.stereotype.Controller;
 import org.springframework.ui.ModelMap;
+import org.springframework.util.DigestUtils;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.annotation.Nullable;
 import javax.annotation.PostConstruct;
 import javax.servlet.ServletOutputStream;
+import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
-import java.io.File;
-import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.Writer;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.util.*;
 
 import static com.google.common.collect.Iterables.filter;
@@ -84,6 +96,9 @@ import static org.ngrinder.common.util.Preconditions.*;
 @RequestMapping("/perftest")
 public class PerfTestController extends BaseController {
 
+	private static final int MAX_REQUEST_EVENT_SIZE = 1000;
+	private static final int MAX_PROFILED_METHOD_SIZE = 200;
+
 	@Autowired
 	private PerfTestService perfTestService;
 
@@ -108,6 +123,12 @@ public class PerfTestController extends BaseController {
 	@Autowired
 	private RegionService regionService;
 
+	@Autowired
+	private PerfTestMetricsService perfTestMetricsService;
+
+	@Autowired
+	private PerfTestComparisonService perfTestComparisonService;
+
 	private Gson fileEntryGson;
 
 	/**
@@ -138,7 +159,7 @@ public class PerfTestController extends BaseController {
 		pageable = new PageRequest(pageable.getPageNumber() - 1, pageable.getPageSize(),
 				defaultIfNull(pageable.getSort(),
 						new Sort(Direction.DESC, "lastModifiedDate")));
-		Page<PerfTest> tests = perfTestService.getPagedAll(user, query, tag, queryFilter, pageable);
+		Page<PerfTest> tests = perfTestService.getPagedSummaries(user, query, tag, queryFilter, pageable);
 		annotateDateMarker(tests);
 		model.addAttribute("tag", tag);
 		model.addAttribute("availTags", tagService.getAllTagStrings(user, StringUtils.EMPTY));
@@ -373,6 +394,7 @@ public class PerfTestController extends BaseController {
 		}
 		checkArgument(newOne.getVuserPerAgent() == newOne.getProcesses() * newOne.getThreads(),
 				"vuserPerAgent should be equal to (processes * threads)");
+		StopRules.parse(newOne.getStopRules());
 	}
 
 	/**
@@ -412,8 +434,9 @@ public class PerfTestController extends BaseController {
 			result.put("status_type", each.getStatus());
 			result.put("name", getMessages(each.getStatus().getSpringMessageKey()));
 			result.put("icon", each.getStatus().getIconName());
+			String[] progress = perfTestService.getLatestProgress(each);
 			result.put("message",
-					StringUtils.replace(each.getProgressMessage() + "\n<b>" + each.getLastProgressMessage() + "</b>\n"
+					StringUtils.replace(progress[0] + "\n<b>" + progress[1] + "</b>\n"
 							+ each.getLastModifiedDateToStr(), "\n", "<br/>"));
 			result.put("deletable", each.getStatus().isDeletable());
 			result.put("stoppable", each.getStatus().isStoppable());
@@ -532,14 +555,21 @@ public class PerfTestController extends BaseController {
 	 *
 	 * @param user     user
 	 * @param id       test id
+	 * @param request  request
 	 * @param response response
 	 */
 	@RequestMapping(value = "/{id}/download_csv")
-	public void downloadCSV(User user, @PathVariable("id") long id, HttpServletResponse response) {
+	public void downloadCSV(User user, @PathVariable("id") long id, HttpServletRequest request,
+	                        HttpServletResponse response) {
 		PerfTest test = getOneWithPermissionCheck(user, id, false);
-		File targetFile = perfTestService.getCsvReportFile(test);
-		checkState(targetFile.exists(), "File %s doesn't exist!", targetFile.getName());
-		FileDownloadUtils.downloadFile(response, targetFile);
+		ReportArchive.Entry report = perfTestService.getCsvReport(test);
+		checkState(report != null, "File %s doesn't exist!", Home.REPORT_CSV);
+		try {
+			FileDownloadUtils.downloadFile(request, response, report.getName(), report.getLength(),
+					report.getLastModified(), report.getInputStream());
+		} finally {
+			report.close();
+		}
 	}
 
 	/**
@@ -548,14 +578,23 @@ public class PerfTestController extends BaseController {
 	 * @param user     user
 	 * @param id       test id
 	 * @param path     path in the log folder
+	 * @param request  request
 	 * @param response response
 	 */
 	@RequestMapping(value = "/{id}/download_log/**")
 	public void downloadLog(User user, @PathVariable("id") long id, @RemainedPath String path,
-	                        HttpServletResponse response) {
+	                        HttpServletRequest request, HttpServletResponse response) {
 		getOneWithPermissionCheck(user, id, false);
-		File targetFile = perfTestService.getLogFile(id, path);
-		FileDownloadUtils.downloadFile(response, targetFile);
+		ReportArchive.Entry logFile = perfTestService.openLogFile(id, path);
+		if (logFile == null) {
+			return;
+		}
+		try {
+			FileDownloadUtils.downloadFile(request, response, logFile.getName(), logFile.getLength(),
+					logFile.getLastModified(), logFile.getInputStream());
+		} finally {
+			logFile.close();
+		}
 	}
 
 	/**
@@ -569,15 +608,17 @@ public class PerfTestController extends BaseController {
 	@RequestMapping(value = "/{id}/show_log/**")
 	public void showLog(User user, @PathVariable("id") long id, @RemainedPath String path, HttpServletResponse response) {
 		getOneWithPermissionCheck(user, id, false);
-		File targetFile = perfTestService.getLogFile(id, path);
+		ReportArchive.Entry logFile = perfTestService.openLogFile(id, path);
 		response.reset();
 		response.setContentType("text/plain");
 		response.setCharacterEncoding("UTF-8");
-		FileInputStream fileInputStream = null;
+		if (logFile == null) {
+			return;
+		}
+		InputStream fileInputStream = logFile.getInputStream();
 		try {
-			fileInputStream = new FileInputStream(targetFile);
 			ServletOutputStream outputStream = response.getOutputStream();
-			if (FilenameUtils.isExtension(targetFile.getName(), "zip")) {
+			if (FilenameUtils.isExtension(logFile.getName(), "zip")) {
 				// Limit log view to 1MB
 				outputStream.println(" Only the last 1MB of a log shows.\n");
 				outputStream.println("==========================================================================\n\n");
@@ -586,23 +627,29 @@ public class PerfTestController extends BaseController {
 				IOUtils.copy(fileInputStream, outputStream);
 			}
 		} catch (Exception e) {
-			CoreLogger.LOGGER.error("Error while processing log. {}", targetFile, e);
+			CoreLogger.LOGGER.error("Error while processing log. {}", path, e);
 		} finally {
-			IOUtils.closeQuietly(fileInputStream);
+			logFile.close();
 		}
 	}
 
 	/**
-	 * Get the running perf test info having the given id.
+	 * Get the running perf test info having the given id. The ETag is made of the last sample, so
+	 * 304 is returned when the sample is not updated since the previous poll.
 	 *
-	 * @param user user
-	 * @param id   test id
+	 * @param user       user
+	 * @param id         test id
+	 * @param webRequest request
 	 * @return JSON message	containing test,agent and monitor status.
 	 */
 	@RequestMapping(value = "/{id}/api/sample")
 	@RestAPI
-	public HttpEntity<String> refreshTestRunning(User user, @PathVariable("id") long id) {
+	public HttpEntity<String> refreshTestRunning(User user, @PathVariable("id") long id, WebRequest webRequest) {
 		PerfTest test = checkNotNull(getOneWithPermissionCheck(user, id, false), "given test should be exist : " + id);
+		String sample = test.getStatus() + test.getRunningSample() + test.getAgentState() + test.getMonitorState();
+		if (webRequest.checkNotModified(DigestUtils.md5DigestAsHex(sample.getBytes(StandardCharsets.UTF_8)))) {
+			return null;
+		}
 		Map<String, Object> map = newHashMap();
 		map.put("status", test.getStatus());
 		map.put("perf", perfTestService.getStatistics(test));
@@ -611,6 +658,24 @@ public class PerfTestController extends BaseController {
 		return toJsonHttpEntity(map);
 	}
 
+	/**
+	 * Get the statistics of the running tests in the OpenMetrics text format.
+	 * Only the tests running on this controller are exported.
+	 *
+	 * @param user     user
+	 * @param response response
+	 * @throws IOException occurs when the response can not be written
+	 * @since 3.4
+	 */
+	@RestAPI
+	@RequestMapping(value = "/api/metrics", method = RequestMethod.GET)
+	public void getMetrics(User user, HttpServletResponse response) throws IOException {
+		response.setContentType(PerfTestMetricsService.CONTENT_TYPE);
+		Writer writer = response.getWriter();
+		perfTestMetricsService.write(user, writer);
+		writer.flush();
+	}
+
 	/**
 	 * Get the detailed perf test report.
 	 *
@@ -672,6 +737,30 @@ public class PerfTestController extends BaseController {
 	}
 
 
+	/**
+	 * Get the request event report section.
+	 *
+	 * @param id test id
+	 * @return perftest/detail_report/request_events
+	 */
+	@SuppressWarnings("UnusedParameters")
+	@RequestMapping("/{id}/detail_report/request_events")
+	public String getDetailRequestEventReport(@PathVariable("id") long id) {
+		return "perftest/detail_report/request_events";
+	}
+
+	/**
+	 * Get the worker profile report section.
+	 *
+	 * @param id test id
+	 * @return perftest/detail_report/profile
+	 */
+	@SuppressWarnings("UnusedParameters")
+	@RequestMapping("/{id}/detail_report/profile")
+	public String getDetailProfileReport(@PathVariable("id") long id) {
+		return "perftest/detail_report/profile";
+	}
+
 	private PerfTest getOneWithPermissionCheck(User user, Long id, boolean withTag) {
 		PerfTest perfTest = withTag ? perfTestService.getOneWithTag(id) : perfTestService.getOne(id);
 		if (user.getRole().equals(Role.ADMIN) || user.getRole().equals(Role.SUPER_USER)) {
@@ -683,6 +772,12 @@ public class PerfTestController extends BaseController {
 		return perfTest;
 	}
 
+	private PerfTest getFinishedOneWithPermissionCheck(User user, Long id) {
+		PerfTest perfTest = checkNotNull(getOneWithPermissionCheck(user, id, false), "PerfTest %s does not exists", id);
+		checkArgument(perfTest.getStatus().isReportable(), "PerfTest %s is not finished yet.", id);
+		return perfTest;
+	}
+
 
 	private Map<String, String> getMonitorGraphData(long id, String targetIP, int imgWidth) {
 		int interval = perfTestService.getMonitorGraphInterval(id, targetIP, imgWidth);
@@ -790,13 +885,115 @@ public class PerfTestController extends BaseController {
 		return toJsonHttpEntity(perfTestService.getLogFiles(id));
 	}
 
+	/**
+	 * Get the slowest request events recorded by the workers of the given perf test.
+	 *
+	 * @param user        user
+	 * @param id          perftest id
+	 * @param testNumber  test number. 0 if all tests should be included.
+	 * @param minDuration minimum duration in ms
+	 * @param errorOnly   true if only the failed requests should be included
+	 * @param size        maximum count of the events
+	 * @return JSON message containing request events
+	 */
+	@RestAPI
+	@RequestMapping("/api/{id}/request_events")
+	public HttpEntity<String> getRequestEvents(User user, @PathVariable("id") Long id,
+	                                           @RequestParam(value = "testNumber", defaultValue = "0") int testNumber,
+	                                           @RequestParam(value = "minDuration", defaultValue = "0") long minDuration,
+	                                           @RequestParam(value = "errorOnly", defaultValue = "false") boolean errorOnly,
+	                                           @RequestParam(value = "size", defaultValue = "100") int size) {
+		getOneWithPermissionCheck(user, id, false);
+		return toJsonHttpEntity(perfTestService.getRequestEvents(id, testNumber, minDuration, errorOnly,
+				Math.min(size, MAX_REQUEST_EVENT_SIZE)));
+	}
+
+	/**
+	 * Get the hot method and allocation summary aggregated from the worker profiles of the given
+	 * perf test.
+	 *
+	 * @param user user
+	 * @param id   perftest id
+	 * @param size maximum count of the methods in each list
+	 * @return JSON message containing the profile summary. profiled is false if no worker was profiled.
+	 */
+	@RestAPI
+	@RequestMapping("/api/{id}/profile")
+	public HttpEntity<String> getProfile(User user, @PathVariable("id") Long id,
+	                                     @RequestParam(value = "size", defaultValue = "30") int size) {
+		getOneWithPermissionCheck(user, id, false);
+		ProfileSummary summary = perfTestService.getProfileSummary(id);
+		Map<String, Object> result = newHashMap();
+		result.put("profiled", summary != null);
+		if (summary == null) {
+			return toJsonHttpEntity(result);
+		}
+		size = Math.min(size, MAX_PROFILED_METHOD_SIZE);
+		result.put("workers", summary.getWorkers());
+		result.put("samples", summary.getSamples());
+		result.put("duration", summary.getDuration());
+		result.put("gcCount", summary.getGcCount());
+		result.put("gcTime", summary.getGcTime());
+		result.put("hotMethods", toProfiledMethods(summary.getHotMethods(size), summary.getSamples()));
+		result.put("allocatingMethods", toProfiledMethods(summary.getAllocatingMethods(size), summary.getSamples()));
+		return toJsonHttpEntity(result);
+	}
+
+	private List<ProfiledMethod> toProfiledMethods(List<ProfileSummary.Method> methods, long samples) {
+		List<ProfiledMethod> result = newArrayList();
+		for (ProfileSummary.Method each : methods) {
+			result.add(new ProfiledMethod(each, samples));
+		}
+		return result;
+	}
+
+	/**
+	 * Get the steady state summary of the given finished perf test.
+	 *
+	 * @param user user
+	 * @param id   perftest id
+	 * @return JSON message containing the summary
+	 */
+	@RestAPI
+	@RequestMapping("/api/{id}/summary")
+	public HttpEntity<String> getSummary(User user, @PathVariable("id") Long id) {
+		return toJsonHttpEntity(perfTestComparisonService.getSummary(getFinishedOneWithPermissionCheck(user, id)));
+	}
+
+	/**
+	 * Compare the candidate perf test against the baseline perf test. The verdict is FAIL if any
+	 * metric of the candidate is regressed significantly over the threshold.
+	 *
+	 * @param user              user
+	 * @param baseline          baseline perftest id
+	 * @param candidate         candidate perftest id
+	 * @param threshold         allowed TPS and mean test time degradation in %
+	 * @param errorThreshold    allowed error ratio increase in % point
+	 * @param significanceLevel significance level of the difference
+	 * @return JSON message containing the deltas and the verdict
+	 */
+	@RestAPI
+	@RequestMapping("/api/compare")
+	public HttpEntity<String> compare(User user, @RequestParam("baseline") Long baseline,
+	                                  @RequestParam("candidate") Long candidate,
+	                                  @RequestParam(value = "threshold", defaultValue = "5") double threshold,
+	                                  @RequestParam(value = "errorThreshold", defaultValue = "1") double errorThreshold,
+	                                  @RequestParam(value = "significanceLevel", defaultValue = "0.05")
+	                                  double significanceLevel) {
+		checkArgument(threshold >= 0 && errorThreshold >= 0, "thresholds should not be negative.");
+		checkArgument(significanceLevel > 0 && significanceLevel < 1, "significanceLevel should be between 0 and 1.");
+		return toJsonHttpEntity(perfTestComparisonService.compare(getFinishedOneWithPermissionCheck(user, baseline),
+				getFinishedOneWithPermissionCheck(user, candidate), threshold, errorThreshold, significanceLevel));
+	}
+
 	/**
 	 * Get the detailed report graph data for the given perf test id.
 	 * This method returns the appropriate points based on the given imgWidth.
 	 *
 	 * @param id       test id
-	 * @param dataType which data
-	 * @param imgWidth imageWidth
+	 * @param dataType   which data
+	 * @param imgWidth   imageWidth
+	 * @param webRequest request
 	 * @return json string.
 	 */
 	@SuppressWarnings("MVCPathVariableInspection")
@@ -805,8 +1002,11 @@ public class PerfTestController extends BaseController {
 	public HttpEntity<String> getPerfGraph(@PathVariable("id") long id,
 	                                       @RequestParam(required = true, defaultValue = "") String dataType,
 	                                       @RequestParam(defaultValue = "false") boolean onlyTotal,
-	                                       @RequestParam int imgWidth) {
+	                                       @RequestParam int imgWidth, WebRequest webRequest) {
 		String[] dataTypes = checkNotEmpty(StringUtils.split(dataType, ","), "dataType argument should be provided");
+		if (isReportNotModified(id, webRequest)) {
+			return null;
+		}
 		return toJsonHttpEntity(getPerfGraphData(id, dataTypes, onlyTotal, imgWidth));
 	}
 
@@ -815,14 +1015,19 @@ public class PerfTestController extends BaseController {
 	 * Get the monitor data of the target having the given IP.
 	 *
 	 * @param id       test Id
-	 * @param targetIP targetIP
-	 * @param imgWidth image width
+	 * @param targetIP   targetIP
+	 * @param imgWidth   image width
+	 * @param webRequest request
 	 * @return json message
 	 */
 	@RestAPI
 	@RequestMapping("/api/{id}/monitor")
 	public HttpEntity<String> getMonitorGraph(@PathVariable("id") long id,
-	                                          @RequestParam("targetIP") String targetIP, @RequestParam int imgWidth) {
+	                                          @RequestParam("targetIP") String targetIP, @RequestParam int imgWidth,
+	                                          WebRequest webRequest) {
+		if (isReportNotModified(id, webRequest)) {
+			return null;
+		}
 		return toJsonHttpEntity(getMonitorGraphData(id, targetIP, imgWidth));
 	}
 
@@ -831,18 +1036,35 @@ public class PerfTestController extends BaseController {
 	 *
 	 * @param id       test Id
 	 * @param plugin   monitor plugin category
-	 * @param kind     kind
-	 * @param imgWidth image width
+	 * @param kind       kind
+	 * @param imgWidth   image width
+	 * @param webRequest request
 	 * @return json message
 	 */
 	@RestAPI
 	@RequestMapping("/api/{id}/plugin/{plugin}")
 	public HttpEntity<String> getPluginGraph(@PathVariable("id") long id,
 	                                         @PathVariable("plugin") String plugin,
-	                                         @RequestParam("kind") String kind, @RequestParam int imgWidth) {
+	                                         @RequestParam("kind") String kind, @RequestParam int imgWidth,
+	                                         WebRequest webRequest) {
+		if (isReportNotModified(id, webRequest)) {
+			return null;
+		}
 		return toJsonHttpEntity(getReportPluginGraphData(id, plugin, kind, imgWidth));
 	}
 
+	/*
+	 * The report of a finished test doesn't change anymore. The ETag is made of the finish time, so
+	 * the report files are not read again for the same request.
+	 */
+	private boolean isReportNotModified(long id, WebRequest webRequest) {
+		PerfTest perfTest = perfTestService.getOne(id);
+		if (perfTest == null || !perfTest.getStatus().isReportable() || perfTest.getFinishTime() == null) {
+			return false;
+		}
+		return webRequest.checkNotModified(id + "-" + perfTest.getFinishTime().getTime());
+	}
+
 	private Map<String, Object> getReportPluginGraphData(long id, String plugin, String kind, int imgWidth) {
 		int interval = perfTestService.getReportPluginGraphInterval(id, plugin, kind, imgWidth);
 		Map<String, Object> pluginMonitorData = perfTestService.getReportPluginGraph(id, plugin, kind, interval);
@@ -859,15 +1081,21 @@ public class PerfTestController extends BaseController {
 	/**
 	 * Get the last perf test details in the form of json.
 	 *
-	 * @param user user
-	 * @param page page
-	 * @param size size of retrieved perf test
+	 * @param user   user
+	 * @param page   page
+	 * @param size   size of retrieved perf test
+	 * @param before if provided, the tests whose id is less than it are retrieved instead of the page.
+	 *               It's faster than the page for the deep pages.
 	 * @return json string
 	 */
 	@RestAPI
 	@RequestMapping(value = {"/api/last", "/api", "/api/"}, method = RequestMethod.GET)
 	public HttpEntity<String> getAll(User user, @RequestParam(value = "page", defaultValue = "0") int page,
-	                                 @RequestParam(value = "size", defaultValue = "1") int size) {
+	                                 @RequestParam(value = "size", defaultValue = "1") int size,
+	                                 @RequestParam(value = "before", required = false) Long before) {
+		if (before != null) {
+			return toJsonHttpEntity(perfTestService.getAllBefore(user, null, null, null, before, size));
+		}
 		PageRequest pageRequest = new PageRequest(page, size, new Sort(Direction.DESC, "id"));
 		Page<PerfTest> testList = perfTestService.getPagedAll(user, null, null, null, pageRequest);
 		return toJsonHttpEntity(testList.getContent());
@@ -0,0 +1,210 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.model;
+
+import com.google.gson.annotations.Expose;
+import org.ngrinder.model.PerfTest;
+
+import java.util.List;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * Comparison result of a candidate {@link PerfTest} against a baseline {@link PerfTest}.
+ * <p/>
+ * The verdict is {@link Verdict#FAIL} if any metric of the total or the tests existing in both
+ * runs is regressed more than the threshold and the difference is statistically significant.
+ *
+ * @since 3.4
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class PerfTestComparison {
+
+	/**
+	 * Compared metrics.
+	 */
+	public enum Metric {
+		/** Higher is better. The change is given in %. */
+		TPS,
+		/** Lower is better. The change is given in %. */
+		MEAN_TEST_TIME,
+		/** Lower is better. The change is given in % point. */
+		ERROR_RATIO
+	}
+
+	/**
+	 * Comparison verdict.
+	 */
+	public enum Verdict {
+		PASS, FAIL
+	}
+
+	@Expose
+	private long baselineId;
+
+	@Expose
+	private long candidateId;
+
+	/** Allowed TPS and mean test time degradation in %. */
+	@Expose
+	private double threshold;
+
+	/** Allowed error ratio increase in % point. */
+	@Expose
+	private double errorThreshold;
+
+	@Expose
+	private double significanceLevel;
+
+	@Expose
+	private Verdict verdict = Verdict.PASS;
+
+	@Expose
+	private List<Delta> deltas = newArrayList();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param baselineId        baseline test id
+	 * @param candidateId       candidate test id
+	 * @param threshold         allowed TPS and mean test time degradation in %
+	 * @param errorThreshold    allowed error ratio increase in % point
+	 * @param significanceLevel significance level of the statistical tests
+	 */
+	public PerfTestComparison(long baselineId, long candidateId, double threshold, double errorThreshold,
+	                          double significanceLevel) {
+		this.baselineId = baselineId;
+		this.candidateId = candidateId;
+		this.threshold = threshold;
+		this.errorThreshold = errorThreshold;
+		this.significanceLevel = significanceLevel;
+	}
+
+	/**
+	 * Add the given delta. The verdict becomes {@link Verdict#FAIL} if it's a regression.
+	 *
+	 * @param delta delta
+	 */
+	public void addDelta(Delta delta) {
+		deltas.add(delta);
+		if (delta.isRegression()) {
+			verdict = Verdict.FAIL;
+		}
+	}
+
+	public long getBaselineId() {
+		return baselineId;
+	}
+
+	public long getCandidateId() {
+		return candidateId;
+	}
+
+	public double getThreshold() {
+		return threshold;
+	}
+
+	public double getErrorThreshold() {
+		return errorThreshold;
+	}
+
+	public double getSignificanceLevel() {
+		return significanceLevel;
+	}
+
+	public Verdict getVerdict() {
+		return verdict;
+	}
+
+	public List<Delta> getDeltas() {
+		return deltas;
+	}
+
+	/**
+	 * Difference of a metric between the baseline and the candidate.
+	 */
+	public static class Delta {
+		/** "Total" or the test number and description. */
+		@Expose
+		private String test;
+
+		@Expose
+		private Metric metric;
+
+		@Expose
+		private double baseline;
+
+		@Expose
+		private double candidate;
+
+		@Expose
+		private double change;
+
+		@Expose
+		private double pValue;
+
+		@Expose
+		private boolean regression;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param test       "Total" or the test name
+		 * @param metric     metric
+		 * @param baseline   baseline value
+		 * @param candidate  candidate value
+		 * @param change     change in % or % point
+		 * @param pValue     two sided p-value of the difference
+		 * @param regression true if it's a significant regression over the threshold
+		 */
+		public Delta(String test, Metric metric, double baseline, double candidate, double change, double pValue,
+		             boolean regression) {
+			this.test = test;
+			this.metric = metric;
+			this.baseline = baseline;
+			this.candidate = candidate;
+			this.change = change;
+			this.pValue = pValue;
+			this.regression = regression;
+		}
+
+		public String getTest() {
+			return test;
+		}
+
+		public Metric getMetric() {
+			return metric;
+		}
+
+		public double getBaseline() {
+			return baseline;
+		}
+
+		public double getCandidate() {
+			return candidate;
+		}
+
+		public double getChange() {
+			return change;
+		}
+
+		public double getPValue() {
+			return pValue;
+		}
+
+		public boolean isRegression() {
+			return regression;
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.model;
+
+import com.google.gson.annotations.Expose;
+import org.ngrinder.model.PerfTest;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Compact summary of a finished {@link PerfTest}.
+ * <p/>
+ * The statistics are taken from the steady state window only, which excludes the ramp up and the
+ * wind down. The window is given by the sample index of the report data.
+ *
+ * @since 3.4
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class PerfTestSummary {
+	@Expose
+	private long testId;
+
+	/** Sampling interval in sec. */
+	@Expose
+	private int samplingInterval;
+
+	@Expose
+	private int sampleCount;
+
+	/** Inclusive start index of the steady state window. */
+	@Expose
+	private int steadyStateStart;
+
+	/** Exclusive end index of the steady state window. */
+	@Expose
+	private int steadyStateEnd;
+
+	@Expose
+	private Metrics total;
+
+	/** Metrics per test. The key is the test number and description. */
+	@Expose
+	private Map<String, Metrics> tests = new TreeMap<String, Metrics>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param testId           test id
+	 * @param samplingInterval sampling interval in sec
+	 * @param sampleCount      count of the samples in the report
+	 * @param steadyStateStart inclusive start index of the steady state window
+	 * @param steadyStateEnd   exclusive end index of the steady state window
+	 */
+	public PerfTestSummary(long testId, int samplingInterval, int sampleCount, int steadyStateStart,
+	                       int steadyStateEnd) {
+		this.testId = testId;
+		this.samplingInterval = samplingInterval;
+		this.sampleCount = sampleCount;
+		this.steadyStateStart = steadyStateStart;
+		this.steadyStateEnd = steadyStateEnd;
+	}
+
+	public long getTestId() {
+		return testId;
+	}
+
+	public int getSamplingInterval() {
+		return samplingInterval;
+	}
+
+	public int getSampleCount() {
+		return sampleCount;
+	}
+
+	public int getSteadyStateStart() {
+		return steadyStateStart;
+	}
+
+	public int getSteadyStateEnd() {
+		return steadyStateEnd;
+	}
+
+	public Metrics getTotal() {
+		return total;
+	}
+
+	public void setTotal(Metrics total) {
+		this.total = total;
+	}
+
+	public Map<String, Metrics> getTests() {
+		return tests;
+	}
+
+	/**
+	 * Metrics of the total or a single test in the steady state window.
+	 */
+	public static class Metrics {
+		@Expose
+		private SampleStatistics tps;
+
+		/** Statistics of the mean test time(ms) of the samples which have any test. */
+		@Expose
+		private SampleStatistics meanTestTime;
+
+		@Expose
+		private long tests;
+
+		@Expose
+		private long errors;
+
+		/** Ratio of the errors among all the executions. */
+		@Expose
+		private double errorRatio;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param tps          TPS statistics
+		 * @param meanTestTime mean test time statistics
+		 * @param tests        count of the successful tests
+		 * @param errors       count of the errors
+		 */
+		public Metrics(SampleStatistics tps, SampleStatistics meanTestTime, long tests, long errors) {
+			this.tps = tps;
+			this.meanTestTime = meanTestTime;
+			this.tests = tests;
+			this.errors = errors;
+			long executions = tests + errors;
+			this.errorRatio = executions == 0 ? 0 : (double) errors / executions;
+		}
+
+		public SampleStatistics getTps() {
+			return tps;
+		}
+
+		public SampleStatistics getMeanTestTime() {
+			return meanTestTime;
+		}
+
+		public long getTests() {
+			return tests;
+		}
+
+		public long getErrors() {
+			return errors;
+		}
+
+		public double getErrorRatio() {
+			return errorRatio;
+		}
+	}
+}
@@ -0,0 +1,73 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.model;
+
+import com.google.gson.annotations.Expose;
+import org.apache.commons.lang.builder.ToStringBuilder;
+import org.ngrinder.profile.ProfileSummary;
+
+/**
+ * Method in the profile summary aggregated from the worker profiles.
+ *
+ * @since 3.4
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class ProfiledMethod {
+	/** Fully qualified method name. */
+	@Expose
+	private final String name;
+	/** Ratio(0~1) of the samples in which the method was on the top of the stack. */
+	@Expose
+	private final double selfRatio;
+	/** Ratio(0~1) of the samples in which the method was anywhere in the stack. */
+	@Expose
+	private final double totalRatio;
+	/** Approximate bytes allocated while the method was on the top of the stack. */
+	@Expose
+	private final long allocatedBytes;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param method  profiled method
+	 * @param samples total sample count of the summary
+	 */
+	public ProfiledMethod(ProfileSummary.Method method, long samples) {
+		this.name = method.getName();
+		this.selfRatio = (samples == 0) ? 0 : (double) method.getSelfSamples() / samples;
+		this.totalRatio = (samples == 0) ? 0 : (double) method.getTotalSamples() / samples;
+		this.allocatedBytes = method.getAllocatedBytes();
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public double getSelfRatio() {
+		return selfRatio;
+	}
+
+	public double getTotalRatio() {
+		return totalRatio;
+	}
+
+	public long getAllocatedBytes() {
+		return allocatedBytes;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+}
@@ -0,0 +1,90 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.model;
+
+import com.google.gson.annotations.Expose;
+import org.apache.commons.lang.builder.ToStringBuilder;
+
+/**
+ * Single request event recorded by the worker request event log.
+ *
+ * @since 3.4
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class RequestEvent {
+	/** Name of the worker which recorded this event. */
+	@Expose
+	private final String worker;
+	/** Start time in ms since epoch. */
+	@Expose
+	private final long timestamp;
+	@Expose
+	private final int testNumber;
+	@Expose
+	private final int threadNumber;
+	/** Duration in ms. */
+	@Expose
+	private final int duration;
+	@Expose
+	private final boolean error;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param worker       worker name
+	 * @param timestamp    start time
+	 * @param testNumber   test number
+	 * @param threadNumber thread number
+	 * @param duration     duration
+	 * @param error        true if the request failed
+	 */
+	public RequestEvent(String worker, long timestamp, int testNumber, int threadNumber, int duration,
+	                    boolean error) {
+		this.worker = worker;
+		this.timestamp = timestamp;
+		this.testNumber = testNumber;
+		this.threadNumber = threadNumber;
+		this.duration = duration;
+		this.error = error;
+	}
+
+	public String getWorker() {
+		return worker;
+	}
+
+	public long getTimestamp() {
+		return timestamp;
+	}
+
+	public int getTestNumber() {
+		return testNumber;
+	}
+
+	public int getThreadNumber() {
+		return threadNumber;
+	}
+
+	public int getDuration() {
+		return duration;
+	}
+
+	public boolean isError() {
+		return error;
+	}
+
+	@Override
+	public String toString() {
+		return ToStringBuilder.reflectionToString(this);
+	}
+}
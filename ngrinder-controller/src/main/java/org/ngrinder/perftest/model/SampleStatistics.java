@@ -0,0 +1,87 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.model;
+
+import com.google.gson.annotations.Expose;
+
+import java.util.Collection;
+
+/**
+ * Count, mean and standard deviation of the sampled values.
+ *
+ * @since 3.4
+ */
+@SuppressWarnings("UnusedDeclaration")
+public class SampleStatistics {
+	@Expose
+	private int count;
+
+	@Expose
+	private double mean;
+
+	@Expose
+	private double standardDeviation;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param count             sample count
+	 * @param mean              mean
+	 * @param standardDeviation sample standard deviation
+	 */
+	public SampleStatistics(int count, double mean, double standardDeviation) {
+		this.count = count;
+		this.mean = mean;
+		this.standardDeviation = standardDeviation;
+	}
+
+	/**
+	 * Create the statistics of the given values.
+	 *
+	 * @param values sampled values
+	 * @return statistics
+	 */
+	public static SampleStatistics of(Collection<Double> values) {
+		int count = values.size();
+		if (count == 0) {
+			return new SampleStatistics(0, 0, 0);
+		}
+		double sum = 0;
+		for (double each : values) {
+			sum += each;
+		}
+		double mean = sum / count;
+		double squareSum = 0;
+		for (double each : values) {
+			squareSum += (each - mean) * (each - mean);
+		}
+		return new SampleStatistics(count, mean, count > 1 ? Math.sqrt(squareSum / (count - 1)) : 0);
+	}
+
+	public int getCount() {
+		return count;
+	}
+
+	public double getMean() {
+		return mean;
+	}
+
+	public double getStandardDeviation() {
+		return standardDeviation;
+	}
+
+	public double getVariance() {
+		return standardDeviation * standardDeviation;
+	}
+}
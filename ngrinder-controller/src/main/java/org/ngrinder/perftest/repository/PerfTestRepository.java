@@ -23,6 +23,7 @@ import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -32,7 +33,8 @@ import java.util.List;
  * @author junHo Yoon
  * @since 3.0
  */
-public interface PerfTestRepository extends JpaRepository<PerfTest, Long>, JpaSpecificationExecutor<PerfTest> {
+public interface PerfTestRepository extends JpaRepository<PerfTest, Long>, JpaSpecificationExecutor<PerfTest>,
+		PerfTestRepositoryCustom {
 	/**
 	 * Find the paged {@link PerfTest}s based on the given spec.
 	 *
@@ -85,6 +87,19 @@ public interface PerfTestRepository extends JpaRepository<PerfTest, Long>, JpaSp
 	@Query("update PerfTest p set p.monitorState=?2 where p.id=?1")
 	int updatetMonitorStatus(Long id, String monitorStatus);
 
+	/**
+	 * Update the progress messages on the perf test having the given {@link PerfTest} id.
+	 *
+	 * @param id                  {@link PerfTest} id
+	 * @param progressMessage     progress message
+	 * @param lastProgressMessage last progress message
+	 * @return the count of updated row
+	 * @since 3.4
+	 */
+	@Modifying
+	@Query("update PerfTest p set p.progressMessage=?2, p.lastProgressMessage=?3 where p.id=?1")
+	int updateProgressMessage(Long id, String progressMessage, String lastProgressMessage);
+
 	/**
 	 * Find all {@link PerfTest}s created between the given start and end date and having the the given region.
 	 *
@@ -105,4 +120,30 @@ public interface PerfTestRepository extends JpaRepository<PerfTest, Long>, JpaSp
 	 */
 	@Query("select p from PerfTest  p where p.startTime between ?1 and ?2")
 	List<PerfTest> findAllByCreatedTime(Date start, Date end);
+
+	/**
+	 * Find the ids and the finish times of the {@link PerfTest}s in the given statuses which
+	 * finished before the given date, in the finish time order.
+	 *
+	 * @param finishTime time
+	 * @param status     status collection
+	 * @return pairs of {@link PerfTest} id and finish time
+	 * @since 3.4
+	 */
+	@Query("select p.id, p.finishTime from PerfTest p where p.finishTime < ?1 and p.status in ?2 order by p.finishTime")
+	List<Object[]> findAllIdByFinishTimeBefore(Date finishTime, Collection<Status> status);
+
+	/**
+	 * Find the ids and the finish times of the {@link PerfTest}s in the given statuses which
+	 * finished from the given start date and before the given end date, in the finish time order.
+	 *
+	 * @param start  time
+	 * @param end    time
+	 * @param status status collection
+	 * @return pairs of {@link PerfTest} id and finish time
+	 * @since 3.4
+	 */
+	@Query("select p.id, p.finishTime from PerfTest p where p.finishTime >= ?1 and p.finishTime < ?2"
+			+ " and p.status in ?3 order by p.finishTime")
+	List<Object[]> findAllIdByFinishTimeBetween(Date start, Date end, Collection<Status> status);
 }
@@ -0,0 +1,50 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.repository;
+
+import org.ngrinder.model.PerfTest;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+/**
+ * {@link PerfTest} queries which are not derived from the method names.
+ *
+ * @since 3.4
+ */
+public interface PerfTestRepositoryCustom {
+
+	/**
+	 * Find the paged {@link PerfTest} summaries based on the given spec. The summaries don't
+	 * have the runtime statistics columns and the tags, so they should be used only for listing.
+	 *
+	 * @param spec     {@link Specification} of {@link PerfTest} query
+	 * @param pageable page info
+	 * @return {@link PerfTest} summary page
+	 */
+	Page<PerfTest> findAllSummaries(Specification<PerfTest> spec, Pageable pageable);
+
+	/**
+	 * Find the {@link PerfTest}s whose id is less than the given id in the id descending order.
+	 * Unlike the offset paging, it takes same time on any page and doesn't count the total.
+	 *
+	 * @param spec     {@link Specification} of {@link PerfTest} query
+	 * @param beforeId the last id of the previous page. null for the first page.
+	 * @param size     page size
+	 * @return {@link PerfTest} list
+	 */
+	List<PerfTest> findAllBefore(Specification<PerfTest> spec, Long beforeId, int size);
+}
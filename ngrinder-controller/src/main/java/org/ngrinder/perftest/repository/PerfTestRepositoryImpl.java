@@ -0,0 +1,150 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.repository;
+
+import org.ngrinder.model.PerfTest;
+import org.springframework.beans.BeanWrapper;
+import org.springframework.beans.PropertyAccessorFactory;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.Tuple;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.JoinType;
+import javax.persistence.criteria.Order;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import javax.persistence.criteria.Selection;
+import java.util.Collections;
+import java.util.List;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * {@link PerfTestRepositoryCustom} implementation.
+ *
+ * @since 3.4
+ */
+public class PerfTestRepositoryImpl implements PerfTestRepositoryCustom {
+
+	/**
+	 * Attributes loaded for the summaries. The runtime statistics columns(runningSample,
+	 * agentState, monitorState) and the long text columns only used in the detail view are excluded.
+	 */
+	private static final String[] SUMMARY_ATTRIBUTES = {"id", "createdDate", "lastModifiedDate", "testName",
+			"tagString", "description", "status", "ignoreSampleCount", "scheduledTime", "startTime", "finishTime",
+			"targetHosts", "sendMail", "useRampUp", "rampUpType", "threshold", "scriptName", "duration", "runCount",
+			"agentCount", "vuserPerAgent", "processes", "threads", "tests", "errors", "meanTestTime",
+			"testTimeStandardDeviation", "tps", "peakTps", "testErrorCause", "progressMessage",
+			"lastProgressMessage", "testComment", "scriptRevision", "stopRequest", "region", "samplingInterval"};
+
+	private static final String[] SUMMARY_USER_ATTRIBUTES = {"createdUser", "lastModifiedUser"};
+
+	@PersistenceContext
+	private EntityManager entityManager;
+
+	@Override
+	public Page<PerfTest> findAllSummaries(Specification<PerfTest> spec, Pageable pageable) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Tuple> query = cb.createTupleQuery();
+		Root<PerfTest> root = query.from(PerfTest.class);
+		List<Selection<?>> selections = newArrayList();
+		for (String each : SUMMARY_ATTRIBUTES) {
+			selections.add(root.get(each).alias(each));
+		}
+		for (String each : SUMMARY_USER_ATTRIBUTES) {
+			selections.add(root.join(each, JoinType.LEFT).alias(each));
+		}
+		query.multiselect(selections);
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		if (pageable != null && pageable.getSort() != null) {
+			query.orderBy(toOrders(pageable.getSort(), root, cb));
+		}
+		TypedQuery<Tuple> typedQuery = entityManager.createQuery(query);
+		if (pageable != null) {
+			typedQuery.setFirstResult(pageable.getOffset());
+			typedQuery.setMaxResults(pageable.getPageSize());
+		}
+
+		List<PerfTest> content = newArrayList();
+		for (Tuple tuple : typedQuery.getResultList()) {
+			PerfTest perfTest = new PerfTest();
+			BeanWrapper wrapper = PropertyAccessorFactory.forBeanPropertyAccess(perfTest);
+			for (String each : SUMMARY_ATTRIBUTES) {
+				wrapper.setPropertyValue(each, tuple.get(each));
+			}
+			for (String each : SUMMARY_USER_ATTRIBUTES) {
+				wrapper.setPropertyValue(each, tuple.get(each));
+			}
+			content.add(perfTest);
+		}
+		long total = content.size();
+		if (pageable != null && (pageable.getOffset() > 0 || total == pageable.getPageSize())) {
+			total = count(spec);
+		}
+		return new PageImpl<PerfTest>(content, pageable, total);
+	}
+
+	@Override
+	public List<PerfTest> findAllBefore(Specification<PerfTest> spec, Long beforeId, int size) {
+		if (size <= 0) {
+			return Collections.emptyList();
+		}
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<PerfTest> query = cb.createQuery(PerfTest.class);
+		Root<PerfTest> root = query.from(PerfTest.class);
+		query.select(root);
+		List<Predicate> predicates = newArrayList();
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			predicates.add(predicate);
+		}
+		if (beforeId != null) {
+			predicates.add(cb.lessThan(root.<Long>get("id"), beforeId));
+		}
+		query.where(predicates.toArray(new Predicate[predicates.size()]));
+		query.orderBy(cb.desc(root.get("id")));
+		return entityManager.createQuery(query).setMaxResults(size).getResultList();
+	}
+
+	private long count(Specification<PerfTest> spec) {
+		CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+		CriteriaQuery<Long> query = cb.createQuery(Long.class);
+		Root<PerfTest> root = query.from(PerfTest.class);
+		Predicate predicate = spec.toPredicate(root, query, cb);
+		if (predicate != null) {
+			query.where(predicate);
+		}
+		query.select(query.isDistinct() ? cb.countDistinct(root) : cb.count(root));
+		return entityManager.createQuery(query).getSingleResult();
+	}
+
+	private List<Order> toOrders(Sort sort, Root<PerfTest> root, CriteriaBuilder cb) {
+		List<Order> orders = newArrayList();
+		for (Sort.Order each : sort) {
+			orders.add(each.isAscending() ? cb.asc(root.get(each.getProperty())) : cb.desc(root.get(each.getProperty())));
+		}
+		return orders;
+	}
+}
@@ -34,6 +34,10 @@ import org.apache.commons.lang.StringUtils;
 import org.ngrinder.agent.service.AgentPackageService;
 import org.ngrinder.agent.service.LocalAgentService;
 import org.ngrinder.common.constant.ControllerConstants;
+import org.ngrinder.common.constants.GrinderConstants;
+import org.ngrinder.common.metrics.Counter;
+import org.ngrinder.common.metrics.Metrics;
+import org.ngrinder.common.metrics.Timer;
 import org.ngrinder.common.util.CRC32ChecksumUtils;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.model.AgentInfo;
@@ -53,9 +57,12 @@ import java.io.RandomAccessFile;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
 /**
  * Agent manager.
  * <p/>
@@ -68,6 +75,8 @@ import java.util.concurrent.ExecutorService;
 @Component
 public class AgentManager implements ControllerConstants, AgentDownloadRequestListener {
 	public static final Logger LOGGER = LoggerFactory.getLogger(AgentManager.class);
+	private static final Timer DOWNLOAD_TIMER = Metrics.timer("agent.download");
+	private static final Counter DOWNLOAD_BYTES = Metrics.counter("agent.download.bytes");
 	private AgentControllerServerDaemon agentControllerServerDaemon;
 	private static final int NUMBER_OF_THREAD = 3;
 
@@ -391,7 +400,9 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 	}
 
 	/**
-	 * Assign the agents on the given console.
+	 * Assign the agents on the given console. When the console has shards, the agents are split across the console
+	 * and its shards evenly. Each console numbers its agents from 0, so the agents of each shard get the agent number
+	 * offset following the agents of the previous consoles to keep the agent numbers unique in the test.
 	 *
 	 * @param user              user
 	 * @param singleConsole     {@link SingleConsole} to which agents will be assigned
@@ -410,12 +421,25 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 		try {
 			// Make the agents connect to console.
 			grinderProperties.setInt(GrinderProperties.CONSOLE_PORT, singleConsole.getConsolePort());
+			List<GrinderProperties> consoleProperties = newArrayList();
+			consoleProperties.add(grinderProperties);
+			List<SingleConsole> shards = singleConsole.getShards();
+			int agentNumberOffset = 0;
+			for (int i = 0; i < shards.size(); i++) {
+				agentNumberOffset += getAssignedAgentCount(necessaryAgents.size(), shards.size() + 1, i);
+				GrinderProperties shardProperties = (GrinderProperties) grinderProperties.clone();
+				shardProperties.setInt(GrinderProperties.CONSOLE_PORT, shards.get(i).getConsolePort());
+				shardProperties.setInt(GrinderConstants.GRINDER_PROP_AGENT_NUMBER_OFFSET, agentNumberOffset);
+				consoleProperties.add(shardProperties);
+			}
 			execService = ExecutorFactory.createThreadPool("agentStarter", NUMBER_OF_THREAD);
+			int index = 0;
 			for (final AgentIdentity eachAgentIdentity : necessaryAgents) {
+				final GrinderProperties eachProperties = consoleProperties.get(index++ % consoleProperties.size());
 				execService.submit(new Runnable() {
 					@Override
 					public void run() {
-						agentControllerServerDaemon.startAgent(grinderProperties, eachAgentIdentity);
+						agentControllerServerDaemon.startAgent(eachProperties, eachAgentIdentity);
 					}
 				});
 			}
@@ -426,6 +450,19 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 		}
 	}
 
+	/**
+	 * Get the count of agents assigned to the console at the given index when the agents are assigned to the
+	 * consoles in turn.
+	 *
+	 * @param agentCount   total count of agents
+	 * @param consoleCount count of consoles
+	 * @param index        console index
+	 * @return count of agents
+	 */
+	static int getAssignedAgentCount(int agentCount, int consoleCount, int index) {
+		return agentCount / consoleCount + (index < agentCount % consoleCount ? 1 : 0);
+	}
+
 	/**
 	 * Select agent. This method return agent set which is belong to the given user first and then share agent set.
 	 *
@@ -491,6 +528,23 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 		agentControllerServerDaemon.updateAgent(agentIdentity, version);
 	}
 
+	/**
+	 * Get the set of {@link AgentStatus} from agents belong to the given console and its shards.
+	 *
+	 * @param singleConsole console
+	 * @return {@link AgentStatus} set
+	 * @since 3.4
+	 */
+	public Set<AgentStatus> getAgentStatusSetConnectingToConsole(SingleConsole singleConsole) {
+		final Set<Integer> consolePorts = new HashSet<Integer>(singleConsole.getConsolePorts());
+		return getAgentStatusSet(new Predicate<AgentProcessControlImplementation.AgentStatus>() {
+			@Override
+			public boolean apply(AgentStatus status) {
+				return consolePorts.contains(status.getConnectingPort());
+			}
+		});
+	}
+
 	/**
 	 * Get the set of {@link AgentStatus} from agents belong to the given single console port.
 	 *
@@ -511,6 +565,7 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 		final int updateChunkSize = getUpdateChunkSize();
 		byte[] buffer = new byte[updateChunkSize];
 		RandomAccessFile agentPackageReader = null;
+		long start = DOWNLOAD_TIMER.start();
 		try {
 			agentPackageReader = new RandomAccessFile(agentPackageService.createAgentPackage(), "r");
 			agentPackageReader.seek(offset);
@@ -521,12 +576,14 @@ public class AgentManager implements ControllerConstants, AgentDownloadRequestLi
 				bytes = Arrays.copyOf(buffer, count);
 				next = 0;
 			}
+			DOWNLOAD_BYTES.add(bytes.length);
 			return new AgentUpdateGrinderMessage(version, bytes, offset, next,
 					CRC32ChecksumUtils.getCRC32Checksum(bytes));
 		} catch (Exception e) {
 			LOGGER.error("Error while reading agent package, its offset is {} and details {}:", offset, e);
 		} finally {
 			IOUtils.closeQuietly(agentPackageReader);
+			DOWNLOAD_TIMER.stop(start);
 		}
 		return AgentUpdateGrinderMessage.getNullAgentUpdateGrinderMessage(version);
 	}
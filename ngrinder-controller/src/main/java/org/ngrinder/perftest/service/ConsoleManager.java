@@ -17,6 +17,9 @@ import net.grinder.SingleConsole;
 import net.grinder.console.model.ConsoleCommunicationSetting;
 import net.grinder.console.model.ConsoleProperties;
 import org.h2.util.StringUtils;
+import org.ngrinder.common.metrics.Gauge;
+import org.ngrinder.common.metrics.Metrics;
+import org.ngrinder.common.metrics.Timer;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.perftest.model.NullSingleConsole;
 import org.slf4j.Logger;
@@ -43,6 +46,9 @@ import static org.ngrinder.common.util.NoOp.noOp;
  * not pooled but the {@link ConsoleEntry} which contains console information are pooled internally. Whenever a user
  * requires a new console, it gets the one {@link ConsoleEntry} from the pool and creates new console with the
  * {@link ConsoleEntry}. Currently using consoles are kept in {@link #consoleInUse} member variable.
+ * <p/>
+ * The extra consoles(specified in controller.console_shard_pool_size) are pooled separately. They are attached to
+ * the consoles of the tests having many agents as the shards.
  *
  * @author JunHo Yoon
  * @since 3.0
@@ -51,7 +57,9 @@ import static org.ngrinder.common.util.NoOp.noOp;
 public class ConsoleManager {
 	private static final int MAX_PORT_NUMBER = 65000;
 	private static final Logger LOG = LoggerFactory.getLogger(ConsoleManager.class);
+	private static final Timer ACQUIRE_TIMER = Metrics.timer("console.acquire");
 	private volatile ArrayBlockingQueue<ConsoleEntry> consoleQueue;
+	private volatile ArrayBlockingQueue<ConsoleEntry> shardQueue;
 	private volatile List<SingleConsole> consoleInUse = Collections.synchronizedList(new ArrayList<SingleConsole>());
 
 	@Autowired
@@ -67,18 +75,40 @@ public class ConsoleManager {
 	@PostConstruct
 	public void init() {
 		int consoleSize = getConsoleSize();
+		int shardPoolSize = getShardPoolSize();
 		consoleQueue = new ArrayBlockingQueue<ConsoleEntry>(consoleSize);
+		shardQueue = new ArrayBlockingQueue<ConsoleEntry>(Math.max(shardPoolSize, 1));
 		final String currentIP = config.getCurrentIP();
-		for (int each : getAvailablePorts(currentIP, consoleSize, getConsolePortBase(), MAX_PORT_NUMBER)) {
+		int index = 0;
+		for (int each : getAvailablePorts(currentIP, consoleSize + shardPoolSize, getConsolePortBase(),
+				MAX_PORT_NUMBER)) {
 			final ConsoleEntry e = new ConsoleEntry(config.getCurrentIP(), each);
 			try {
 				e.occupySocket();
-				consoleQueue.add(e);
+				(index++ < consoleSize ? consoleQueue : shardQueue).add(e);
 			} catch (Exception ex) {
 				LOG.error("socket binding to {}:{} is failed", config.getCurrentIP(), each);
 			}
 
 		}
+		Metrics.gauge("console.available", new Gauge() {
+			@Override
+			public long getValue() {
+				return consoleQueue.size();
+			}
+		});
+		Metrics.gauge("console.in_use", new Gauge() {
+			@Override
+			public long getValue() {
+				return consoleInUse.size();
+			}
+		});
+		Metrics.gauge("console.shard_available", new Gauge() {
+			@Override
+			public long getValue() {
+				return shardQueue.size();
+			}
+		});
 	}
 
 	/**
@@ -101,6 +131,15 @@ public class ConsoleManager {
 		return config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_MAX_CONCURRENT_TEST);
 	}
 
+	/**
+	 * Get the shard console pool size. It can be specified at controller.console_shard_pool_size in system.conf.
+	 *
+	 * @return shard pool size.
+	 */
+	protected int getShardPoolSize() {
+		return Math.max(config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_CONSOLE_SHARD_POOL_SIZE), 0);
+	}
+
 	/**
 	 * Get Timeout (in second).
 	 *
@@ -123,22 +162,15 @@ public class ConsoleManager {
 	 */
 	public SingleConsole getAvailableConsole(ConsoleProperties baseConsoleProperties) {
 		ConsoleEntry consoleEntry = null;
+		long start = ACQUIRE_TIMER.start();
 		try {
 			consoleEntry = consoleQueue.poll(getMaxWaitingMilliSecond(), TimeUnit.MILLISECONDS);
 			if (consoleEntry == null) {
 				throw processException("no console entry available");
 			}
 			synchronized (this) {
-				consoleEntry.releaseSocket();
-				// FIXME : It might fail here
-				ConsoleCommunicationSetting consoleCommunicationSetting = ConsoleCommunicationSetting.asDefault();
-				if (config.getInactiveClientTimeOut() > 0) {
-					consoleCommunicationSetting.setInactiveClientTimeOut(config.getInactiveClientTimeOut());
-				}
-				SingleConsole singleConsole = new SingleConsole(config.getCurrentIP(), consoleEntry.getPort(),
-						consoleCommunicationSetting, baseConsoleProperties);
+				SingleConsole singleConsole = createConsole(consoleEntry, baseConsoleProperties);
 				getConsoleInUse().add(singleConsole);
-				singleConsole.setCsvSeparator(config.getCsvSeparator());
 				return singleConsole;
 			}
 		} catch (Exception e) {
@@ -146,9 +178,48 @@ public class ConsoleManager {
 				consoleQueue.add(consoleEntry);
 			}
 			throw processException("no console entry available");
+		} finally {
+			ACQUIRE_TIMER.stop(start);
 		}
 	}
 
+	/**
+	 * Get an available shard console. Unlike {@link #getAvailableConsole(ConsoleProperties)}, it does not wait.
+	 * The shard console is not counted in the consoles in use. It's returned back with the console to which it's
+	 * attached.
+	 *
+	 * @param baseConsoleProperties base {@link net.grinder.console.model.ConsoleProperties}
+	 * @return console. null if no shard console is available.
+	 * @since 3.4
+	 */
+	public SingleConsole getAvailableShardConsole(ConsoleProperties baseConsoleProperties) {
+		ConsoleEntry consoleEntry = shardQueue.poll();
+		if (consoleEntry == null) {
+			return null;
+		}
+		try {
+			synchronized (this) {
+				return createConsole(consoleEntry, baseConsoleProperties);
+			}
+		} catch (Exception e) {
+			shardQueue.add(consoleEntry);
+			throw processException("no shard console entry available", e);
+		}
+	}
+
+	private SingleConsole createConsole(ConsoleEntry consoleEntry, ConsoleProperties baseConsoleProperties) {
+		consoleEntry.releaseSocket();
+		// FIXME : It might fail here
+		ConsoleCommunicationSetting consoleCommunicationSetting = ConsoleCommunicationSetting.asDefault();
+		if (config.getInactiveClientTimeOut() > 0) {
+			consoleCommunicationSetting.setInactiveClientTimeOut(config.getInactiveClientTimeOut());
+		}
+		SingleConsole singleConsole = new SingleConsole(config.getCurrentIP(), consoleEntry.getPort(),
+				consoleCommunicationSetting, baseConsoleProperties);
+		singleConsole.setCsvSeparator(config.getCsvSeparator());
+		return singleConsole;
+	}
+
 	/**
 	 * Return back the given console.
 	 * <p/>
@@ -177,7 +248,9 @@ public class ConsoleManager {
 				LOG.error("Exception occurred during console return back for test {}.",
 						testIdentifier, e);
 				// If it's not disconnected still, stop them by force.
-				agentManager.stopAgent(console.getConsolePort());
+				for (int each : console.getConsolePorts()) {
+					agentManager.stopAgent(each);
+				}
 			}
 			try {
 				console.shutdown();
@@ -185,6 +258,9 @@ public class ConsoleManager {
 				LOG.error("Exception occurred during console return back for test {}.",
 						testIdentifier, e);
 			}
+			for (SingleConsole each : console.getShards()) {
+				returnBackShard(testIdentifier, each);
+			}
 			int consolePort;
 			String consoleIP;
 			try {
@@ -207,6 +283,25 @@ public class ConsoleManager {
 		}
 	}
 
+	private void returnBackShard(String testIdentifier, SingleConsole shard) {
+		try {
+			shard.shutdown();
+		} catch (Exception e) {
+			LOG.error("Exception occurred during shard console return back for test {}.", testIdentifier, e);
+		}
+		try {
+			ConsoleEntry consoleEntry = new ConsoleEntry(shard.getConsoleIP(), shard.getConsolePort());
+			synchronized (this) {
+				if (!shardQueue.contains(consoleEntry)) {
+					consoleEntry.occupySocket();
+					shardQueue.add(consoleEntry);
+				}
+			}
+		} catch (Exception e) {
+			noOp();
+		}
+	}
+
 	/**
 	 * Get the list of {@link SingleConsole} which are used.
 	 *
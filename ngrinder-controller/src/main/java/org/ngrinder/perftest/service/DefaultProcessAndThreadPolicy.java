@@ -0,0 +1,46 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.ngrinder.perftest.model.ProcessAndThread;
+
+/**
+ * Java implementation of the default process_and_thread_policy.js.
+ * <p/>
+ * It's used instead of the script while the policy file is not customized.
+ *
+ * @since 3.4
+ */
+public class DefaultProcessAndThreadPolicy implements ProcessAndThreadPolicy {
+	private static final int VUSER_PER_PROCESS = 40;
+	private static final int MULTI_PROCESS_THRESHOLD = 80;
+	private static final int MAX_PROCESS_COUNT = 10;
+
+	@Override
+	public ProcessAndThread calcProcessAndThread(int vuser) {
+		int processCount = getProcessCount(vuser);
+		return new ProcessAndThread(processCount, vuser / processCount);
+	}
+
+	private int getProcessCount(int vuser) {
+		if (vuser < 2) {
+			return 1;
+		}
+		int processCount = 2;
+		if (vuser > MULTI_PROCESS_THRESHOLD) {
+			processCount = (vuser / VUSER_PER_PROCESS) + 1;
+		}
+		return Math.min(processCount, MAX_PROCESS_COUNT);
+	}
+}
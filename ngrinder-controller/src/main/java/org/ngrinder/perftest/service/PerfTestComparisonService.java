@@ -0,0 +1,316 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.apache.commons.lang.math.NumberUtils;
+import org.ngrinder.common.exception.NGrinderRuntimeException;
+import org.ngrinder.common.model.Home;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.model.RampUp;
+import org.ngrinder.perftest.model.PerfTestComparison;
+import org.ngrinder.perftest.model.PerfTestComparison.Delta;
+import org.ngrinder.perftest.model.PerfTestComparison.Metric;
+import org.ngrinder.perftest.model.PerfTestSummary;
+import org.ngrinder.perftest.model.PerfTestSummary.Metrics;
+import org.ngrinder.perftest.model.SampleStatistics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import static org.apache.commons.lang.ObjectUtils.defaultIfNull;
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * Run to run comparison of the {@link PerfTest}s.
+ * <p/>
+ * The {@link PerfTestSummary} is created from the report data when a test is finished and it's
+ * kept in the report directory, so the comparison does not parse the whole report again. The
+ * summary of the tests finished before this service existed is created on the first comparison.
+ *
+ * @since 3.4
+ */
+@Service
+public class PerfTestComparisonService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PerfTestComparisonService.class);
+
+	public static final String TOTAL = "Total";
+
+	private static final String DATA_FILE_EXTENSION = ".data";
+	private static final String PER_TEST_TPS_PREFIX = "TPS-";
+
+	private final Gson gson = new GsonBuilder().excludeFieldsWithoutExposeAnnotation().create();
+
+	@Autowired
+	private Config config;
+
+	/**
+	 * Get the summary of the given test. It's created if it does not exist yet.
+	 *
+	 * @param perfTest finished test
+	 * @return summary
+	 */
+	public PerfTestSummary getSummary(PerfTest perfTest) {
+		ReportArchive.Entry entry = null;
+		try {
+			entry = getReportArchive(perfTest).open(Home.PATH_REPORT, Home.REPORT_SUMMARY);
+			if (entry != null) {
+				return gson.fromJson(new InputStreamReader(entry.getInputStream(), "UTF-8"), PerfTestSummary.class);
+			}
+		} catch (Exception e) {
+			LOGGER.warn("The summary of test {} can not be read. It's created again.", perfTest.getId(), e);
+		} finally {
+			IOUtils.closeQuietly(entry);
+		}
+		return saveSummary(perfTest);
+	}
+
+	/**
+	 * Create the summary of the given test from its report and save it into the report directory.
+	 * It's saved into the report archive once the test is compacted, and nothing is saved if the
+	 * report has no sample or is already removed.
+	 *
+	 * @param perfTest finished test
+	 * @return created summary
+	 */
+	public PerfTestSummary saveSummary(PerfTest perfTest) {
+		PerfTestSummary summary = createSummary(perfTest);
+		if (summary.getSampleCount() == 0) {
+			return summary;
+		}
+		try {
+			if (!getReportArchive(perfTest).put(Home.PATH_REPORT, Home.REPORT_SUMMARY,
+					gson.toJson(summary).getBytes("UTF-8"))) {
+				LOGGER.debug("The summary of test {} is not saved because its report is removed", perfTest.getId());
+			}
+		} catch (IOException e) {
+			LOGGER.error("Error while saving the summary of test {}", perfTest.getId(), e);
+		}
+		return summary;
+	}
+
+	/**
+	 * Compare the candidate test against the baseline test.
+	 *
+	 * @param baseline          baseline test
+	 * @param candidate         candidate test
+	 * @param threshold         allowed TPS and mean test time degradation in %
+	 * @param errorThreshold    allowed error ratio increase in % point
+	 * @param significanceLevel significance level. The difference whose p-value is not less than
+	 *                          this is not regarded as a regression.
+	 * @return comparison result
+	 */
+	public PerfTestComparison compare(PerfTest baseline, PerfTest candidate, double threshold, double errorThreshold,
+	                                  double significanceLevel) {
+		PerfTestSummary baselineSummary = getAvailableSummary(baseline);
+		PerfTestSummary candidateSummary = getAvailableSummary(candidate);
+		PerfTestComparison comparison = new PerfTestComparison(baseline.getId(), candidate.getId(), threshold,
+				errorThreshold, significanceLevel);
+		addDeltas(comparison, TOTAL, baselineSummary.getTotal(), candidateSummary.getTotal());
+		for (Map.Entry<String, Metrics> each : candidateSummary.getTests().entrySet()) {
+			Metrics baselineMetrics = baselineSummary.getTests().get(each.getKey());
+			if (baselineMetrics != null) {
+				addDeltas(comparison, each.getKey(), baselineMetrics, each.getValue());
+			}
+		}
+		return comparison;
+	}
+
+	private PerfTestSummary getAvailableSummary(PerfTest perfTest) {
+		PerfTestSummary summary = getSummary(perfTest);
+		if (summary.getSampleCount() == 0) {
+			throw new NGrinderRuntimeException("The report of test " + perfTest.getId() + " is not available.");
+		}
+		return summary;
+	}
+
+	private void addDeltas(PerfTestComparison comparison, String test, Metrics baseline, Metrics candidate) {
+		double threshold = comparison.getThreshold();
+		double significanceLevel = comparison.getSignificanceLevel();
+
+		double change = getChangeRate(baseline.getTps().getMean(), candidate.getTps().getMean());
+		double pValue = SignificanceTests.welchTTest(baseline.getTps(), candidate.getTps());
+		comparison.addDelta(new Delta(test, Metric.TPS, baseline.getTps().getMean(), candidate.getTps().getMean(),
+				change, pValue, change < -threshold && pValue < significanceLevel));
+
+		change = getChangeRate(baseline.getMeanTestTime().getMean(), candidate.getMeanTestTime().getMean());
+		pValue = SignificanceTests.welchTTest(baseline.getMeanTestTime(), candidate.getMeanTestTime());
+		comparison.addDelta(new Delta(test, Metric.MEAN_TEST_TIME, baseline.getMeanTestTime().getMean(),
+				candidate.getMeanTestTime().getMean(), change, pValue,
+				change > threshold && pValue < significanceLevel));
+
+		change = (candidate.getErrorRatio() - baseline.getErrorRatio()) * 100;
+		pValue = SignificanceTests.proportionTest(baseline.getErrors(), baseline.getTests() + baseline.getErrors(),
+				candidate.getErrors(), candidate.getTests() + candidate.getErrors());
+		comparison.addDelta(new Delta(test, Metric.ERROR_RATIO, baseline.getErrorRatio(), candidate.getErrorRatio(),
+				change, pValue, change > comparison.getErrorThreshold() && pValue < significanceLevel));
+	}
+
+	private double getChangeRate(double baseline, double candidate) {
+		return baseline == 0 ? 0 : (candidate - baseline) / baseline * 100;
+	}
+
+	/**
+	 * Create the summary of the given test from its report data.
+	 *
+	 * @param perfTest finished test
+	 * @return summary
+	 */
+	PerfTestSummary createSummary(PerfTest perfTest) {
+		ReportArchive reportArchive = getReportArchive(perfTest);
+		int samplingInterval = Math.max((Integer) defaultIfNull(perfTest.getSamplingInterval(), 1), 1);
+		List<Double> tps = readData(reportArchive, "TPS");
+		int[] window = getSteadyStateWindow(perfTest, readData(reportArchive, "Vuser"), tps.size());
+		PerfTestSummary summary = new PerfTestSummary(perfTest.getId(), samplingInterval, tps.size(), window[0],
+				window[1]);
+		summary.setTotal(createMetrics(window, tps, readData(reportArchive, "Mean_Test_Time_(ms)"),
+				readData(reportArchive, "Tests"), readData(reportArchive, "Errors")));
+		for (String each : reportArchive.list(Home.PATH_REPORT)) {
+			if (!each.startsWith(PER_TEST_TPS_PREFIX) || !each.endsWith(DATA_FILE_EXTENSION)) {
+				continue;
+			}
+			String test = StringUtils.removeEnd(each.substring(PER_TEST_TPS_PREFIX.length()), DATA_FILE_EXTENSION);
+			List<Double> testTps = readData(reportArchive, "TPS-" + test);
+			// The tests count is not recorded per test.
+			List<Double> testTests = newArrayList();
+			for (Double eachTps : testTps) {
+				testTests.add(eachTps == null ? null : eachTps * samplingInterval);
+			}
+			summary.getTests().put(test, createMetrics(window, testTps,
+					readData(reportArchive, "Mean_Test_Time_(ms)-" + test), testTests,
+					readData(reportArchive, "Errors-" + test)));
+		}
+		return summary;
+	}
+
+	/**
+	 * Get the steady state window of the samples. It spans from the first sample to the last sample
+	 * running the most vusers, which excludes the ramp up and the wind down. The ramp up
+	 * configuration is used as well for the old reports without the vuser data.
+	 *
+	 * @param perfTest    test
+	 * @param vusers      running vusers per sample
+	 * @param sampleCount sample count
+	 * @return inclusive start index and exclusive end index
+	 */
+	int[] getSteadyStateWindow(PerfTest perfTest, List<Double> vusers, int sampleCount) {
+		int start = getRampUpSampleCount(perfTest);
+		int end = sampleCount;
+		double max = 0;
+		for (Double each : vusers) {
+			if (each != null && each > max) {
+				max = each;
+			}
+		}
+		if (max > 0) {
+			int first = -1;
+			int last = -1;
+			for (int i = 0; i < vusers.size(); i++) {
+				if (vusers.get(i) != null && vusers.get(i) >= max) {
+					first = first == -1 ? i : first;
+					last = i;
+				}
+			}
+			start = Math.max(start, first);
+			end = Math.min(end, last + 1);
+		}
+		if (start >= end) {
+			return new int[]{0, sampleCount};
+		}
+		return new int[]{start, end};
+	}
+
+	private int getRampUpSampleCount(PerfTest perfTest) {
+		if (!Boolean.TRUE.equals(perfTest.getUseRampUp())) {
+			return 0;
+		}
+		int total = (Integer) defaultIfNull(perfTest.getRampUpType() == RampUp.THREAD ? perfTest.getThreads()
+				: perfTest.getProcesses(), 0);
+		int initCount = (Integer) defaultIfNull(perfTest.getRampUpInitCount(), 0);
+		int step = (Integer) defaultIfNull(perfTest.getRampUpStep(), 0);
+		long rampUpTime = (Integer) defaultIfNull(perfTest.getRampUpInitSleepTime(), 0);
+		if (step > 0 && total > initCount) {
+			rampUpTime += (long) ((total - initCount + step - 1) / step)
+					* (Integer) defaultIfNull(perfTest.getRampUpIncrementInterval(), 0);
+		}
+		long samplingInterval = Math.max((Integer) defaultIfNull(perfTest.getSamplingInterval(), 1), 1) * 1000L;
+		return (int) ((rampUpTime + samplingInterval - 1) / samplingInterval);
+	}
+
+	private Metrics createMetrics(int[] window, List<Double> tps, List<Double> meanTestTime, List<Double> tests,
+	                              List<Double> errors) {
+		List<Double> tpsValues = newArrayList();
+		List<Double> meanTestTimeValues = newArrayList();
+		double testSum = 0;
+		double errorSum = 0;
+		for (int i = window[0]; i < window[1]; i++) {
+			Double eachTps = get(tps, i);
+			if (eachTps == null) {
+				continue;
+			}
+			tpsValues.add(eachTps);
+			Double eachMeanTestTime = get(meanTestTime, i);
+			if (eachTps > 0 && eachMeanTestTime != null) {
+				meanTestTimeValues.add(eachMeanTestTime);
+			}
+			testSum += (Double) defaultIfNull(get(tests, i), 0D);
+			errorSum += (Double) defaultIfNull(get(errors, i), 0D);
+		}
+		return new Metrics(SampleStatistics.of(tpsValues), SampleStatistics.of(meanTestTimeValues),
+				Math.round(testSum), Math.round(errorSum));
+	}
+
+	private Double get(List<Double> values, int index) {
+		return index < values.size() ? values.get(index) : null;
+	}
+
+	/*
+	 * Read the report data which has a value per sample. The skipped sample is read as null.
+	 */
+	private List<Double> readData(ReportArchive reportArchive, String key) {
+		ReportArchive.Entry entry = null;
+		try {
+			entry = reportArchive.open(Home.PATH_REPORT, key + DATA_FILE_EXTENSION);
+			if (entry == null) {
+				return Collections.emptyList();
+			}
+			List<Double> values = newArrayList();
+			for (String each : IOUtils.readLines(entry.getInputStream())) {
+				each = each.trim();
+				values.add(NumberUtils.isNumber(each) ? Double.valueOf(each) : null);
+			}
+			return values;
+		} catch (IOException e) {
+			LOGGER.error("Error while reading the report {} of {}", key, reportArchive.getArchiveFile(), e);
+			return Collections.emptyList();
+		} finally {
+			IOUtils.closeQuietly(entry);
+		}
+	}
+
+	private ReportArchive getReportArchive(PerfTest perfTest) {
+		return ReportArchive.of(config.getHome(), perfTest.getId());
+	}
+}
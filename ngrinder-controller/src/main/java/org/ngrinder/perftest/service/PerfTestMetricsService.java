@@ -0,0 +1,344 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import net.grinder.SingleConsole;
+import net.grinder.console.communication.AgentProcessControlImplementation.AgentStatus;
+import org.apache.commons.lang.StringUtils;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.model.Role;
+import org.ngrinder.model.User;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.CollectionUtils.newHashMap;
+
+/**
+ * Exports the statistics of the running tests in the OpenMetrics text format.
+ * <p/>
+ * The values are read from the in-memory statistics of each {@link SingleConsole}, the agent
+ * states kept by {@link AgentManager} and the latest target monitor data. Nothing is read from DB,
+ * so the running tests can be scraped frequently.
+ *
+ * @since 3.4
+ */
+@Component
+public class PerfTestMetricsService {
+	public static final String CONTENT_TYPE = "application/openmetrics-text; version=1.0.0; charset=utf-8";
+
+	private static final String TOTAL_STATISTICS = "totalStatistics";
+	private static final String CUMULATIVE_STATISTICS = "cumulativeStatistics";
+	private static final String LAST_SAMPLE_STATISTICS = "lastSampleStatistics";
+
+	@Autowired
+	private ConsoleManager consoleManager;
+
+	@Autowired
+	private AgentManager agentManager;
+
+	/**
+	 * Running tests keyed by the console port.
+	 */
+	private final ConcurrentMap<Integer, RunningTest> runningTests = new ConcurrentHashMap<Integer, RunningTest>();
+
+	/**
+	 * Register the given test running on the given console. The test is dropped automatically
+	 * once the console is returned back.
+	 *
+	 * @param perfTest      perf test
+	 * @param singleConsole console on which the test runs
+	 */
+	public void register(PerfTest perfTest, SingleConsole singleConsole) {
+		String userId = perfTest.getCreatedUser() == null ? null : perfTest.getCreatedUser().getUserId();
+		runningTests.put(singleConsole.getConsolePort(), new RunningTest(perfTest.getId(), userId,
+				buildLabels(perfTest), singleConsole));
+	}
+
+	/**
+	 * Update the latest target monitor data of the given test.
+	 *
+	 * @param perfTestId  perf test id
+	 * @param systemInfos monitor data keyed by the target ip
+	 */
+	public void updateMonitorStat(Long perfTestId, Map<String, SystemDataModel> systemInfos) {
+		for (RunningTest each : runningTests.values()) {
+			if (each.id.equals(perfTestId)) {
+				each.monitorStats = systemInfos;
+			}
+		}
+	}
+
+	/**
+	 * Write the metrics of the running tests which the given user can see.
+	 *
+	 * @param user   user
+	 * @param writer writer to which the metrics are written
+	 * @throws IOException occurs when the writer fails
+	 */
+	public void write(User user, Writer writer) throws IOException {
+		List<RunningTest> tests = getVisibleTests(user);
+
+		writeFamily(writer, "ngrinder_test_tps", "gauge", "TPS in the last sampling interval.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_tps", each.labels, each.console.getTpsValues());
+		}
+		writeFamily(writer, "ngrinder_test_peak_tps", "gauge", "Peak TPS since the test started.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_peak_tps", each.labels, getTotal(each, "Peak_TPS"));
+		}
+		writeFamily(writer, "ngrinder_test_mean_test_time_seconds", "gauge", "Mean test time since the test started.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_mean_test_time_seconds", each.labels,
+					getTotal(each, "Mean_Test_Time_(ms)") / 1000);
+		}
+		writeFamily(writer, "ngrinder_test_transactions", "counter", "Successful transactions.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_transactions_total", each.labels, getTotal(each, "Tests"));
+		}
+		writeFamily(writer, "ngrinder_test_errors", "counter", "Failed transactions.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_errors_total", each.labels, getTotal(each, "Errors"));
+		}
+		writeFamily(writer, "ngrinder_test_vusers", "gauge", "Running threads in all agents.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_vusers", each.labels, each.console.getRunningThread());
+		}
+		writeFamily(writer, "ngrinder_test_processes", "gauge", "Running processes in all agents.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_processes", each.labels, each.console.getRunningProcess());
+		}
+		writeFamily(writer, "ngrinder_test_running_seconds", "gauge", "Elapsed time since the test started.");
+		for (RunningTest each : tests) {
+			writeSample(writer, "ngrinder_test_running_seconds", each.labels,
+					each.console.getCurrentRunningTime() / 1000D);
+		}
+
+		writeRecordFamily(writer, tests, "ngrinder_record_tps", "gauge",
+				"TPS of each test record in the last sampling interval.", LAST_SAMPLE_STATISTICS, "TPS", 1);
+		writeRecordFamily(writer, tests, "ngrinder_record_mean_test_time_seconds", "gauge",
+				"Mean test time of each test record in the last sampling interval.", LAST_SAMPLE_STATISTICS,
+				"Mean_Test_Time_(ms)", 1000);
+		writeRecordFamily(writer, tests, "ngrinder_record_transactions", "counter",
+				"Successful transactions of each test record.", CUMULATIVE_STATISTICS, "Tests", 1);
+		writeRecordFamily(writer, tests, "ngrinder_record_errors", "counter",
+				"Failed transactions of each test record.", CUMULATIVE_STATISTICS, "Errors", 1);
+
+		List<Map<String, SystemDataModel>> agentStats = newArrayList(tests.size());
+		for (RunningTest each : tests) {
+			agentStats.add(getAgentStats(each));
+		}
+		writeSystemFamilies(writer, tests, agentStats, "ngrinder_agent", "agent");
+		List<Map<String, SystemDataModel>> monitorStats = newArrayList(tests.size());
+		for (RunningTest each : tests) {
+			Map<String, SystemDataModel> stats = each.monitorStats;
+			monitorStats.add(stats == null ? Collections.<String, SystemDataModel>emptyMap() : stats);
+		}
+		writeSystemFamilies(writer, tests, monitorStats, "ngrinder_target", "target");
+		writer.write("# EOF\n");
+	}
+
+	private List<RunningTest> getVisibleTests(User user) {
+		List<SingleConsole> consoles = consoleManager.getConsoleInUse();
+		List<RunningTest> tests = newArrayList(runningTests.size());
+		for (Map.Entry<Integer, RunningTest> each : runningTests.entrySet()) {
+			RunningTest test = each.getValue();
+			if (!consoles.contains(test.console)) {
+				runningTests.remove(each.getKey(), test);
+			} else if (user.getRole() != Role.USER || StringUtils.equals(user.getUserId(), test.userId)) {
+				tests.add(test);
+			}
+		}
+		return tests;
+	}
+
+	private Map<String, SystemDataModel> getAgentStats(RunningTest test) {
+		Set<AgentStatus> agents = agentManager.getAgentStatusSetConnectingToConsole(test.console);
+		Map<String, SystemDataModel> result = newHashMap();
+		for (AgentStatus each : agents) {
+			SystemDataModel systemDataModel = each.getSystemDataModel();
+			if (systemDataModel != null) {
+				result.put(each.getAgentName(), systemDataModel);
+			}
+		}
+		return result;
+	}
+
+	private void writeRecordFamily(Writer writer, List<RunningTest> tests, String name, String type, String help,
+	                               String statisticsKey, String key, double divisor) throws IOException {
+		writeFamily(writer, name, type, help);
+		String sampleName = "counter".equals(type) ? name + "_total" : name;
+		for (RunningTest each : tests) {
+			Object records = each.console.getStatisticsData().get(statisticsKey);
+			if (!(records instanceof List)) {
+				continue;
+			}
+			for (Object record : (List<?>) records) {
+				Map<?, ?> recordMap = (Map<?, ?>) record;
+				writer.write(sampleName);
+				writer.write('{');
+				writer.write(each.labels);
+				writer.write(",record=\"");
+				writer.write(String.valueOf(recordMap.get("testNumber")));
+				writer.write("\",description=\"");
+				writeEscaped(writer, String.valueOf(recordMap.get("testDescription")));
+				writer.write("\"} ");
+				writer.write(format(toDouble(recordMap.get(key)) / divisor));
+				writer.write('\n');
+			}
+		}
+	}
+
+	private void writeSystemFamilies(Writer writer, List<RunningTest> tests, List<Map<String, SystemDataModel>> stats,
+	                                 String prefix, String hostLabel) throws IOException {
+		String[] names = {"_cpu_used_ratio", "_memory_free_bytes", "_memory_total_bytes",
+				"_network_received_bytes_per_second", "_network_sent_bytes_per_second"};
+		for (int field = 0; field < names.length; field++) {
+			String name = prefix + names[field];
+			writeFamily(writer, name, "gauge", null);
+			for (int i = 0; i < tests.size(); i++) {
+				for (Map.Entry<String, SystemDataModel> each : stats.get(i).entrySet()) {
+					writer.write(name);
+					writer.write('{');
+					writer.write(tests.get(i).labels);
+					writer.write(',');
+					writer.write(hostLabel);
+					writer.write("=\"");
+					writeEscaped(writer, each.getKey());
+					writer.write("\"} ");
+					writer.write(format(getSystemValue(each.getValue(), field)));
+					writer.write('\n');
+				}
+			}
+		}
+	}
+
+	private double getSystemValue(SystemDataModel model, int field) {
+		switch (field) {
+			case 0:
+				return model.getCpuUsedPercentage() / 100D;
+			case 1:
+				return model.getFreeMemory() * 1024D;
+			case 2:
+				return model.getTotalMemory() * 1024D;
+			case 3:
+				return model.getReceivedPerSec();
+			default:
+				return model.getSentPerSec();
+		}
+	}
+
+	private double getTotal(RunningTest test, String key) {
+		Object total = test.console.getStatisticsData().get(TOTAL_STATISTICS);
+		return total instanceof Map ? toDouble(((Map<?, ?>) total).get(key)) : 0;
+	}
+
+	private double toDouble(Object value) {
+		return value instanceof Number ? ((Number) value).doubleValue() : 0;
+	}
+
+	private void writeFamily(Writer writer, String name, String type, String help) throws IOException {
+		writer.write("# TYPE ");
+		writer.write(name);
+		writer.write(' ');
+		writer.write(type);
+		writer.write('\n');
+		if (help != null) {
+			writer.write("# HELP ");
+			writer.write(name);
+			writer.write(' ');
+			writer.write(help);
+			writer.write('\n');
+		}
+	}
+
+	private void writeSample(Writer writer, String name, String labels, double value) throws IOException {
+		writer.write(name);
+		writer.write('{');
+		writer.write(labels);
+		writer.write("} ");
+		writer.write(format(value));
+		writer.write('\n');
+	}
+
+	private String format(double value) {
+		if (value == (long) value) {
+			return Long.toString((long) value);
+		}
+		return Double.toString(value);
+	}
+
+	private String buildLabels(PerfTest perfTest) {
+		StringBuilder builder = new StringBuilder();
+		builder.append("test_id=\"").append(perfTest.getId()).append("\",test_name=\"");
+		escape(builder, StringUtils.defaultString(perfTest.getTestName()));
+		builder.append("\",region=\"");
+		escape(builder, StringUtils.defaultString(perfTest.getRegion()));
+		return builder.append('"').toString();
+	}
+
+	private void writeEscaped(Writer writer, String value) throws IOException {
+		if (StringUtils.containsNone(value, "\\\"\n")) {
+			writer.write(value);
+			return;
+		}
+		StringBuilder builder = new StringBuilder(value.length() + 8);
+		escape(builder, value);
+		writer.append(builder);
+	}
+
+	/**
+	 * Escape the given label value as OpenMetrics requires.
+	 *
+	 * @param builder builder to which the escaped value is appended
+	 * @param value   label value
+	 */
+	static void escape(StringBuilder builder, String value) {
+		for (int i = 0; i < value.length(); i++) {
+			char each = value.charAt(i);
+			if (each == '\\' || each == '"') {
+				builder.append('\\').append(each);
+			} else if (each == '\n') {
+				builder.append("\\n");
+			} else {
+				builder.append(each);
+			}
+		}
+	}
+
+	private static class RunningTest {
+		private final Long id;
+		private final String userId;
+		private final String labels;
+		private final SingleConsole console;
+		private volatile Map<String, SystemDataModel> monitorStats;
+
+		RunningTest(Long id, String userId, String labels, SingleConsole console) {
+			this.id = id;
+			this.userId = userId;
+			this.labels = labels;
+			this.console = console;
+		}
+	}
+}
@@ -16,6 +16,7 @@ package org.ngrinder.perftest.service;
 import net.grinder.SingleConsole;
 import net.grinder.SingleConsole.ConsoleShutdownListener;
 import net.grinder.StopReason;
+import net.grinder.StopRules;
 import net.grinder.common.GrinderProperties;
 import net.grinder.console.model.ConsoleProperties;
 import net.grinder.util.ListenerHelper;
@@ -24,6 +25,8 @@ import net.grinder.util.UnitUtils;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.lang.time.DateUtils;
 import org.ngrinder.common.constant.ControllerConstants;
+import org.ngrinder.common.metrics.Metrics;
+import org.ngrinder.common.metrics.Timer;
 import org.ngrinder.extension.OnTestLifeCycleRunnable;
 import org.ngrinder.extension.OnTestSamplingRunnable;
 import org.ngrinder.infra.config.Config;
@@ -68,6 +71,10 @@ public class PerfTestRunnable implements ControllerConstants {
 
 	private static final Logger LOG = LoggerFactory.getLogger(PerfTestRunnable.class);
 
+	private static final Timer START_TIMER = Metrics.timer("scheduler.start");
+
+	private static final Timer FINISH_TIMER = Metrics.timer("scheduler.finish");
+
 	@SuppressWarnings("SpringJavaAutowiringInspection")
 	@Autowired
 	private PerfTestService perfTestService;
@@ -87,6 +94,12 @@ public class PerfTestRunnable implements ControllerConstants {
 	@Autowired
 	private ScheduledTaskService scheduledTaskService;
 
+	@Autowired
+	private PerfTestMetricsService perfTestMetricsService;
+
+	@Autowired
+	private PerfTestComparisonService perfTestComparisonService;
+
 	private Runnable startRunnable;
 
 	private Runnable finishRunnable;
@@ -125,7 +138,12 @@ public class PerfTestRunnable implements ControllerConstants {
 	 * is executed.
 	 */
 	public void startPeriodically() {
-		doStart();
+		long start = START_TIMER.start();
+		try {
+			doStart();
+		} finally {
+			START_TIMER.stop(start);
+		}
 	}
 
 	void doStart() {
@@ -248,10 +266,40 @@ public class PerfTestRunnable implements ControllerConstants {
 		ConsoleProperties consoleProperty = perfTestService.createConsoleProperties(perfTest);
 		SingleConsole singleConsole = consoleManager.getAvailableConsole(consoleProperty);
 		singleConsole.start();
+		attachShards(perfTest, singleConsole);
 		perfTestService.markPerfTestConsoleStart(perfTest, singleConsole.getConsolePort());
 		return singleConsole;
 	}
 
+	/**
+	 * Attach the shard consoles to the given console when the test uses more agents than a console takes. The test
+	 * runs on the given console only if no shard is available.
+	 *
+	 * @param perfTest      perftest
+	 * @param singleConsole coordinating console
+	 */
+	private void attachShards(PerfTest perfTest, SingleConsole singleConsole) {
+		int agentsPerConsole = config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_AGENTS_PER_CONSOLE);
+		int agentCount = getSafe(perfTest.getAgentCount());
+		if (agentsPerConsole <= 0 || agentCount <= agentsPerConsole) {
+			return;
+		}
+		int shardCount = (agentCount + agentsPerConsole - 1) / agentsPerConsole - 1;
+		for (int i = 0; i < shardCount; i++) {
+			SingleConsole shard = consoleManager.getAvailableShardConsole(
+					perfTestService.createConsoleProperties(perfTest));
+			if (shard == null) {
+				break;
+			}
+			shard.start();
+			singleConsole.addShard(shard);
+		}
+		if (!singleConsole.getShards().isEmpty()) {
+			perfTestService.markProgress(perfTest, "The agents are split across " + (singleConsole.getShards().size()
+					+ 1) + " consoles.");
+		}
+	}
+
 	/**
 	 * Distribute files to agents.
 	 *
@@ -287,6 +335,11 @@ public class PerfTestRunnable implements ControllerConstants {
 
 		});
 
+		int peerDistributionFanOut = getPeerDistributionFanOut();
+		if (peerDistributionFanOut > 0) {
+			perfTestService.markProgress(perfTest, "Peer assisted distribution is enabled.");
+		}
+		singleConsole.setPeerDistributionFanOut(peerDistributionFanOut);
 		// the files have prepared before
 		singleConsole.distributeFiles(perfTestService.getDistributionPath(perfTest), listener,
 				isSafeDistPerfTest(perfTest));
@@ -298,6 +351,10 @@ public class PerfTestRunnable implements ControllerConstants {
 		return config.getControllerProperties().getPropertyLong(PROP_CONTROLLER_SAFE_DIST_THRESHOLD);
 	}
 
+	protected int getPeerDistributionFanOut() {
+		return config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_PEER_DISTRIBUTION_FANOUT);
+	}
+
 	private boolean isSafeDistPerfTest(final PerfTest perfTest) {
 		boolean safeDist = getSafe(perfTest.getSafeDistribution());
 		if (config.isClustered()) {
@@ -347,9 +404,11 @@ public class PerfTestRunnable implements ControllerConstants {
 				LOG.error("Abnormal test {} due to {}", perfTest.getId(), stopReason.name());
 			}
 		});
+		singleConsole.setStopRules(StopRules.withDefaults(perfTest.getStopRules()));
 		long startTime = singleConsole.startTest(grinderProperties);
 		perfTest.setStartTime(new Date(startTime));
 		addSamplingListeners(perfTest, singleConsole);
+		perfTestMetricsService.register(perfTest, singleConsole);
 		perfTestService.markStatusAndProgress(perfTest, TESTING, "The test is started.");
 		singleConsole.startSampling();
 
@@ -397,7 +456,12 @@ public class PerfTestRunnable implements ControllerConstants {
 	 * </ul>
 	 */
 	public void finishPeriodically() {
-		doFinish(false);
+		long start = FINISH_TIMER.start();
+		try {
+			doFinish(false);
+		} finally {
+			FINISH_TIMER.stop(start);
+		}
 	}
 
 	protected void doFinish(boolean initial) {
@@ -512,6 +576,7 @@ public class PerfTestRunnable implements ControllerConstants {
 			LOG.error("Error while terminating {} : {}", perfTest.getTestIdentifier(), e.getMessage());
 			LOG.debug("Details : ", e);
 		}
+		saveSummary(perfTest);
 		consoleManager.returnBackConsole(perfTest.getTestIdentifier(), singleConsoleInUse);
 	}
 
@@ -543,9 +608,22 @@ public class PerfTestRunnable implements ControllerConstants {
 			LOG.error("Error while finishing {} : {}", perfTest.getTestIdentifier(), e.getMessage());
 			LOG.debug("Details : ", e);
 		}
+		saveSummary(perfTest);
 		consoleManager.returnBackConsole(perfTest.getTestIdentifier(), singleConsoleInUse);
 	}
 
+	/*
+	 * The sampling is already stopped, so the report is complete here.
+	 */
+	private void saveSummary(PerfTest perfTest) {
+		try {
+			perfTestComparisonService.saveSummary(perfTest);
+		} catch (Exception e) {
+			LOG.error("Error while saving the summary of {} : {}", perfTest.getTestIdentifier(), e.getMessage());
+			LOG.debug("Details : ", e);
+		}
+	}
+
 	public PerfTestService getPerfTestService() {
 		return perfTestService;
 	}
@@ -24,25 +24,34 @@ import net.grinder.console.model.ConsoleProperties;
 import net.grinder.util.ConsolePropertiesFactory;
 import net.grinder.util.Directory;
 import net.grinder.util.Pair;
+import net.grinder.util.feeder.DataFeeder;
+import net.grinder.util.feeder.DataFileSplitter;
 import org.apache.commons.collections.CollectionUtils;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.collections.Predicate;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
-import org.apache.commons.io.filefilter.WildcardFileFilter;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang.BooleanUtils;
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.Hibernate;
+import org.ngrinder.eventlog.RequestEventColumns;
+import org.ngrinder.eventlog.RequestEventReader;
+import org.ngrinder.eventlog.RequestEventWriter;
 import org.ngrinder.common.constant.ControllerConstants;
 import org.ngrinder.common.constants.GrinderConstants;
+import org.ngrinder.common.model.Home;
 import org.ngrinder.infra.config.Config;
+import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.model.*;
 import org.ngrinder.monitor.controller.model.SystemDataModel;
 import org.ngrinder.perftest.model.PerfTestStatistics;
 import org.ngrinder.perftest.model.ProcessAndThread;
+import org.ngrinder.perftest.model.RequestEvent;
 import org.ngrinder.perftest.repository.PerfTestRepository;
+import org.ngrinder.profile.ProfileSummary;
+import org.ngrinder.profile.WorkerProfiler;
 import org.ngrinder.script.handler.NullScriptHandler;
 import org.ngrinder.script.handler.ProcessingResultPrintStream;
 import org.ngrinder.script.handler.ScriptHandler;
@@ -58,14 +67,21 @@ import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.domain.Specifications;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionCallbackWithoutResult;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import javax.script.ScriptEngine;
-import javax.script.ScriptEngineManager;
-import javax.script.ScriptException;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.*;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
 
 import static org.ngrinder.common.constants.MonitorConstants.MONITOR_FILE_PREFIX;
 import static org.ngrinder.common.util.AccessUtils.getSafe;
@@ -115,6 +131,46 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	@Autowired
 	private ScriptHandlerFactory scriptHandlerFactory;
 
+	@Autowired
+	private ProcessAndThreadPolicyService processAndThreadPolicyService;
+
+	@Autowired
+	private PlatformTransactionManager transactionManager;
+
+	@Autowired
+	private ScheduledTaskService scheduledTaskService;
+
+	@Autowired
+	private PerfTestMetricsService perfTestMetricsService;
+
+	private TransactionTemplate transactionTemplate;
+
+	/**
+	 * The progress messages which are not written into DB yet. The value is the pair of
+	 * progressMessage and lastProgressMessage.
+	 */
+	private final ConcurrentMap<Long, String[]> pendingProgress = new ConcurrentHashMap<Long, String[]>();
+
+	private final Runnable progressFlushRunnable = new Runnable() {
+		@Override
+		public void run() {
+			flushProgress();
+		}
+	};
+
+	@PostConstruct
+	public void init() {
+		transactionTemplate = new TransactionTemplate(transactionManager);
+		scheduledTaskService.addFixedDelayedScheduledTask(progressFlushRunnable,
+				config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_PROGRESS_FLUSH_INTERVAL));
+	}
+
+	@PreDestroy
+	public void destroy() {
+		scheduledTaskService.removeScheduledJob(progressFlushRunnable);
+		flushProgress();
+	}
+
 	/**
 	 * Get {@link PerfTest} list for the given user.
 	 *
@@ -126,6 +182,44 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return found {@link PerfTest} list
 	 */
 	public Page<PerfTest> getPagedAll(User user, String query, String tag, String queryFilter, Pageable pageable) {
+		return perfTestRepository.findAll(createSearchSpec(user, query, tag, queryFilter), pageable);
+	}
+
+	/**
+	 * Get {@link PerfTest} summary list for the given user. The summaries don't have the runtime
+	 * statistics and the tags. Use {@link PerfTest#getTagString()} instead.
+	 *
+	 * @param user        user
+	 * @param query       query string on test name or description
+	 * @param tag         search tag.
+	 * @param queryFilter "S" for querying scheduled test, "F" for querying finished test
+	 * @param pageable    paging info
+	 * @return found {@link PerfTest} summary list
+	 * @since 3.4
+	 */
+	public Page<PerfTest> getPagedSummaries(User user, String query, String tag, String queryFilter,
+	                                        Pageable pageable) {
+		return perfTestRepository.findAllSummaries(createSearchSpec(user, query, tag, queryFilter), pageable);
+	}
+
+	/**
+	 * Get {@link PerfTest} list whose id is less than the given id in the id descending order.
+	 *
+	 * @param user        user
+	 * @param query       query string on test name or description
+	 * @param tag         search tag.
+	 * @param queryFilter "S" for querying scheduled test, "F" for querying finished test
+	 * @param beforeId    the last id of the previous page. null for the first page.
+	 * @param size        page size
+	 * @return found {@link PerfTest} list
+	 * @since 3.4
+	 */
+	public List<PerfTest> getAllBefore(User user, String query, String tag, String queryFilter, Long beforeId,
+	                                   int size) {
+		return perfTestRepository.findAllBefore(createSearchSpec(user, query, tag, queryFilter), beforeId, size);
+	}
+
+	private Specifications<PerfTest> createSearchSpec(User user, String query, String tag, String queryFilter) {
 		Specifications<PerfTest> spec = Specifications.where(idEmptyPredicate());
 		// User can see only his own test
 		if (user.getRole().equals(Role.USER)) {
@@ -146,7 +240,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		if (StringUtils.isNotBlank(query)) {
 			spec = spec.and(likeTestNameOrDescription(query));
 		}
-		return perfTestRepository.findAll(spec, pageable);
+		return spec;
 	}
 
 	/**
@@ -327,23 +421,95 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	@Override
 	public PerfTest markStatusAndProgress(PerfTest perfTest, Status status, String message) {
 		perfTest.setStatus(checkNotNull(status, "status should not be null"));
-		return markProgress(perfTest, message);
+		return saveProgress(perfTest, message);
 	}
 
 	/**
 	 * Add a progress message on the given perfTest.
+	 * <p/>
+	 * The message is not written into DB right away. The messages added in a short time are written
+	 * at once by {@link #flushProgress()} or together with the next status change.
 	 *
 	 * @param perfTest perf test
 	 * @param message  message to be recorded.
-	 * @return saved {@link PerfTest}
+	 * @return the given {@link PerfTest}
 	 */
-	@Transactional
 	public PerfTest markProgress(PerfTest perfTest, String message) {
 		checkNotNull(perfTest);
 		checkNotNull(perfTest.getId(), "perfTest should save Id");
 		perfTest.setLastProgressMessage(message);
 		LOGGER.debug("Progress : Test - {} : {}", perfTest.getId(), message);
-		return perfTestRepository.saveAndFlush(perfTest);
+		pendingProgress.put(perfTest.getId(),
+				new String[]{perfTest.getProgressMessage(), perfTest.getLastProgressMessage()});
+		return perfTest;
+	}
+
+	/**
+	 * Save the given perfTest with its progress messages right away.
+	 *
+	 * @param perfTest perf test
+	 * @param message  message to be recorded.
+	 * @return saved {@link PerfTest}
+	 */
+	private PerfTest saveProgress(PerfTest perfTest, String message) {
+		checkNotNull(perfTest);
+		checkNotNull(perfTest.getId(), "perfTest should save Id");
+		perfTest.setLastProgressMessage(message);
+		LOGGER.debug("Progress : Test - {} : {}", perfTest.getId(), message);
+		synchronized (pendingProgress) {
+			pendingProgress.remove(perfTest.getId());
+			return perfTestRepository.saveAndFlush(perfTest);
+		}
+	}
+
+	/**
+	 * Write the pending progress messages into DB in a single transaction.
+	 *
+	 * @since 3.4
+	 */
+	public void flushProgress() {
+		if (pendingProgress.isEmpty()) {
+			return;
+		}
+		synchronized (pendingProgress) {
+			final Map<Long, String[]> progress = newHashMap();
+			for (Entry<Long, String[]> each : pendingProgress.entrySet()) {
+				if (pendingProgress.remove(each.getKey(), each.getValue())) {
+					progress.put(each.getKey(), each.getValue());
+				}
+			}
+			try {
+				transactionTemplate.execute(new TransactionCallbackWithoutResult() {
+					@Override
+					protected void doInTransactionWithoutResult(TransactionStatus status) {
+						for (Entry<Long, String[]> each : progress.entrySet()) {
+							perfTestRepository.updateProgressMessage(each.getKey(), each.getValue()[0],
+									each.getValue()[1]);
+						}
+					}
+				});
+			} catch (Exception e) {
+				LOGGER.error("Error while writing the progress messages : {}", e.getMessage());
+				LOGGER.debug("Details : ", e);
+				for (Entry<Long, String[]> each : progress.entrySet()) {
+					pendingProgress.putIfAbsent(each.getKey(), each.getValue());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Get the latest progress messages of the given perfTest including the ones which are not
+	 * written into DB yet.
+	 *
+	 * @param perfTest perf test
+	 * @return the pair of the progress message and the last progress message
+	 * @since 3.4
+	 */
+	public String[] getLatestProgress(PerfTest perfTest) {
+		String[] pending = pendingProgress.get(perfTest.getId());
+		return pending != null ? pending : new String[]{perfTest.getProgressMessage(),
+				perfTest.getLastProgressMessage()};
 	}
 
 	/**
@@ -357,7 +523,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	@Transactional
 	public PerfTest markProgressAndStatus(PerfTest perfTest, Status status, String message) {
 		perfTest.setStatus(status);
-		return markProgress(perfTest, message);
+		return saveProgress(perfTest, message);
 	}
 
 	/**
@@ -663,9 +829,45 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			}
 			throw processException("Error while file distribution is prepared.");
 		}
+		splitDataFiles(perfTest, perfTestDistDirectory);
 		return handler;
 	}
 
+	/**
+	 * Split the big data files in the distribution directory into the per agent slices so that
+	 * the {@link DataFeeder} in each agent maps only its own slice. The console distributes the
+	 * same directory to all agents, so the original files are removed once they are split. Otherwise
+	 * every agent would receive each file twice. The scripts should open the split files with
+	 * {@link DataFeeder}, which finds the slice of the agent by the original name.
+	 * <p/>
+	 * The slice N is for the agent number N. The agent numbers of a test are contiguous from 0 to
+	 * the assigned agent count - 1, because the console allocates the lowest free number to each
+	 * agent and the shard consoles start from the agent number offset given by {@link AgentManager}.
+	 *
+	 * @param perfTest              perfTest
+	 * @param perfTestDistDirectory distribution directory
+	 */
+	void splitDataFiles(PerfTest perfTest, File perfTestDistDirectory) {
+		long threshold = config.getControllerProperties().getPropertyLong(PROP_CONTROLLER_DIST_DATA_SPLIT_THRESHOLD);
+		int agentCount = getSafe(perfTest.getAgentCount());
+		boolean header = config.getControllerProperties().getPropertyBoolean(PROP_CONTROLLER_DIST_DATA_SPLIT_HEADER);
+		if (threshold <= 0 || agentCount <= 1) {
+			return;
+		}
+		for (File each : FileUtils.listFiles(perfTestDistDirectory, new String[]{"csv", "txt"}, true)) {
+			if (each.length() < threshold) {
+				continue;
+			}
+			try {
+				DataFileSplitter.split(each, agentCount, header);
+				FileUtils.forceDelete(each);
+				LOGGER.info("{} is split into {} slices for test {}", new Object[]{each, agentCount, perfTest.getId()});
+			} catch (IOException e) {
+				throw processException("Error while splitting the data file " + each.getName(), e);
+			}
+		}
+	}
+
 	/**
 	 * Get the process and thread policy java script.
 	 *
@@ -682,17 +884,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return optimal process thread count
 	 */
 	public ProcessAndThread calcProcessAndThread(int newVuser) {
-		try {
-			String script = getProcessAndThreadPolicyScript();
-			ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
-			engine.eval(script);
-			int processCount = ((Double) engine.eval("getProcessCount(" + newVuser + ")")).intValue();
-			int threadCount = ((Double) engine.eval("getThreadCount(" + newVuser + ")")).intValue();
-			return new ProcessAndThread(processCount, threadCount);
-		} catch (ScriptException e) {
-			LOGGER.error("Error occurs while calc process and thread", e);
-		}
-		return new ProcessAndThread(1, 1);
+		return processAndThreadPolicyService.calcProcessAndThread(newVuser);
 	}
 
 	/**
@@ -705,55 +897,52 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval interval value
 	 */
 	public int getReportDataInterval(long testId, String dataType, int imgWidth) {
-		int pointCount = Math.max(imgWidth, MAX_POINT_COUNT);
-		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		int interval = 0;
-		File targetFile = new File(reportFolder, dataType + DATA_FILE_EXTENSION);
-		if (!targetFile.exists()) {
-			LOGGER.warn("Report {} for test {} does not exist.", dataType, testId);
-			return 0;
-		}
-		LineNumberReader lnr = null;
-
-		FileInputStream in = null;
-		InputStreamReader isr = null;
+		ReportArchive.Entry entry = null;
 		try {
-			in = new FileInputStream(targetFile);
-			isr = new InputStreamReader(in);
-			lnr = new LineNumberReader(isr);
-			lnr.skip(targetFile.length());
-			int lineNumber = lnr.getLineNumber() + 1;
-			interval = Math.max(lineNumber / pointCount, 1);
+			entry = openReport(testId, dataType + DATA_FILE_EXTENSION);
+			if (entry == null) {
+				LOGGER.warn("Report {} for test {} does not exist.", dataType, testId);
+				return 0;
+			}
+			return getRecordInterval(imgWidth, entry.getInputStream());
 		} catch (Exception e) {
 			LOGGER.error("Failed to get report data for {}", dataType, e);
+			return 0;
 		} finally {
-			IOUtils.closeQuietly(lnr);
-			IOUtils.closeQuietly(isr);
-			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(entry);
 		}
-
-		return interval;
 	}
 
 	/**
-	 * Get report file(csv data) for give test .
+	 * Get the report file(csv data) for the given test. It should be closed after use.
 	 *
 	 * @param perfTest test
-	 * @return reportFile data report file
+	 * @return opened report file. null if it does not exist.
+	 * @since 3.4
 	 */
-	public File getCsvReportFile(PerfTest perfTest) {
-		return config.getHome().getPerfTestCsvFile(perfTest);
+	public ReportArchive.Entry getCsvReport(PerfTest perfTest) {
+		try {
+			return openReport(perfTest.getId(), Home.REPORT_CSV);
+		} catch (IOException e) {
+			throw processException(e);
+		}
 	}
 
 	/**
-	 * Get log file names for give test id.
+	 * Open the given log file of the given test. The log file is read from the report archive
+	 * once the test is compacted. It should be closed after use.
 	 *
 	 * @param testId   test id
 	 * @param fileName file name of one logs of the test
-	 * @return file report file path
+	 * @return opened log file. null if it does not exist.
+	 * @since 3.4
 	 */
-	public File getLogFile(long testId, String fileName) {
-		return new File(getLogFileDirectory(String.valueOf(testId)), fileName);
+	public ReportArchive.Entry openLogFile(long testId, String fileName) {
+		try {
+			return getReportArchive(testId).open(Home.PATH_LOG, fileName);
+		} catch (IOException e) {
+			throw processException(e);
+		}
 	}
 
 	/**
@@ -785,11 +974,159 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return logFilesList log file list of that test
 	 */
 	public List<String> getLogFiles(long testId) {
-		File logFileDirectory = getLogFileDirectory(String.valueOf(testId));
-		if (!logFileDirectory.exists() || !logFileDirectory.isDirectory()) {
-			return Collections.emptyList();
+		return getReportArchive(testId).list(Home.PATH_LOG);
+	}
+
+	/**
+	 * Get the slowest request events recorded by the workers of the given test. The events are
+	 * read from the request event files included in the log zip files sent by agents.
+	 *
+	 * @param testId      test id
+	 * @param testNumber  test number to be filtered. 0 if all tests should be included.
+	 * @param minDuration minimum duration in ms
+	 * @param errorOnly   true if only the failed requests should be included
+	 * @param size        maximum count of the returned events
+	 * @return request events sorted by the duration in the descending order
+	 */
+	public List<RequestEvent> getRequestEvents(long testId, final int testNumber, final long minDuration,
+	                                           final boolean errorOnly, final int size) {
+		Comparator<RequestEvent> byDuration = new Comparator<RequestEvent>() {
+			@Override
+			public int compare(RequestEvent o1, RequestEvent o2) {
+				return Integer.compare(o1.getDuration(), o2.getDuration());
+			}
+		};
+		final PriorityQueue<RequestEvent> slowest = new PriorityQueue<RequestEvent>(Math.max(size, 1), byDuration);
+		if (size <= 0) {
+			return newArrayList();
+		}
+		ReportArchive reportArchive = getReportArchive(testId);
+		for (String each : reportArchive.list(Home.PATH_LOG)) {
+			if (!FilenameUtils.isExtension(each, "zip")) {
+				continue;
+			}
+			ReportArchive.Entry logFile = null;
+			ZipInputStream zipInputStream = null;
+			try {
+				logFile = reportArchive.open(Home.PATH_LOG, each);
+				if (logFile == null) {
+					continue;
+				}
+				zipInputStream = new ZipInputStream(logFile.getInputStream());
+				ZipEntry entry;
+				while ((entry = zipInputStream.getNextEntry()) != null) {
+					if (!entry.getName().endsWith(RequestEventWriter.FILE_EXTENSION)) {
+						continue;
+					}
+					final String worker = FilenameUtils.getBaseName(entry.getName());
+					RequestEventReader.read(zipInputStream, new RequestEventReader.Visitor() {
+						@Override
+						public void visit(RequestEventColumns columns, int index) {
+							int duration = columns.getDuration(index);
+							boolean error = columns.getStatus(index) == RequestEventColumns.STATUS_ERROR;
+							if (duration < minDuration || (errorOnly && !error)
+									|| (testNumber != 0 && columns.getTestNumber(index) != testNumber)) {
+								return;
+							}
+							if (slowest.size() == size) {
+								if (slowest.peek().getDuration() >= duration) {
+									return;
+								}
+								slowest.poll();
+							}
+							slowest.add(new RequestEvent(worker, columns.getTimestamp(index),
+									columns.getTestNumber(index), columns.getThreadNumber(index), duration, error));
+						}
+					});
+				}
+			} catch (IOException e) {
+				LOGGER.error("Error while reading request events from {}", each, e);
+			} finally {
+				IOUtils.closeQuietly(zipInputStream);
+				IOUtils.closeQuietly(logFile);
+			}
+		}
+		List<RequestEvent> result = new ArrayList<RequestEvent>(slowest);
+		Collections.sort(result, Collections.reverseOrder(byDuration));
+		return result;
+	}
+
+	/**
+	 * Get the profile summary merged from the profile files of all workers of the given test.
+	 * The profile files are included in the log zip files sent by agents. Once the test is
+	 * finished, the merged summary is saved into the report directory and read from there
+	 * afterwards.
+	 *
+	 * @param testId test id
+	 * @return merged summary. null if no worker was profiled.
+	 */
+	public ProfileSummary getProfileSummary(long testId) {
+		ReportArchive reportArchive = getReportArchive(testId);
+		ReportArchive.Entry entry = null;
+		try {
+			entry = reportArchive.open(Home.PATH_REPORT, Home.REPORT_PROFILE);
+			if (entry != null) {
+				return ProfileSummary.read(entry.getInputStream());
+			}
+		} catch (IOException e) {
+			LOGGER.warn("The profile summary of test {} can not be read. It's merged again.", testId, e);
+		} finally {
+			IOUtils.closeQuietly(entry);
+		}
+		ProfileSummary merged = mergeProfileSummary(reportArchive);
+		PerfTest perfTest = getOne(testId);
+		if (merged != null && perfTest != null && perfTest.getStatus().isReportable()) {
+			saveProfileSummary(reportArchive, testId, merged);
+		}
+		return merged;
+	}
+
+	private void saveProfileSummary(ReportArchive reportArchive, long testId, ProfileSummary summary) {
+		try {
+			ByteArrayOutputStream output = new ByteArrayOutputStream();
+			summary.write(output);
+			if (!reportArchive.put(Home.PATH_REPORT, Home.REPORT_PROFILE, output.toByteArray())) {
+				LOGGER.debug("The profile summary of test {} is not saved because its report is removed", testId);
+			}
+		} catch (IOException e) {
+			LOGGER.error("Error while saving the profile summary of test {}", testId, e);
+		}
+	}
+
+	private ProfileSummary mergeProfileSummary(ReportArchive reportArchive) {
+		ProfileSummary merged = null;
+		for (String each : reportArchive.list(Home.PATH_LOG)) {
+			if (!FilenameUtils.isExtension(each, "zip")) {
+				continue;
+			}
+			ReportArchive.Entry logFile = null;
+			ZipInputStream zipInputStream = null;
+			try {
+				logFile = reportArchive.open(Home.PATH_LOG, each);
+				if (logFile == null) {
+					continue;
+				}
+				zipInputStream = new ZipInputStream(logFile.getInputStream());
+				ZipEntry entry;
+				while ((entry = zipInputStream.getNextEntry()) != null) {
+					if (!entry.getName().endsWith(WorkerProfiler.FILE_EXTENSION)) {
+						continue;
+					}
+					ProfileSummary summary = ProfileSummary.read(zipInputStream);
+					if (merged == null) {
+						merged = summary;
+					} else {
+						merged.merge(summary);
+					}
+				}
+			} catch (IOException e) {
+				LOGGER.error("Error while reading the worker profiles from {}", each, e);
+			} finally {
+				IOUtils.closeQuietly(zipInputStream);
+				IOUtils.closeQuietly(logFile);
+			}
 		}
-		return Arrays.asList(logFileDirectory.list());
+		return merged;
 	}
 
 
@@ -844,8 +1181,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	public String getProperSizedStatusString(SingleConsole singleConsole) {
 		Map<String, SystemDataModel> agentStatusMap = Maps.newHashMap();
-		final int singleConsolePort = singleConsole.getConsolePort();
-		for (AgentStatus each : agentManager.getAgentStatusSetConnectingToPort(singleConsolePort)) {
+		for (AgentStatus each : agentManager.getAgentStatusSetConnectingToConsole(singleConsole)) {
 			agentStatusMap.put(each.getAgentName(), each.getSystemDataModel());
 		}
 		return getProperSizedStatusString(agentStatusMap);
@@ -1148,6 +1484,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	@Transactional
 	public void updateMonitorStat(Long perfTestId, Map<String, SystemDataModel> systemInfos) {
+		perfTestMetricsService.updateMonitorStat(perfTestId, systemInfos);
 		String json = gson.toJson(systemInfos);
 		if (json.length() >= 2000) {
 			Map<String, SystemDataModel> systemInfo = Maps.newHashMap();
@@ -1185,29 +1522,20 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getMonitorGraphInterval(long testId, String targetIP, int imageWidth) {
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-				MONITOR_FILE_PREFIX + targetIP + ".data");
-
-		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
-		FileInputStream in = null;
-		InputStreamReader isr = null;
-		LineNumberReader lnr = null;
+		String monitorDataFile = MONITOR_FILE_PREFIX + targetIP + DATA_FILE_EXTENSION;
+		ReportArchive.Entry entry = null;
 		int interval = 0;
 		try {
-			in = new FileInputStream(monitorDataFile);
-			isr = new InputStreamReader(in);
-			lnr = new LineNumberReader(isr);
-			lnr.skip(monitorDataFile.length());
-			int lineNumber = lnr.getLineNumber() + 1;
-			interval = Math.max(lineNumber / pointCount, 1);
-		} catch (FileNotFoundException e) {
-			LOGGER.info("Monitor data file does not exist at {}", monitorDataFile);
+			entry = openReport(testId, monitorDataFile);
+			if (entry == null) {
+				LOGGER.info("Monitor data file {} does not exist in test {}", monitorDataFile, testId);
+			} else {
+				interval = getRecordInterval(imageWidth, entry.getInputStream());
+			}
 		} catch (IOException e) {
 			LOGGER.info("Error while getting monitor:{} data file:{}", targetIP, monitorDataFile);
 		} finally {
-			IOUtils.closeQuietly(lnr);
-			IOUtils.closeQuietly(isr);
-			IOUtils.closeQuietly(in);
+			IOUtils.closeQuietly(entry);
 		}
 		return interval;
 	}
@@ -1223,10 +1551,15 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	public Map<String, String> getMonitorGraph(long testId, String targetIP, int dataInterval) {
 		Map<String, String> returnMap = Maps.newHashMap();
-		File monitorDataFile = new File(config.getHome().getPerfTestReportDirectory(String.valueOf(testId)),
-				MONITOR_FILE_PREFIX + targetIP + ".data");
+		String monitorDataFile = MONITOR_FILE_PREFIX + targetIP + DATA_FILE_EXTENSION;
+		ReportArchive.Entry entry = null;
 		BufferedReader br = null;
 		try {
+			entry = openReport(testId, monitorDataFile);
+			if (entry == null) {
+				LOGGER.info("Monitor data file {} does not exist in test {}", monitorDataFile, testId);
+				return returnMap;
+			}
 
 			StringBuilder sbUsedMem = new StringBuilder("[");
 			StringBuilder sbCPUUsed = new StringBuilder("[");
@@ -1238,7 +1571,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			StringBuilder customData4 = new StringBuilder("[");
 			StringBuilder customData5 = new StringBuilder("[");
 
-			br = new BufferedReader(new FileReader(monitorDataFile));
+			br = new BufferedReader(new InputStreamReader(entry.getInputStream()));
 			br.readLine(); // skip the header.
 			// "ip,system,collectTime,freeMemory,totalMemory,cpuUsedPercentage,receivedPerSec,sentPerSec"
 			String line = br.readLine();
@@ -1280,6 +1613,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			LOGGER.info("Error while getting monitor {} data file at {}", targetIP, monitorDataFile);
 		} finally {
 			IOUtils.closeQuietly(br);
+			IOUtils.closeQuietly(entry);
 		}
 		return returnMap;
 	}
@@ -1309,6 +1643,18 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		return config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
 	}
 
+	private ReportArchive getReportArchive(long testId) {
+		return ReportArchive.of(config.getHome(), testId);
+	}
+
+	/*
+	 * Open the given file in the report directory. It's read from the report archive once the test
+	 * is compacted. Null is returned if it does not exist.
+	 */
+	private ReportArchive.Entry openReport(long testId, String path) throws IOException {
+		return getReportArchive(testId).open(Home.PATH_REPORT, path);
+	}
+
 	/**
 	 * Get interval value of the monitor data of a plugin, like jvm monitor plugin.
 	 * The usage of interval value is same as system monitor data.
@@ -1320,7 +1666,23 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return interval value.
 	 */
 	public int getReportPluginGraphInterval(long testId, String plugin, String kind, int imageWidth) {
-		return getRecordInterval(imageWidth, getReportPluginDataFile(testId, plugin, kind));
+		String pluginDataFile = getReportPluginDataFile(plugin, kind);
+		ReportArchive.Entry entry = null;
+		int interval = 0;
+		try {
+			entry = openReport(testId, pluginDataFile);
+			if (entry == null) {
+				LOGGER.error("data file not exist:{}", pluginDataFile);
+			} else {
+				interval = getRecordInterval(imageWidth, entry.getInputStream());
+			}
+		} catch (IOException e) {
+			LOGGER.error("Error while getting data file:{}", pluginDataFile);
+			LOGGER.error(e.getMessage(), e);
+		} finally {
+			IOUtils.closeQuietly(entry);
+		}
+		return interval;
 	}
 
 	/**
@@ -1331,16 +1693,10 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	public List<Pair<String, String>> getAvailableReportPlugins(Long testId) {
 		List<Pair<String, String>> result = newArrayList();
-		File reportDir = getReportFileDirectory(testId);
-		if (reportDir.exists()) {
-			for (File plugin : checkNotNull(reportDir.listFiles())) {
-				if (plugin.isDirectory()) {
-					for (String kind : checkNotNull(plugin.list())) {
-						if (kind.endsWith(".data")) {
-							result.add(Pair.of(plugin.getName(), FilenameUtils.getBaseName(kind)));
-						}
-					}
-				}
+		for (String each : getReportArchive(testId).list(Home.PATH_REPORT)) {
+			String[] pluginAndKind = StringUtils.split(each, "/");
+			if (pluginAndKind.length == 2 && pluginAndKind[1].endsWith(DATA_FILE_EXTENSION)) {
+				result.add(Pair.of(pluginAndKind[0], FilenameUtils.getBaseName(pluginAndKind[1])));
 			}
 		}
 		return result;
@@ -1349,10 +1705,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	/*
 	 * Plugin monitor data should be {TestReportDir}/{plugin}/{kind}.data
 	 */
-	private File getReportPluginDataFile(Long testId, String plugin, String kind) {
-		File reportDir = getReportFileDirectory(testId);
-		File pluginDir = new File(reportDir, plugin);
-		return new File(pluginDir, kind + ".data");
+	private String getReportPluginDataFile(String plugin, String kind) {
+		return plugin + "/" + kind + DATA_FILE_EXTENSION;
 	}
 
 	/*
@@ -1360,30 +1714,11 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * there will be too many points in the chart. So we will calculate the interval to get appropriate count of data to
 	 * display. For example, interval value "2" means, get one record for every "2" records.
 	 */
-	private int getRecordInterval(int imageWidth, File dataFile) {
+	private int getRecordInterval(int imageWidth, InputStream in) throws IOException {
 		int pointCount = Math.max(imageWidth, MAX_POINT_COUNT);
-		FileInputStream in = null;
-		InputStreamReader isr = null;
-		LineNumberReader lnr = null;
-		int interval = 0;
-		try {
-			in = new FileInputStream(dataFile);
-			isr = new InputStreamReader(in);
-			lnr = new LineNumberReader(isr);
-			lnr.skip(dataFile.length());
-			interval = Math.max((lnr.getLineNumber() + 1) / pointCount, 1);
-		} catch (FileNotFoundException e) {
-			LOGGER.error("data file not exist:{}", dataFile);
-			LOGGER.error(e.getMessage(), e);
-		} catch (IOException e) {
-			LOGGER.error("Error while getting data file:{}", dataFile);
-			LOGGER.error(e.getMessage(), e);
-		} finally {
-			IOUtils.closeQuietly(lnr);
-			IOUtils.closeQuietly(isr);
-			IOUtils.closeQuietly(in);
-		}
-		return interval;
+		LineNumberReader lnr = new LineNumberReader(new InputStreamReader(in));
+		lnr.skip(Long.MAX_VALUE);
+		return Math.max((lnr.getLineNumber() + 1) / pointCount, 1);
 	}
 
 	/**
@@ -1398,10 +1733,16 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 */
 	public Map<String, Object> getReportPluginGraph(long testId, String plugin, String kind, int interval) {
 		Map<String, Object> returnMap = Maps.newHashMap();
-		File pluginDataFile = getReportPluginDataFile(testId, plugin, kind);
+		String pluginDataFile = getReportPluginDataFile(plugin, kind);
+		ReportArchive.Entry entry = null;
 		BufferedReader br = null;
 		try {
-			br = new BufferedReader(new FileReader(pluginDataFile));
+			entry = openReport(testId, pluginDataFile);
+			if (entry == null) {
+				LOGGER.error("data file not exist:{}", pluginDataFile);
+				return returnMap;
+			}
+			br = new BufferedReader(new InputStreamReader(entry.getInputStream()));
 			String header = br.readLine();
 
 			StringBuilder headerSB = new StringBuilder("[");
@@ -1450,6 +1791,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			LOGGER.error(e.getMessage(), e);
 		} finally {
 			IOUtils.closeQuietly(br);
+			IOUtils.closeQuietly(entry);
 		}
 		return returnMap;
 	}
@@ -1464,8 +1806,7 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	 * @return json list
 	 */
 	public String getSingleReportDataAsJson(long testId, String key, int interval) {
-		File reportDataFile = getReportDataFile(testId, key);
-		return getFileDataAsJson(reportDataFile, interval);
+		return getFileDataAsJson(testId, key + DATA_FILE_EXTENSION, interval);
 	}
 
 	/**
@@ -1480,8 +1821,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 	public Pair<ArrayList<String>, ArrayList<String>> getReportData(long testId, String key, boolean onlyTotal, int interval) {
 		Pair<ArrayList<String>, ArrayList<String>> resultPair = Pair.of(new ArrayList<String>(),
 				new ArrayList<String>());
-		List<File> reportDataFiles = onlyTotal ? Lists.newArrayList(getReportDataFile(testId, key)) : getReportDataFiles(testId, key);
-		for (File file : reportDataFiles) {
+		List<String> reportDataFiles = onlyTotal ? Lists.newArrayList(key + DATA_FILE_EXTENSION) : getReportDataFiles(testId, key);
+		for (String file : reportDataFiles) {
 			String buildReportName = buildReportName(key, file);
 			if (key.equals(buildReportName)) {
 				buildReportName = "Total";
@@ -1489,13 +1830,13 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 				buildReportName = buildReportName.replace("_", " ");
 			}
 			resultPair.getFirst().add(buildReportName);
-			resultPair.getSecond().add(getFileDataAsJson(file, interval));
+			resultPair.getSecond().add(getFileDataAsJson(testId, file, interval));
 		}
 		return resultPair;
 	}
 
-	private String buildReportName(String key, File file) {
-		String reportName = FilenameUtils.removeExtension(file.getName());
+	private String buildReportName(String key, String fileName) {
+		String reportName = FilenameUtils.removeExtension(fileName);
 		if (key.equals(reportName)) {
 			return reportName;
 		}
@@ -1506,55 +1847,43 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 		return reportName;
 	}
 
-	/**
-	 * Get a single file for the given report key.
-	 *
-	 * @param testId test id
-	 * @param key    key
-	 * @return return file
+	/*
+	 * Get the report data file names respectively if there are multiple tests.
 	 */
-	public File getReportDataFile(long testId, String key) {
-		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		return new File(reportFolder, key + ".data");
-	}
-
-	/**
-	 * Get files respectively if there are multiple tests.
-	 *
-	 * @param testId test id
-	 * @param key    report key
-	 * @return return file list
-	 */
-	public List<File> getReportDataFiles(long testId, String key) {
-		File reportFolder = config.getHome().getPerfTestReportDirectory(String.valueOf(testId));
-		FileFilter fileFilter = new WildcardFileFilter(key + "*.data");
-		File[] files = reportFolder.listFiles(fileFilter);
-		Arrays.sort(files, new Comparator<File>() {
+	private List<String> getReportDataFiles(long testId, String key) {
+		List<String> result = newArrayList();
+		for (String each : getReportArchive(testId).list(Home.PATH_REPORT)) {
+			if (!each.contains("/") && FilenameUtils.wildcardMatch(each, key + "*" + DATA_FILE_EXTENSION)) {
+				result.add(each);
+			}
+		}
+		Collections.sort(result, new Comparator<String>() {
 			@Override
-			public int compare(File o1, File o2) {
-				return FilenameUtils.getBaseName(o1.getName()).compareTo(FilenameUtils.getBaseName(o2.getName()));
+			public int compare(String o1, String o2) {
+				return FilenameUtils.getBaseName(o1).compareTo(FilenameUtils.getBaseName(o2));
 			}
 		});
-		return Arrays.asList(files);
+		return result;
 	}
 
 	/**
 	 * Get the test report data as a json string.
 	 *
-	 * @param targetFile target file
-	 * @param interval   interval to collect data
+	 * @param testId   test id
+	 * @param fileName report data file name
+	 * @param interval interval to collect data
 	 * @return json string
 	 */
-	private String getFileDataAsJson(File targetFile, int interval) {
-		if (!targetFile.exists()) {
-			return "[]";
-		}
+	private String getFileDataAsJson(long testId, String fileName, int interval) {
 		StringBuilder reportData = new StringBuilder("[");
-		FileReader reader = null;
+		ReportArchive.Entry entry = null;
 		BufferedReader br = null;
 		try {
-			reader = new FileReader(targetFile);
-			br = new BufferedReader(reader);
+			entry = openReport(testId, fileName);
+			if (entry == null) {
+				return "[]";
+			}
+			br = new BufferedReader(new InputStreamReader(entry.getInputStream()));
 			String data = br.readLine();
 			int current = 0;
 			while (StringUtils.isNotBlank(data)) {
@@ -1574,8 +1903,8 @@ public class PerfTestService extends AbstractPerfTestService implements Controll
 			LOGGER.error("Report data retrieval is failed: {}", e.getMessage());
 			LOGGER.debug("Trace is : ", e);
 		} finally {
-			IOUtils.closeQuietly(reader);
 			IOUtils.closeQuietly(br);
+			IOUtils.closeQuietly(entry);
 		}
 		return reportData.append("]").toString();
 	}
@@ -0,0 +1,32 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.ngrinder.perftest.model.ProcessAndThread;
+
+/**
+ * Policy which splits the vusers per agent into the processes and threads.
+ *
+ * @since 3.4
+ */
+public interface ProcessAndThreadPolicy {
+
+	/**
+	 * Calculate the process and thread count for the given vusers.
+	 *
+	 * @param vuser the count of virtual users per agent
+	 * @return process and thread count
+	 */
+	ProcessAndThread calcProcessAndThread(int vuser);
+}
@@ -0,0 +1,175 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.perftest.model.ProcessAndThread;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import javax.script.Compilable;
+import javax.script.Invocable;
+import javax.script.ScriptEngine;
+import javax.script.ScriptEngineManager;
+import javax.script.ScriptException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import static org.ngrinder.common.util.ExceptionUtils.processException;
+
+/**
+ * Process and thread policy service.
+ * <p/>
+ * The process_and_thread_policy.js is compiled once and compiled again only when the file is
+ * changed. While the file is same as the default one, {@link DefaultProcessAndThreadPolicy} is
+ * used without the script engine. The results are memoized per vuser count.
+ *
+ * @since 3.4
+ */
+@Service
+public class ProcessAndThreadPolicyService {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ProcessAndThreadPolicyService.class);
+
+	private static final String DEFAULT_POLICY_SCRIPT = "ngrinder_home_template/process_and_thread_policy.js";
+
+	private static final int MAX_MEMOIZED_COUNT = 10000;
+
+	@Autowired
+	private Config config;
+
+	private String defaultPolicyScript;
+
+	private volatile LoadedPolicy loadedPolicy;
+
+	/**
+	 * Load the default policy script to find out whether the policy file is customized.
+	 */
+	@PostConstruct
+	public void init() {
+		InputStream inputStream = null;
+		try {
+			inputStream = new ClassPathResource(DEFAULT_POLICY_SCRIPT).getInputStream();
+			defaultPolicyScript = StringUtils.deleteWhitespace(IOUtils.toString(inputStream));
+		} catch (IOException e) {
+			LOGGER.error("Error while loading the default process and thread policy", e);
+		} finally {
+			IOUtils.closeQuietly(inputStream);
+		}
+	}
+
+	/**
+	 * Get the optimal process and thread count.
+	 *
+	 * @param vuser the count of virtual users per agent
+	 * @return optimal process thread count
+	 */
+	public ProcessAndThread calcProcessAndThread(int vuser) {
+		LoadedPolicy policy = getPolicy();
+		ProcessAndThread result = policy.results.get(vuser);
+		if (result == null) {
+			try {
+				result = policy.policy.calcProcessAndThread(vuser);
+			} catch (Exception e) {
+				LOGGER.error("Error occurs while calc process and thread", e);
+				return new ProcessAndThread(1, 1);
+			}
+			if (policy.results.size() < MAX_MEMOIZED_COUNT) {
+				policy.results.put(vuser, result);
+			}
+		}
+		// ProcessAndThread is mutable. Don't expose the memoized one.
+		return new ProcessAndThread(result.getProcessCount(), result.getThreadCount());
+	}
+
+	private LoadedPolicy getPolicy() {
+		String script = config.getProcessAndThreadPolicyScript();
+		LoadedPolicy policy = loadedPolicy;
+		if (policy != null && StringUtils.equals(policy.script, script)) {
+			return policy;
+		}
+		synchronized (this) {
+			policy = loadedPolicy;
+			if (policy == null || !StringUtils.equals(policy.script, script)) {
+				policy = new LoadedPolicy(script, createPolicy(script));
+				loadedPolicy = policy;
+			}
+		}
+		return policy;
+	}
+
+	ProcessAndThreadPolicy createPolicy(String script) {
+		if (StringUtils.isBlank(script) || StringUtils.deleteWhitespace(script).equals(defaultPolicyScript)) {
+			return new DefaultProcessAndThreadPolicy();
+		}
+		try {
+			LOGGER.info("Compile the customized process_and_thread_policy.js");
+			return new ScriptProcessAndThreadPolicy(script);
+		} catch (Exception e) {
+			LOGGER.error("Error while compiling process_and_thread_policy.js. The default policy is used.", e);
+			return new DefaultProcessAndThreadPolicy();
+		}
+	}
+
+	private static class LoadedPolicy {
+		private final String script;
+		private final ProcessAndThreadPolicy policy;
+		private final ConcurrentMap<Integer, ProcessAndThread> results = new ConcurrentHashMap<Integer, ProcessAndThread>();
+
+		LoadedPolicy(String script, ProcessAndThreadPolicy policy) {
+			this.script = script;
+			this.policy = policy;
+		}
+	}
+
+	/**
+	 * Policy defined by getProcessCount(total) and getThreadCount(total) functions in java script.
+	 */
+	static class ScriptProcessAndThreadPolicy implements ProcessAndThreadPolicy {
+		private final Invocable invocable;
+
+		ScriptProcessAndThreadPolicy(String script) throws ScriptException {
+			ScriptEngine engine = new ScriptEngineManager().getEngineByName("javascript");
+			if (engine == null) {
+				throw processException("No javascript engine is available.");
+			}
+			if (engine instanceof Compilable) {
+				((Compilable) engine).compile(script).eval();
+			} else {
+				engine.eval(script);
+			}
+			this.invocable = (Invocable) engine;
+		}
+
+		@Override
+		public synchronized ProcessAndThread calcProcessAndThread(int vuser) {
+			try {
+				int processCount = ((Number) invocable.invokeFunction("getProcessCount", vuser)).intValue();
+				int threadCount = ((Number) invocable.invokeFunction("getThreadCount", vuser)).intValue();
+				return new ProcessAndThread(processCount, threadCount);
+			} catch (ScriptException e) {
+				throw processException(e);
+			} catch (NoSuchMethodException e) {
+				throw processException(e);
+			}
+		}
+	}
+}
@@ -0,0 +1,411 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+import org.ngrinder.common.model.Home;
+import org.ngrinder.model.PerfTest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.util.*;
+import java.util.zip.Deflater;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipFile;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Report and log storage of a {@link PerfTest}.
+ * <p/>
+ * A finished test leaves hundreds of small files in its report and log directories. They can be
+ * compacted into a single zip file in the perftest directory. Each member is deflated separately
+ * and the central directory of the zip works as the index, so a member is read without inflating
+ * the others. The files which are not compacted yet are read from the directories as before.
+ *
+ * @since 3.4
+ */
+public class ReportArchive {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportArchive.class);
+
+	public static final String FILE_NAME = "archive.zip";
+
+	private static final String SEPARATOR = "/";
+
+	/**
+	 * Locks serializing the changes of the same archive in this JVM. They are striped by the
+	 * archive path so that the count of the locks is bounded.
+	 */
+	private static final Object[] LOCKS = new Object[64];
+
+	static {
+		for (int i = 0; i < LOCKS.length; i++) {
+			LOCKS[i] = new Object();
+		}
+	}
+
+	private final File directory;
+
+	private final File archiveFile;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param directory perftest directory
+	 */
+	public ReportArchive(File directory) {
+		this.directory = directory;
+		this.archiveFile = new File(directory, FILE_NAME);
+	}
+
+	/**
+	 * Get the report archive of the given {@link PerfTest} id. No directory is created to get it.
+	 *
+	 * @param home   home
+	 * @param testId perftest id
+	 * @return {@link ReportArchive} of the perftest
+	 */
+	public static ReportArchive of(Home home, long testId) {
+		return new ReportArchive(home.findPerfTestDirectory(String.valueOf(testId)));
+	}
+
+	/**
+	 * Check if the given sub directory has files which are not compacted yet.
+	 *
+	 * @param subPath sub directory name
+	 * @return true if there are files to be compacted
+	 */
+	public boolean hasFiles(String subPath) {
+		File subDirectory = new File(directory, subPath);
+		return subDirectory.isDirectory() && !listFiles(subDirectory).isEmpty();
+	}
+
+	/**
+	 * Check if the archive has the members of the given sub directory.
+	 *
+	 * @param subPath sub directory name
+	 * @return true if there are archived members
+	 */
+	public boolean hasMembers(String subPath) {
+		return archiveFile.exists() && !listMembers(subPath).isEmpty();
+	}
+
+	/**
+	 * Get the paths of the files in the given sub directory either in the archive or in the
+	 * directory. The paths are relative to the sub directory and separated by '/'.
+	 *
+	 * @param subPath sub directory name
+	 * @return sorted paths
+	 */
+	public List<String> list(String subPath) {
+		Set<String> result = new TreeSet<String>();
+		File subDirectory = new File(directory, subPath);
+		if (subDirectory.isDirectory()) {
+			for (File each : listFiles(subDirectory)) {
+				result.add(getRelativePath(subDirectory, each));
+			}
+		}
+		if (archiveFile.exists()) {
+			result.addAll(listMembers(subPath));
+		}
+		return new ArrayList<String>(result);
+	}
+
+	private List<String> listMembers(String subPath) {
+		List<String> result = new ArrayList<String>();
+		String prefix = subPath + SEPARATOR;
+		ZipFile zipFile = null;
+		try {
+			zipFile = new ZipFile(archiveFile);
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry each = entries.nextElement();
+				if (!each.isDirectory() && each.getName().startsWith(prefix)) {
+					result.add(each.getName().substring(prefix.length()));
+				}
+			}
+		} catch (IOException e) {
+			LOGGER.error("Error while reading the archive {}", archiveFile, e);
+		} finally {
+			closeQuietly(zipFile);
+		}
+		return result;
+	}
+
+	/**
+	 * Open the given file. The file in the directory is preferred to the archived one.
+	 *
+	 * @param subPath sub directory name
+	 * @param path    path relative to the sub directory
+	 * @return opened entry. null if it does not exist.
+	 * @throws IOException occurs when the archive can not be read
+	 */
+	public Entry open(String subPath, String path) throws IOException {
+		File file = new File(new File(directory, subPath), path);
+		if (file.isFile()) {
+			return new Entry(file.getName(), file.length(), file.lastModified(), new FileInputStream(file), null);
+		}
+		if (!archiveFile.exists()) {
+			return null;
+		}
+		ZipFile zipFile = new ZipFile(archiveFile);
+		ZipEntry zipEntry = zipFile.getEntry(subPath + SEPARATOR + FilenameUtils.separatorsToUnix(path));
+		if (zipEntry == null || zipEntry.isDirectory()) {
+			zipFile.close();
+			return null;
+		}
+		return new Entry(FilenameUtils.getName(zipEntry.getName()), zipEntry.getSize(), zipEntry.getTime(),
+				zipFile.getInputStream(zipEntry), zipFile);
+	}
+
+	/**
+	 * Pack the files in the given sub directories into the archive and delete the directories.
+	 * The members already archived are kept unless the same file is in the directory.
+	 *
+	 * @param subPaths sub directory names
+	 * @throws IOException occurs when the archive can not be written
+	 */
+	public void compact(String... subPaths) throws IOException {
+		synchronized (getLock()) {
+			rewrite(Arrays.asList(subPaths), Collections.<String>emptyList(), Collections.<String, byte[]>emptyMap());
+			for (String each : subPaths) {
+				FileUtils.deleteQuietly(new File(directory, each));
+			}
+		}
+	}
+
+	/**
+	 * Remove the given sub directories both from the archive and the disk. The archive is deleted
+	 * when no member is left.
+	 *
+	 * @param subPaths sub directory names
+	 * @throws IOException occurs when the archive can not be written
+	 */
+	public void remove(String... subPaths) throws IOException {
+		synchronized (getLock()) {
+			for (String each : subPaths) {
+				FileUtils.deleteQuietly(new File(directory, each));
+			}
+			if (archiveFile.exists()) {
+				rewrite(Collections.<String>emptyList(), Arrays.asList(subPaths),
+						Collections.<String, byte[]>emptyMap());
+			}
+		}
+	}
+
+	/**
+	 * Write the given file into the sub directory. Once the sub directory is compacted, the file
+	 * is added into the archive instead, so the sub directory is not created again. Nothing is
+	 * written when the sub directory is neither on the disk nor in the archive.
+	 *
+	 * @param subPath sub directory name
+	 * @param path    path relative to the sub directory
+	 * @param content file content
+	 * @return true if the file is written
+	 * @throws IOException occurs when the file or the archive can not be written
+	 */
+	public boolean put(String subPath, String path, byte[] content) throws IOException {
+		synchronized (getLock()) {
+			File subDirectory = new File(directory, subPath);
+			if (subDirectory.isDirectory()) {
+				FileUtils.writeByteArrayToFile(new File(subDirectory, path), content);
+				return true;
+			}
+			if (!hasMembers(subPath)) {
+				return false;
+			}
+			rewrite(Collections.<String>emptyList(), Collections.<String>emptyList(),
+					Collections.singletonMap(subPath + SEPARATOR + FilenameUtils.separatorsToUnix(path), content));
+			return true;
+		}
+	}
+
+	private Object getLock() {
+		return LOCKS[(archiveFile.getAbsolutePath().hashCode() & Integer.MAX_VALUE) % LOCKS.length];
+	}
+
+	/*
+	 * The archive is written into a temp file and renamed, so the readers never see a partially
+	 * written archive.
+	 */
+	private void rewrite(List<String> includedSubPaths, List<String> excludedSubPaths, Map<String, byte[]> addedFiles)
+			throws IOException {
+		File temp = File.createTempFile(FILE_NAME, ".tmp", directory);
+		int count = 0;
+		ZipOutputStream out = null;
+		try {
+			out = new ZipOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+			out.setLevel(Deflater.BEST_COMPRESSION);
+			Set<String> written = new HashSet<String>();
+			for (Map.Entry<String, byte[]> each : addedFiles.entrySet()) {
+				write(out, each.getKey(), System.currentTimeMillis(), new ByteArrayInputStream(each.getValue()));
+				written.add(each.getKey());
+			}
+			for (String subPath : includedSubPaths) {
+				File subDirectory = new File(directory, subPath);
+				if (!subDirectory.isDirectory()) {
+					continue;
+				}
+				for (File each : listFiles(subDirectory)) {
+					String name = subPath + SEPARATOR + getRelativePath(subDirectory, each);
+					InputStream in = new FileInputStream(each);
+					try {
+						write(out, name, each.lastModified(), in);
+					} finally {
+						IOUtils.closeQuietly(in);
+					}
+					written.add(name);
+				}
+			}
+			count = written.size() + copyMembers(out, written, excludedSubPaths);
+			out.close();
+		} catch (IOException e) {
+			IOUtils.closeQuietly(out);
+			FileUtils.deleteQuietly(temp);
+			throw e;
+		}
+		if (count == 0) {
+			FileUtils.deleteQuietly(temp);
+			FileUtils.deleteQuietly(archiveFile);
+			return;
+		}
+		if (!temp.renameTo(archiveFile) && !(archiveFile.delete() && temp.renameTo(archiveFile))) {
+			FileUtils.deleteQuietly(temp);
+			throw new IOException("Can not replace " + archiveFile);
+		}
+	}
+
+	private int copyMembers(ZipOutputStream out, Set<String> written, List<String> excludedSubPaths)
+			throws IOException {
+		if (!archiveFile.exists()) {
+			return 0;
+		}
+		int count = 0;
+		ZipFile zipFile = new ZipFile(archiveFile);
+		try {
+			Enumeration<? extends ZipEntry> entries = zipFile.entries();
+			while (entries.hasMoreElements()) {
+				ZipEntry each = entries.nextElement();
+				if (each.isDirectory() || written.contains(each.getName())
+						|| isExcluded(each.getName(), excludedSubPaths)) {
+					continue;
+				}
+				InputStream in = zipFile.getInputStream(each);
+				try {
+					write(out, each.getName(), each.getTime(), in);
+				} finally {
+					IOUtils.closeQuietly(in);
+				}
+				count++;
+			}
+		} finally {
+			zipFile.close();
+		}
+		return count;
+	}
+
+	private boolean isExcluded(String name, List<String> excludedSubPaths) {
+		for (String each : excludedSubPaths) {
+			if (name.startsWith(each + SEPARATOR)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void write(ZipOutputStream out, String name, long time, InputStream in) throws IOException {
+		ZipEntry entry = new ZipEntry(name);
+		entry.setTime(time);
+		out.putNextEntry(entry);
+		IOUtils.copy(in, out);
+		out.closeEntry();
+	}
+
+	private Collection<File> listFiles(File subDirectory) {
+		return FileUtils.listFiles(subDirectory, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+	}
+
+	private String getRelativePath(File subDirectory, File file) {
+		String path = file.getAbsolutePath().substring(subDirectory.getAbsolutePath().length() + 1);
+		return FilenameUtils.separatorsToUnix(path);
+	}
+
+	private static void closeQuietly(ZipFile zipFile) {
+		if (zipFile != null) {
+			try {
+				zipFile.close();
+			} catch (IOException e) {
+				LOGGER.debug("Error while closing the archive", e);
+			}
+		}
+	}
+
+	public File getArchiveFile() {
+		return archiveFile;
+	}
+
+	/**
+	 * Opened report or log file. It should be closed after use.
+	 */
+	public static class Entry implements Closeable {
+		private final String name;
+		private final long length;
+		private final long lastModified;
+		private final InputStream inputStream;
+		private final ZipFile zipFile;
+
+		Entry(String name, long length, long lastModified, InputStream inputStream, ZipFile zipFile) {
+			this.name = name;
+			this.length = length;
+			this.lastModified = lastModified;
+			this.inputStream = inputStream;
+			this.zipFile = zipFile;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Get the uncompressed length.
+		 *
+		 * @return byte length. -1 if unknown.
+		 */
+		public long getLength() {
+			return length;
+		}
+
+		/**
+		 * Get the last modified time. The archived member keeps the time of the original file.
+		 *
+		 * @return time in ms. -1 if unknown.
+		 */
+		public long getLastModified() {
+			return lastModified;
+		}
+
+		public InputStream getInputStream() {
+			return inputStream;
+		}
+
+		@Override
+		public void close() {
+			IOUtils.closeQuietly(inputStream);
+			closeQuietly(zipFile);
+		}
+	}
+}
@@ -0,0 +1,211 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.lang.time.DateUtils;
+import org.ngrinder.common.constant.ControllerConstants;
+import org.ngrinder.common.model.Home;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.infra.schedule.ScheduledTaskService;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.model.Status;
+import org.ngrinder.perftest.repository.PerfTestRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.CollectionUtils.newHashMap;
+
+/**
+ * Report archive compaction job.
+ * <p/>
+ * The reports of the finished {@link PerfTest}s are kept in the following tiers.
+ * <ul>
+ * <li>Until {@code controller.report_archive_after_days}, the report and log files stay in the
+ * perftest directory as they were written.</li>
+ * <li>After that, they are compacted into the {@link ReportArchive}.</li>
+ * <li>After {@code controller.report_log_retention_days}, the logs are dropped from the archive.</li>
+ * <li>After {@code controller.report_retention_days}, the archive itself is dropped. The test
+ * remains with the summary kept in DB.</li>
+ * </ul>
+ * 0 disables each tier.
+ * <p/>
+ * Each tier remembers the finish time up to which it has applied, so an hourly run only visits
+ * the tests which became old enough since the previous run. The first run after the start-up
+ * visits all of them once. The remembered time doesn't pass the first test which failed, so
+ * the failed tests are retried on the next run.
+ *
+ * @since 3.4
+ */
+@Component
+public class ReportArchiveService implements ControllerConstants {
+	private static final Logger LOGGER = LoggerFactory.getLogger(ReportArchiveService.class);
+
+	private static final int COMPACTION_INTERVAL = 60 * 60 * 1000;
+
+	@Autowired
+	private Config config;
+
+	@Autowired
+	private PerfTestRepository perfTestRepository;
+
+	@Autowired
+	private ScheduledTaskService scheduledTaskService;
+
+	/**
+	 * The finish time up to which each tier is applied, keyed by the tier property.
+	 */
+	private final Map<String, Date> appliedUntil = newHashMap();
+
+	private final Runnable compactionRunnable = new Runnable() {
+		@Override
+		public void run() {
+			compact();
+		}
+	};
+
+	@PostConstruct
+	public void init() {
+		scheduledTaskService.addFixedDelayedScheduledTask(compactionRunnable, COMPACTION_INTERVAL);
+	}
+
+	@PreDestroy
+	public void destroy() {
+		scheduledTaskService.removeScheduledJob(compactionRunnable);
+	}
+
+	/**
+	 * Apply the retention tiers on the reports of the finished tests.
+	 */
+	public synchronized void compact() {
+		int archiveAfterDays = getDays(PROP_CONTROLLER_REPORT_ARCHIVE_AFTER_DAYS);
+		int logRetentionDays = getDays(PROP_CONTROLLER_REPORT_LOG_RETENTION_DAYS);
+		int retentionDays = getDays(PROP_CONTROLLER_REPORT_RETENTION_DAYS);
+		Date now = new Date();
+		if (retentionDays != 0) {
+			apply(PROP_CONTROLLER_REPORT_RETENTION_DAYS, DateUtils.addDays(now, -retentionDays), new Tier() {
+				@Override
+				public boolean apply(Long testId) {
+					return remove(testId, Home.PATH_REPORT, Home.PATH_LOG);
+				}
+			});
+		}
+		if (logRetentionDays != 0) {
+			apply(PROP_CONTROLLER_REPORT_LOG_RETENTION_DAYS, DateUtils.addDays(now, -logRetentionDays), new Tier() {
+				@Override
+				public boolean apply(Long testId) {
+					return remove(testId, Home.PATH_LOG);
+				}
+			});
+		}
+		if (archiveAfterDays != 0) {
+			apply(PROP_CONTROLLER_REPORT_ARCHIVE_AFTER_DAYS, DateUtils.addDays(now, -archiveAfterDays), new Tier() {
+				@Override
+				public boolean apply(Long testId) {
+					return archive(testId);
+				}
+			});
+		}
+	}
+
+	private int getDays(String key) {
+		return Math.max(config.getControllerProperties().getPropertyInt(key), 0);
+	}
+
+	/*
+	 * Apply the given tier on the tests finished before the given time which are not applied yet.
+	 * The applied time is moved up to the first failed test, or to the given time if none failed.
+	 */
+	private void apply(String key, Date finishTime, Tier tier) {
+		Date applied = appliedUntil.get(key);
+		if (applied != null && !applied.before(finishTime)) {
+			return;
+		}
+		List<Status> finished = newArrayList();
+		for (Status each : Status.values()) {
+			if (each.isReportable()) {
+				finished.add(each);
+			}
+		}
+		List<Object[]> tests = (applied == null) ? perfTestRepository.findAllIdByFinishTimeBefore(finishTime,
+				finished) : perfTestRepository.findAllIdByFinishTimeBetween(applied, finishTime, finished);
+		Date failedFinishTime = null;
+		for (Object[] each : tests) {
+			if (!tier.apply((Long) each[0]) && failedFinishTime == null) {
+				failedFinishTime = (Date) each[1];
+			}
+		}
+		if (failedFinishTime == null) {
+			appliedUntil.put(key, finishTime);
+		} else if (applied == null || applied.before(failedFinishTime)) {
+			appliedUntil.put(key, failedFinishTime);
+		}
+	}
+
+	private boolean archive(Long testId) {
+		ReportArchive reportArchive = ReportArchive.of(config.getHome(), testId);
+		if (!reportArchive.hasFiles(Home.PATH_REPORT) && !reportArchive.hasFiles(Home.PATH_LOG)) {
+			return true;
+		}
+		try {
+			reportArchive.compact(Home.PATH_REPORT, Home.PATH_LOG);
+			LOGGER.info("The report of test {} is compacted into {}", testId, reportArchive.getArchiveFile());
+			return true;
+		} catch (IOException e) {
+			LOGGER.error("Error while compacting the report of test {}", testId, e);
+			return false;
+		}
+	}
+
+	private boolean remove(Long testId, String... subPaths) {
+		ReportArchive reportArchive = ReportArchive.of(config.getHome(), testId);
+		boolean exists = false;
+		for (String each : subPaths) {
+			exists = exists || reportArchive.hasFiles(each) || reportArchive.hasMembers(each);
+		}
+		if (!exists) {
+			return true;
+		}
+		try {
+			reportArchive.remove(subPaths);
+			LOGGER.info("The {} of test {} are removed by the retention policy", subPaths, testId);
+			return true;
+		} catch (IOException e) {
+			LOGGER.error("Error while removing the {} of test {}", new Object[]{subPaths, testId, e});
+			return false;
+		}
+	}
+
+	/**
+	 * Retention tier applied on each test.
+	 */
+	private interface Tier {
+		/**
+		 * Apply the tier on the given test.
+		 *
+		 * @param testId test id
+		 * @return false if it failed and should be retried
+		 */
+		boolean apply(Long testId);
+	}
+}
@@ -0,0 +1,144 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.ngrinder.perftest.model.SampleStatistics;
+
+/**
+ * Two sided significance tests used to compare the test runs.
+ * <p/>
+ * The consecutive samples of a run are not strictly independent, so the p-values are a bit
+ * optimistic. They are used to suppress the verdicts on the noise, not as the exact probabilities.
+ *
+ * @since 3.4
+ */
+abstract class SignificanceTests {
+	private static final int MAX_ITERATIONS = 200;
+	private static final double EPSILON = 1e-12;
+	private static final double TINY = 1e-300;
+	private static final double[] LANCZOS = {76.18009172947146, -86.50532032941677, 24.01409824083091,
+			-1.231739572450155, 0.1208650973866179e-2, -0.5395239384953e-5};
+
+	/**
+	 * Get the p-value of the Welch's t-test on the means of the given samples.
+	 *
+	 * @param a samples
+	 * @param b other samples
+	 * @return p-value. 1 if it can not be tested.
+	 */
+	static double welchTTest(SampleStatistics a, SampleStatistics b) {
+		if (a.getCount() < 2 || b.getCount() < 2) {
+			return 1;
+		}
+		double varianceA = a.getVariance() / a.getCount();
+		double varianceB = b.getVariance() / b.getCount();
+		double standardError = Math.sqrt(varianceA + varianceB);
+		if (standardError == 0) {
+			return a.getMean() == b.getMean() ? 1 : 0;
+		}
+		double t = (a.getMean() - b.getMean()) / standardError;
+		double degreesOfFreedom = Math.pow(varianceA + varianceB, 2)
+				/ (varianceA * varianceA / (a.getCount() - 1) + varianceB * varianceB / (b.getCount() - 1));
+		return regularizedIncompleteBeta(degreesOfFreedom / (degreesOfFreedom + t * t), degreesOfFreedom / 2, 0.5);
+	}
+
+	/**
+	 * Get the p-value of the two proportion z-test.
+	 *
+	 * @param hitsA   hit count of the first group
+	 * @param totalA  total count of the first group
+	 * @param hitsB   hit count of the second group
+	 * @param totalB  total count of the second group
+	 * @return p-value. 1 if it can not be tested.
+	 */
+	static double proportionTest(long hitsA, long totalA, long hitsB, long totalB) {
+		if (totalA == 0 || totalB == 0) {
+			return 1;
+		}
+		double pooled = (double) (hitsA + hitsB) / (totalA + totalB);
+		double standardError = Math.sqrt(pooled * (1 - pooled) * (1d / totalA + 1d / totalB));
+		double difference = (double) hitsA / totalA - (double) hitsB / totalB;
+		if (standardError == 0) {
+			return difference == 0 ? 1 : 0;
+		}
+		return Math.min(complementaryErrorFunction(Math.abs(difference / standardError) / Math.sqrt(2)), 1);
+	}
+
+	/*
+	 * Continued fraction evaluation of I_x(a, b) from the Numerical Recipes.
+	 */
+	static double regularizedIncompleteBeta(double x, double a, double b) {
+		if (x <= 0) {
+			return 0;
+		}
+		if (x >= 1) {
+			return 1;
+		}
+		double front = Math.exp(logGamma(a + b) - logGamma(a) - logGamma(b) + a * Math.log(x) + b * Math.log(1 - x));
+		if (x < (a + 1) / (a + b + 2)) {
+			return front * continuedFraction(x, a, b) / a;
+		}
+		return 1 - front * continuedFraction(1 - x, b, a) / b;
+	}
+
+	private static double continuedFraction(double x, double a, double b) {
+		double c = 1;
+		double d = 1 - (a + b) * x / (a + 1);
+		d = 1 / (Math.abs(d) < TINY ? TINY : d);
+		double result = d;
+		for (int m = 1; m <= MAX_ITERATIONS; m++) {
+			int m2 = 2 * m;
+			double numerator = m * (b - m) * x / ((a + m2 - 1) * (a + m2));
+			d = 1 / nonZero(1 + numerator * d);
+			c = nonZero(1 + numerator / c);
+			result *= d * c;
+			numerator = -(a + m) * (a + b + m) * x / ((a + m2) * (a + m2 + 1));
+			d = 1 / nonZero(1 + numerator * d);
+			c = nonZero(1 + numerator / c);
+			double delta = d * c;
+			result *= delta;
+			if (Math.abs(delta - 1) < EPSILON) {
+				break;
+			}
+		}
+		return result;
+	}
+
+	private static double nonZero(double value) {
+		return Math.abs(value) < TINY ? TINY : value;
+	}
+
+	static double logGamma(double x) {
+		double y = x;
+		double tmp = x + 5.5;
+		tmp -= (x + 0.5) * Math.log(tmp);
+		double series = 1.000000000190015;
+		for (double each : LANCZOS) {
+			series += each / ++y;
+		}
+		return -tmp + Math.log(2.5066282746310005 * series / x);
+	}
+
+	/*
+	 * Chebyshev approximation whose relative error is less than 1.2e-7.
+	 */
+	static double complementaryErrorFunction(double x) {
+		double z = Math.abs(x);
+		double t = 1 / (1 + 0.5 * z);
+		double result = t * Math.exp(-z * z - 1.26551223 + t * (1.00002368 + t * (0.37409196 + t * (0.09678418
+				+ t * (-0.18628806 + t * (0.27886807 + t * (-1.13520398 + t * (1.48851587
+				+ t * (-0.82215223 + t * 0.17087277)))))))));
+		return x >= 0 ? result : 2 - result;
+	}
+}
@@ -60,7 +60,7 @@ public class AgentDieHardListener implements SamplingLifeCycleListener, Runnable
 
 	@Override
 	public void run() {
-		for (AgentStatus agentStates : agentManager.getAgentStatusSetConnectingToPort(singleConsole.getConsolePort())) {
+		for (AgentStatus agentStates : agentManager.getAgentStatusSetConnectingToConsole(singleConsole)) {
 			SystemDataModel systemDataModel = agentStates.getSystemDataModel();
 			if (systemDataModel != null) {
 				// If the memory is available less than 2%.
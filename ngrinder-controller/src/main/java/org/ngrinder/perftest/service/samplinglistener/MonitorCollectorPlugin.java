@@ -13,6 +13,7 @@
  */
 package org.ngrinder.perftest.service.samplinglistener;
 
+import net.grinder.SingleConsole;
 import net.grinder.statistics.ImmutableStatisticsSet;
 import org.apache.commons.io.IOUtils;
 import org.ngrinder.common.constant.ControllerConstants;
@@ -47,7 +48,8 @@ import static org.ngrinder.common.util.CollectionUtils.newHashMap;
  * @author JunHo Yoon
  * @since 3.3
  */
-public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable, MonitorConstants {
+public class MonitorCollectorPlugin implements OnTestSamplingRunnable, SkippedSamplingAware, Runnable,
+		MonitorConstants {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MonitorCollectorPlugin.class);
 	private final int port;
 	private Map<MonitorClientService, BufferedWriter> clientMap = new ConcurrentHashMap<MonitorClientService, BufferedWriter>();
@@ -116,9 +118,11 @@ public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable,
 
 	@Override
 	public void sampling(ISingleConsole singleConsole, PerfTest perfTest, IPerfTestService perfTestService, ImmutableStatisticsSet intervalStatistics, ImmutableStatisticsSet cumulativeStatistics) {
+		float maxCpuUsedPercentage = -1;
 		for (Map.Entry<MonitorClientService, BufferedWriter> each : clientMap.entrySet()) {
 			try {
 				SystemInfo currentInfo = each.getKey().getSystemInfo();
+				maxCpuUsedPercentage = Math.max(maxCpuUsedPercentage, currentInfo.getCPUUsedPercentage());
 				BufferedWriter bw = each.getValue();
 				bw.write(currentInfo.toRecordString());
 				bw.newLine();
@@ -126,6 +130,31 @@ public class MonitorCollectorPlugin implements OnTestSamplingRunnable, Runnable,
 				LOGGER.error("Error while saving file :" + e.getMessage());
 			}
 		}
+		if (maxCpuUsedPercentage >= 0 && singleConsole instanceof SingleConsole) {
+			((SingleConsole) singleConsole).checkTargetHostCpu(maxCpuUsedPercentage);
+		}
+	}
+
+	/**
+	 * Write the null record for each skipped sampling, so that the rows of the monitor data files
+	 * stay aligned with the sampling ticks.
+	 *
+	 * @param count count of the skipped samplings
+	 */
+	@Override
+	public void samplingSkipped(int count) {
+		String nullRecord = SystemInfo.NullSystemInfo.getNullSystemInfo().toRecordString();
+		for (Map.Entry<MonitorClientService, BufferedWriter> each : clientMap.entrySet()) {
+			try {
+				BufferedWriter bw = each.getValue();
+				for (int i = 0; i < count; i++) {
+					bw.write(nullRecord);
+					bw.newLine();
+				}
+			} catch (IOException e) {
+				LOGGER.error("Error while saving file :" + e.getMessage());
+			}
+		}
 	}
 
 	@Override
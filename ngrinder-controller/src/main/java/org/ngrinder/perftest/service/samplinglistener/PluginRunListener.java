@@ -19,25 +19,36 @@ import net.grinder.statistics.StatisticsSet;
 import org.ngrinder.extension.OnTestSamplingRunnable;
 import org.ngrinder.model.PerfTest;
 import org.ngrinder.perftest.service.PerfTestService;
+import org.ngrinder.perftest.service.samplinglistener.SamplingTaskExecutor.TaskStatistics;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.File;
 import java.util.List;
+import java.util.Map;
+
+import static org.ngrinder.common.util.AccessUtils.getSafe;
 
 /**
  * Sampling LifeCycle listener to run the pluings implementing {@link OnTestSamplingRunnable}.
+ * <p/>
+ * Since 3.4, the sampling of each plugin is run by the {@link SamplingTaskExecutor} of the console
+ * with the snapshot of the statistics, so that a slow plugin doesn't delay the sampling. Each
+ * plugin run is time boxed by the sampling interval. The samplings skipped while the previous run
+ * is still going on are told to the plugins implementing {@link SkippedSamplingAware}.
  *
  * @author JunHo Yoon
  * @since 3.1
  */
 public class PluginRunListener implements SamplingLifeCycleListener {
 	private static final Logger LOGGER = LoggerFactory.getLogger(MonitorCollectorPlugin.class);
+	private static final int MAX_THREAD_COUNT = 4;
 
 	private final List<OnTestSamplingRunnable> plugins;
 	private final SingleConsole singleConsole;
 	private final PerfTest perfTest;
 	private final PerfTestService perfTestService;
+	private final SamplingTaskExecutor executor;
 
 	/**
 	 * Constructor.
@@ -53,6 +64,9 @@ public class PluginRunListener implements SamplingLifeCycleListener {
 		this.singleConsole = singleConsole;
 		this.perfTest = perfTest;
 		this.perfTestService = perfTestService;
+		this.executor = new SamplingTaskExecutor("sampling-plugin-" + perfTest.getId(),
+				Math.max(1, Math.min(plugins.size(), MAX_THREAD_COUNT)), plugins.size(),
+				getSafe(perfTest.getSamplingInterval(), 2) * 1000L);
 	}
 
 	@Override
@@ -69,21 +83,34 @@ public class PluginRunListener implements SamplingLifeCycleListener {
 
 	@Override
 	public void onSampling(File file, StatisticsSet intervalStatistics, StatisticsSet cumulativeStatistics) {
-		for (OnTestSamplingRunnable each : plugins) {
-			try {
-				each.sampling(singleConsole, perfTest, perfTestService, intervalStatistics, cumulativeStatistics);
-			} catch (Exception e) {
-				LOGGER.error("While running plugin the following error occurred : {}", e.getMessage());
-				LOGGER.debug("Details : ", e);
-			}
+		final StatisticsSet intervalSnapshot = intervalStatistics.snapshot();
+		final StatisticsSet cumulativeSnapshot = cumulativeStatistics.snapshot();
+		for (final OnTestSamplingRunnable each : plugins) {
+			executor.run(each.getClass().getName(), new SamplingTaskExecutor.Task() {
+				@Override
+				public void run(int skipped) {
+					if (skipped > 0 && each instanceof SkippedSamplingAware) {
+						((SkippedSamplingAware) each).samplingSkipped(skipped);
+					}
+					each.sampling(singleConsole, perfTest, perfTestService, intervalSnapshot, cumulativeSnapshot);
+				}
+			});
 		}
-
 	}
 
 	@Override
 	public void onSamplingEnded() {
+		executor.shutdown();
+		for (Map.Entry<String, TaskStatistics> each : executor.getStatistics().entrySet()) {
+			LOGGER.info("Sampling of {} in the test {} : {}", new Object[]{each.getKey(), perfTest.getId(),
+					each.getValue()});
+		}
 		for (OnTestSamplingRunnable each : plugins) {
 			try {
+				int skipped = executor.drainSkipped(each.getClass().getName());
+				if (skipped > 0 && each instanceof SkippedSamplingAware) {
+					((SkippedSamplingAware) each).samplingSkipped(skipped);
+				}
 				each.endSampling(singleConsole, perfTest, perfTestService);
 			} catch (Exception e) {
 				LOGGER.error("While running plugin the following error occurs : {}", e.getMessage());
@@ -0,0 +1,298 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service.samplinglistener;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Bounded executor which runs the sampling tasks of a single console off the sampling thread.
+ * <p/>
+ * Each task is identified by its name and at most one run of the same task is in flight. When the
+ * previous run is still going on, the new run is skipped so that the slow task is coalesced
+ * instead of being queued. The count of the skipped runs is passed to the next run of the
+ * {@link Task}, so that it can record the placeholders for them. The run which exceeds the time
+ * budget is interrupted on the next sampling. A run which ignores the interruption still holds its
+ * thread, so the task is not run again until the thread is released, and it's logged once. The
+ * latency of each task is recorded in {@link TaskStatistics}.
+ *
+ * @since 3.4
+ */
+public class SamplingTaskExecutor {
+	private static final Logger LOGGER = LoggerFactory.getLogger(SamplingTaskExecutor.class);
+
+	private final ThreadPoolExecutor executor;
+	private final long timeBudget;
+	private final Map<String, TaskState> states = new LinkedHashMap<String, TaskState>();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param name        name used as the thread name prefix
+	 * @param threadCount max thread count
+	 * @param queueSize   max count of the waiting tasks
+	 * @param timeBudget  time budget of each run in ms
+	 */
+	public SamplingTaskExecutor(final String name, int threadCount, int queueSize, long timeBudget) {
+		this.timeBudget = timeBudget;
+		this.executor = new ThreadPoolExecutor(threadCount, threadCount, 60, TimeUnit.SECONDS,
+				new ArrayBlockingQueue<Runnable>(Math.max(1, queueSize)), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, name + "-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.executor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Sampling task which is told how many runs were skipped before the current run.
+	 */
+	public interface Task {
+		/**
+		 * Run the task.
+		 *
+		 * @param skipped count of the runs skipped since the previous run
+		 */
+		void run(int skipped);
+	}
+
+	/**
+	 * Run the given task asynchronously unless the previous run of the same task is still in
+	 * flight.
+	 *
+	 * @param taskName task name
+	 * @param task     task
+	 * @return true if the task is submitted
+	 */
+	public boolean run(String taskName, final Runnable task) {
+		return run(taskName, new Task() {
+			@Override
+			public void run(int skipped) {
+				task.run();
+			}
+		});
+	}
+
+	/**
+	 * Run the given task asynchronously unless the previous run of the same task is still in
+	 * flight.
+	 *
+	 * @param taskName task name
+	 * @param task     task
+	 * @return true if the task is submitted
+	 */
+	public synchronized boolean run(final String taskName, final Task task) {
+		final TaskState state = getTaskState(taskName);
+		if (state.isBusy()) {
+			checkTimeBudget(taskName, state);
+			state.skip();
+			return false;
+		}
+		final int skipped = state.pendingSkipped;
+		try {
+			state.future = executor.submit(new Runnable() {
+				@Override
+				public void run() {
+					state.thread = Thread.currentThread();
+					long start = System.nanoTime();
+					try {
+						task.run(skipped);
+					} catch (Exception e) {
+						LOGGER.error("While running {}, the error occurred : {}", taskName, e.getMessage());
+						LOGGER.debug("Details : ", e);
+					} finally {
+						state.statistics.record(System.nanoTime() - start);
+						state.thread = null;
+					}
+				}
+			});
+			state.startTime = System.currentTimeMillis();
+			state.pendingSkipped = 0;
+			state.stuckReported = false;
+			return true;
+		} catch (RejectedExecutionException e) {
+			state.skip();
+			return false;
+		}
+	}
+
+	private void checkTimeBudget(String taskName, TaskState state) {
+		long elapsed = System.currentTimeMillis() - state.startTime;
+		if (elapsed <= timeBudget) {
+			return;
+		}
+		if (!state.future.isDone()) {
+			LOGGER.warn("{} exceeded the time budget {} ms and is interrupted.", taskName, timeBudget);
+			state.future.cancel(true);
+			state.statistics.timedOut.incrementAndGet();
+			return;
+		}
+		Thread thread = state.thread;
+		if (thread != null && !state.stuckReported) {
+			state.stuckReported = true;
+			LOGGER.warn("{} ignores the interruption and holds {} for {} ms. It's not run until it returns.",
+					new Object[]{taskName, thread.getName(), elapsed});
+			LOGGER.debug("Stack : {}", Arrays.toString(thread.getStackTrace()));
+		}
+	}
+
+	private TaskState getTaskState(String taskName) {
+		TaskState state = states.get(taskName);
+		if (state == null) {
+			state = new TaskState();
+			states.put(taskName, state);
+		}
+		return state;
+	}
+
+	/**
+	 * Get the count of the skipped runs of the given task which no run has been told yet, and
+	 * reset it. It's used to record the placeholders after the executor is shut down. 0 is
+	 * returned if the task is still running.
+	 *
+	 * @param taskName task name
+	 * @return count of the skipped runs
+	 */
+	public synchronized int drainSkipped(String taskName) {
+		TaskState state = states.get(taskName);
+		if (state == null || state.isBusy()) {
+			return 0;
+		}
+		int skipped = state.pendingSkipped;
+		state.pendingSkipped = 0;
+		return skipped;
+	}
+
+	/**
+	 * Get the statistics of each task.
+	 *
+	 * @return task name and statistics map
+	 */
+	public synchronized Map<String, TaskStatistics> getStatistics() {
+		Map<String, TaskStatistics> statistics = new LinkedHashMap<String, TaskStatistics>();
+		for (Map.Entry<String, TaskState> each : states.entrySet()) {
+			statistics.put(each.getKey(), each.getValue().statistics);
+		}
+		return Collections.unmodifiableMap(statistics);
+	}
+
+	/**
+	 * Wait for the in flight tasks up to the time budget and stop the executor. The tasks which
+	 * still hold their threads after that are logged.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+		try {
+			if (!executor.awaitTermination(timeBudget, TimeUnit.MILLISECONDS)) {
+				executor.shutdownNow();
+			}
+		} catch (InterruptedException e) {
+			executor.shutdownNow();
+			Thread.currentThread().interrupt();
+		}
+		synchronized (this) {
+			for (Map.Entry<String, TaskState> each : states.entrySet()) {
+				Thread thread = each.getValue().thread;
+				if (thread != null) {
+					LOGGER.warn("{} is still running in {} after the shutdown.", each.getKey(), thread.getName());
+				}
+			}
+		}
+	}
+
+	/**
+	 * Run state of a sampling task.
+	 */
+	private static class TaskState {
+		private final TaskStatistics statistics = new TaskStatistics();
+		private Future<?> future;
+		private volatile Thread thread;
+		private long startTime;
+		private int pendingSkipped;
+		private boolean stuckReported;
+
+		/**
+		 * Check if the previous run is queued or running. A cancelled run is still running if it
+		 * ignored the interruption.
+		 */
+		boolean isBusy() {
+			return future != null && (!future.isDone() || thread != null);
+		}
+
+		void skip() {
+			statistics.skipped.incrementAndGet();
+			pendingSkipped++;
+		}
+	}
+
+	/**
+	 * Latency statistics of a sampling task.
+	 */
+	public static class TaskStatistics {
+		private final AtomicInteger count = new AtomicInteger();
+		private final AtomicInteger skipped = new AtomicInteger();
+		private final AtomicInteger timedOut = new AtomicInteger();
+		private long totalTime;
+		private long maxTime;
+
+		synchronized void record(long nanoTime) {
+			count.incrementAndGet();
+			totalTime += nanoTime;
+			maxTime = Math.max(maxTime, nanoTime);
+		}
+
+		public int getCount() {
+			return count.get();
+		}
+
+		public int getSkipped() {
+			return skipped.get();
+		}
+
+		public int getTimedOut() {
+			return timedOut.get();
+		}
+
+		public synchronized double getMeanTime() {
+			return count.get() == 0 ? 0 : TimeUnit.NANOSECONDS.toMicros(totalTime) / 1000d / count.get();
+		}
+
+		public synchronized double getMaxTime() {
+			return TimeUnit.NANOSECONDS.toMicros(maxTime) / 1000d;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("count=%d, mean=%.2fms, max=%.2fms, skipped=%d, timedOut=%d", getCount(),
+					getMeanTime(), getMaxTime(), getSkipped(), getTimedOut());
+		}
+	}
+}
@@ -0,0 +1,33 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service.samplinglistener;
+
+import org.ngrinder.extension.OnTestSamplingRunnable;
+
+/**
+ * {@link OnTestSamplingRunnable} which records a placeholder for each sampling skipped because its
+ * previous sampling was still running, so that its samples stay aligned with the sampling ticks.
+ *
+ * @since 3.4
+ */
+public interface SkippedSamplingAware {
+
+	/**
+	 * Record the placeholders of the skipped samplings. It's called before the next sampling of
+	 * the plugin on the same thread, or after the sampling is ended.
+	 *
+	 * @param count count of the skipped samplings
+	 */
+	void samplingSkipped(int count);
+}
@@ -0,0 +1,93 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.region.model;
+
+import net.grinder.common.processidentity.AgentIdentity;
+
+import java.io.Serializable;
+import java.util.Collections;
+import java.util.Set;
+
+/**
+ * Change of the agents attached to a region, which is shared b/w controllers instead of the whole
+ * agent set. The version is increased by one on each change, so that the receiver can detect the
+ * missed change and request the full agent set.
+ *
+ * @since 3.4
+ */
+public class AgentMembershipChange implements Serializable {
+	private static final long serialVersionUID = 1L;
+
+	private final String region;
+	private final long version;
+	private final boolean full;
+	private final Set<AgentIdentity> added;
+	private final Set<AgentIdentity> removed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param region  region
+	 * @param version version of the agent set after this change
+	 * @param full    true if the added agents are the whole agent set
+	 * @param added   added agents
+	 * @param removed removed agents
+	 */
+	public AgentMembershipChange(String region, long version, boolean full, Set<AgentIdentity> added,
+	                             Set<AgentIdentity> removed) {
+		this.region = region;
+		this.version = version;
+		this.full = full;
+		this.added = added;
+		this.removed = removed;
+	}
+
+	/**
+	 * Create the change containing the whole agent set.
+	 *
+	 * @param region  region
+	 * @param version current version
+	 * @param agents  all agents
+	 * @return change
+	 */
+	public static AgentMembershipChange full(String region, long version, Set<AgentIdentity> agents) {
+		return new AgentMembershipChange(region, version, true, agents, Collections.<AgentIdentity>emptySet());
+	}
+
+	public String getRegion() {
+		return region;
+	}
+
+	public long getVersion() {
+		return version;
+	}
+
+	public boolean isFull() {
+		return full;
+	}
+
+	public Set<AgentIdentity> getAdded() {
+		return added;
+	}
+
+	public Set<AgentIdentity> getRemoved() {
+		return removed;
+	}
+
+	@Override
+	public String toString() {
+		return "AgentMembershipChange{region=" + region + ", version=" + version + ", full=" + full + ", added="
+				+ added.size() + ", removed=" + removed.size() + "}";
+	}
+}
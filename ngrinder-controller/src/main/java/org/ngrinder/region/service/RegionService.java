@@ -21,9 +21,13 @@ import net.sf.ehcache.Ehcache;
 import org.apache.commons.lang.StringUtils;
 import org.ngrinder.common.constant.ClusterConstants;
 import org.ngrinder.common.util.TypeConvertUtils;
+import org.ngrinder.infra.cluster.ClusterEvent;
+import org.ngrinder.infra.cluster.ClusterEventBus;
+import org.ngrinder.infra.cluster.ClusterEventListener;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.perftest.service.AgentManager;
+import org.ngrinder.region.model.AgentMembershipChange;
 import org.ngrinder.region.model.RegionInfo;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -38,11 +42,18 @@ import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 
 /**
  * Region service class. This class responsible to keep the status of available regions.
+ * <p/>
+ * Since 3.4, the agents attached to each region are not replicated as a whole in the region cache.
+ * Only the changes are published on the {@link ClusterEventBus} and each controller keeps its own
+ * view of the agents in all regions.
  *
  * @author Mavlarn
  * @author JunHo Yoon
@@ -60,10 +71,29 @@ public class RegionService {
 	@Autowired
 	private ScheduledTaskService scheduledTaskService;
 
+	/**
+	 * Topic where the {@link AgentMembershipChange}s are published.
+	 */
+	public static final String AGENT_MEMBERSHIP_TOPIC = "agent_membership";
+
+	/**
+	 * Topic where the full agent set of the region given as the payload is requested. The empty
+	 * payload means all regions.
+	 */
+	public static final String AGENT_MEMBERSHIP_SYNC_TOPIC = "agent_membership_sync";
+
 	@Autowired
 	private CacheManager cacheManager;
 	private Cache cache;
 
+	@Autowired
+	private ClusterEventBus clusterEventBus;
+
+	private final ConcurrentMap<String, Set<AgentIdentity>> regionAgents =
+			new ConcurrentHashMap<String, Set<AgentIdentity>>();
+	private final Map<String, Long> regionAgentVersions = Maps.newHashMap();
+	private Set<AgentIdentity> publishedAgents = Collections.emptySet();
+	private long publishedVersion = 0;
 
 	/**
 	 * Set current region into cache, using the IP as key and region name as value.
@@ -73,6 +103,7 @@ public class RegionService {
 		if (config.isClustered()) {
 			cache = cacheManager.getCache("regions");
 			verifyDuplicatedRegion();
+			subscribeAgentMembership();
 			scheduledTaskService.addFixedDelayedScheduledTask(new Runnable() {
 				@Override
 				public void run() {
@@ -99,6 +130,25 @@ public class RegionService {
 		}
 	}
 
+	private void subscribeAgentMembership() {
+		clusterEventBus.subscribe(AGENT_MEMBERSHIP_TOPIC, new ClusterEventListener() {
+			@Override
+			public void onEvent(ClusterEvent event) {
+				applyAgentMembershipChange((AgentMembershipChange) event.getPayload());
+			}
+		});
+		clusterEventBus.subscribe(AGENT_MEMBERSHIP_SYNC_TOPIC, new ClusterEventListener() {
+			@Override
+			public void onEvent(ClusterEvent event) {
+				String region = (String) event.getPayload();
+				if (StringUtils.isEmpty(region) || region.equals(getCurrent())) {
+					publishFullAgentMembership();
+				}
+			}
+		});
+		clusterEventBus.publish(new ClusterEvent(AGENT_MEMBERSHIP_SYNC_TOPIC, getCurrent(), ""));
+	}
+
 	@Autowired
 	private AgentManager agentManager;
 
@@ -108,15 +158,67 @@ public class RegionService {
 	public void checkRegionUpdate() {
 		if (!config.isInvisibleRegion()) {
 			try {
-				HashSet<AgentIdentity> newHashSet = Sets.newHashSet(agentManager.getAllAttachedAgents());
+				publishAgentMembershipChange(Sets.newHashSet(agentManager.getAllAttachedAgents()));
 				final String regionIP = StringUtils.defaultIfBlank(config.getCurrentIP(), NetworkUtils.DEFAULT_LOCAL_HOST_ADDRESS);
-				cache.put(getCurrent(), new RegionInfo(regionIP, config.getControllerPort(), newHashSet));
+				cache.put(getCurrent(), new RegionInfo(regionIP, config.getControllerPort(),
+						Collections.<AgentIdentity>emptySet()));
 			} catch (Exception e) {
 				LOGGER.error("Error while updating regions. {}", e.getMessage());
 			}
 		}
 	}
 
+	private synchronized void publishAgentMembershipChange(HashSet<AgentIdentity> agents) {
+		if (agents.equals(publishedAgents)) {
+			return;
+		}
+		Set<AgentIdentity> added = Sets.newHashSet(Sets.difference(agents, publishedAgents));
+		Set<AgentIdentity> removed = Sets.newHashSet(Sets.difference(publishedAgents, agents));
+		publishedAgents = agents;
+		publishedVersion++;
+		clusterEventBus.publish(new ClusterEvent(AGENT_MEMBERSHIP_TOPIC, getCurrent(),
+				new AgentMembershipChange(getCurrent(), publishedVersion, false, added, removed)));
+	}
+
+	private synchronized void publishFullAgentMembership() {
+		clusterEventBus.publish(new ClusterEvent(AGENT_MEMBERSHIP_TOPIC, getCurrent(),
+				AgentMembershipChange.full(getCurrent(), publishedVersion, new HashSet<AgentIdentity>(publishedAgents))));
+	}
+
+	/**
+	 * Apply the agent change of a region into the local view. When any change is missed, the full
+	 * agent set of the region is requested.
+	 *
+	 * @param change agent change
+	 */
+	void applyAgentMembershipChange(AgentMembershipChange change) {
+		String region = change.getRegion();
+		synchronized (regionAgentVersions) {
+			Long version = regionAgentVersions.get(region);
+			if (change.isFull()) {
+				regionAgents.put(region, new HashSet<AgentIdentity>(change.getAdded()));
+			} else if (version != null && change.getVersion() == version + 1) {
+				Set<AgentIdentity> agents = new HashSet<AgentIdentity>(regionAgents.get(region));
+				agents.removeAll(change.getRemoved());
+				agents.addAll(change.getAdded());
+				regionAgents.put(region, agents);
+			} else {
+				if (version == null || change.getVersion() > version) {
+					clusterEventBus.publish(new ClusterEvent(AGENT_MEMBERSHIP_SYNC_TOPIC, getCurrent(), region));
+				}
+				return;
+			}
+			regionAgentVersions.put(region, change.getVersion());
+		}
+	}
+
+	private RegionInfo withAgents(String region, RegionInfo regionInfo) {
+		Set<AgentIdentity> agents = regionAgents.get(region);
+		return new RegionInfo(regionInfo.getIp(), regionInfo.getControllerPort(),
+				(agents == null) ? Collections.<AgentIdentity>emptySet() : Collections.unmodifiableSet(agents),
+				regionInfo.isVisible());
+	}
+
 
 	/**
 	 * Get current region. This method returns where this service is running.
@@ -134,7 +236,7 @@ public class RegionService {
 	 * @return region info
 	 */
 	public RegionInfo getOne(String regionName) {
-		return (RegionInfo) cache.get(regionName).get();
+		return withAgents(regionName, (RegionInfo) cache.get(regionName).get());
 	}
 
 	/**
@@ -148,7 +250,7 @@ public class RegionService {
 			for (Object eachKey : ((Ehcache) (cache.getNativeCache())).getKeysWithExpiryCheck()) {
 				ValueWrapper valueWrapper = cache.get(eachKey);
 				if (valueWrapper != null && valueWrapper.get() != null) {
-					regions.put((String) eachKey, (RegionInfo) valueWrapper.get());
+					regions.put((String) eachKey, withAgents((String) eachKey, (RegionInfo) valueWrapper.get()));
 				}
 			}
 		}
@@ -183,6 +285,13 @@ public class RegionService {
 		this.config = config;
 	}
 
+	/**
+	 * For unit test
+	 */
+	public void setClusterEventBus(ClusterEventBus clusterEventBus) {
+		this.clusterEventBus = clusterEventBus;
+	}
+
 	/**
 	 * For unit test
 	 */
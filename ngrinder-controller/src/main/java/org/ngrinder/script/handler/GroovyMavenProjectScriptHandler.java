@@ -163,6 +163,9 @@ public class GroovyMavenProjectScriptHandler extends GroovyScriptHandler impleme
 		// Then it's not necessary to include pom.xml anymore.
 		FileUtils.deleteQuietly(new File(distDir, "pom.xml"));
 		processingResult.setSuccess(result == 0);
+		if (success) {
+			precompile(testId, script, distDir, properties, processingResult);
+		}
 	}
 
 	@Override
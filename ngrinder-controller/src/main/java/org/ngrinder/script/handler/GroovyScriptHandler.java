@@ -13,18 +13,35 @@
  */
 package org.ngrinder.script.handler;
 
+import groovy.lang.GroovySystem;
+import net.grinder.lang.Lang;
+import net.grinder.scriptengine.groovy.GroovyPrecompiler;
+import net.grinder.util.AbstractGrinderClassPathProcessor;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
 import org.codehaus.groovy.control.CompilationFailedException;
 import org.codehaus.groovy.control.CompilationUnit;
 import org.codehaus.groovy.control.CompilerConfiguration;
 import org.codehaus.groovy.control.Phases;
 import org.ngrinder.common.util.PathUtils;
+import org.ngrinder.common.util.PropertiesWrapper;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.model.User;
 import org.ngrinder.script.model.FileEntry;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.security.CodeSource;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
 
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
 import static org.ngrinder.common.util.NoOp.noOp;
 
 /**
@@ -35,6 +52,14 @@ import static org.ngrinder.common.util.NoOp.noOp;
  */
 @Component
 public class GroovyScriptHandler extends ScriptHandler {
+	private static final int MAX_CACHED_COMPILED_SCRIPT = 100;
+	private static final long COMPILE_TIMEOUT = 120000;
+	private static final long COMPILE_POLLING_INTERVAL = 100;
+
+	@Autowired
+	private Config config;
+
+	private volatile String workerClassPath;
 
 	/**
 	 * Constructor.
@@ -82,6 +107,217 @@ public class GroovyScriptHandler extends ScriptHandler {
 		return 200;
 	}
 
+	@Override
+	protected void prepareDistMore(Long testCaseId, User user, FileEntry script, File distDir,
+	                               PropertiesWrapper properties, ProcessingResultPrintStream processingResult) {
+		precompile(testCaseId, script, distDir, properties, processingResult);
+	}
+
+	/**
+	 * Compile the distributed script once so that each worker process loads the classes instead of
+	 * compiling the script. The compiled jar is cached by the hash of the sources and the libraries.
+	 * The compile errors make the distribution fail before the agents are launched.
+	 * <p/>
+	 * The compile runs in a separate JVM under the nGrinder security manager like the workers,
+	 * because it runs the AST transformations of the script and its libraries.
+	 * <p/>
+	 * The script validation(test id 0) is skipped because the script under validation is written
+	 * after the distribution.
+	 *
+	 * @param testCaseId       test case id
+	 * @param script           script entry to be distributed
+	 * @param distDir          distribution directory
+	 * @param properties       properties
+	 * @param processingResult processing result holder
+	 */
+	protected void precompile(Long testCaseId, FileEntry script, File distDir, PropertiesWrapper properties,
+	                          ProcessingResultPrintStream processingResult) {
+		File scriptFile = new File(distDir, getScriptExecutePath(script.getPath()));
+		if (testCaseId == 0 || !properties.getPropertyBoolean(PROP_CONTROLLER_DIST_GROOVY_PRECOMPILE)
+				|| !scriptFile.exists()) {
+			return;
+		}
+		boolean compileStatic = properties.getPropertyBoolean(PROP_CONTROLLER_DIST_GROOVY_COMPILE_STATIC);
+		try {
+			deleteCompiledJars(scriptFile);
+			String hash = GroovyPrecompiler.hash(distDir, scriptFile);
+			List<String> classpath = getCompileClassPath(distDir);
+			File jar = GroovyPrecompiler.getCompiledJar(scriptFile, hash);
+			File cachedJar = getCachedJar(hash, compileStatic, distDir);
+			if (cachedJar != null && cachedJar.exists()) {
+				FileUtils.copyFile(cachedJar, jar);
+				//noinspection ResultOfMethodCallIgnored
+				cachedJar.setLastModified(System.currentTimeMillis());
+				processingResult.printf("Precompiled %s is reused.\n", script.getPath());
+				return;
+			}
+			if (!compile(distDir, scriptFile, classpath, compileStatic, processingResult)) {
+				processingResult.setSuccess(false);
+				return;
+			}
+			if (cachedJar != null) {
+				FileUtils.copyFile(jar, cachedJar);
+				evictCachedJars(cachedJar.getParentFile());
+			}
+			processingResult.printf("%s is precompiled.\n", script.getPath());
+			LOGGER.info("{} is precompiled for test {}", script.getPath(), testCaseId);
+		} catch (Exception e) {
+			LOGGER.warn("Precompile of {} is failed. The workers will compile it. {}", script.getPath(),
+					e.getMessage());
+			deleteCompiledJars(scriptFile);
+		}
+	}
+
+	private boolean compile(File distDir, File scriptFile, List<String> classpath, boolean compileStatic,
+	                        ProcessingResultPrintStream processingResult) throws IOException {
+		if (compileStatic) {
+			String errors = forkCompile(distDir, scriptFile, classpath, true);
+			if (errors == null) {
+				return true;
+			}
+			processingResult.printf("%s can not be statically compiled. It's compiled dynamically.\n%s\n",
+					scriptFile.getName(), errors);
+		}
+		String errors = forkCompile(distDir, scriptFile, classpath, false);
+		if (errors != null) {
+			processingResult.printf("\n%s has compile errors.\n%s\n", scriptFile.getName(), errors);
+			return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Run {@link GroovyPrecompiler} in a new JVM which has the worker classpath and the nGrinder
+	 * security manager. The distribution directory is its working directory, so it can write only
+	 * there and in the temp directory, and it can't connect to the other hosts or run commands.
+	 *
+	 * @return null if compiled. The compile errors otherwise.
+	 * @throws IOException occurs when the compile process fails or does not finish in time
+	 */
+	private String forkCompile(File distDir, File scriptFile, List<String> classpath, boolean compileStatic)
+			throws IOException {
+		File output = File.createTempFile("groovy_precompile", ".log");
+		Process process = null;
+		try {
+			ProcessBuilder builder = new ProcessBuilder(getJavaCommand(),
+					"-Djava.security.manager=org.ngrinder.sm.NGrinderSecurityManager",
+					"-Dngrinder.exec.path=" + distDir.getAbsolutePath(), "-cp", getWorkerClassPath(),
+					GroovyPrecompiler.class.getName(), distDir.getAbsolutePath(), scriptFile.getAbsolutePath(),
+					String.valueOf(compileStatic), StringUtils.join(classpath, File.pathSeparator));
+			builder.directory(distDir);
+			builder.redirectErrorStream(true);
+			builder.redirectOutput(output);
+			process = builder.start();
+			int exitCode = waitFor(process);
+			if (exitCode == 0) {
+				return null;
+			}
+			String message = FileUtils.readFileToString(output);
+			if (exitCode == GroovyPrecompiler.EXIT_COMPILE_ERROR) {
+				return message;
+			}
+			throw new IOException("Compile process exited with " + exitCode + ". " + message);
+		} finally {
+			if (process != null) {
+				process.destroy();
+			}
+			FileUtils.deleteQuietly(output);
+		}
+	}
+
+	private int waitFor(Process process) throws IOException {
+		long deadline = System.currentTimeMillis() + COMPILE_TIMEOUT;
+		while (true) {
+			try {
+				return process.exitValue();
+			} catch (IllegalThreadStateException e) {
+				if (System.currentTimeMillis() > deadline) {
+					throw new IOException("Compile did not finish in " + COMPILE_TIMEOUT + " ms");
+				}
+			}
+			try {
+				Thread.sleep(COMPILE_POLLING_INTERVAL);
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IOException("Compile is interrupted");
+			}
+		}
+	}
+
+	private String getJavaCommand() {
+		return new File(new File(System.getProperty("java.home"), "bin"), "java").getAbsolutePath();
+	}
+
+	private String getWorkerClassPath() {
+		if (workerClassPath == null) {
+			AbstractGrinderClassPathProcessor classPathProcessor = Lang.Groovy.getHandler().getClassPathProcessor();
+			workerClassPath = classPathProcessor.buildForemostClasspathBasedOnCurrentClassLoader(LOGGER)
+					+ File.pathSeparator + classPathProcessor.buildPatchClasspathBasedOnCurrentClassLoader(LOGGER)
+					+ File.pathSeparator + classPathProcessor.buildClasspathBasedOnCurrentClassLoader(LOGGER);
+		}
+		return workerClassPath;
+	}
+
+	private List<String> getCompileClassPath(File distDir) {
+		List<String> classpath = newArrayList();
+		classpath.add(distDir.getAbsolutePath());
+		File libDir = new File(distDir, "lib");
+		if (libDir.isDirectory()) {
+			classpath.add(libDir.getAbsolutePath());
+			for (File each : FileUtils.listFiles(libDir, new String[]{"jar"}, false)) {
+				classpath.add(each.getAbsolutePath());
+			}
+		}
+		return classpath;
+	}
+
+	/**
+	 * Get the cached jar for the given sources. The contents of the lib directory, the compile mode
+	 * and the groovy version are the part of the cache key as well.
+	 */
+	private File getCachedJar(String hash, boolean compileStatic, File distDir) throws IOException {
+		if (config == null) {
+			return null;
+		}
+		String key = hash + compileStatic + GroovySystem.getVersion()
+				+ GroovyPrecompiler.hashDirectory(new File(distDir, "lib"));
+		File cacheDir = config.getHome().getCompiledScriptCacheDirectory();
+		//noinspection ResultOfMethodCallIgnored
+		cacheDir.mkdirs();
+		return new File(cacheDir, GroovyPrecompiler.hash(key) + GroovyPrecompiler.JAR_EXTENSION);
+	}
+
+	private void evictCachedJars(File cacheDir) {
+		File[] jars = cacheDir.listFiles();
+		if (jars == null || jars.length <= MAX_CACHED_COMPILED_SCRIPT) {
+			return;
+		}
+		Arrays.sort(jars, new Comparator<File>() {
+			@Override
+			public int compare(File o1, File o2) {
+				return Long.valueOf(o2.lastModified()).compareTo(o1.lastModified());
+			}
+		});
+		for (int i = MAX_CACHED_COMPILED_SCRIPT; i < jars.length; i++) {
+			FileUtils.deleteQuietly(jars[i]);
+		}
+	}
+
+	private void deleteCompiledJars(final File scriptFile) {
+		File[] jars = scriptFile.getParentFile().listFiles(new FileFilter() {
+			@Override
+			public boolean accept(File file) {
+				return file.getName().startsWith(scriptFile.getName() + ".")
+						&& file.getName().endsWith(GroovyPrecompiler.JAR_EXTENSION);
+			}
+		});
+		if (jars != null) {
+			for (File each : jars) {
+				FileUtils.deleteQuietly(each);
+			}
+		}
+	}
+
 	/**
 	 * Get the default quick test file.
 	 *
@@ -32,6 +32,7 @@ import org.springframework.core.io.ClassPathResource;
 
 import java.io.File;
 import java.io.StringWriter;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -142,7 +143,8 @@ public abstract class ScriptHandler implements ControllerConstants {
 			fileEntries.add(scriptEntry);
 		}
 		String basePath = getBasePath(scriptEntry);
-		// Distribute each files in that folder.
+		// Distribute each files in that folder in one repository session.
+		Map<String, File> targets = new LinkedHashMap<String, File>();
 		for (FileEntry each : fileEntries) {
 			// Directory is not subject to be distributed.
 			if (each.getFileType() == FileType.DIR) {
@@ -151,8 +153,9 @@ public abstract class ScriptHandler implements ControllerConstants {
 			File toDir = new File(distDir, calcDistSubPath(basePath, each));
 			processingResult.printf("%s is being written.\n", each.getPath());
 			LOGGER.info("{} is being written in {} for test {}", new Object[]{each.getPath(), toDir, testCaseId});
-			getFileEntryRepository().writeContentTo(user, each.getPath(), toDir);
+			targets.put(each.getPath(), toDir);
 		}
+		getFileEntryRepository().writeContentTo(user, targets);
 		processingResult.setSuccess(true);
 		prepareDistMore(testCaseId, user, scriptEntry, distDir, properties, processingResult);
 	}
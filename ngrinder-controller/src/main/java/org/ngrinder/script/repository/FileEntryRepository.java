@@ -13,6 +13,10 @@
  */
 package org.ngrinder.script.repository;
 
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.Weigher;
+import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
@@ -21,6 +25,7 @@ import org.ngrinder.common.exception.NGrinderRuntimeException;
 import org.ngrinder.common.model.Home;
 import org.ngrinder.common.util.EncodingUtils;
 import org.ngrinder.infra.config.Config;
+import org.ngrinder.infra.schedule.ScheduledTaskService;
 import org.ngrinder.model.User;
 import org.ngrinder.script.model.FileCategory;
 import org.ngrinder.script.model.FileEntry;
@@ -35,6 +40,7 @@ import org.springframework.stereotype.Component;
 import org.tmatesoft.svn.core.*;
 import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
 import org.tmatesoft.svn.core.internal.io.fs.FSRepositoryFactory;
+import org.tmatesoft.svn.core.internal.util.SVNPathUtil;
 import org.tmatesoft.svn.core.internal.wc.DefaultSVNOptions;
 import org.tmatesoft.svn.core.io.ISVNEditor;
 import org.tmatesoft.svn.core.io.SVNRepository;
@@ -44,15 +50,23 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 import org.tmatesoft.svn.core.wc.SVNWCUtil;
 
 import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
 import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.util.Collections;
 import java.util.EmptyStackException;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_SVN_CACHE_SIZE;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_SVN_SESSION_IDLE_TIMEOUT;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_SVN_SESSION_POOL_SIZE;
 import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.CollectionUtils.newHashMap;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
 import static org.ngrinder.common.util.NoOp.noOp;
 import static org.ngrinder.common.util.Preconditions.checkNotNull;
@@ -62,6 +76,10 @@ import static org.ngrinder.common.util.Preconditions.checkNotNull;
  *
  * This class save and retrieve {@link FileEntry} from Local SVN folders.
  *
+ * The repository sessions are pooled per user, and the directory listings and small file
+ * contents are cached by their revision. The cache of a repository is invalidated by the post
+ * commit hook registered in {@link org.ngrinder.script.service.FileEntryService}.
+ *
  * @author JunHo Yoon
  * @since 3.0
  */
@@ -71,13 +89,31 @@ public class FileEntryRepository {
 
 	private static final Logger LOG = LoggerFactory.getLogger(FileEntryRepository.class);
 
+	private static final int MAX_CACHED_FILE_SIZE = 64 * 1024;
+
+	private static final int DIR_ENTRY_WEIGHT = 256;
+
 	@Autowired
 	private Config config;
 
+	@Autowired
+	private ScheduledTaskService scheduledTaskService;
+
 	private Home home;
 
 	private File subversionHome;
 
+	private SVNSessionPool sessionPool;
+
+	private Cache<String, Object> contentCache;
+
+	private final Runnable sessionEvictionRunnable = new Runnable() {
+		@Override
+		public void run() {
+			sessionPool.evictIdleSessions();
+		}
+	};
+
 	/**
 	 * Initialize the {@link FileEntryRepository}. This method should be
 	 * performed to set up FS Repository.
@@ -87,6 +123,54 @@ public class FileEntryRepository {
 		FSRepositoryFactory.setup();
 		home = config.getHome();
 		subversionHome = home.getSubFile("subversion");
+		int idleTimeout = config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_SVN_SESSION_IDLE_TIMEOUT);
+		sessionPool = new SVNSessionPool(subversionHome,
+				config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_SVN_SESSION_POOL_SIZE), idleTimeout);
+		contentCache = CacheBuilder.newBuilder()
+				.maximumWeight(config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_SVN_CACHE_SIZE) * 1024L * 1024L)
+				.weigher(new Weigher<String, Object>() {
+					@Override
+					public int weigh(String key, Object value) {
+						if (value instanceof CachedFile) {
+							return ((CachedFile) value).content.length + DIR_ENTRY_WEIGHT;
+						}
+						return (((List<?>) value).size() + 1) * DIR_ENTRY_WEIGHT;
+					}
+				}).build();
+		scheduledTaskService.addFixedDelayedScheduledTask(sessionEvictionRunnable, Math.max(idleTimeout / 2, 1000));
+	}
+
+	/**
+	 * Close all pooled sessions.
+	 */
+	@PreDestroy
+	public void destroy() {
+		scheduledTaskService.removeScheduledJob(sessionEvictionRunnable);
+		sessionPool.close();
+	}
+
+	/**
+	 * Invalidate the cached listings and contents of the given user repository. The pooled
+	 * sessions are closed as well if the repository is replaced on the file system.
+	 *
+	 * @param repoDirectory  user repository directory
+	 * @param closeSessions true if the pooled sessions should be closed
+	 */
+	public void invalidateCache(File repoDirectory, boolean closeSessions) {
+		try {
+			SVNURL url = SVNURL.fromFile(repoDirectory);
+			String prefix = url.toString() + "|";
+			for (String each : contentCache.asMap().keySet()) {
+				if (each.startsWith(prefix)) {
+					contentCache.invalidate(each);
+				}
+			}
+			if (closeSessions) {
+				sessionPool.invalidate(url);
+			}
+		} catch (SVNException e) {
+			LOG.error("Error while invalidating the svn cache of {}", repoDirectory, e);
+		}
 	}
 
 	@Autowired
@@ -126,41 +210,32 @@ public class FileEntryRepository {
 	 * @return found {@link FileEntry}s
 	 */
 	public List<FileEntry> findAll(User user, final String path, Long revision, boolean recursive) {
-		SVNRevision svnRevision = SVNRevision.HEAD;
-		if (revision != null && -1L != revision) {
-			svnRevision = SVNRevision.create(revision);
-		}
 		final List<FileEntry> fileEntries = newArrayList();
-		SVNClientManager svnClientManager = getSVNClientManager();
+		SVNRepository repo = null;
+		boolean broken = false;
 		try {
-			svnClientManager.getLogClient().doList(SVNURL.fromFile(getUserRepoDirectory(user)).appendPath(path, true),
-					svnRevision, svnRevision, true, recursive, new ISVNDirEntryHandler() {
-				@Override
-				public void handleDirEntry(SVNDirEntry dirEntry) throws SVNException {
-
-					FileEntry script = new FileEntry();
-					// Exclude base path "/"
-					if (StringUtils.isBlank(dirEntry.getRelativePath())) {
-						return;
-					}
-					script.setPath(FilenameUtils.normalize(path + "/" + dirEntry.getRelativePath(), true));
-					script.setCreatedDate(dirEntry.getDate());
-					script.setLastModifiedDate(dirEntry.getDate());
-					script.setDescription(dirEntry.getCommitMessage());
-					script.setRevision(dirEntry.getRevision());
-					if (dirEntry.getKind() == SVNNodeKind.DIR) {
-						script.setFileType(FileType.DIR);
-					} else {
-						script.getFileType();
-						script.setFileSize(dirEntry.getSize());
-					}
-					fileEntries.add(script);
+			repo = borrowRepository(user);
+			long revisionNumber = (revision == null || revision < 0) ? repo.getLatestRevision() : revision;
+			for (SVNDirEntry dirEntry : list(repo, path, revisionNumber, recursive)) {
+				FileEntry script = new FileEntry();
+				script.setPath(FilenameUtils.normalize(path + "/" + dirEntry.getRelativePath(), true));
+				script.setCreatedDate(dirEntry.getDate());
+				script.setLastModifiedDate(dirEntry.getDate());
+				script.setDescription(dirEntry.getCommitMessage());
+				script.setRevision(dirEntry.getRevision());
+				if (dirEntry.getKind() == SVNNodeKind.DIR) {
+					script.setFileType(FileType.DIR);
+				} else {
+					script.getFileType();
+					script.setFileSize(dirEntry.getSize());
 				}
-			});
+				fileEntries.add(script);
+			}
 		} catch (Exception e) {
+			broken = true;
 			LOG.debug("findAll() to the not existing folder {}", path);
 		} finally {
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
 		}
 		return fileEntries;
 	}
@@ -174,39 +249,78 @@ public class FileEntryRepository {
 	 */
 	public List<FileEntry> findAll(final User user) {
 		final List<FileEntry> scripts = newArrayList();
-		SVNClientManager svnClientManager = getSVNClientManager();
+		SVNRepository repo = null;
+		boolean broken = false;
 		try {
-			svnClientManager.getLogClient().doList(SVNURL.fromFile(getUserRepoDirectory(user)), SVNRevision.HEAD,
-					SVNRevision.HEAD, false, true, new ISVNDirEntryHandler() {
-				@Override
-				public void handleDirEntry(SVNDirEntry dirEntry) throws SVNException {
-					FileEntry script = new FileEntry();
-					String relativePath = dirEntry.getRelativePath();
-					if (StringUtils.isBlank(relativePath)) {
-						return;
-					}
-					script.setCreatedDate(dirEntry.getDate());
-					script.setLastModifiedDate(dirEntry.getDate());
-					script.setPath(relativePath);
-					script.setDescription(dirEntry.getCommitMessage());
-					long reversion = dirEntry.getRevision();
-					script.setRevision(reversion);
-					script.setFileType(dirEntry.getKind() == SVNNodeKind.DIR ? FileType.DIR : null);
-					script.setFileSize(dirEntry.getSize());
-					scripts.add(script);
-				}
-			});
+			repo = borrowRepository(user);
+			for (SVNDirEntry dirEntry : list(repo, "", repo.getLatestRevision(), true)) {
+				FileEntry script = new FileEntry();
+				script.setCreatedDate(dirEntry.getDate());
+				script.setLastModifiedDate(dirEntry.getDate());
+				script.setPath(dirEntry.getRelativePath());
+				script.setDescription(dirEntry.getCommitMessage());
+				long reversion = dirEntry.getRevision();
+				script.setRevision(reversion);
+				script.setFileType(dirEntry.getKind() == SVNNodeKind.DIR ? FileType.DIR : null);
+				script.setFileSize(dirEntry.getSize());
+				scripts.add(script);
+			}
 		} catch (Exception e) {
+			broken = true;
 			LOG.error("Error while fetching files from SVN for {}", user.getUserId());
 			LOG.debug("Error details :", e);
 			throw new NGrinderRuntimeException(e);
 		} finally {
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
 		}
 		return scripts;
 
 	}
 
+	/**
+	 * List the entries under the given path at the given revision. The relative path of each
+	 * entry is set from the given path. If the path is a file, the file itself is listed.
+	 * The listing is cached because the content of a revision never changes.
+	 */
+	@SuppressWarnings("unchecked")
+	private List<SVNDirEntry> list(SVNRepository repo, String path, long revision, boolean recursive)
+			throws SVNException {
+		String key = getCacheKey(repo, revision, recursive ? "tree" : "dir", path);
+		List<SVNDirEntry> entries = (List<SVNDirEntry>) contentCache.getIfPresent(key);
+		if (entries != null) {
+			return entries;
+		}
+		entries = newArrayList();
+		SVNNodeKind nodeKind = repo.checkPath(path, revision);
+		if (nodeKind == SVNNodeKind.FILE) {
+			SVNDirEntry entry = repo.info(path, revision);
+			entry.setRelativePath(entry.getName());
+			SVNPropertyValue message = repo.getRevisionPropertyValue(entry.getRevision(), SVNRevisionProperty.LOG);
+			entry.setCommitMessage(SVNPropertyValue.getPropertyAsString(message));
+			entries.add(entry);
+		} else if (nodeKind == SVNNodeKind.DIR) {
+			listDir(repo, path, "", revision, recursive, entries);
+		}
+		entries = Collections.unmodifiableList(entries);
+		contentCache.put(key, entries);
+		return entries;
+	}
+
+	private void listDir(SVNRepository repo, String path, String relativePath, long revision, boolean recursive,
+	                     List<SVNDirEntry> entries) throws SVNException {
+		List<SVNDirEntry> children = newArrayList();
+		repo.getDir(path, revision, true, children);
+		Collections.sort(children);
+		for (SVNDirEntry each : children) {
+			String childRelativePath = SVNPathUtil.append(relativePath, each.getName());
+			each.setRelativePath(childRelativePath);
+			entries.add(each);
+			if (recursive && each.getKind() == SVNNodeKind.DIR) {
+				listDir(repo, SVNPathUtil.append(path, each.getName()), childRelativePath, revision, true, entries);
+			}
+		}
+	}
+
 	/**
 	 * Return a {@link FileEntry} for the given path and revision.
 	 *
@@ -217,34 +331,23 @@ public class FileEntryRepository {
 	 */
 	public FileEntry findOne(User user, String path, SVNRevision revision) {
 		final FileEntry script = new FileEntry();
-		SVNClientManager svnClientManager = null;
-		ByteArrayOutputStream outputStream = null;
+		SVNRepository repo = null;
+		boolean broken = false;
 		try {
-			svnClientManager = getSVNClientManager();
-
-			SVNURL userRepoUrl = SVNURL.fromFile(getUserRepoDirectory(user));
-			if (userRepoUrl == null) {
-				return null;
-			}
-			SVNRepository repo = svnClientManager.createRepository(userRepoUrl, true);
-			SVNNodeKind nodeKind = repo.checkPath(path, -1);
+			repo = borrowRepository(user);
+			long latestRevision = repo.getLatestRevision();
+			SVNNodeKind nodeKind = repo.checkPath(path, latestRevision);
 			if (nodeKind == SVNNodeKind.NONE) {
 				return null;
 			}
-			outputStream = new ByteArrayOutputStream();
-			SVNProperties fileProperty = new SVNProperties();
-			// Get File.
-			repo.getFile(path, revision.getNumber(), fileProperty, outputStream);
-			SVNDirEntry lastRevisionedEntry = repo.info(path, -1);
+			long fileRevision = (revision.getNumber() < 0) ? latestRevision : revision.getNumber();
+			CachedFile file = getFile(repo, path, fileRevision);
+			SVNDirEntry lastRevisionedEntry = repo.info(path, latestRevision);
 			long lastRevisionNumber = (lastRevisionedEntry == null) ? -1 : lastRevisionedEntry.getRevision();
-			String revisionStr = fileProperty.getStringValue(SVNProperty.REVISION);
-			long revisionNumber = Long.parseLong(revisionStr);
-			SVNDirEntry info = repo.info(path, revisionNumber);
-			byte[] byteArray = outputStream.toByteArray();
+			long revisionNumber = file.revision;
+			byte[] byteArray = file.content.clone();
 			script.setPath(path);
-			for (String name : fileProperty.nameSet()) {
-				script.getProperties().put(name, fileProperty.getStringValue(name));
-			}
+			script.getProperties().putAll(file.properties);
 			script.setFileType(FileType.getFileTypeByExtension(FilenameUtils.getExtension(script.getFileName())));
 			if (script.getFileType().isEditable()) {
 				String autoDetectedEncoding = EncodingUtils.detectEncoding(byteArray, "UTF-8");
@@ -254,20 +357,50 @@ public class FileEntryRepository {
 			} else {
 				script.setContentBytes(byteArray);
 			}
-			script.setDescription(info.getCommitMessage());
+			script.setDescription(file.commitMessage);
 			script.setRevision(revisionNumber);
 			script.setLastRevision(lastRevisionNumber);
 			script.setCreatedUser(user);
 		} catch (Exception e) {
+			broken = true;
 			LOG.error("Error while fetching a file from SVN {}", user.getUserId() + "_" + path, e);
 			return null;
 		} finally {
-			closeSVNClientManagerQuietly(svnClientManager);
-			IOUtils.closeQuietly(outputStream);
+			releaseRepository(repo, broken);
 		}
 		return script;
 	}
 
+	/**
+	 * Get the file content at the given revision. The small files are cached.
+	 */
+	private CachedFile getFile(SVNRepository repo, String path, long revision) throws SVNException {
+		String key = getCacheKey(repo, revision, "file", path);
+		CachedFile file = (CachedFile) contentCache.getIfPresent(key);
+		if (file != null) {
+			return file;
+		}
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		try {
+			SVNProperties fileProperty = new SVNProperties();
+			repo.getFile(path, revision, fileProperty, outputStream);
+			Map<String, String> properties = newHashMap();
+			for (String name : fileProperty.nameSet()) {
+				properties.put(name, fileProperty.getStringValue(name));
+			}
+			long revisionNumber = Long.parseLong(fileProperty.getStringValue(SVNProperty.REVISION));
+			SVNDirEntry info = repo.info(path, revisionNumber);
+			file = new CachedFile(outputStream.toByteArray(), Collections.unmodifiableMap(properties),
+					revisionNumber, info.getCommitMessage());
+		} finally {
+			IOUtils.closeQuietly(outputStream);
+		}
+		if (file.content.length <= MAX_CACHED_FILE_SIZE) {
+			contentCache.put(key, file);
+		}
+		return file;
+	}
+
 	private void addPropertyValue(ISVNEditor editor, FileEntry fileEntry) throws SVNException {
 		if (fileEntry.getFileType().getFileCategory() == FileCategory.SCRIPT) {
 			editor.changeFileProperty(fileEntry.getPath(), "targetHosts", SVNPropertyValue.create(""));
@@ -286,13 +419,13 @@ public class FileEntryRepository {
 	 *                  only FileEntry is editable.
 	 */
 	public void save(User user, FileEntry fileEntry, String encoding) {
-		SVNClientManager svnClientManager = null;
+		SVNRepository repo = null;
+		boolean broken = false;
 		ISVNEditor editor = null;
 		String checksum = null;
 		InputStream bais = null;
 		try {
-			svnClientManager = getSVNClientManager();
-			SVNRepository repo = svnClientManager.createRepository(SVNURL.fromFile(getUserRepoDirectory(user)), true);
+			repo = borrowRepository(user);
 			SVNDirEntry dirEntry = repo.info(fileEntry.getPath(), -1);
 
 			// Add base paths
@@ -346,6 +479,7 @@ public class FileEntryRepository {
 			addPropertyValue(editor, fileEntry);
 			editor.closeFile(fileEntry.getPath(), checksum);
 		} catch (Exception e) {
+			broken = true;
 			abortSVNEditorQuietly(editor);
 			// If it's adding the folder which already exists... ignore..
 			if (e instanceof SVNException && fileEntry.getFileType() == FileType.DIR) {
@@ -357,7 +491,7 @@ public class FileEntryRepository {
 			throw processException("Error while saving file to SVN", e);
 		} finally {
 			closeSVNEditorQuietly(editor);
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
 			IOUtils.closeQuietly(bais);
 		}
 	}
@@ -424,24 +558,24 @@ public class FileEntryRepository {
 	 * @param paths paths of file entries.
 	 */
 	public void delete(User user, List<String> paths) {
-		SVNClientManager svnClientManager = null;
+		SVNRepository repo = null;
+		boolean broken = false;
 		ISVNEditor editor = null;
 		try {
-			svnClientManager = getSVNClientManager();
-			SVNRepository repo = svnClientManager.createRepository(SVNURL.fromFile(getUserRepoDirectory(user)), true);
-
+			repo = borrowRepository(user);
 			editor = repo.getCommitEditor("delete", null, true, null);
 			editor.openRoot(-1);
 			for (String each : paths) {
 				editor.deleteEntry(each, -1);
 			}
 		} catch (Exception e) {
+			broken = true;
 			abortSVNEditorQuietly(editor);
 			LOG.error("Error while deleting file from SVN", e);
 			throw processException("Error while deleting files from SVN", e);
 		} finally {
 			closeSVNEditorQuietly(editor);
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
 		}
 	}
 
@@ -469,10 +603,24 @@ public class FileEntryRepository {
 
 	}
 
-	private void closeSVNClientManagerQuietly(SVNClientManager svnClientManager) {
-		if (svnClientManager != null) {
-			svnClientManager.dispose();
-		}
+	/**
+	 * Borrow the pooled repository session of the given user for the current user.
+	 *
+	 * @param user owner of the repository
+	 * @return repository session. It should be released by {@link #releaseRepository(SVNRepository, boolean)}.
+	 * @throws SVNException occurs when the session can not be opened
+	 */
+	protected SVNRepository borrowRepository(User user) throws SVNException {
+		return sessionPool.borrow(SVNURL.fromFile(getUserRepoDirectory(user)), getCurrentUserId());
+	}
+
+	private void releaseRepository(SVNRepository repo, boolean broken) {
+		sessionPool.release(repo, !broken);
+	}
+
+	private String getCacheKey(SVNRepository repo, long revision, String type, String path) {
+		return repo.getLocation().toString() + "|" + revision + "|" + type + "|"
+				+ StringUtils.defaultString(FilenameUtils.normalizeNoEndSeparator(path, true));
 	}
 
 	/**
@@ -483,18 +631,18 @@ public class FileEntryRepository {
 	 * @return true if exists.
 	 */
 	public boolean hasOne(User user, String path) {
-		SVNClientManager svnClientManager = null;
+		SVNRepository repo = null;
+		boolean broken = false;
 		try {
-			svnClientManager = getSVNClientManager();
-			SVNURL userRepoUrl = SVNURL.fromFile(getUserRepoDirectory(user));
-			SVNRepository repo = svnClientManager.createRepository(userRepoUrl, true);
+			repo = borrowRepository(user);
 			SVNNodeKind nodeKind = repo.checkPath(path, -1);
 			return (nodeKind != SVNNodeKind.NONE);
 		} catch (Exception e) {
+			broken = true;
 			LOG.error("Error while fetching files from SVN", e);
 			throw processException("Error while checking file existence from SVN", e);
 		} finally {
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
 		}
 	}
 
@@ -508,32 +656,75 @@ public class FileEntryRepository {
 	 * @param toPathDir file dir path to write.
 	 */
 	public void writeContentTo(User user, String path, File toPathDir) {
-		SVNClientManager svnClientManager = null;
-		FileOutputStream fileOutputStream = null;
-		try {
-			svnClientManager = getSVNClientManager();
+		writeContentTo(user, Collections.singletonMap(path, toPathDir));
+	}
 
-			SVNURL userRepoUrl = SVNURL.fromFile(getUserRepoDirectory(user));
-			SVNRepository repo = svnClientManager.createRepository(userRepoUrl, true);
-			SVNNodeKind nodeKind = repo.checkPath(path, -1);
-			// If it's DIR, it does not work.
-			if (nodeKind == SVNNodeKind.NONE || nodeKind == SVNNodeKind.DIR) {
-				throw processException("It's not possible to write directory. nodeKind is " + nodeKind);
+	/**
+	 * Copy {@link FileEntry}s to the given paths at the same revision in a single
+	 * repository session.
+	 *
+	 * This method only work for the files not dirs.
+	 *
+	 * @param user    user
+	 * @param targets map of the {@link FileEntry} path and the file dir path to write
+	 */
+	public void writeContentTo(User user, Map<String, File> targets) {
+		SVNRepository repo = null;
+		boolean broken = false;
+		try {
+			repo = borrowRepository(user);
+			long latestRevision = repo.getLatestRevision();
+			for (Entry<String, File> each : targets.entrySet()) {
+				writeContentTo(repo, latestRevision, each.getKey(), each.getValue());
 			}
-			//noinspection ResultOfMethodCallIgnored
-			toPathDir.mkdirs();
-			File destFile = new File(toPathDir, FilenameUtils.getName(path));
-			// Prepare parent folders
-			fileOutputStream = new FileOutputStream(destFile);
-			SVNProperties fileProperty = new SVNProperties();
-			// Get file.
-			repo.getFile(path, -1L, fileProperty, fileOutputStream);
 		} catch (Exception e) {
+			broken = true;
 			LOG.error("Error while fetching files from SVN", e);
 			throw processException("Error while fetching files from SVN", e);
 		} finally {
-			closeSVNClientManagerQuietly(svnClientManager);
+			releaseRepository(repo, broken);
+		}
+	}
+
+	private void writeContentTo(SVNRepository repo, long revision, String path, File toPathDir)
+			throws SVNException, IOException {
+		SVNNodeKind nodeKind = repo.checkPath(path, revision);
+		// If it's DIR, it does not work.
+		if (nodeKind == SVNNodeKind.NONE || nodeKind == SVNNodeKind.DIR) {
+			throw processException("It's not possible to write directory. nodeKind is " + nodeKind);
+		}
+		//noinspection ResultOfMethodCallIgnored
+		toPathDir.mkdirs();
+		File destFile = new File(toPathDir, FilenameUtils.getName(path));
+		CachedFile cached = (CachedFile) contentCache.getIfPresent(getCacheKey(repo, revision, "file", path));
+		if (cached != null) {
+			FileUtils.writeByteArrayToFile(destFile, cached.content);
+			return;
+		}
+		FileOutputStream fileOutputStream = null;
+		try {
+			fileOutputStream = new FileOutputStream(destFile);
+			// Get file.
+			repo.getFile(path, revision, new SVNProperties(), fileOutputStream);
+		} finally {
 			IOUtils.closeQuietly(fileOutputStream);
 		}
 	}
+
+	/**
+	 * File content and properties at a revision.
+	 */
+	private static class CachedFile {
+		private final byte[] content;
+		private final Map<String, String> properties;
+		private final long revision;
+		private final String commitMessage;
+
+		CachedFile(byte[] content, Map<String, String> properties, long revision, String commitMessage) {
+			this.content = content;
+			this.properties = properties;
+			this.revision = revision;
+			this.commitMessage = commitMessage;
+		}
+	}
 }
@@ -0,0 +1,199 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.script.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.tmatesoft.svn.core.SVNException;
+import org.tmatesoft.svn.core.SVNURL;
+import org.tmatesoft.svn.core.auth.ISVNAuthenticationManager;
+import org.tmatesoft.svn.core.io.SVNRepository;
+import org.tmatesoft.svn.core.io.SVNRepositoryFactory;
+import org.tmatesoft.svn.core.wc.SVNWCUtil;
+
+import java.io.File;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.ngrinder.common.util.CollectionUtils.newHashMap;
+
+/**
+ * Bounded pool of the {@link SVNRepository} sessions.
+ * <p/>
+ * The sessions are kept per user repository and per committer, because the committer is bound to
+ * the session by its authentication manager. A session is used by only one thread between
+ * {@link #borrow(SVNURL, String)} and {@link #release(SVNRepository, boolean)}. The sessions
+ * idle longer than the idle timeout are closed by {@link #evictIdleSessions()}.
+ *
+ * @since 3.4
+ */
+public class SVNSessionPool {
+	private static final Logger LOG = LoggerFactory.getLogger(SVNSessionPool.class);
+
+	private final File subversionHome;
+	private final int maxIdleSessions;
+	private final long idleTimeout;
+	private final Map<String, Deque<IdleSession>> idleSessions = newHashMap();
+	private final Map<SVNRepository, String> borrowedSessions = new IdentityHashMap<SVNRepository, String>();
+	private int idleCount = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param subversionHome  subversion configuration home
+	 * @param maxIdleSessions max count of the idle sessions kept across all repositories
+	 * @param idleTimeout     idle time in milliseconds after which the session is closed
+	 */
+	public SVNSessionPool(File subversionHome, int maxIdleSessions, long idleTimeout) {
+		this.subversionHome = subversionHome;
+		this.maxIdleSessions = maxIdleSessions;
+		this.idleTimeout = idleTimeout;
+	}
+
+	/**
+	 * Borrow the session for the given repository and committer. A new session is opened if no
+	 * idle one is available.
+	 *
+	 * @param url    repository url
+	 * @param userId committer
+	 * @return session
+	 * @throws SVNException occurs when the session can not be opened
+	 */
+	public SVNRepository borrow(SVNURL url, String userId) throws SVNException {
+		String key = getKey(url, userId);
+		synchronized (idleSessions) {
+			Deque<IdleSession> sessions = idleSessions.get(key);
+			IdleSession idle = (sessions == null) ? null : sessions.pollFirst();
+			if (idle != null) {
+				idleCount--;
+				borrowedSessions.put(idle.repository, key);
+				return idle.repository;
+			}
+		}
+		SVNRepository repository = SVNRepositoryFactory.create(url);
+		ISVNAuthenticationManager authManager = SVNWCUtil.createDefaultAuthenticationManager(subversionHome,
+				userId, null, false);
+		repository.setAuthenticationManager(authManager);
+		synchronized (idleSessions) {
+			borrowedSessions.put(repository, key);
+		}
+		return repository;
+	}
+
+	/**
+	 * Give the borrowed session back. The session is closed instead if it's not reusable or the
+	 * pool is full.
+	 *
+	 * @param repository borrowed session
+	 * @param reusable   false if the session met an error
+	 */
+	public void release(SVNRepository repository, boolean reusable) {
+		if (repository == null) {
+			return;
+		}
+		synchronized (idleSessions) {
+			String key = borrowedSessions.remove(repository);
+			if (reusable && key != null && idleCount < maxIdleSessions) {
+				Deque<IdleSession> sessions = idleSessions.get(key);
+				if (sessions == null) {
+					sessions = new ArrayDeque<IdleSession>();
+					idleSessions.put(key, sessions);
+				}
+				sessions.addFirst(new IdleSession(repository));
+				idleCount++;
+				return;
+			}
+		}
+		repository.closeSession();
+	}
+
+	/**
+	 * Close the idle sessions which are not used during the idle timeout.
+	 */
+	public void evictIdleSessions() {
+		long expired = System.currentTimeMillis() - idleTimeout;
+		closeAll(expired, null);
+	}
+
+	/**
+	 * Close all idle sessions of the given repository. It's necessary when the repository is
+	 * replaced on the file system.
+	 *
+	 * @param url repository url
+	 */
+	public void invalidate(SVNURL url) {
+		closeAll(Long.MAX_VALUE, url.toString() + "|");
+	}
+
+	/**
+	 * Close all idle sessions.
+	 */
+	public void close() {
+		closeAll(Long.MAX_VALUE, null);
+	}
+
+	private void closeAll(long lastUsedBefore, String keyPrefix) {
+		Deque<SVNRepository> toBeClosed = new ArrayDeque<SVNRepository>();
+		synchronized (idleSessions) {
+			Iterator<Map.Entry<String, Deque<IdleSession>>> entries = idleSessions.entrySet().iterator();
+			while (entries.hasNext()) {
+				Map.Entry<String, Deque<IdleSession>> each = entries.next();
+				if (keyPrefix != null && !each.getKey().startsWith(keyPrefix)) {
+					continue;
+				}
+				Iterator<IdleSession> sessions = each.getValue().iterator();
+				while (sessions.hasNext()) {
+					IdleSession session = sessions.next();
+					if (session.lastUsed < lastUsedBefore) {
+						sessions.remove();
+						idleCount--;
+						toBeClosed.add(session.repository);
+					}
+				}
+				if (each.getValue().isEmpty()) {
+					entries.remove();
+				}
+			}
+		}
+		for (SVNRepository each : toBeClosed) {
+			try {
+				each.closeSession();
+			} catch (Exception e) {
+				LOG.debug("Error while closing the svn session", e);
+			}
+		}
+	}
+
+	int getIdleCount() {
+		synchronized (idleSessions) {
+			return idleCount;
+		}
+	}
+
+	private String getKey(SVNURL url, String userId) {
+		return url.toString() + "|" + userId;
+	}
+
+	private static class IdleSession {
+		private final SVNRepository repository;
+		private final long lastUsed = System.currentTimeMillis();
+
+		IdleSession(SVNRepository repository) {
+			this.repository = repository;
+		}
+	}
+}
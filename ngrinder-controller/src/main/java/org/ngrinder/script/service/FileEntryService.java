@@ -103,6 +103,7 @@ public class FileEntryService {
 				if (event.getType().equals(FSHooks.SVN_REPOS_HOOK_POST_COMMIT)) {
 					String name = event.getReposRootDir().getName();
 					invalidateCache(name);
+					fileEntityRepository.invalidateCache(event.getReposRootDir(), false);
 				}
 			}
 		});
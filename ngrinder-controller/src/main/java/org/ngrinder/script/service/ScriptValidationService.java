@@ -17,6 +17,7 @@ import net.grinder.engine.agent.LocalScriptTestDriveService;
 import net.grinder.util.thread.Condition;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
 import org.apache.commons.lang.StringUtils;
 import org.ngrinder.common.util.Preconditions;
@@ -33,9 +34,27 @@ import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.io.BufferedReader;
 import java.io.File;
-import java.util.List;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_VALIDATION_MAX_CONCURRENCY;
+import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_VALIDATION_MAX_OUTPUT;
 import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_VALIDATION_SYNTAX_CHECK;
 import static org.ngrinder.common.constant.ControllerConstants.PROP_CONTROLLER_VALIDATION_TIMEOUT;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
@@ -53,6 +72,7 @@ import static org.ngrinder.common.util.TypeConvertUtils.cast;
 public class ScriptValidationService extends AbstractScriptValidationService {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger(ScriptValidationService.class);
+	private static final String TOO_BUSY_MESSAGE = "Too many validations are running now. Please try again later.";
 
 	@Autowired
 	private LocalScriptTestDriveService localScriptTestDriveService;
@@ -66,6 +86,40 @@ public class ScriptValidationService extends AbstractScriptValidationService {
 	@Autowired
 	private ScriptHandlerFactory scriptHandlerFactory;
 
+	private ThreadPoolExecutor validationExecutor;
+
+	/**
+	 * Initialize the validation pool. It only caps the count of the validation JVMs running at
+	 * once. The threads are created on demand up to the max concurrency and removed when they are
+	 * idle. As many validations as the max concurrency can wait for their turn. The others are
+	 * rejected at once.
+	 */
+	@PostConstruct
+	public void init() {
+		int concurrency = Math.max(1,
+				config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_VALIDATION_MAX_CONCURRENCY));
+		validationExecutor = new ThreadPoolExecutor(concurrency, concurrency, 60, TimeUnit.SECONDS,
+				new LinkedBlockingQueue<Runnable>(concurrency), new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "script-validation-" + count.incrementAndGet());
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		validationExecutor.allowCoreThreadTimeOut(true);
+	}
+
+	/**
+	 * Stop the validation pool.
+	 */
+	@PreDestroy
+	public void destroy() {
+		validationExecutor.shutdownNow();
+	}
+
 	/*
 	 * (non-Javadoc)
 	 * 
@@ -111,21 +165,79 @@ public class ScriptValidationService extends AbstractScriptValidationService {
 				FileUtils.writeStringToFile(scriptFile, scriptEntry.getContent(),
 						StringUtils.defaultIfBlank(scriptEntry.getEncoding(), "UTF-8"));
 			}
-			File doValidate = localScriptTestDriveService.doValidate(scriptDirectory, scriptFile, new Condition(),
-					config.isSecurityEnabled(), hostString, getTimeout());
-			List<String> readLines = FileUtils.readLines(doValidate);
-			StringBuilder output = new StringBuilder();
-			String path = config.getHome().getDirectory().getAbsolutePath();
-			for (String each : readLines) {
+			return runValidation(user, scriptDirectory, scriptFile, hostString);
+		} catch (Exception e) {
+			throw processException(e);
+		}
+	}
+
+	/**
+	 * Run the validation on the validation pool. It fails fast if the pool and its queue are full.
+	 * Each validation still starts its own worker JVM, because the worker classpath, the security
+	 * manager and the host overrides are specific to the user and the script.
+	 *
+	 * @return validation output
+	 */
+	private String runValidation(User user, final File scriptDirectory, final File scriptFile,
+			final String hostString) throws InterruptedException, ExecutionException, IOException {
+		final int timeout = getTimeout();
+		final AtomicBoolean started = new AtomicBoolean();
+		Future<File> future;
+		try {
+			future = validationExecutor.submit(new Callable<File>() {
+				@Override
+				public File call() {
+					if (!started.compareAndSet(false, true)) {
+						return null;
+					}
+					return localScriptTestDriveService.doValidate(scriptDirectory, scriptFile, new Condition(),
+							config.isSecurityEnabled(), hostString, timeout);
+				}
+			});
+		} catch (RejectedExecutionException e) {
+			LOGGER.warn("Validation of {} by {} is rejected because the pool is full", scriptFile.getName(),
+					user.getUserId());
+			return TOO_BUSY_MESSAGE;
+		}
+		try {
+			// The validation itself is stopped after the timeout. Wait as much for the pool.
+			return readOutput(future.get((timeout * 2) + 30, TimeUnit.SECONDS));
+		} catch (TimeoutException e) {
+			if (started.compareAndSet(false, true)) {
+				future.cancel(false);
+				LOGGER.warn("Validation of {} by {} could not start in time", scriptFile.getName(),
+						user.getUserId());
+				return TOO_BUSY_MESSAGE;
+			}
+			// Interrupting the validation destroys its worker process.
+			future.cancel(true);
+			LOGGER.warn("Validation of {} by {} did not finish in time", scriptFile.getName(), user.getUserId());
+			return "Validation did not finish in time. It is stopped by force.";
+		}
+	}
+
+	private String readOutput(File validationLog) throws IOException {
+		int maxOutput = config.getControllerProperties().getPropertyInt(PROP_CONTROLLER_VALIDATION_MAX_OUTPUT);
+		StringBuilder output = new StringBuilder();
+		String path = config.getHome().getDirectory().getAbsolutePath();
+		BufferedReader reader = null;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(validationLog)));
+			String each;
+			while ((each = reader.readLine()) != null) {
 				if (!each.startsWith("*sys-package-mgr")) {
 					each = each.replace(path, "${NGRINDER_HOME}");
+					if (output.length() + each.length() > maxOutput) {
+						output.append("\n... The output is truncated at ").append(maxOutput).append(" characters.\n");
+						break;
+					}
 					output.append(each).append("\n");
 				}
 			}
-			return output.toString();
-		} catch (Exception e) {
-			throw processException(e);
+		} finally {
+			IOUtils.closeQuietly(reader);
 		}
+		return output.toString();
 	}
 
 	protected int getTimeout() {
@@ -113,6 +113,9 @@
 									<a href="${req.getContextPath()}/operation/log"><@spring.message "navigator.dropDown.logMonitoring"/></a>
 								</li>
 							</#if>
+							<li>
+								<a href="${req.getContextPath()}/operation/metrics"><@spring.message "navigator.dropDown.metrics"/></a>
+							</li>
 							<#if enableScriptConsole == true>
 							<li>
 								<a href="${req.getContextPath()}/operation/script_console"><@spring.message "navigator.dropDown.scriptConsole"/></a>
@@ -25,28 +25,33 @@
 <#include "../common/copyright.ftl">
 	<script>
 		// Wrap this function in a closure so we don't pollute the namespace
-		(function pollingLogs() {
-			var ajaxObj = new AjaxObj("/operation/log/last");
-			ajaxObj.success = function(data) {
-				var eachLog = $("tr#" +data.index + " td");
-				if (eachLog.size() != 0) {
-					//noinspection JSUnresolvedVariable
-					if (eachLog.attr("id") != data.modification) {
-						eachLog.html(data.log);
-						//noinspection JSUnresolvedVariable
-						eachLog.attr("id", data.modification);
+		(function () {
+			var offset = 0;
+			var maxRows = 500;
+			var $logContainer = $("#log_container");
+			(function pollingLogs() {
+				var ajaxObj = new AjaxObj("/operation/log/after");
+				ajaxObj.params = {offset: offset, wait: 20000};
+				ajaxObj.success = function (data) {
+					offset = data.offset;
+					if (data.lost > 0) {
+						$logContainer.append($("<tr><td></td></tr>").find("td")
+								.text("... " + data.lost + " lines skipped ...").end());
 					}
-				} else {
-					var $logContainer = $("#log_container");
+					$.each(data.lines, function (index, line) {
+						$logContainer.append($("<tr><td></td></tr>").find("td").text(line).end());
+					});
 					var logEntries = $logContainer.find("tr");
-					if (logEntries.size() > 5) {
-						logEntries.first().remove();
+					if (logEntries.size() > maxRows) {
+						logEntries.slice(0, logEntries.size() - maxRows).remove();
 					}
-					$logContainer.append($("<tr id='" + data.index + "'><td id='" + data.modification + "'>" + data.log + "</td></tr>"));
-				}
-				setTimeout(pollingLogs, 5000);
-			};
-            ajaxObj.call();
+					setTimeout(pollingLogs, 1000);
+				};
+				ajaxObj.error = function () {
+					setTimeout(pollingLogs, 5000);
+				};
+				ajaxObj.call();
+			})();
 		})();
 	</script>
 </body>
@@ -0,0 +1,72 @@
+<!DOCTYPE html>
+<html>
+<head>
+<#include "../common/common.ftl">
+<title><@spring.message "operation.metrics.title"/></title>
+</head>
+
+<body>
+<div id="wrap">
+	<#include "../common/navigator.ftl">
+	<div class="container">
+		<legend class="header">
+			<@spring.message "navigator.dropDown.metrics"/>
+		</legend>
+		<#if enabled == false>
+		<div class="alert alert-info">
+			<@spring.message "operation.metrics.disabled"/>
+		</div>
+		</#if>
+		<table class="table table-striped table-bordered ellipsis" id="timer_table">
+			<thead>
+			<tr>
+				<th>Timer</th>
+				<th>Count</th>
+				<th>Mean(ms)</th>
+				<th>P50(ms)</th>
+				<th>P90(ms)</th>
+				<th>P99(ms)</th>
+				<th>Max(ms)</th>
+			</tr>
+			</thead>
+			<tbody></tbody>
+		</table>
+		<table class="table table-striped table-bordered ellipsis" id="value_table">
+			<thead>
+			<tr>
+				<th>Counter / Gauge</th>
+				<th>Value</th>
+			</tr>
+			</thead>
+			<tbody></tbody>
+		</table>
+	</div>
+</div>
+<#include "../common/copyright.ftl">
+	<script>
+		(function pollingMetrics() {
+			var ajaxObj = new AjaxObj("/operation/metrics/api");
+			ajaxObj.success = function (data) {
+				var $timers = $("#timer_table tbody").empty();
+				$.each(data.timers, function (name, timer) {
+					var $row = $("<tr></tr>");
+					$row.append($("<td></td>").text(name));
+					$.each(["count", "mean", "p50", "p90", "p99", "max"], function (index, key) {
+						$row.append($("<td></td>").text(key == "count" ? timer[key] : timer[key].toFixed(3)));
+					});
+					$timers.append($row);
+				});
+				var $values = $("#value_table tbody").empty();
+				$.each([data.counters, data.gauges], function (index, values) {
+					$.each(values, function (name, value) {
+						$values.append($("<tr></tr>").append($("<td></td>").text(name))
+								.append($("<td></td>").text(value)));
+					});
+				});
+				setTimeout(pollingMetrics, 5000);
+			};
+			ajaxObj.call();
+		})();
+	</script>
+</body>
+</html>
@@ -197,6 +197,16 @@
 						</@control_group>
 					</div>
 				</div>
+				<div class="row">
+					<div class="span6">
+						<@control_group name="stopRules" label_message_key="perfTest.config.stopRules">
+							<@input_popover name="stopRules"
+								value="${(test.stopRules?html)}"
+								message="perfTest.config.stopRules"
+								others='style="width:385px" placeholder="mean_time avg 30s > 800 for 20s clear 600; cpu > 90 for 1m"'/>
+						</@control_group>
+					</div>
+				</div>
 			</div>
 		</div>
 	</div>
@@ -149,6 +149,12 @@
 					<li class="active pointer-cursor perf  nav-header">
 						<a class="pointer-cursor"><@spring.message "perfTest.report.performanceReport"/></a>
 					</li>
+					<li class="request-events pointer-cursor">
+						<a class="pointer-cursor"><@spring.message "perfTest.report.requestEvents"/></a>
+					</li>
+					<li class="profile pointer-cursor">
+						<a class="pointer-cursor"><@spring.message "perfTest.report.profile"/></a>
+					</li>
 					<li class="nav-header"><@spring.message "perfTest.report.targetHost"/></li>
 
 					<@list list_items=test.targetHostIP others="no_message" ; targetIP >
@@ -219,6 +225,8 @@
 		var $perfMenu = $("li.perf");
 		var $monitorMenu = $("li.monitor");
 		var $pluginMenu = $("li.plugin");
+		var $requestEventsMenu = $("li.request-events");
+		var $profileMenu = $("li.profile");
 
 		$perfMenu.click(function () {
 			$("#detail_panel").load("${req.getContextPath()}/perftest/${(test.id)?c}/detail_report/perf");
@@ -235,6 +243,16 @@
 			changActiveLink($(this));
 		});
 
+		$requestEventsMenu.click(function () {
+			$("#detail_panel").load("${req.getContextPath()}/perftest/${(test.id)?c}/detail_report/request_events");
+			changActiveLink($(this));
+		});
+
+		$profileMenu.click(function () {
+			$("#detail_panel").load("${req.getContextPath()}/perftest/${(test.id)?c}/detail_report/profile");
+			changActiveLink($(this));
+		});
+
 		$.ajaxSetup({"cache": false});
 		$perfMenu.click();
 	});
@@ -0,0 +1,64 @@
+<#setting number_format="computer">
+<#import "../../common/spring.ftl" as spring/>
+<div class="page-header">
+	<h4><@spring.message "perfTest.report.profile"/></h4>
+</div>
+<div id="profile_summary" style="margin-bottom:10px"></div>
+<h5>Hot Methods</h5>
+<table class="table table-striped table-bordered ellipsis" id="profile_hot_method_table">
+	<thead>
+	<tr>
+		<th>Method</th>
+		<th style="width:80px">Self (%)</th>
+		<th style="width:80px">Total (%)</th>
+	</tr>
+	</thead>
+	<tbody>
+	</tbody>
+</table>
+<h5>Allocations</h5>
+<table class="table table-striped table-bordered ellipsis" id="profile_allocation_table">
+	<thead>
+	<tr>
+		<th>Method</th>
+		<th style="width:120px">Allocated (MB)</th>
+	</tr>
+	</thead>
+	<tbody>
+	</tbody>
+</table>
+
+<script>
+	//@ sourceURL=/perftest/detail_report/profile
+	function toPercent(ratio) {
+		return (ratio * 100).toFixed(1);
+	}
+	function getProfile(testId) {
+		var ajaxObj = new AjaxObj("/perftest/api/" + testId + "/profile");
+		ajaxObj.success = function (data) {
+			var $summary = $("#profile_summary").empty();
+			var $hotMethods = $("#profile_hot_method_table tbody").empty();
+			var $allocations = $("#profile_allocation_table tbody").empty();
+			if (!data.profiled) {
+				$summary.text("No worker was profiled. Set grinder.profile.duration in grinder.properties to profile the workers.");
+				return;
+			}
+			var gcRatio = data.duration == 0 ? 0 : data.gcTime / data.duration;
+			$summary.text("Workers : " + data.workers + ", Samples : " + data.samples + ", GC : " + data.gcCount
+					+ " times, " + data.gcTime + " ms (" + toPercent(gcRatio) + "% of the profiled time)");
+			$.each(data.hotMethods, function (index, method) {
+				$hotMethods.append($("<tr/>")
+						.append($("<td/>").text(method.name).attr("title", method.name))
+						.append($("<td/>").text(toPercent(method.selfRatio)))
+						.append($("<td/>").text(toPercent(method.totalRatio))));
+			});
+			$.each(data.allocatingMethods, function (index, method) {
+				$allocations.append($("<tr/>")
+						.append($("<td/>").text(method.name).attr("title", method.name))
+						.append($("<td/>").text((method.allocatedBytes / 1024 / 1024).toFixed(1))));
+			});
+		};
+		ajaxObj.call();
+	}
+	getProfile(${id});
+</script>
@@ -0,0 +1,54 @@
+<#setting number_format="computer">
+<#import "../../common/spring.ftl" as spring/>
+<div class="page-header">
+	<h4><@spring.message "perfTest.report.requestEvents"/></h4>
+</div>
+<div class="form-inline" style="margin-bottom:10px">
+	<input type="text" id="request_event_test_number" class="input-small" placeholder="Test No."/>
+	<input type="text" id="request_event_min_duration" class="input-small" placeholder="Min (ms)"/>
+	<label class="checkbox"><input type="checkbox" id="request_event_error_only"/> Errors</label>
+	<button class="btn" id="request_event_search"><@spring.message "common.button.search"/></button>
+</div>
+<table class="table table-striped table-bordered ellipsis" id="request_event_table">
+	<thead>
+	<tr>
+		<th>Start Time</th>
+		<th>Test No.</th>
+		<th>Worker</th>
+		<th>Thread</th>
+		<th>Duration (ms)</th>
+		<th>Error</th>
+	</tr>
+	</thead>
+	<tbody>
+	</tbody>
+</table>
+
+<script>
+	//@ sourceURL=/perftest/detail_report/request_events
+	function getRequestEvents(testId) {
+		var ajaxObj = new AjaxObj("/perftest/api/" + testId + "/request_events");
+		ajaxObj.params = {
+			testNumber: $("#request_event_test_number").val() || 0,
+			minDuration: $("#request_event_min_duration").val() || 0,
+			errorOnly: $("#request_event_error_only").is(":checked")
+		};
+		ajaxObj.success = function (data) {
+			var $body = $("#request_event_table tbody").empty();
+			$.each(data, function (index, event) {
+				$body.append($("<tr/>")
+						.append($("<td/>").text(new Date(event.timestamp).toLocaleString()))
+						.append($("<td/>").text(event.testNumber))
+						.append($("<td/>").text(event.worker))
+						.append($("<td/>").text(event.threadNumber))
+						.append($("<td/>").text(event.duration))
+						.append($("<td/>").text(event.error)));
+			});
+		};
+		ajaxObj.call();
+	}
+	$("#request_event_search").click(function () {
+		getRequestEvents(${id});
+	});
+	getRequestEvents(${id});
+</script>
@@ -26,6 +26,9 @@ import org.ngrinder.infra.config.Config;
 import org.ngrinder.model.AgentInfo;
 import org.ngrinder.model.User;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
 
 import java.io.File;
 import java.io.IOException;
@@ -64,6 +67,9 @@ public class AgentManagerServiceTest extends AbstractNGrinderTransactionalTest {
 	@Autowired
 	private Config config;
 
+	@Autowired
+	private DataSource dataSource;
+
 	@Before
 	public void before() {
 		agentRepository.deleteAll();
@@ -117,6 +123,31 @@ public class AgentManagerServiceTest extends AbstractNGrinderTransactionalTest {
 		assertThat(agentInDB.getState(), is(AgentControllerState.INACTIVE));
 	}
 
+	@Test
+	public void testFlushChangedStates() {
+		AgentInfo agentInfo = new AgentInfo();
+		agentInfo.setName("localhost");
+		agentInfo.setRegion(config.getRegion());
+		agentInfo.setIp("127.127.127.127");
+		agentInfo.setState(AgentControllerState.READY);
+		agentRepository.saveAndFlush(agentInfo);
+		localAgentService.expireCache();
+		localAgentService.getLocalAgents();
+
+		agentInfo.setState(AgentControllerState.BUSY);
+		localAgentService.updateState(agentInfo);
+		localAgentService.flushStates();
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		assertThat(jdbcTemplate.queryForObject("select state from AGENT where id=?", String.class,
+				agentInfo.getId()), is("BUSY"));
+
+		localAgentService.updateSystemStat(agentInfo.getIp(), agentInfo.getName(), "{}");
+		assertThat(localAgentService.getSystemStat(agentInfo.getIp(), agentInfo.getName()), is("{}"));
+		localAgentService.flushSystemStats();
+		assertThat(jdbcTemplate.queryForObject("select system_stat from AGENT where id=?", String.class,
+				agentInfo.getId()), is("{}"));
+	}
+
 	@Test
 	public void testCompressAgentFolder() throws IOException, URISyntaxException {
 		URLClassLoader loader = (URLClassLoader) this.getClass().getClassLoader();
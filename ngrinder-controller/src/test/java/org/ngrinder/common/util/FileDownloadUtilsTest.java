@@ -13,16 +13,20 @@
  */
 package org.ngrinder.common.util;
 
-import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.*;
 import static org.junit.Assert.assertThat;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.IOException;
+import java.util.zip.GZIPInputStream;
 
 import javax.servlet.http.HttpServletResponse;
 
+import org.apache.commons.io.IOUtils;
 import org.junit.Test;
 import org.springframework.core.io.ClassPathResource;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 
 /**
@@ -56,4 +60,55 @@ public class FileDownloadUtilsTest {
 		assertThat(result, is(false));
 	}
 
+	@Test
+	public void testDownloadRange() {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/output.csv");
+		req.addHeader("Range", "bytes=2-5");
+		MockHttpServletResponse resp = new MockHttpServletResponse();
+		FileDownloadUtils.downloadFile(req, resp, "output.csv", 10, 1000L, new ByteArrayInputStream("0123456789".getBytes()));
+
+		assertThat(resp.getStatus(), is(HttpServletResponse.SC_PARTIAL_CONTENT));
+		assertThat(resp.getHeader("Content-Range"), is("bytes 2-5/10"));
+		assertThat(resp.getContentAsByteArray(), is("2345".getBytes()));
+
+		req = new MockHttpServletRequest("GET", "/output.csv");
+		req.addHeader("Range", "bytes=10-");
+		resp = new MockHttpServletResponse();
+		FileDownloadUtils.downloadFile(req, resp, "output.csv", 10, 1000L, new ByteArrayInputStream("0123456789".getBytes()));
+		assertThat(resp.getStatus(), is(HttpServletResponse.SC_REQUESTED_RANGE_NOT_SATISFIABLE));
+	}
+
+	@Test
+	public void testParseRange() {
+		assertThat(FileDownloadUtils.parseRange("bytes=-3", 10), is(new long[]{7, 9}));
+		assertThat(FileDownloadUtils.parseRange("bytes=5-", 10), is(new long[]{5, 9}));
+		assertThat(FileDownloadUtils.parseRange("bytes=5-100", 10), is(new long[]{5, 9}));
+		assertThat(FileDownloadUtils.parseRange("bytes=5-3", 10), nullValue());
+		assertThat(FileDownloadUtils.parseRange("bytes=0-1,4-5", 10), nullValue());
+		assertThat(FileDownloadUtils.parseRange("bytes=20-", 10).length, is(0));
+	}
+
+	@Test
+	public void testDownloadNotModified() {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/output.csv");
+		req.addHeader("If-None-Match", FileDownloadUtils.createETag(10, 1000L, false));
+		MockHttpServletResponse resp = new MockHttpServletResponse();
+		FileDownloadUtils.downloadFile(req, resp, "output.csv", 10, 1000L, new ByteArrayInputStream("0123456789".getBytes()));
+
+		assertThat(resp.getStatus(), is(HttpServletResponse.SC_NOT_MODIFIED));
+		assertThat(resp.getContentAsByteArray().length, is(0));
+	}
+
+	@Test
+	public void testDownloadGzip() throws IOException {
+		MockHttpServletRequest req = new MockHttpServletRequest("GET", "/output.csv");
+		req.addHeader("Accept-Encoding", "gzip, deflate");
+		MockHttpServletResponse resp = new MockHttpServletResponse();
+		FileDownloadUtils.downloadFile(req, resp, "output.csv", 10, 1000L, new ByteArrayInputStream("0123456789".getBytes()));
+
+		assertThat(resp.getHeader("Content-Encoding"), is("gzip"));
+		assertThat(resp.getHeader("ETag"), is(FileDownloadUtils.createETag(10, 1000L, true)));
+		byte[] content = IOUtils.toByteArray(new GZIPInputStream(new ByteArrayInputStream(resp.getContentAsByteArray())));
+		assertThat(content, is("0123456789".getBytes()));
+	}
 }
@@ -0,0 +1,56 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.cluster;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class ClusterEventBusTest {
+
+	@Test
+	public void testPublishToSubscribedTopic() {
+		ClusterEventBus eventBus = new ClusterEventBus();
+		final List<Object> received = new ArrayList<Object>();
+		eventBus.subscribe("region1", new ClusterEventListener() {
+			@Override
+			public void onEvent(ClusterEvent event) {
+				received.add(event.getPayload());
+			}
+		});
+		eventBus.publish(new ClusterEvent("region1", "region2", "hello"));
+		eventBus.publish(new ClusterEvent("region2", "region1", "world"));
+		assertThat(received.size(), is(1));
+		assertThat((String) received.get(0), is("hello"));
+	}
+
+	@Test
+	public void testRequestIsAcknowledgedBySubscriber() {
+		ClusterEventBus eventBus = new ClusterEventBus();
+		assertThat(eventBus.request(new ClusterEvent("region1", "region2", "stop"), 10), is(false));
+		ClusterEventListener listener = new ClusterEventListener() {
+			@Override
+			public void onEvent(ClusterEvent event) {
+			}
+		};
+		eventBus.subscribe("region1", listener);
+		assertThat(eventBus.request(new ClusterEvent("region1", "region2", "stop"), 10), is(true));
+		eventBus.unsubscribe("region1", listener);
+		assertThat(eventBus.request(new ClusterEvent("region1", "region2", "stop"), 10), is(false));
+	}
+}
@@ -0,0 +1,70 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.infra.logger;
+
+import org.junit.Test;
+import org.ngrinder.infra.logger.LogRingBuffer.LogLines;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class LogRingBufferTest {
+
+	@Test
+	public void testGetAfterReturnsOnlyNewLines() throws InterruptedException {
+		LogRingBuffer buffer = new LogRingBuffer(10, 100);
+		buffer.append("hello");
+		buffer.append("world");
+		LogLines lines = buffer.getAfter(0, 100, 0);
+		assertThat(lines.getLines(), contains("hello", "world"));
+		assertThat(lines.getOffset(), is(2L));
+
+		buffer.append("again");
+		lines = buffer.getAfter(lines.getOffset(), 100, 0);
+		assertThat(lines.getLines(), contains("again"));
+		assertThat(lines.getOffset(), is(3L));
+		assertThat(buffer.getAfter(3, 100, 0).getLines().size(), is(0));
+	}
+
+	@Test
+	public void testOverwrittenLinesAreCountedAsLost() throws InterruptedException {
+		LogRingBuffer buffer = new LogRingBuffer(3, 100);
+		for (int i = 0; i < 5; i++) {
+			buffer.append("line" + i);
+		}
+		LogLines lines = buffer.getAfter(0, 100, 0);
+		assertThat(lines.getLost(), is(2L));
+		assertThat(lines.getLines(), contains("line2", "line3", "line4"));
+		assertThat(buffer.getLast(2).getLines(), contains("line3", "line4"));
+	}
+
+	@Test
+	public void testGetAfterWaitsForNewLine() throws InterruptedException {
+		final LogRingBuffer buffer = new LogRingBuffer(3, 5);
+		new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(100);
+				} catch (InterruptedException e) {
+					return;
+				}
+				buffer.append("long line");
+			}
+		}).start();
+		LogLines lines = buffer.getAfter(0, 100, 5000);
+		assertThat(lines.getLines(), contains("long ..."));
+	}
+}
@@ -34,8 +34,11 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.http.HttpEntity;
+import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.ui.ModelMap;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.context.request.WebRequest;
 
 import javax.servlet.http.HttpServletResponse;
 import java.io.File;
@@ -295,7 +298,7 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest im
 		controller.getReport(model, test.getId());
 
 		model.clear();
-		controller.getPerfGraph(test.getId(), "TPS,mean_time(ms)", true, 0);
+		controller.getPerfGraph(test.getId(), "TPS,mean_time(ms)", true, 0, newWebRequest());
 
 		model.clear();
 		controller.getReportSection(getTestUser(), model, test.getId(), 700);
@@ -305,10 +308,30 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest im
 	public void testGetMonitorData() {
 		String testName = "test1";
 		PerfTest test = createPerfTest(testName, Status.FINISHED, new Date());
-		controller.getMonitorGraph(test.getId(), "127.0.0.1", 0);
+		controller.getMonitorGraph(test.getId(), "127.0.0.1", 0, newWebRequest());
 
 		long testId = 123456L;
-		controller.getMonitorGraph(testId, "127.0.0.1", 700);
+		controller.getMonitorGraph(testId, "127.0.0.1", 700, newWebRequest());
+	}
+
+	@Test
+	public void testGetReportDataNotModified() {
+		PerfTest test = createPerfTest("test1", Status.FINISHED, new Date());
+		test.setFinishTime(new Date());
+		perfTestService.save(getTestUser(), test);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		HttpEntity<String> graph = controller.getPerfGraph(test.getId(), "TPS", true, 700,
+				new ServletWebRequest(new MockHttpServletRequest("GET", ""), response));
+		assertThat(graph, notNullValue());
+		String etag = response.getHeader("ETag");
+		assertThat(etag, notNullValue());
+
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "");
+		request.addHeader("If-None-Match", etag);
+		response = new MockHttpServletResponse();
+		graph = controller.getPerfGraph(test.getId(), "TPS", true, 700, new ServletWebRequest(request, response));
+		assertThat(graph, nullValue());
+		assertThat(response.getStatus(), is(HttpServletResponse.SC_NOT_MODIFIED));
 	}
 
 	@Test
@@ -317,13 +340,13 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest im
 		PerfTest test = createPerfTest(testName, Status.FINISHED, new Date());
 		HttpServletResponse resp = new MockHttpServletResponse();
 		try {
-			controller.downloadCSV(getTestUser(), test.getId(), resp);
+			controller.downloadCSV(getTestUser(), test.getId(), new MockHttpServletRequest(), resp);
 		} catch (IllegalStateException e) {
 			// the report file doesn't exist
 			assertTrue(true);
 		}
 		resp.reset();
-		controller.downloadLog(getTestUser(), test.getId(), "log", resp);
+		controller.downloadLog(getTestUser(), test.getId(), "log", new MockHttpServletRequest(), resp);
 	}
 
 	@Test
@@ -333,7 +356,7 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest im
 		PerfTest test = createPerfTest(testName, Status.TESTING, new Date());
 		test.setPort(11011);
 		try {
-			controller.refreshTestRunning(getTestUser(), test.getId());
+			controller.refreshTestRunning(getTestUser(), test.getId(), newWebRequest());
 		} catch (NullPointerException e) {
 			assertTrue(true);
 		}
@@ -359,4 +382,7 @@ public class PerfTestControllerTest extends AbstractPerfTestTransactionalTest im
 		assertThat(rtn.getBody(), notNullValue());
 	}
 
+	private WebRequest newWebRequest() {
+		return new ServletWebRequest(new MockHttpServletRequest(), new MockHttpServletResponse());
+	}
 }
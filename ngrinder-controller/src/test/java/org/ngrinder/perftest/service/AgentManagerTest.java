@@ -19,6 +19,9 @@ import org.junit.Test;
 import org.ngrinder.AbstractNGrinderTransactionalTest;
 import org.springframework.beans.factory.annotation.Autowired;
 
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
 /**
  * Class description.
  *
@@ -55,4 +58,13 @@ public class AgentManagerTest extends AbstractNGrinderTransactionalTest {
 		agentManager.filterSharedAgents(agentManager.getAllAttachedAgents());
 	}
 
+	@Test
+	public void testGetAssignedAgentCount() {
+		// 7 agents on a console and 2 shards take the agent numbers 0-2, 3-4 and 5-6.
+		assertThat(AgentManager.getAssignedAgentCount(7, 3, 0), is(3));
+		assertThat(AgentManager.getAssignedAgentCount(7, 3, 1), is(2));
+		assertThat(AgentManager.getAssignedAgentCount(7, 3, 2), is(2));
+		assertThat(AgentManager.getAssignedAgentCount(2, 3, 2), is(0));
+	}
+
 }
@@ -97,6 +97,15 @@ public class ConsoleManagerTest extends AbstractAgentReadyTest {
 		assertThat(manager.getConsoleInUse().size(), is(initialSize - 1));
 	}
 
+	@Test
+	public void testShardConsoleWhenShardingDisabled() {
+		int initialSize = manager.getAvailableConsoleSize();
+		// No shard console is pooled by default, so the caller should run the test on a single console.
+		assertThat(manager.getAvailableShardConsole(ConsolePropertiesFactory.createEmptyConsoleProperties()),
+				nullValue());
+		assertThat(manager.getAvailableConsoleSize(), is(initialSize));
+	}
+
 	@Test
 	public void testAvailableSocket() throws IOException {
 		ServerSocket serverSocket = null;
@@ -0,0 +1,168 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.ngrinder.common.model.Home;
+import org.ngrinder.infra.config.Config;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.model.RampUp;
+import org.ngrinder.perftest.model.PerfTestComparison;
+import org.ngrinder.perftest.model.PerfTestComparison.Delta;
+import org.ngrinder.perftest.model.PerfTestComparison.Metric;
+import org.ngrinder.perftest.model.PerfTestSummary;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Random;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PerfTestComparisonServiceTest {
+	private File homeDirectory;
+	private Home home;
+	private PerfTestComparisonService comparisonService;
+
+	@Before
+	public void before() {
+		homeDirectory = new File(System.getProperty("java.io.tmpdir"), "comparison-home");
+		FileUtils.deleteQuietly(homeDirectory);
+		home = new Home(homeDirectory);
+		Config config = mock(Config.class);
+		when(config.getHome()).thenReturn(home);
+		comparisonService = new PerfTestComparisonService();
+		ReflectionTestUtils.setField(comparisonService, "config", config);
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(homeDirectory);
+	}
+
+	@Test
+	public void testGetSteadyStateWindow() {
+		PerfTest perfTest = new PerfTest();
+		int[] window = comparisonService.getSteadyStateWindow(perfTest, Arrays.asList(1D, 2D, 3D, 3D, 2D, 3D, 1D), 7);
+		assertThat(window[0], is(2));
+		assertThat(window[1], is(6));
+
+		perfTest.setUseRampUp(true);
+		perfTest.setRampUpType(RampUp.THREAD);
+		perfTest.setThreads(10);
+		perfTest.setRampUpInitCount(0);
+		perfTest.setRampUpStep(5);
+		perfTest.setRampUpInitSleepTime(0);
+		perfTest.setRampUpIncrementInterval(2000);
+		perfTest.setSamplingInterval(1);
+		window = comparisonService.getSteadyStateWindow(perfTest, Collections.<Double>emptyList(), 7);
+		assertThat(window[0], is(4));
+		assertThat(window[1], is(7));
+	}
+
+	@Test
+	public void testCompare() throws IOException {
+		PerfTest baseline = createPerfTest(1L, 100, 10, 0);
+		PerfTest same = createPerfTest(2L, 100, 10, 0);
+		PerfTest slower = createPerfTest(3L, 80, 13, 5);
+
+		PerfTestComparison comparison = comparisonService.compare(baseline, same, 5, 1, 0.05);
+		assertThat(comparison.getVerdict(), is(PerfTestComparison.Verdict.PASS));
+
+		comparison = comparisonService.compare(baseline, slower, 5, 1, 0.05);
+		assertThat(comparison.getVerdict(), is(PerfTestComparison.Verdict.FAIL));
+		for (Delta each : comparison.getDeltas()) {
+			assertThat(each.isRegression(), is(true));
+			assertThat(each.getPValue(), lessThan(0.05));
+			if (each.getMetric() == Metric.TPS) {
+				assertThat(each.getChange(), closeTo(-20, 2));
+			}
+		}
+		assertThat(comparison.getDeltas(), hasSize(6));
+	}
+
+	@Test
+	public void testGetSummary() throws IOException {
+		PerfTest perfTest = createPerfTest(1L, 100, 10, 0);
+
+		PerfTestSummary summary = comparisonService.getSummary(perfTest);
+		assertThat(summary.getSteadyStateStart(), is(5));
+		assertThat(summary.getSteadyStateEnd(), is(55));
+		assertThat(summary.getTotal().getTps().getMean(), closeTo(100, 1));
+		assertThat(summary.getTotal().getErrorRatio(), is(0D));
+		assertThat(summary.getTests().keySet(), contains("1_Test1"));
+		assertThat(new File(home.getPerfTestReportDirectory(perfTest), Home.REPORT_SUMMARY).exists(), is(true));
+
+		ReportArchive.of(home, 1L).compact(Home.PATH_REPORT);
+		PerfTestSummary archived = comparisonService.getSummary(perfTest);
+		assertThat(archived.getTotal().getTps().getMean(), is(summary.getTotal().getTps().getMean()));
+		assertThat(archived.getTests().get("1_Test1").getTests(), is(summary.getTests().get("1_Test1").getTests()));
+	}
+
+	@Test
+	public void testSignificanceTests() {
+		// t = 2.0 with 10 degrees of freedom
+		assertThat(SignificanceTests.regularizedIncompleteBeta(10 / 14D, 5, 0.5), closeTo(0.0734, 0.0001));
+		assertThat(SignificanceTests.complementaryErrorFunction(1.959964 / Math.sqrt(2)), closeTo(0.05, 0.0001));
+		assertThat(SignificanceTests.proportionTest(10, 1000, 10, 1000), is(1D));
+	}
+
+	/*
+	 * Write the report of 60 samples. The vusers ramp up during the first 5 samples and
+	 * wind down during the last 5 samples.
+	 */
+	private PerfTest createPerfTest(long id, double tps, double meanTestTime, double errorPercent)
+			throws IOException {
+		PerfTest perfTest = new PerfTest();
+		perfTest.setId(id);
+		perfTest.setSamplingInterval(1);
+		Random random = new Random(id);
+		StringBuilder tpsData = new StringBuilder();
+		StringBuilder meanTestTimeData = new StringBuilder();
+		StringBuilder testsData = new StringBuilder();
+		StringBuilder errorsData = new StringBuilder();
+		StringBuilder vuserData = new StringBuilder();
+		for (int i = 0; i < 60; i++) {
+			boolean steady = i >= 5 && i < 55;
+			double eachTps = steady ? tps + random.nextGaussian() * 2 : tps / 2;
+			double errors = eachTps * errorPercent / 100;
+			tpsData.append(eachTps).append("\n");
+			meanTestTimeData.append(steady ? meanTestTime + random.nextGaussian() * 0.5 : 1).append("\n");
+			testsData.append(eachTps - errors).append("\n");
+			errorsData.append(errors).append("\n");
+			vuserData.append(steady ? 10 : 5).append("\n");
+		}
+		File reportDirectory = home.getPerfTestReportDirectory(perfTest);
+		for (String each : new String[]{"TPS", "TPS-1_Test1"}) {
+			FileUtils.writeStringToFile(new File(reportDirectory, each + ".data"), tpsData.toString());
+		}
+		for (String each : new String[]{"Mean_Test_Time_(ms)", "Mean_Test_Time_(ms)-1_Test1"}) {
+			FileUtils.writeStringToFile(new File(reportDirectory, each + ".data"), meanTestTimeData.toString());
+		}
+		for (String each : new String[]{"Errors", "Errors-1_Test1"}) {
+			FileUtils.writeStringToFile(new File(reportDirectory, each + ".data"), errorsData.toString());
+		}
+		FileUtils.writeStringToFile(new File(reportDirectory, "Tests.data"), testsData.toString());
+		FileUtils.writeStringToFile(new File(reportDirectory, "Vuser.data"), vuserData.toString());
+		return perfTest;
+	}
+}
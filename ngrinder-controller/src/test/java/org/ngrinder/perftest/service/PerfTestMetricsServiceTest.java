@@ -0,0 +1,118 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import net.grinder.SingleConsole;
+import net.grinder.console.communication.AgentProcessControlImplementation.AgentStatus;
+import org.junit.Before;
+import org.junit.Test;
+import org.ngrinder.model.PerfTest;
+import org.ngrinder.model.Role;
+import org.ngrinder.model.User;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.*;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class PerfTestMetricsServiceTest {
+	private PerfTestMetricsService perfTestMetricsService;
+	private SingleConsole singleConsole;
+	private List<SingleConsole> consoleInUse;
+
+	@Before
+	public void before() {
+		perfTestMetricsService = new PerfTestMetricsService();
+		ConsoleManager consoleManager = mock(ConsoleManager.class);
+		AgentManager agentManager = mock(AgentManager.class);
+		singleConsole = mock(SingleConsole.class);
+		consoleInUse = new ArrayList<SingleConsole>();
+		consoleInUse.add(singleConsole);
+		when(consoleManager.getConsoleInUse()).thenReturn(consoleInUse);
+		when(agentManager.getAgentStatusSetConnectingToConsole(singleConsole)).thenReturn(new HashSet<AgentStatus>());
+		ReflectionTestUtils.setField(perfTestMetricsService, "consoleManager", consoleManager);
+		ReflectionTestUtils.setField(perfTestMetricsService, "agentManager", agentManager);
+
+		Map<String, Object> total = new HashMap<String, Object>();
+		total.put("Tests", 100D);
+		total.put("Errors", 2D);
+		total.put("Mean_Test_Time_(ms)", 25D);
+		Map<String, Object> record = new HashMap<String, Object>();
+		record.put("testNumber", 1);
+		record.put("testDescription", "login \"page\"");
+		record.put("TPS", 10D);
+		Map<String, Object> statistics = new HashMap<String, Object>();
+		statistics.put("totalStatistics", total);
+		statistics.put("lastSampleStatistics", Arrays.asList(record));
+		when(singleConsole.getConsolePort()).thenReturn(12000);
+		when(singleConsole.getStatisticsData()).thenReturn(statistics);
+		when(singleConsole.getTpsValues()).thenReturn(10.5D);
+		when(singleConsole.getRunningThread()).thenReturn(20);
+
+		PerfTest perfTest = new PerfTest();
+		perfTest.setId(3L);
+		perfTest.setTestName("my test");
+		perfTest.setCreatedUser(createUser("owner", Role.USER));
+		perfTestMetricsService.register(perfTest, singleConsole);
+	}
+
+	private User createUser(String userId, Role role) {
+		User user = new User();
+		user.setUserId(userId);
+		user.setRole(role);
+		return user;
+	}
+
+	@Test
+	public void testWriteRunningTest() throws IOException {
+		StringWriter writer = new StringWriter();
+		perfTestMetricsService.write(createUser("owner", Role.USER), writer);
+		String metrics = writer.toString();
+		String labels = "test_id=\"3\",test_name=\"my test\",region=\"\"";
+		assertThat(metrics, containsString("# TYPE ngrinder_test_tps gauge\n"));
+		assertThat(metrics, containsString("ngrinder_test_tps{" + labels + "} 10.5\n"));
+		assertThat(metrics, containsString("ngrinder_test_transactions_total{" + labels + "} 100\n"));
+		assertThat(metrics, containsString("ngrinder_test_errors_total{" + labels + "} 2\n"));
+		assertThat(metrics, containsString("ngrinder_test_mean_test_time_seconds{" + labels + "} 0.025\n"));
+		assertThat(metrics, containsString("ngrinder_test_vusers{" + labels + "} 20\n"));
+		assertThat(metrics, containsString("ngrinder_record_tps{" + labels
+				+ ",record=\"1\",description=\"login \\\"page\\\"\"} 10\n"));
+		assertThat(metrics, endsWith("# EOF\n"));
+	}
+
+	@Test
+	public void testOtherUsersTestIsHidden() throws IOException {
+		StringWriter writer = new StringWriter();
+		perfTestMetricsService.write(createUser("other", Role.USER), writer);
+		assertThat(writer.toString(), not(containsString("test_id=\"3\"")));
+
+		writer = new StringWriter();
+		perfTestMetricsService.write(createUser("admin", Role.ADMIN), writer);
+		assertThat(writer.toString(), containsString("test_id=\"3\""));
+	}
+
+	@Test
+	public void testReturnedConsoleIsDropped() throws IOException {
+		consoleInUse.clear();
+		StringWriter writer = new StringWriter();
+		perfTestMetricsService.write(createUser("admin", Role.ADMIN), writer);
+		assertThat(writer.toString(), not(containsString("test_id=\"3\"")));
+	}
+}
@@ -13,11 +13,13 @@
  */
 package org.ngrinder.perftest.service;
 
+import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
 import org.junit.Test;
 import org.ngrinder.AbstractNGrinderTransactionalTest;
+import org.ngrinder.infra.config.Config;
 import org.ngrinder.perftest.model.ProcessAndThread;
 import org.springframework.beans.factory.annotation.Autowired;
 
@@ -32,6 +34,9 @@ public class PerfTestProcessAndThreadPolicyServiceTest extends AbstractNGrinderT
 	@Autowired
 	private PerfTestService perfTestService;
 
+	@Autowired
+	private Config config;
+
 	@Test
 	public void testVUser() {
 		assertThat(perfTestService.getProcessAndThreadPolicyScript(), notNullValue());
@@ -40,4 +45,17 @@ public class PerfTestProcessAndThreadPolicyServiceTest extends AbstractNGrinderT
 		System.out.println(calcProcessAndThread);
 
 	}
+
+	@Test
+	public void testDefaultPolicyIsSameAsScript() throws Exception {
+		ProcessAndThreadPolicy scriptPolicy = new ProcessAndThreadPolicyService.ScriptProcessAndThreadPolicy(
+				config.getProcessAndThreadPolicyScript());
+		ProcessAndThreadPolicy defaultPolicy = new DefaultProcessAndThreadPolicy();
+		for (int vuser = 0; vuser < 1000; vuser++) {
+			ProcessAndThread expected = scriptPolicy.calcProcessAndThread(vuser);
+			ProcessAndThread actual = defaultPolicy.calcProcessAndThread(vuser);
+			assertThat(actual.getProcessCount(), is(expected.getProcessCount()));
+			assertThat(actual.getThreadCount(), is(expected.getThreadCount()));
+		}
+	}
 }
@@ -16,6 +16,7 @@ package org.ngrinder.perftest.service;
 import net.grinder.StopReason;
 import net.grinder.common.GrinderProperties;
 import net.grinder.console.model.ConsoleProperties;
+import org.apache.commons.io.FileUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.ngrinder.common.model.Home;
@@ -32,6 +33,9 @@ import org.springframework.core.io.ClassPathResource;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
 
 import java.io.File;
 import java.io.IOException;
@@ -57,12 +61,49 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 	@Autowired
 	PerfTestRepository perfTestRepository;
 
+	@Autowired
+	private DataSource dataSource;
+
 	@Before
 	public void clearPerfTest() {
 		clearAllPerfTest();
 	}
 
 
+	@Test
+	public void testFlushProgress() {
+		PerfTest test = createPerfTest("new Test1", Status.DISTRIBUTE_FILES, new Date());
+		testService.markProgress(test, " - hello.py");
+		testService.markProgress(test, " - world.py");
+		JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+		String sql = "select last_progress_message from PERF_TEST where id=?";
+		assertThat(testService.getLatestProgress(test)[1], is(" - world.py"));
+		assertThat(jdbcTemplate.queryForObject(sql, String.class, test.getId()), not(" - world.py"));
+
+		testService.flushProgress();
+		assertThat(jdbcTemplate.queryForObject(sql, String.class, test.getId()), is(" - world.py"));
+		assertThat(testService.getLatestProgress(test)[0], containsString(" - hello.py"));
+
+		testService.markStatusAndProgress(test, Status.DISTRIBUTE_FILES_FINISHED, "distributed");
+		testService.flushProgress();
+		assertThat(perfTestRepository.findOne(test.getId()).getLastProgressMessage(), is("distributed"));
+	}
+
+	@Test
+	public void testGetAllBefore() {
+		PerfTest first = createPerfTest("new Test1", Status.FINISHED, new Date());
+		PerfTest second = createPerfTest("new Test2", Status.FINISHED, new Date());
+		PerfTest third = createPerfTest("new Test3", Status.FINISHED, new Date());
+
+		List<PerfTest> page = testService.getAllBefore(getTestUser(), null, null, null, null, 2);
+		assertThat(page.size(), is(2));
+		assertThat(page.get(0).getId(), is(third.getId()));
+		assertThat(page.get(1).getId(), is(second.getId()));
+		page = testService.getAllBefore(getTestUser(), null, null, null, page.get(1).getId(), 2);
+		assertThat(page.size(), is(1));
+		assertThat(page.get(0).getId(), is(first.getId()));
+	}
+
 	@Test
 	public void testGetTestListAll() {
 		createPerfTest("new Test1", Status.TESTING, new Date());
@@ -83,6 +124,11 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		testList = testService.getPagedAll(getTestUser(), null, null, "F", null);
 		assertThat(testList.getContent().size(), is(1));
 
+		Page<PerfTest> summaries = testService.getPagedSummaries(getTestUser(), null, null, "F", pageable);
+		assertThat(summaries.getTotalElements(), is(1L));
+		assertThat(summaries.getContent().get(0).getTestName(), is("new Test2"));
+		assertThat(summaries.getContent().get(0).getCreatedUser().getUserId(), is(getTestUser().getUserId()));
+
 		List<PerfTest> list = testService.getAllTesting();
 		assertThat(list.size(), is(1));
 
@@ -144,9 +190,6 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		List<String> fileList = testService.getLogFiles(testScript.getId());
 		assertThat(fileList, not(nullValue()));
 
-		File scriptFile = testService.getLogFile(testScript.getId(), testScript.getScriptName());
-		assertThat(scriptFile, not(nullValue()));
-
 		ConsoleProperties consoleProperties = testService.createConsoleProperties(testScript);
 		assertThat(consoleProperties, not(nullValue()));
 
@@ -198,6 +241,36 @@ public class PerfTestServiceTest extends AbstractPerfTestTransactionalTest {
 		assertThat(reportDataMap.get("sent").length(), greaterThanOrEqualTo(300));
 	}
 
+	@Test
+	public void testGetReportDataFromArchive() throws IOException {
+		// Given
+		long testId = 123456L; // there is sample monitor data in test resources.
+		File testHomeDir = new ClassPathResource("world.py").getFile().getParentFile();
+		File archiveHomeDir = new File(System.getProperty("java.io.tmpdir"), "archive-home");
+		FileUtils.deleteQuietly(archiveHomeDir);
+		String perfTestPath = "perftest/123000_123999/123456";
+		FileUtils.copyDirectory(new File(testHomeDir, perfTestPath), new File(archiveHomeDir, perfTestPath));
+		Home mockHome = new Home(archiveHomeDir);
+		ReportArchive.of(mockHome, testId).compact("report", "logs");
+		Config mockConfig = spy(config);
+		when(mockConfig.getHome()).thenReturn(mockHome);
+		PerfTestService mockService = spy(testService);
+		mockService.setConfig(mockConfig);
+
+		// When
+		int interval = mockService.getReportDataInterval(testId, "TPS", 700);
+		int monitorInterval = mockService.getMonitorGraphInterval(testId, "127.0.0.1", 700);
+
+		// Then
+		assertThat(interval, greaterThan(0));
+		assertThat(mockService.getSingleReportDataAsJson(testId, "TPS", interval).length(), greaterThan(100));
+		assertThat(mockService.getReportData(testId, "TPS", false, interval).getFirst(), hasItem("Total"));
+		assertThat(mockService.getMonitorGraph(testId, "127.0.0.1", monitorInterval).get("cpu").length(),
+				greaterThanOrEqualTo(300));
+		assertThat(new File(archiveHomeDir, perfTestPath + "/report").exists(), is(false));
+		FileUtils.deleteQuietly(archiveHomeDir);
+	}
+
 	@Test
 	public void testGetProperSizedStatusString() {
 		File tempRepo = new File(System.getProperty("java.io.tmpdir"), "test-repo");
@@ -0,0 +1,136 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class ReportArchiveTest {
+	private File directory;
+	private ReportArchive reportArchive;
+
+	@Before
+	public void before() throws IOException {
+		directory = new File(System.getProperty("java.io.tmpdir"), "report-archive-test");
+		FileUtils.deleteQuietly(directory);
+		FileUtils.writeStringToFile(new File(directory, "report/TPS.data"), "1\n2\n3\n");
+		FileUtils.writeStringToFile(new File(directory, "report/jvm/heap.data"), "heap\n10\n");
+		FileUtils.writeStringToFile(new File(directory, "logs/agent.log"), "log");
+		reportArchive = new ReportArchive(directory);
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(directory);
+	}
+
+	@Test
+	public void testCompact() throws IOException {
+		reportArchive.compact("report", "logs");
+
+		assertThat(reportArchive.getArchiveFile().exists(), is(true));
+		assertThat(new File(directory, "report").exists(), is(false));
+		assertThat(reportArchive.list("report"), contains("TPS.data", "jvm/heap.data"));
+		assertThat(reportArchive.list("logs"), contains("agent.log"));
+		assertThat(read("report", "jvm/heap.data"), is("heap\n10\n"));
+		assertThat(reportArchive.open("report", "Errors.data"), nullValue());
+	}
+
+	@Test
+	public void testCompactKeepsArchivedMembers() throws IOException {
+		reportArchive.compact("report");
+		FileUtils.writeStringToFile(new File(directory, "report/TPS.data"), "4\n");
+		reportArchive.compact("report", "logs");
+
+		assertThat(reportArchive.list("report"), contains("TPS.data", "jvm/heap.data"));
+		assertThat(read("report", "TPS.data"), is("4\n"));
+	}
+
+	@Test
+	public void testRemove() throws IOException {
+		reportArchive.compact("report", "logs");
+		reportArchive.remove("logs");
+
+		assertThat(reportArchive.hasMembers("logs"), is(false));
+		assertThat(reportArchive.hasMembers("report"), is(true));
+
+		reportArchive.remove("report");
+		assertThat(reportArchive.getArchiveFile().exists(), is(false));
+	}
+
+	@Test
+	public void testPutIntoArchive() throws IOException {
+		assertThat(reportArchive.put("report", "summary.json", "{}".getBytes()), is(true));
+		assertThat(new File(directory, "report/summary.json").isFile(), is(true));
+
+		reportArchive.compact("report", "logs");
+		assertThat(reportArchive.put("report", "summary.json", "{\"a\":1}".getBytes()), is(true));
+		assertThat(new File(directory, "report").exists(), is(false));
+		assertThat(reportArchive.list("report"), contains("TPS.data", "jvm/heap.data", "summary.json"));
+		assertThat(read("report", "summary.json"), is("{\"a\":1}"));
+
+		reportArchive.remove("report");
+		assertThat(reportArchive.put("report", "summary.json", "{}".getBytes()), is(false));
+		assertThat(new File(directory, "report").exists(), is(false));
+	}
+
+	@Test
+	public void testConcurrentPut() throws Exception {
+		reportArchive.compact("report", "logs");
+		List<Thread> threads = new ArrayList<Thread>();
+		for (int i = 0; i < 10; i++) {
+			final String name = "file" + i;
+			threads.add(new Thread() {
+				@Override
+				public void run() {
+					try {
+						new ReportArchive(directory).put("report", name, name.getBytes());
+					} catch (IOException e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+		}
+		for (Thread each : threads) {
+			each.start();
+		}
+		for (Thread each : threads) {
+			each.join();
+		}
+		assertThat(reportArchive.list("report").size(), is(12));
+		assertThat(read("report", "file7"), is("file7"));
+	}
+
+	private String read(String subPath, String path) throws IOException {
+		ReportArchive.Entry entry = reportArchive.open(subPath, path);
+		try {
+			String content = IOUtils.toString(entry.getInputStream());
+			assertThat(entry.getLength(), is((long) content.length()));
+			return content;
+		} finally {
+			entry.close();
+		}
+	}
+}
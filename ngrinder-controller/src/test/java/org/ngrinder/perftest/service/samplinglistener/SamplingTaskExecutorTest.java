@@ -0,0 +1,132 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.perftest.service.samplinglistener;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class SamplingTaskExecutorTest {
+
+	@Test
+	public void testSkipIfBusy() throws InterruptedException {
+		SamplingTaskExecutor executor = new SamplingTaskExecutor("test", 2, 2, 10000);
+		final CountDownLatch latch = new CountDownLatch(1);
+		Runnable slowTask = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		assertThat(executor.run("slow", slowTask), is(true));
+		assertThat(executor.run("slow", slowTask), is(false));
+		assertThat(executor.run("fast", new Runnable() {
+			@Override
+			public void run() {
+			}
+		}), is(true));
+		latch.countDown();
+		executor.shutdown();
+		assertThat(executor.getStatistics().get("slow").getCount(), is(1));
+		assertThat(executor.getStatistics().get("slow").getSkipped(), is(1));
+		assertThat(executor.getStatistics().get("fast").getCount(), is(1));
+	}
+
+	@Test
+	public void testSkippedCountIsPassed() throws InterruptedException {
+		SamplingTaskExecutor executor = new SamplingTaskExecutor("test", 1, 1, 10000);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicInteger skippedCount = new AtomicInteger(-1);
+		SamplingTaskExecutor.Task task = new SamplingTaskExecutor.Task() {
+			@Override
+			public void run(int skipped) {
+				skippedCount.set(skipped);
+				try {
+					latch.await();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		assertThat(executor.run("slow", task), is(true));
+		assertThat(executor.run("slow", task), is(false));
+		assertThat(executor.run("slow", task), is(false));
+		assertThat(executor.drainSkipped("slow"), is(0));
+		latch.countDown();
+		Thread.sleep(100);
+		assertThat(executor.run("slow", task), is(true));
+		executor.shutdown();
+		assertThat(skippedCount.get(), is(2));
+		assertThat(executor.drainSkipped("slow"), is(0));
+	}
+
+	@Test
+	public void testTaskIgnoringInterruptionIsNotRunAgain() throws InterruptedException {
+		SamplingTaskExecutor executor = new SamplingTaskExecutor("test", 2, 2, 10);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final AtomicInteger runCount = new AtomicInteger();
+		Runnable stubbornTask = new Runnable() {
+			@Override
+			public void run() {
+				runCount.incrementAndGet();
+				while (true) {
+					try {
+						latch.await();
+						return;
+					} catch (InterruptedException e) {
+						// Ignore the interruption.
+					}
+				}
+			}
+		};
+		assertThat(executor.run("stubborn", stubbornTask), is(true));
+		Thread.sleep(100);
+		assertThat(executor.run("stubborn", stubbornTask), is(false));
+		Thread.sleep(100);
+		assertThat(executor.run("stubborn", stubbornTask), is(false));
+		assertThat(runCount.get(), is(1));
+		assertThat(executor.getStatistics().get("stubborn").getTimedOut(), is(1));
+		latch.countDown();
+		executor.shutdown();
+		assertThat(executor.drainSkipped("stubborn"), is(2));
+	}
+
+	@Test
+	public void testTimeBudget() throws InterruptedException {
+		SamplingTaskExecutor executor = new SamplingTaskExecutor("test", 1, 1, 10);
+		Runnable blockingTask = new Runnable() {
+			@Override
+			public void run() {
+				try {
+					Thread.sleep(10000);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		};
+		assertThat(executor.run("blocking", blockingTask), is(true));
+		Thread.sleep(100);
+		assertThat(executor.run("blocking", blockingTask), is(false));
+		assertThat(executor.getStatistics().get("blocking").getTimedOut(), is(1));
+		executor.shutdown();
+	}
+}
@@ -13,22 +13,33 @@
  */
 package org.ngrinder.region.service;
 
+import com.google.common.collect.Sets;
+import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.engine.controller.AgentControllerIdentityImplementation;
 import net.grinder.util.NetworkUtils;
 import org.junit.Before;
 import org.junit.Test;
 import org.ngrinder.AbstractNGrinderTransactionalTest;
+import org.ngrinder.infra.cluster.ClusterEventBus;
 import org.ngrinder.infra.config.Config;
 import org.ngrinder.infra.config.DynamicCacheConfig;
+import org.ngrinder.region.model.AgentMembershipChange;
+import org.ngrinder.region.model.RegionInfo;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
 import org.springframework.cache.ehcache.EhCacheCacheManager;
+import org.springframework.cache.support.SimpleValueWrapper;
 import org.springframework.test.util.ReflectionTestUtils;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Set;
 
 import static net.grinder.util.NetworkUtils.removeScopedMarkerFromIP;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.when;
 
@@ -82,4 +93,30 @@ public class RegionServiceTest extends AbstractNGrinderTransactionalTest {
 
 	}
 
+	@Test
+	public void testAgentMembershipChange() {
+		RegionService regionService = new RegionService();
+		regionService.setClusterEventBus(new ClusterEventBus());
+		Config spiedConfig = spy(config);
+		when(spiedConfig.getRegion()).thenReturn("TEST_REGION");
+		regionService.setConfig(spiedConfig);
+		AgentIdentity agent1 = new AgentControllerIdentityImplementation("agent1", "127.0.0.1");
+		AgentIdentity agent2 = new AgentControllerIdentityImplementation("agent2", "127.0.0.2");
+
+		regionService.applyAgentMembershipChange(AgentMembershipChange.full("region1", 1,
+				Sets.newHashSet(agent1)));
+		regionService.applyAgentMembershipChange(new AgentMembershipChange("region1", 2, false,
+				Sets.newHashSet(agent2), Sets.newHashSet(agent1)));
+		// Missed change is not applied.
+		regionService.applyAgentMembershipChange(new AgentMembershipChange("region1", 4, false,
+				Sets.newHashSet(agent1), Collections.<AgentIdentity>emptySet()));
+
+		Cache cache = mock(Cache.class);
+		when(cache.get("region1")).thenReturn(new SimpleValueWrapper(new RegionInfo("127.0.0.1", 8080,
+				Collections.<AgentIdentity>emptySet())));
+		regionService.setCache(cache);
+		Set<AgentIdentity> agents = regionService.getOne("region1").getAgentIdentities();
+		assertThat(agents.size(), is(1));
+		assertThat(agents.contains(agent2), is(true));
+	}
 }
@@ -30,7 +30,9 @@ import org.tmatesoft.svn.core.wc.SVNRevision;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
@@ -134,6 +136,48 @@ public class FileEntryRepositoryTest extends AbstractNGrinderTransactionalTest {
 		assertThat(foundEntry.getFileSize(), is((long) byteArray.length));
 	}
 
+	@Test
+	public void testCachedContentAfterCommit() throws IOException {
+		FileEntry fileEntry = new FileEntry();
+		fileEntry.setContent("HELLO WORLD");
+		fileEntry.setEncoding("UTF-8");
+		fileEntry.setPath("cached.txt");
+		fileEntry.setDescription("first");
+		repo.save(getTestUser(), fileEntry, fileEntry.getEncoding());
+		FileEntry first = repo.findOne(getTestUser(), "cached.txt", SVNRevision.HEAD);
+		assertThat(repo.findOne(getTestUser(), "cached.txt", SVNRevision.HEAD).getContent(), is("HELLO WORLD"));
+
+		fileEntry.setContent("HELLO WORLD2");
+		fileEntry.setDescription("second");
+		repo.save(getTestUser(), fileEntry, fileEntry.getEncoding());
+		FileEntry second = repo.findOne(getTestUser(), "cached.txt", SVNRevision.HEAD);
+		assertThat(second.getContent(), is("HELLO WORLD2"));
+		assertThat(second.getDescription(), is("second"));
+		assertThat(repo.findOne(getTestUser(), "cached.txt", SVNRevision.create(first.getRevision())).getContent(),
+				is("HELLO WORLD"));
+		assertThat(repo.findAll(getTestUser(), "cached.txt", null).get(0).getRevision(), is(second.getRevision()));
+	}
+
+	@Test
+	public void testWriteContentsInOneSession() throws IOException {
+		FileEntry fileEntry = new FileEntry();
+		fileEntry.setContent("HELLO WORLD");
+		fileEntry.setEncoding("UTF-8");
+		fileEntry.setPath("dist/hello1.txt");
+		repo.save(getTestUser(), fileEntry, fileEntry.getEncoding());
+		fileEntry.setPath("dist/hello2.txt");
+		repo.save(getTestUser(), fileEntry, fileEntry.getEncoding());
+
+		File toDir = new File(System.getProperty("java.io.tmpdir"), "dist_" + System.currentTimeMillis());
+		Map<String, File> targets = new LinkedHashMap<String, File>();
+		targets.put("dist/hello1.txt", toDir);
+		targets.put("dist/hello2.txt", new File(toDir, "sub"));
+		repo.writeContentTo(getTestUser(), targets);
+		assertThat(FileUtils.readFileToString(new File(toDir, "hello1.txt")), is("HELLO WORLD"));
+		assertThat(FileUtils.readFileToString(new File(toDir, "sub/hello2.txt")), is("HELLO WORLD"));
+		FileUtils.deleteQuietly(toDir);
+	}
+
 	@Test
 	public void testNotExistingPath() throws IOException {
 		// When requesting not existing folder.. it should return empty list
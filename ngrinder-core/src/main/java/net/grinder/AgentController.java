@@ -24,6 +24,7 @@ import net.grinder.engine.communication.AgentDownloadGrinderMessage;
 import net.grinder.engine.communication.AgentUpdateGrinderMessage;
 import net.grinder.engine.communication.LogReportGrinderMessage;
 import net.grinder.engine.controller.AgentControllerIdentityImplementation;
+import net.grinder.message.console.AgentControllerHeartbeatMessage;
 import net.grinder.message.console.AgentControllerProcessReportMessage;
 import net.grinder.message.console.AgentControllerState;
 import net.grinder.messages.agent.StartGrinderMessage;
@@ -35,10 +36,12 @@ import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.ArrayUtils;
 import org.ngrinder.common.constants.AgentConstants;
+import org.ngrinder.eventlog.RequestEventWriter;
 import org.ngrinder.infra.AgentConfig;
 import org.ngrinder.monitor.collector.SystemDataCollector;
 import org.ngrinder.monitor.controller.model.SystemDataModel;
 import org.ngrinder.monitor.share.domain.SystemInfo;
+import org.ngrinder.profile.WorkerProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -62,6 +65,7 @@ import static org.ngrinder.common.util.Preconditions.checkNotNull;
 public class AgentController implements Agent, AgentConstants {
 
 	private static final Logger LOGGER = LoggerFactory.getLogger("agent controller");
+	private static final int FULL_REPORT_INTERVAL = 10;
 	private final AgentConfig agentConfig;
 
 	private Timer m_timer;
@@ -289,6 +293,17 @@ public class AgentController implements Agent, AgentConstants {
 		if (!agentConfig.getAgentProperties().getPropertyBoolean(PROP_AGENT_ALL_LOGS)) {
 			logFiles = new File[]{logFiles[0]};
 		}
+		// Request event and profile files exist only when the test enabled them, so send all of them.
+		File[] eventFiles = logFolder.listFiles(new FilenameFilter() {
+			@Override
+			public boolean accept(File dir, String name) {
+				return (name.endsWith(RequestEventWriter.FILE_EXTENSION) || name.endsWith(WorkerProfiler.FILE_EXTENSION)
+						|| name.endsWith(WorkerProfiler.JFR_FILE_EXTENSION));
+			}
+		});
+		if (eventFiles != null) {
+			logFiles = (File[]) ArrayUtils.addAll(logFiles, eventFiles);
+		}
 		final byte[] compressedLog = LogCompressUtils.compress(logFiles,
 				Charset.defaultCharset(), Charset.forName("UTF-8")
 		);
@@ -360,13 +375,16 @@ public class AgentController implements Agent, AgentConstants {
 		private final ClientSender m_sender;
 		private final TimerTask m_reportRunningTask;
 		private final MessagePump m_messagePump;
+		private AgentControllerProcessReportMessage m_lastReport;
+		private int m_heartbeatCount = 0;
 
 		public ConsoleCommunication(Connector connector) throws CommunicationException {
 			final ClientReceiver receiver = ClientReceiver.connect(connector, new AgentAddress(m_agentIdentity));
 			m_sender = ClientSender.connect(receiver);
 
-			m_sender.send(new AgentControllerProcessReportMessage(AgentControllerState.STARTED, getSystemDataModel(),
-					m_connectionPort, version));
+			m_lastReport = new AgentControllerProcessReportMessage(AgentControllerState.STARTED, getSystemDataModel(),
+					m_connectionPort, version);
+			m_sender.send(m_lastReport);
 			final MessageDispatchSender messageDispatcher = new MessageDispatchSender();
 			m_agentControllerServerListener.registerMessageHandlers(messageDispatcher);
 
@@ -393,8 +411,22 @@ public class AgentController implements Agent, AgentConstants {
 			}
 		}
 
-		public void sendCurrentState() throws CommunicationException {
-			sendMessage(new AgentControllerProcessReportMessage(m_state, getSystemDataModel(), m_connectionPort, version));
+		/**
+		 * Send the current state. Only the changed fields are sent except every
+		 * {@link #FULL_REPORT_INTERVAL}th report, so that the console recovers the agent it purged.
+		 *
+		 * @throws CommunicationException if the state can not be sent
+		 */
+		public synchronized void sendCurrentState() throws CommunicationException {
+			AgentControllerProcessReportMessage report = new AgentControllerProcessReportMessage(m_state,
+					getSystemDataModel(), m_connectionPort, version);
+			if (++m_heartbeatCount % FULL_REPORT_INTERVAL != 0
+					&& AgentControllerHeartbeatMessage.isApplicable(m_lastReport, report)) {
+				sendMessage(new AgentControllerHeartbeatMessage(m_lastReport, report));
+			} else {
+				sendMessage(report);
+			}
+			m_lastReport = report;
 		}
 
 		public void start() {
@@ -0,0 +1,130 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder;
+
+import net.grinder.communication.MessageDispatchRegistry;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
+import net.grinder.console.communication.ConsoleCommunication;
+import net.grinder.console.communication.ReportLagMonitor;
+import net.grinder.console.model.SampleModelImplementationEx;
+import net.grinder.console.model.SampleModelViews;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
+import net.grinder.messages.console.RegisterExpressionViewMessage;
+import net.grinder.messages.console.RegisterTestsMessage;
+import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.TestStatisticsMap;
+import net.grinder.util.ListenerSupport.Informer;
+
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Forwarder from a shard {@link SingleConsole} to the coordinator {@link SingleConsole}.
+ * <p/>
+ * The shard console only receives the agent messages. The statistics reported by its worker
+ * processes are merged locally and the merged statistics are passed to the sample model of the
+ * coordinator every {@link #FLUSH_INTERVAL} ms, so the coordinator handles one report per shard
+ * instead of one per worker process. The coordinator samples, writes the report and checks the
+ * stop rules as if all the agents were attached to it.
+ *
+ * @since 3.4
+ */
+class ConsoleShardForwarder {
+	static final long FLUSH_INTERVAL = 500;
+
+	private final SingleConsole shard;
+	private final SingleConsole coordinator;
+	private final TestStatisticsMap pendingStatistics = new TestStatisticsMap(StatisticsServicesImplementation
+			.getInstance().getStatisticsSetFactory());
+
+	ConsoleShardForwarder(SingleConsole shard, SingleConsole coordinator) {
+		this.shard = shard;
+		this.coordinator = coordinator;
+	}
+
+	/**
+	 * Replace the message handlers of the shard console. The shard console should be started
+	 * before.
+	 */
+	void start() {
+		final SampleModelImplementationEx model = coordinator.getConsoleComponent(SampleModelImplementationEx.class);
+		final SampleModelViews modelViews = coordinator.getConsoleComponent(SampleModelViews.class);
+		MessageDispatchRegistry registry = shard.getConsoleComponent(ConsoleCommunication.class)
+				.getMessageDispatchRegistry();
+		// Tests are registered right away so that they are known before the statistics arrive.
+		registry.set(RegisterTestsMessage.class, new AbstractHandler<RegisterTestsMessage>() {
+			public void handle(RegisterTestsMessage message) {
+				model.registerTests(message.getTests());
+			}
+		});
+		registry.set(ReportStatisticsMessage.class, new AbstractHandler<ReportStatisticsMessage>() {
+			public void handle(ReportStatisticsMessage message) {
+				synchronized (pendingStatistics) {
+					pendingStatistics.add(message.getStatisticsDelta());
+				}
+			}
+		});
+		// Each shard advertises its own lag to its agents.
+		final ReportLagMonitor reportLagMonitor = shard.getConsoleComponent(ReportLagMonitor.class);
+		final ReportLagMonitor.ReportSink reportSink = new ReportLagMonitor.ReportSink() {
+			public void addTestReport(TestStatisticsMap statisticsDelta) {
+				synchronized (pendingStatistics) {
+					pendingStatistics.add(statisticsDelta);
+				}
+			}
+		};
+		registry.set(ReportStatisticsBatchMessage.class, new AbstractHandler<ReportStatisticsBatchMessage>() {
+			public void handle(ReportStatisticsBatchMessage message) {
+				reportLagMonitor.record(message, reportSink);
+			}
+		});
+		registry.set(RegisterExpressionViewMessage.class, new AbstractHandler<RegisterExpressionViewMessage>() {
+			public void handle(RegisterExpressionViewMessage message) {
+				modelViews.registerStatisticExpression(message.getExpressionView());
+			}
+		});
+		shard.getConsoleComponent(Timer.class).schedule(new TimerTask() {
+			@Override
+			public void run() {
+				flush(model);
+			}
+		}, FLUSH_INTERVAL, FLUSH_INTERVAL);
+		// The script errors before sampling are reported by each shard.
+		shard.addListener(new SingleConsole.ConsoleShutdownListener() {
+			@Override
+			public void readyToStop(final StopReason stopReason) {
+				if (coordinator.getSamplingCount() != 0) {
+					return;
+				}
+				coordinator.getListeners().apply(new Informer<SingleConsole.ConsoleShutdownListener>() {
+					public void inform(SingleConsole.ConsoleShutdownListener listener) {
+						listener.readyToStop(stopReason);
+					}
+				});
+			}
+		});
+	}
+
+	void flush(SampleModelImplementationEx model) {
+		TestStatisticsMap statistics;
+		synchronized (pendingStatistics) {
+			if (pendingStatistics.size() == 0) {
+				return;
+			}
+			statistics = pendingStatistics.reset();
+		}
+		model.addTestReport(statistics);
+	}
+}
@@ -0,0 +1,98 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder;
+
+import net.grinder.util.peer.PeerChunkServer;
+import net.grinder.util.peer.PeerManifest;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+
+/**
+ * Peer assisted distribution of the big files in a distribution directory.
+ * <p/>
+ * The files larger than the chunk size are moved out of the distribution directory while the
+ * console distributes the rest, and a {@link PeerManifest} of the moved files is distributed in
+ * their place. The agents rebuild the moved files from the chunks served by the seed started
+ * here, which hands the most of the requests over to the agents already holding the chunks.
+ *
+ * @since 3.4
+ */
+class PeerDistribution {
+	private final File distributionDirectory;
+	private final File peerDirectory;
+	private PeerChunkServer seed;
+
+	PeerDistribution(File distributionDirectory) {
+		this.distributionDirectory = distributionDirectory;
+		this.peerDirectory = new File(distributionDirectory.getParentFile(), distributionDirectory.getName() + "_peer");
+	}
+
+	/**
+	 * Start the seed of the big files.
+	 *
+	 * @param host   host on which the agents reach the seed
+	 * @param fanOut count of agents each chunk is served to by the seed itself
+	 * @return false if there is no big file to be shared
+	 * @throws IOException occurs when the files can not be moved or the seed can not be started
+	 */
+	boolean start(String host, int fanOut) throws IOException {
+		int chunkSize = PeerManifest.DEFAULT_CHUNK_SIZE;
+		moveFiles(distributionDirectory, peerDirectory, chunkSize);
+		if (!peerDirectory.exists()) {
+			return false;
+		}
+		seed = new PeerChunkServer(fanOut);
+		PeerManifest manifest = new PeerManifest(host, seed.getPort(), chunkSize,
+				PeerManifest.collect(peerDirectory, chunkSize));
+		seed.addChunks(peerDirectory, manifest);
+		seed.start();
+		manifest.write(new File(distributionDirectory, PeerManifest.FILE_NAME));
+		return true;
+	}
+
+	/**
+	 * Stop the seed and restore the distribution directory.
+	 */
+	void stop() {
+		if (seed != null) {
+			seed.shutdown();
+		}
+		FileUtils.deleteQuietly(new File(distributionDirectory, PeerManifest.FILE_NAME));
+		try {
+			moveFiles(peerDirectory, distributionDirectory, 0);
+		} catch (IOException e) {
+			SingleConsole.LOGGER.error("Error while restoring {} : {}", distributionDirectory, e.getMessage());
+		}
+		FileUtils.deleteQuietly(peerDirectory);
+	}
+
+	private static void moveFiles(File from, File to, long minimumSize) throws IOException {
+		if (!from.isDirectory()) {
+			return;
+		}
+		String base = from.getAbsolutePath();
+		Collection<File> files = FileUtils.listFiles(from, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for (File each : files) {
+			if (each.length() >= minimumSize) {
+				File target = new File(to, each.getAbsolutePath().substring(base.length() + 1));
+				FileUtils.deleteQuietly(target);
+				FileUtils.moveFile(each, target);
+			}
+		}
+	}
+}
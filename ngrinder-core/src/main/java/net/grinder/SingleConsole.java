@@ -31,6 +31,7 @@ import net.grinder.console.common.ResourcesImplementation;
 import net.grinder.console.communication.ProcessControl;
 import net.grinder.console.communication.ProcessControl.Listener;
 import net.grinder.console.communication.ProcessControl.ProcessReports;
+import net.grinder.console.communication.ReportLagMonitor;
 import net.grinder.console.distribution.AgentCacheState;
 import net.grinder.console.distribution.FileDistribution;
 import net.grinder.console.distribution.FileDistributionHandler;
@@ -38,6 +39,7 @@ import net.grinder.console.model.*;
 import net.grinder.statistics.*;
 import net.grinder.util.*;
 import net.grinder.util.ListenerSupport.Informer;
+import net.grinder.util.peer.PeerManifest;
 import net.grinder.util.thread.Condition;
 import org.apache.commons.collections.MapUtils;
 import org.apache.commons.io.IOUtils;
@@ -45,6 +47,9 @@ import org.apache.commons.lang.ArrayUtils;
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.lang.mutable.MutableBoolean;
 import org.ngrinder.common.exception.NGrinderRuntimeException;
+import org.ngrinder.common.metrics.Counter;
+import org.ngrinder.common.metrics.Metrics;
+import org.ngrinder.common.metrics.Timer;
 import org.ngrinder.common.util.DateUtils;
 import org.ngrinder.common.util.ReflectionUtils;
 import org.ngrinder.common.util.ThreadUtils;
@@ -61,6 +66,11 @@ import java.io.FileWriter;
 import java.text.DecimalFormat;
 import java.util.*;
 import java.util.Map.Entry;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import static org.ngrinder.common.util.CollectionUtils.*;
 import static org.ngrinder.common.util.ExceptionUtils.processException;
@@ -95,13 +105,18 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	private SampleModel sampleModel;
 	private SampleModelViews modelView;
 	private long startTime = 0;
-	private long momentWhenTpsBeganToHaveVerySmall;
-	private long lastMomentWhenErrorsMoreThanHalfOfTotalTPSValue;
+	private StopRules stopRules = StopRules.withDefaults(null);
 	private final ListenerSupport<ConsoleShutdownListener> showdownListner = ListenerHelper.create();
 	private final ListenerSupport<SamplingLifeCycleListener> samplingLifeCycleListener = ListenerHelper.create();
 	private final ListenerSupport<SamplingLifeCycleFollowUpListener> samplingLifeCycleFollowupListener = ListenerHelper
 			.create();
 	public static final int MIN_SAMPLING_INTERVAL_TO_ACTIVATE_TPS_PER_TEST = 3000;
+	private static final Timer SAMPLING_TIMER = Metrics.timer("console.sampling");
+	private static final Timer SAMPLING_LISTENER_TIMER = Metrics.timer("console.sampling.listeners");
+	private static final Timer DISTRIBUTION_TIMER = Metrics.timer("console.distribution");
+	private static final Counter DISTRIBUTION_FILES = Metrics.counter("console.distribution.files");
+	private static final Counter DISTRIBUTION_BYTES = Metrics.counter("console.distribution.bytes");
+	private static final long PEER_DISTRIBUTION_TIMEOUT = 10 * 60 * 1000;
 	private boolean capture = false;
 	private File reportPath;
 
@@ -131,8 +146,17 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	private int currentNotFinishedProcessCount = 0;
 
-	private static final int TOO_LOW_TPS_TIME = 60000;
-	private static final int TOO_MANY_ERROR_TIME = 10000;
+	/**
+	 * Shard consoles which share the agents of the test run by this console.
+	 */
+	private final List<SingleConsole> shards = new CopyOnWriteArrayList<SingleConsole>();
+
+	/**
+	 * The count of agents each chunk of the big files is served to by the controller. 0 if the peer assisted
+	 * distribution is disabled.
+	 */
+	private int peerDistributionFanOut = 0;
+
 	private Map<Test, StatisticsSet> intervalStatisticMapPerTest = Collections
 			.synchronizedMap(new LinkedHashMap<Test, StatisticsSet>());
 	private Map<Test, StatisticsSet> accumulatedStatisticMapPerTest = Collections
@@ -240,7 +264,11 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @return count of agents
 	 */
 	public int getAllAttachedAgentsCount() {
-		return getConsoleFoundation().getComponent(ProcessControl.class).getNumberOfLiveAgents();
+		int count = getConsoleFoundation().getComponent(ProcessControl.class).getNumberOfLiveAgents();
+		for (SingleConsole each : shards) {
+			count += each.getAllAttachedAgentsCount();
+		}
+		return count;
 	}
 
 	protected ConsoleFoundationEx getConsoleFoundation() {
@@ -264,6 +292,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 				agentIdentities.add((AgentIdentity) object);
 			}
 		});
+		for (SingleConsole each : shards) {
+			agentIdentities.addAll(each.getAllAttachedAgents());
+		}
 		return agentIdentities;
 	}
 
@@ -295,6 +326,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @return current time
 	 */
 	public long startTest(GrinderProperties properties) {
+		for (SingleConsole each : shards) {
+			each.startTest((GrinderProperties) properties.clone());
+		}
 		properties.setInt(GrinderProperties.CONSOLE_PORT, getConsolePort());
 		getConsoleComponent(ProcessControl.class).startWorkerProcesses(properties);
 		this.properties = properties;
@@ -327,6 +361,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	@Override
 	public void cancel() {
 		cancel = true;
+		for (SingleConsole each : shards) {
+			each.cancel();
+		}
 	}
 
 	private boolean shouldEnable(FileDistribution fileDistribution) {
@@ -341,8 +378,77 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @param safe     safe file transition
 	 */
 	public void distributeFiles(File filePath, ListenerSupport<FileDistributionListener> listener, boolean safe) {
-		setDistributionDirectory(filePath);
-		distributeFiles(listener, safe);
+		PeerDistribution peerDistribution = startPeerDistribution(filePath);
+		if (shards.isEmpty()) {
+			try {
+				setDistributionDirectory(filePath);
+				distributeFiles(listener, safe);
+			} finally {
+				stopPeerDistribution(peerDistribution);
+			}
+			return;
+		}
+		// The shards distribute the files to their own agents at the same time.
+		ExecutorService executor = Executors.newFixedThreadPool(shards.size());
+		try {
+			List<Future<?>> shardDistributions = newArrayList();
+			for (SingleConsole each : shards) {
+				shardDistributions.add(executor.submit(new ShardDistribution(each, filePath, safe)));
+			}
+			setDistributionDirectory(filePath);
+			distributeFiles(listener, safe);
+			for (Future<?> each : shardDistributions) {
+				each.get();
+			}
+		} catch (ExecutionException e) {
+			throw processException(e.getCause());
+		} catch (InterruptedException e) {
+			throw processException(e);
+		} finally {
+			executor.shutdownNow();
+			stopPeerDistribution(peerDistribution);
+		}
+	}
+
+	private PeerDistribution startPeerDistribution(File filePath) {
+		if (peerDistributionFanOut <= 0) {
+			return null;
+		}
+		PeerDistribution peerDistribution = new PeerDistribution(filePath);
+		try {
+			if (peerDistribution.start(getConsoleIP(), peerDistributionFanOut)) {
+				return peerDistribution;
+			}
+		} catch (Exception e) {
+			LOGGER.error("Peer assisted distribution is not available for {} : {}", filePath, e.getMessage());
+			LOGGER.debug("The error detail is ", e);
+		}
+		// Fall back to the distribution from the console only.
+		peerDistribution.stop();
+		return null;
+	}
+
+	private void stopPeerDistribution(PeerDistribution peerDistribution) {
+		if (peerDistribution != null) {
+			peerDistribution.stop();
+		}
+	}
+
+	private static class ShardDistribution implements Runnable {
+		private final SingleConsole shard;
+		private final File filePath;
+		private final boolean safe;
+
+		ShardDistribution(SingleConsole shard, File filePath, boolean safe) {
+			this.shard = shard;
+			this.filePath = filePath;
+			this.safe = safe;
+		}
+
+		@Override
+		public void run() {
+			shard.distributeFiles(filePath, null, safe);
+		}
 	}
 
 	public String getConsoleIP() {
@@ -404,36 +510,65 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		final FileDistributionHandler distributionHandler = fileDistribution.getHandler();
 		// When cancel is called.. stop processing.
 		int fileCount = 0;
-		while (!cancel) {
-			try {
-				final FileDistributionHandler.Result result = distributionHandler.sendNextFile();
-				fileCount++;
-				if (result == null) {
-					break;
-				}
-				if (listener != null) {
-					listener.apply(new Informer<FileDistributionListener>() {
-						@Override
-						public void inform(FileDistributionListener listener) {
-							listener.distributed(result.getFileName());
-						}
-					});
-				}
+		long start = DISTRIBUTION_TIMER.start();
+		try {
+			while (!cancel) {
+				try {
+					final FileDistributionHandler.Result result = distributionHandler.sendNextFile();
+					fileCount++;
+					if (result == null) {
+						break;
+					}
+					if (Metrics.isEnabled()) {
+						DISTRIBUTION_FILES.increment();
+						DISTRIBUTION_BYTES.add(new File(file, result.getFileName()).length());
+					}
+					if (listener != null) {
+						listener.apply(new Informer<FileDistributionListener>() {
+							@Override
+							public void inform(FileDistributionListener listener) {
+								listener.distributed(result.getFileName());
+							}
+						});
+					}
 
-				if (safeDist.isTrue()) {
-					// The cache status is updated asynchronously by agent
-					// reports. If the listener is registered, this waits for up
-					// to five seconds for
-					// all agents to indicate that they are up to date.
-					checkSafetyWithCacheState(fileDistribution, cacheStateCondition, 1);
+					if (safeDist.isTrue()) {
+						// The cache status is updated asynchronously by agent
+						// reports. If the listener is registered, this waits for up
+						// to five seconds for
+						// all agents to indicate that they are up to date.
+						checkSafetyWithCacheState(fileDistribution, cacheStateCondition, 1);
+					}
+				} catch (FileContents.FileContentsException e) {
+					throw processException("Error while distribute files for " + getConsolePort());
 				}
-			} catch (FileContents.FileContentsException e) {
-				throw processException("Error while distribute files for " + getConsolePort());
 			}
+			if (safeDist.isFalse()) {
+				ThreadUtils.sleep(1000);
+				checkSafetyWithCacheState(fileDistribution, cacheStateCondition, fileCount);
+			}
+			if (new File(file, PeerManifest.FILE_NAME).exists()) {
+				// The agents update the cache state only after all chunks of the manifest are fetched.
+				waitUntilPeerDistributed(fileDistribution, cacheStateCondition);
+			}
+		} finally {
+			DISTRIBUTION_TIMER.stop(start);
 		}
-		if (safeDist.isFalse()) {
-			ThreadUtils.sleep(1000);
-			checkSafetyWithCacheState(fileDistribution, cacheStateCondition, fileCount);
+	}
+
+	private void waitUntilPeerDistributed(final FileDistribution fileDistribution,
+										  final Condition cacheStateCondition) {
+		long deadline = System.currentTimeMillis() + PEER_DISTRIBUTION_TIMEOUT;
+		// noinspection SynchronizationOnLocalVariableOrMethodParameter
+		synchronized (cacheStateCondition) {
+			while (!cancel && shouldEnable(fileDistribution) && System.currentTimeMillis() < deadline) {
+				cacheStateCondition.waitNoInterrruptException(500);
+			}
+		}
+		if (!cancel && shouldEnable(fileDistribution)) {
+			// The agents which failed to fetch the files don't store the manifest.
+			throw processException("Some agents could not fetch the files distributed through the peers for "
+					+ getConsolePort());
 		}
 	}
 
@@ -458,7 +593,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		while (trial++ < 10) {
 			// when agent finished one test, processReports will be updated as
 			// null
-			if (processReports == null || this.processReports.length != size) {
+			if (getProcessReportCount() != size) {
 				synchronized (eventSyncCondition) {
 					eventSyncCondition.waitNoInterrruptException(1000);
 				}
@@ -471,6 +606,15 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		throw processException("Connection is not completed until 10 sec");
 	}
 
+	private int getProcessReportCount() {
+		ProcessReports[] current = this.processReports;
+		int count = (current == null) ? 0 : current.length;
+		for (SingleConsole each : shards) {
+			count += each.getProcessReportCount();
+		}
+		return count;
+	}
+
 	/**
 	 * Wait until the count of running threads becomes 0. If the elapsed time
 	 * is over 10 seconds, an {@link NGrinderRuntimeException} is thrown.
@@ -478,7 +622,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	public void waitUntilAllAgentDisconnected() {
 		int trial = 1;
 		while (trial++ < 40) {
-			if (this.runningThread != 0) {
+			if (getRunningThread() != 0) {
 				synchronized (eventSyncCondition) {
 					eventSyncCondition.waitNoInterrruptException(500);
 				}
@@ -501,18 +645,22 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 * @return true if finished
 	 */
 	public boolean isAllTestFinished() {
+		int threadCount;
+		int notFinishedProcessCount;
 		synchronized (this) {
-			// Mostly running thread count is ok to determine it's finished.
-			if (this.runningThread == 0) {
-				return true;
-				// However sometimes runningThread is over 0 but all process is
-				// marked as
-				// FINISHED.. It can be treated as finished status as well.
-			} else if (this.currentNotFinishedProcessCount == 0) {
-				return true;
+			threadCount = this.runningThread;
+			notFinishedProcessCount = this.currentNotFinishedProcessCount;
+		}
+		for (SingleConsole each : shards) {
+			synchronized (each) {
+				threadCount += each.runningThread;
+				notFinishedProcessCount += each.currentNotFinishedProcessCount;
 			}
-			return false;
 		}
+		// Mostly running thread count is ok to determine it's finished.
+		// However sometimes runningThread is over 0 but all process is
+		// marked as FINISHED.. It can be treated as finished status as well.
+		return threadCount == 0 || notFinishedProcessCount == 0;
 	}
 
 	/**
@@ -597,6 +745,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	@Override
 	public void update(final StatisticsSet intervalStatistics, final StatisticsSet cumulativeStatistics) {
+		long start = SAMPLING_TIMER.start();
 		try {
 			if (!capture) {
 				return;
@@ -604,7 +753,6 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			samplingCount++;
 			long currentPeriod = cumulativeStatistics.getValue(getSampleModel().getPeriodIndex());
 			setTpsValue(sampleModel.getTPSExpression().getDoubleValue(intervalStatistics));
-			checkTooLowTps(getTpsValues());
 			updateStatistics(intervalStatistics, cumulativeStatistics);
 
 			writeIntervalCsvData(intervalStatistics);
@@ -619,12 +767,14 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			// Adjust sampling delay.. run write data multiple times... when it
 			// takes longer than 1 sec.
 
+			long listenerStart = SAMPLING_LISTENER_TIMER.start();
 			samplingLifeCycleListener.apply(new Informer<SamplingLifeCycleListener>() {
 				@Override
 				public void inform(SamplingLifeCycleListener listener) {
 					listener.onSampling(getReportPath(), intervalStatistics, cumulativeStatistics);
 				}
 			});
+			SAMPLING_LISTENER_TIMER.stop(listenerStart);
 			for (long index = 0, repeatCounts = gap + 1; index < repeatCounts; index++) {
 				final boolean lastCall = (samplingCount == 1 && index == 0) || (samplingCount != 1 && index == gap);
 				writeIntervalSummaryData(intervalStatistics, lastCall);
@@ -638,12 +788,14 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 					}
 				});
 			}
-			checkTooManyError(cumulativeStatistics);
+			checkStopRules(intervalStatistics, cumulativeStatistics);
 			lastSamplingPeriod = lastSamplingPeriod + (interval * gap);
 		} catch (RuntimeException e) {
 			LOGGER.error("Error occurred while updating the statistics : {}", e.getMessage());
 			LOGGER.debug("Details : ", e);
 			throw e;
+		} finally {
+			SAMPLING_TIMER.stop(start);
 		}
 	}
 
@@ -693,7 +845,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 				writeReportData(each.getKey() + REPORT_DATA, "null");
 			}
 		}
-		writeReportData("Vuser" + REPORT_DATA, formatValue(runningThread));
+		writeReportData("Vuser" + REPORT_DATA, formatValue(getRunningThread()));
 	}
 
 	/**
@@ -757,61 +909,116 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	}
 
 	/**
-	 * Check if the TPS is too low. the TPS is lower than 0.001 for 1 minutes,
-	 * It emits a shutdown event to the {@link ConsoleShutdownListener}
+	 * Set the auto stop rules of this test. The rules are evaluated on each sampling.
 	 *
-	 * @param tps current TPS
-	 */
-	private void checkTooLowTps(double tps) {
-		// If the tps is too low, which means the agents or scripts went wrong.
-		if (tps < 0.001) {
-			if (momentWhenTpsBeganToHaveVerySmall == 0) {
-				momentWhenTpsBeganToHaveVerySmall = System.currentTimeMillis();
-			} else if (new Date().getTime() - momentWhenTpsBeganToHaveVerySmall >= TOO_LOW_TPS_TIME) {
-				LOGGER.warn("Stop the test because its tps is less than 0.001 for more than {} minitue.",
-						TOO_LOW_TPS_TIME / 60000);
-				getListeners().apply(new Informer<ConsoleShutdownListener>() {
-					public void inform(ConsoleShutdownListener listener) {
-						listener.readyToStop(StopReason.TOO_LOW_TPS);
-					}
-				});
-				momentWhenTpsBeganToHaveVerySmall = 0;
+	 * @param stopRules stop rules
+	 * @since 3.4
+	 */
+	public void setStopRules(StopRules stopRules) {
+		this.stopRules = checkNotNull(stopRules);
+	}
 
+	/**
+	 * Check the stop rules with the current statistics. When any rule is violated, it emits a shutdown
+	 * event to the {@link ConsoleShutdownListener}.
+	 *
+	 * @param intervalStatistics   interval statistics
+	 * @param cumulativeStatistics accumulated statistics
+	 */
+	private void checkStopRules(final StatisticsSet intervalStatistics, final StatisticsSet cumulativeStatistics) {
+		StopRule violated = stopRules.check(new StopRules.MetricProvider() {
+			@Override
+			public double getValue(StopRule rule) {
+				if (rule.getMetric() == StopRule.Metric.CPU) {
+					return Double.NaN;
+				}
+				StatisticsSet statistics = getStatisticsSet(rule, intervalStatistics, cumulativeStatistics);
+				return (statistics == null) ? Double.NaN : getMetricValue(rule.getMetric(), statistics);
 			}
-		} else {
-			momentWhenTpsBeganToHaveVerySmall = 0;
+		}, System.currentTimeMillis(), getSampleModel().getSampleInterval());
+		if (violated != null) {
+			notifyStopRuleViolation(violated);
 		}
 	}
 
 	/**
-	 * Check if too many error has been occurred. If the half of total
-	 * transaction is error for the last 10 secs. It notifies the
-	 * {@link ConsoleShutdownListener}
+	 * Check the stop rules on the target host cpu usage. This is called whenever the target host
+	 * monitoring data is collected.
 	 *
-	 * @param cumulativeStatistics accumulated Statistics
+	 * @param cpuUsedPercentage the highest cpu usage percentage among the target hosts
+	 * @since 3.4
 	 */
-	private void checkTooManyError(StatisticsSet cumulativeStatistics) {
+	public void checkTargetHostCpu(final double cpuUsedPercentage) {
+		if (!capture) {
+			return;
+		}
+		StopRule violated = stopRules.check(new StopRules.MetricProvider() {
+			@Override
+			public double getValue(StopRule rule) {
+				return (rule.getMetric() == StopRule.Metric.CPU) ? cpuUsedPercentage : Double.NaN;
+			}
+		}, System.currentTimeMillis(), getSampleModel().getSampleInterval());
+		if (violated != null) {
+			notifyStopRuleViolation(violated);
+		}
+	}
+
+	private StatisticsSet getStatisticsSet(StopRule rule, StatisticsSet intervalStatistics,
+										   StatisticsSet cumulativeStatistics) {
+		if (rule.getTestNumber() == StopRule.ALL_TESTS) {
+			return rule.isCumulative() ? cumulativeStatistics : intervalStatistics;
+		}
+		Map<Test, StatisticsSet> statisticsMap = rule.isCumulative() ? accumulatedStatisticMapPerTest :
+				intervalStatisticMapPerTest;
+		synchronized (statisticsMap) {
+			for (Entry<Test, StatisticsSet> each : statisticsMap.entrySet()) {
+				if (each.getKey().getNumber() == rule.getTestNumber()) {
+					return each.getValue();
+				}
+			}
+		}
+		return null;
+	}
+
+	private double getMetricValue(StopRule.Metric metric, StatisticsSet statistics) {
 		StatisticsIndexMap statisticsIndexMap = getStatisticsIndexMap();
-		long testSum = cumulativeStatistics.getCount(statisticsIndexMap.getLongSampleIndex("timedTests"));
-		long errors = cumulativeStatistics.getValue(statisticsIndexMap.getLongIndex("errors"));
-		if (((double) (testSum + errors)) / 2 < errors) {
-			if (lastMomentWhenErrorsMoreThanHalfOfTotalTPSValue == 0) {
-				lastMomentWhenErrorsMoreThanHalfOfTotalTPSValue = System.currentTimeMillis();
-			} else if (isOverLowTpsThreshold()) {
-				LOGGER.warn("Stop the test because the count of test error is more than"
-						+ " half of total tps for last {} seconds.", TOO_MANY_ERROR_TIME / 1000);
-				getListeners().apply(new Informer<ConsoleShutdownListener>() {
-					public void inform(ConsoleShutdownListener listener) {
-						listener.readyToStop(StopReason.TOO_MANY_ERRORS);
-					}
-				});
-				lastMomentWhenErrorsMoreThanHalfOfTotalTPSValue = 0;
+		StatisticsIndexMap.LongSampleIndex timedTests = statisticsIndexMap.getLongSampleIndex("timedTests");
+		switch (metric) {
+			case TPS:
+				return getSampleModel().getTPSExpression().getDoubleValue(statistics);
+			case MEAN_TIME:
+				long count = statistics.getCount(timedTests);
+				return (count == 0) ? Double.NaN : ((double) statistics.getSum(timedTests)) / count;
+			case TTFB:
+				StatisticExpression expression = getStatisticExpression("Mean_time_to_first_byte");
+				return (expression == null) ? Double.NaN : expression.getDoubleValue(statistics);
+			case ERRORS:
+				return statistics.getValue(statisticsIndexMap.getLongIndex("errors"));
+			case ERROR_RATE:
+				long errors = statistics.getValue(statisticsIndexMap.getLongIndex("errors"));
+				long total = statistics.getCount(timedTests) + errors;
+				return (total == 0) ? Double.NaN : ((double) errors) / total;
+			default:
+				return Double.NaN;
+		}
+	}
+
+	private StatisticExpression getStatisticExpression(String name) {
+		for (Entry<String, StatisticExpression> each : getExpressionEntrySet()) {
+			if (each.getKey().equals(name)) {
+				return each.getValue();
 			}
 		}
+		return null;
 	}
 
-	private boolean isOverLowTpsThreshold() {
-		return (System.currentTimeMillis() - lastMomentWhenErrorsMoreThanHalfOfTotalTPSValue) >= TOO_MANY_ERROR_TIME;
+	private void notifyStopRuleViolation(final StopRule rule) {
+		LOGGER.warn("Stop the test because the stop rule '{}' is violated.", rule);
+		getListeners().apply(new Informer<ConsoleShutdownListener>() {
+			public void inform(ConsoleShutdownListener listener) {
+				listener.readyToStop(rule.getStopReason());
+			}
+		});
 	}
 
 	public static final Set<String> INTERESTING_PER_TEST_STATISTICS = Sets.newHashSet("Errors", "TPS",
@@ -869,11 +1076,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 		result.put("lastSampleStatistics", lastSampleStatistics);
 		result.put("tpsChartData", getTpsValues());
 		result.put("peakTpsForGraph", this.peakTpsForGraph);
-		synchronized (this) {
-			result.put(GrinderConstants.P_PROCESS, this.runningProcess);
-			result.put(GrinderConstants.P_THREAD, this.runningThread);
-			result.put("success", !isAllTestFinished());
-		}
+		result.put(GrinderConstants.P_PROCESS, getRunningProcess());
+		result.put(GrinderConstants.P_THREAD, getRunningThread());
+		result.put("success", !isAllTestFinished());
 		// Finally overwrite.. current one.
 		this.statisticData = result;
 	}
@@ -1143,6 +1348,9 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	public void sendStopMessageToAgents() {
 		getConsoleComponent(ProcessControl.class).stopAgentAndWorkerProcesses();
+		for (SingleConsole each : shards) {
+			each.sendStopMessageToAgents();
+		}
 	}
 
 	/**
@@ -1181,6 +1389,7 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			}
 		});
 		informTestSamplingStart();
+		resetReportLag();
 		this.sampleModel.start();
 		LOGGER.info("Sampling is started");
 	}
@@ -1194,10 +1403,21 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 			this.sampleModel.reset();
 			this.sampleModel.stop();
 		}
+		resetReportLag();
 		LOGGER.info("Sampling is stopped");
 		informTestSamplingEnd();
 	}
 
+	/**
+	 * Forget the report lag of the workers, so that the pooled consoles start each test afresh.
+	 */
+	private void resetReportLag() {
+		getConsoleComponent(ReportLagMonitor.class).reset();
+		for (SingleConsole each : shards) {
+			each.resetReportLag();
+		}
+	}
+
 	private void informTestSamplingStart() {
 		samplingLifeCycleListener.apply(new Informer<SamplingLifeCycleListener>() {
 			@Override
@@ -1323,7 +1543,11 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	@Override
 	public int getRunningThread() {
-		return runningThread;
+		int count = runningThread;
+		for (SingleConsole each : shards) {
+			count += each.getRunningThread();
+		}
+		return count;
 	}
 
 	/*
@@ -1333,7 +1557,56 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	 */
 	@Override
 	public int getRunningProcess() {
-		return runningProcess;
+		int count = runningProcess;
+		for (SingleConsole each : shards) {
+			count += each.getRunningProcess();
+		}
+		return count;
+	}
+
+	/**
+	 * Attach the given console as a shard of this console.
+	 * <p/>
+	 * The agents connected to the shard are started, stopped and distributed with this console.
+	 * The shard merges the statistics of its agents and passes them to this console, which
+	 * samples and writes the report of all the agents. The given console should be started
+	 * before.
+	 *
+	 * @param shard started console
+	 * @since 3.4
+	 */
+	public void addShard(SingleConsole shard) {
+		new ConsoleShardForwarder(shard, this).start();
+		shards.add(shard);
+	}
+
+	/**
+	 * Get the shard consoles of this console.
+	 *
+	 * @return shard consoles
+	 * @since 3.4
+	 */
+	public List<SingleConsole> getShards() {
+		return Collections.unmodifiableList(shards);
+	}
+
+	/**
+	 * Get the ports of this console and its shards.
+	 *
+	 * @return console ports
+	 * @since 3.4
+	 */
+	public List<Integer> getConsolePorts() {
+		List<Integer> ports = newArrayList();
+		ports.add(getConsolePort());
+		for (SingleConsole each : shards) {
+			ports.add(each.getConsolePort());
+		}
+		return ports;
+	}
+
+	long getSamplingCount() {
+		return samplingCount;
 	}
 
 	/**
@@ -1355,4 +1628,15 @@ public class SingleConsole extends AbstractSingleConsole implements Listener, Sa
 	public void setCsvSeparator(String csvSeparator){
 		this.cvsSeparator = csvSeparator;
 	}
+
+	/**
+	 * Set the count of agents each chunk of the big files is served to by the controller. The other agents fetch
+	 * the chunks from the agents which already have them.
+	 *
+	 * @param peerDistributionFanOut fan out. 0 to disable the peer assisted distribution.
+	 * @since 3.4
+	 */
+	public void setPeerDistributionFanOut(int peerDistributionFanOut) {
+		this.peerDistributionFanOut = peerDistributionFanOut;
+	}
 }
@@ -24,6 +24,10 @@ public enum StopReason {
 	TOO_LOW_TPS("Too low TPS"),
 	/** If too many error happen. */
 	TOO_MANY_ERRORS("Too many errors"),
+	/** If the response time is too slow. */
+	TOO_SLOW_RESPONSE("Too slow response"),
+	/** If the cpu of the target host is too high. */
+	TOO_HIGH_TARGET_CPU("Too high target host cpu"),
 	/** Error while test preparation. */
 	ERROR_WHILE_PREPARE("Test preparation error"),
 	/** Error while first execution. */
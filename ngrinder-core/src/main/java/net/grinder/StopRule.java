@@ -0,0 +1,263 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Auto stop rule of a test.
+ * <p/>
+ * A rule is written as below.
+ * <pre>
+ * [total.]metric[[test number]] [avg window] operator threshold [for duration] [clear threshold]
+ *
+ * tps &lt; 1 for 60s
+ * error_rate[2] &gt; 0.3 for 10s
+ * mean_time avg 30s &gt; 800 for 20s clear 600
+ * cpu &gt;= 90 for 1m
+ * </pre>
+ * The metric is taken from the interval statistics unless it's prefixed by {@code total.}, in which
+ * case the cumulative statistics are used. The optional test number restricts the metric to
+ * the single test. The {@code avg} window evaluates the moving average of the metric instead of
+ * the last sample, and the {@code clear} threshold makes the violation last until the metric goes
+ * back beyond it, so that a metric oscillating around the threshold doesn't reset the duration.
+ * <p/>
+ * Each rule keeps only a fixed size window, so the evaluation cost per sample is constant.
+ *
+ * @since 3.4
+ */
+public class StopRule {
+
+	/**
+	 * Metrics which can be used in the rule.
+	 */
+	public enum Metric {
+		/** Transactions per second. */
+		TPS("tps", StopReason.TOO_LOW_TPS),
+		/** Mean test time in ms. */
+		MEAN_TIME("mean_time", StopReason.TOO_SLOW_RESPONSE),
+		/** Mean time to the first byte in ms. */
+		TTFB("ttfb", StopReason.TOO_SLOW_RESPONSE),
+		/** Error count. */
+		ERRORS("errors", StopReason.TOO_MANY_ERRORS),
+		/** Ratio of errors among the all executions. */
+		ERROR_RATE("error_rate", StopReason.TOO_MANY_ERRORS),
+		/** The highest cpu usage percentage among the monitored target hosts. */
+		CPU("cpu", StopReason.TOO_HIGH_TARGET_CPU);
+
+		private final String name;
+		private final StopReason stopReason;
+
+		Metric(String name, StopReason stopReason) {
+			this.name = name;
+			this.stopReason = stopReason;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public StopReason getStopReason() {
+			return stopReason;
+		}
+
+		static Metric of(String name) {
+			for (Metric each : values()) {
+				if (each.name.equals(name)) {
+					return each;
+				}
+			}
+			return null;
+		}
+	}
+
+	/** Test number which means all tests. */
+	public static final int ALL_TESTS = -1;
+
+	private static final Pattern RULE_PATTERN = Pattern.compile("(total\\.)?([a-z_]+)(?:\\[(\\d+)\\])?"
+			+ "(?:\\s+avg\\s+(\\d+[smh]?))?\\s*(<=|>=|<|>)\\s*(\\d+(?:\\.\\d+)?)"
+			+ "(?:\\s+for\\s+(\\d+[smh]?))?(?:\\s+clear\\s+(\\d+(?:\\.\\d+)?))?", Pattern.CASE_INSENSITIVE);
+
+	private final String text;
+	private final Metric metric;
+	private final boolean cumulative;
+	private final int testNumber;
+	private final long window;
+	private final String operator;
+	private final double threshold;
+	private final long duration;
+	private final double clearThreshold;
+
+	private double[] windowValues;
+	private int windowPosition;
+	private int windowCount;
+	private double windowSum;
+	private boolean violated;
+	private long violatedSince;
+
+	StopRule(String text, Metric metric, boolean cumulative, int testNumber, long window, String operator,
+			 double threshold, long duration, double clearThreshold) {
+		this.text = text;
+		this.metric = metric;
+		this.cumulative = cumulative;
+		this.testNumber = testNumber;
+		this.window = window;
+		this.operator = operator;
+		this.threshold = threshold;
+		this.duration = duration;
+		this.clearThreshold = clearThreshold;
+	}
+
+	/**
+	 * Parse the given rule.
+	 *
+	 * @param text rule
+	 * @return parsed rule
+	 * @throws IllegalArgumentException if the rule is malformed
+	 */
+	public static StopRule parse(String text) {
+		String rule = text.trim();
+		Matcher matcher = RULE_PATTERN.matcher(rule);
+		if (!matcher.matches()) {
+			throw new IllegalArgumentException("Invalid stop rule '" + rule + "'");
+		}
+		Metric metric = Metric.of(matcher.group(2).toLowerCase());
+		if (metric == null) {
+			throw new IllegalArgumentException("Unknown metric '" + matcher.group(2) + "' in the stop rule '" + rule
+					+ "'");
+		}
+		boolean cumulative = matcher.group(1) != null;
+		int testNumber = (matcher.group(3) == null) ? ALL_TESTS : Integer.parseInt(matcher.group(3));
+		if (metric == Metric.CPU && (cumulative || testNumber != ALL_TESTS)) {
+			throw new IllegalArgumentException("cpu can not be used with total. or the test number in the stop rule '"
+					+ rule + "'");
+		}
+		double threshold = Double.parseDouble(matcher.group(6));
+		double clearThreshold = (matcher.group(8) == null) ? Double.NaN : Double.parseDouble(matcher.group(8));
+		String operator = matcher.group(5);
+		if (!Double.isNaN(clearThreshold) && (operator.startsWith(">") ? clearThreshold > threshold
+				: clearThreshold < threshold)) {
+			throw new IllegalArgumentException("The clear threshold should be on the other side of the threshold in "
+					+ "the stop rule '" + rule + "'");
+		}
+		return new StopRule(rule, metric, cumulative, testNumber, parseMillis(matcher.group(4)), operator,
+				threshold, parseMillis(matcher.group(7)), clearThreshold);
+	}
+
+	private static long parseMillis(String duration) {
+		if (duration == null) {
+			return 0;
+		}
+		char unit = Character.toLowerCase(duration.charAt(duration.length() - 1));
+		if (Character.isDigit(unit)) {
+			return TimeUnit.SECONDS.toMillis(Long.parseLong(duration));
+		}
+		long value = Long.parseLong(duration.substring(0, duration.length() - 1));
+		switch (unit) {
+			case 'h':
+				return TimeUnit.HOURS.toMillis(value);
+			case 'm':
+				return TimeUnit.MINUTES.toMillis(value);
+			default:
+				return TimeUnit.SECONDS.toMillis(value);
+		}
+	}
+
+	/**
+	 * Evaluate the rule with the current sample. NaN value is ignored without changing the state.
+	 *
+	 * @param value          current metric value
+	 * @param now            current time in ms
+	 * @param sampleInterval sampling interval in ms, which decides the window size
+	 * @return true if the rule has been violated for the duration. The state is reset then.
+	 */
+	boolean check(double value, long now, int sampleInterval) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			return false;
+		}
+		double current = (window > 0) ? slide(value, sampleInterval) : value;
+		if (violated) {
+			if (isCleared(current)) {
+				violated = false;
+				return false;
+			}
+		} else if (isViolated(current)) {
+			violated = true;
+			violatedSince = now;
+		} else {
+			return false;
+		}
+		if (now - violatedSince >= duration) {
+			violated = false;
+			return true;
+		}
+		return false;
+	}
+
+	private double slide(double value, int sampleInterval) {
+		if (windowValues == null) {
+			windowValues = new double[(int) Math.max(1, (window + sampleInterval - 1) / Math.max(1, sampleInterval))];
+		}
+		if (windowCount == windowValues.length) {
+			windowSum -= windowValues[windowPosition];
+		} else {
+			windowCount++;
+		}
+		windowValues[windowPosition] = value;
+		windowSum += value;
+		windowPosition = (windowPosition + 1) % windowValues.length;
+		return windowSum / windowCount;
+	}
+
+	private boolean isViolated(double value) {
+		if ("<".equals(operator)) {
+			return value < threshold;
+		} else if ("<=".equals(operator)) {
+			return value <= threshold;
+		} else if (">".equals(operator)) {
+			return value > threshold;
+		}
+		return value >= threshold;
+	}
+
+	private boolean isCleared(double value) {
+		if (Double.isNaN(clearThreshold)) {
+			return !isViolated(value);
+		}
+		return operator.startsWith(">") ? value < clearThreshold : value > clearThreshold;
+	}
+
+	public Metric getMetric() {
+		return metric;
+	}
+
+	public boolean isCumulative() {
+		return cumulative;
+	}
+
+	public int getTestNumber() {
+		return testNumber;
+	}
+
+	public StopReason getStopReason() {
+		return metric.getStopReason();
+	}
+
+	@Override
+	public String toString() {
+		return text;
+	}
+}
@@ -0,0 +1,103 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder;
+
+import org.apache.commons.lang.StringUtils;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Auto stop rule set of a test. Rules are separated by ';' or the new line.
+ *
+ * @see StopRule
+ * @since 3.4
+ */
+public class StopRules {
+	/**
+	 * Rules applied to all tests. The test is stopped when TPS is less than 0.001 for 1 minute or
+	 * the errors are more than the half of all executions for 10 seconds.
+	 */
+	public static final String DEFAULT_RULES = "tps < 0.001 for 60s; total.error_rate > 0.5 for 10s";
+
+	/**
+	 * Provider of the current metric value for each rule.
+	 */
+	public interface MetricProvider {
+		/**
+		 * Get the current value of the metric used by the given rule.
+		 *
+		 * @param rule rule
+		 * @return current value. NaN if the provider doesn't provide the metric.
+		 */
+		double getValue(StopRule rule);
+	}
+
+	private final List<StopRule> rules;
+
+	StopRules(List<StopRule> rules) {
+		this.rules = rules;
+	}
+
+	/**
+	 * Parse the given rules.
+	 *
+	 * @param text rules separated by ';' or the new line
+	 * @return parsed rules
+	 * @throws IllegalArgumentException if any rule is malformed
+	 */
+	public static StopRules parse(String text) {
+		List<StopRule> rules = new ArrayList<StopRule>();
+		for (String each : StringUtils.split(StringUtils.defaultString(text), ";\r\n")) {
+			if (StringUtils.isNotBlank(each)) {
+				rules.add(StopRule.parse(each));
+			}
+		}
+		return new StopRules(rules);
+	}
+
+	/**
+	 * Parse the given user rules and append them to the {@link #DEFAULT_RULES}.
+	 *
+	 * @param text user rules. It can be null.
+	 * @return parsed rules
+	 * @throws IllegalArgumentException if any rule is malformed
+	 */
+	public static StopRules withDefaults(String text) {
+		return parse(DEFAULT_RULES + ";" + StringUtils.defaultString(text));
+	}
+
+	/**
+	 * Evaluate all rules with the metrics given by the provider.
+	 *
+	 * @param provider       metric provider
+	 * @param now            current time in ms
+	 * @param sampleInterval sampling interval in ms
+	 * @return the first rule which is violated for its duration. null if none.
+	 */
+	public synchronized StopRule check(MetricProvider provider, long now, int sampleInterval) {
+		StopRule violated = null;
+		for (StopRule each : rules) {
+			if (each.check(provider.getValue(each), now, sampleInterval) && violated == null) {
+				violated = each;
+			}
+		}
+		return violated;
+	}
+
+	public List<StopRule> getRules() {
+		return Collections.unmodifiableList(rules);
+	}
+}
@@ -29,16 +29,19 @@ import net.grinder.console.communication.ConsoleCommunication;
 import net.grinder.console.communication.ConsoleCommunicationImplementationEx;
 import net.grinder.console.communication.DistributionControlImplementation;
 import net.grinder.console.communication.ProcessControlImplementation;
+import net.grinder.console.communication.ReportLagMonitor;
 import net.grinder.console.communication.server.DispatchClientCommands;
 import net.grinder.console.distribution.FileDistributionImplementation;
 import net.grinder.console.distribution.WireFileDistribution;
 import net.grinder.console.model.*;
 import net.grinder.console.synchronisation.WireDistributedBarriers;
 import net.grinder.engine.console.ErrorHandlerImplementation;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
 import net.grinder.messages.console.RegisterExpressionViewMessage;
 import net.grinder.messages.console.RegisterTestsMessage;
 import net.grinder.messages.console.ReportStatisticsMessage;
 import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.TestStatisticsMap;
 import net.grinder.util.StandardTimeAuthority;
 import net.grinder.util.thread.Condition;
 import org.apache.commons.lang.StringUtils;
@@ -98,6 +101,7 @@ public class ConsoleFoundationEx {
 		m_container.addComponent(ProcessControlImplementation.class);
 		m_timer = new Timer(true);
 		m_container.addComponent(m_timer);
+		m_container.addComponent(ReportLagMonitor.class);
 
 		//noinspection RedundantArrayCreation
 		m_container.addComponent(FileDistributionImplementation.class, FileDistributionImplementation.class,
@@ -201,9 +205,11 @@ public class ConsoleFoundationEx {
 		 * @param model			Console sample model.
 		 * @param sampleModelViews	Console sample model views
 		 * @param dispatchClientCommands	Client command dispatcher.
+		 * @param reportLagMonitor	Monitor of the report lag.
 		 */
 		public WireMessageDispatch(ConsoleCommunication communication, final SampleModel model,
-						final SampleModelViews sampleModelViews, DispatchClientCommands dispatchClientCommands) {
+						final SampleModelViews sampleModelViews, DispatchClientCommands dispatchClientCommands,
+						final ReportLagMonitor reportLagMonitor) {
 
 			final MessageDispatchRegistry messageDispatchRegistry = communication.getMessageDispatchRegistry();
 
@@ -219,6 +225,18 @@ public class ConsoleFoundationEx {
 				}
 			});
 
+			final ReportLagMonitor.ReportSink reportSink = new ReportLagMonitor.ReportSink() {
+				public void addTestReport(TestStatisticsMap statisticsDelta) {
+					model.addTestReport(statisticsDelta);
+				}
+			};
+			messageDispatchRegistry.set(ReportStatisticsBatchMessage.class,
+							new AbstractHandler<ReportStatisticsBatchMessage>() {
+								public void handle(ReportStatisticsBatchMessage message) {
+									reportLagMonitor.record(message, reportSink);
+								}
+							});
+
 			messageDispatchRegistry.set(RegisterExpressionViewMessage.class,
 							new AbstractHandler<RegisterExpressionViewMessage>() {
 								public void handle(RegisterExpressionViewMessage message) {
@@ -15,13 +15,13 @@ package net.grinder.console.communication;
 
 import net.grinder.common.GrinderProperties;
 import net.grinder.common.processidentity.AgentIdentity;
-import net.grinder.common.processidentity.ProcessIdentity;
 import net.grinder.communication.CommunicationException;
 import net.grinder.communication.MessageDispatchRegistry;
 import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.engine.communication.AgentDownloadGrinderMessage;
 import net.grinder.engine.communication.AgentUpdateGrinderMessage;
 import net.grinder.engine.communication.LogReportGrinderMessage;
+import net.grinder.message.console.AgentControllerHeartbeatMessage;
 import net.grinder.message.console.AgentControllerProcessReportMessage;
 import net.grinder.message.console.AgentControllerState;
 import net.grinder.messages.agent.StartGrinderMessage;
@@ -37,19 +37,31 @@ import org.slf4j.LoggerFactory;
 import java.util.*;
 import java.util.Map.Entry;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.CollectionUtils.newHashSet;
 import static org.ngrinder.common.util.CollectionUtils.newLinkedHashSet;
 
 /**
  * Implementation of {@link AgentProcessControl}.
+ * <p/>
+ * Each update of an {@link AgentStatus} is stamped with a revision, and the listeners are informed of the agents
+ * updated or purged since the previous notification only.
  *
  * @author JunHo Yoon
  */
-@SuppressWarnings("SynchronizeOnNonFinalField")
 public class AgentProcessControlImplementation implements AgentProcessControl {
 
 	private final ConsoleCommunication m_consoleCommunication;
-	private Map<AgentIdentity, AgentStatus> m_agentMap = new ConcurrentHashMap<AgentIdentity, AgentStatus>();
+	private final ConcurrentMap<AgentIdentity, AgentStatus> m_agentMap =
+			new ConcurrentHashMap<AgentIdentity, AgentStatus>();
+	private final AtomicLong m_revision = new AtomicLong();
+	private final Set<AgentIdentity> m_updatedAgents = Collections.newSetFromMap(
+			new ConcurrentHashMap<AgentIdentity, Boolean>());
+	private final Set<AgentIdentity> m_purgedAgents = Collections.newSetFromMap(
+			new ConcurrentHashMap<AgentIdentity, Boolean>());
 	private final ListenerSupport<Listener> m_listeners = new ListenerSupport<Listener>();
 	private final ListenerSupport<LogArrivedListener> m_logListeners = new ListenerSupport<LogArrivedListener>();
 	private AgentDownloadRequestListener m_agentDownloadListener;
@@ -68,8 +80,6 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 */
 	private static final long FLUSH_PERIOD = 2000;
 
-	private volatile boolean m_newData = false;
-
 	/**
 	 * Constructor.
 	 *
@@ -86,9 +96,7 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 
 		timer.schedule(new TimerTask() {
 			public void run() {
-				synchronized (m_agentMap) {
-					purge(m_agentMap);
-				}
+				purge();
 			}
 		}, 0, FLUSH_PERIOD);
 		final MessageDispatchRegistry messageDispatchRegistry = consoleCommunication.getMessageDispatchRegistry();
@@ -100,6 +108,13 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 					}
 				});
 
+		messageDispatchRegistry.set(AgentControllerHeartbeatMessage.class,
+				new AbstractHandler<AgentControllerHeartbeatMessage>() {
+					public void handle(AgentControllerHeartbeatMessage message) throws CommunicationException {
+						addAgentHeartbeat(message);
+					}
+				});
+
 		messageDispatchRegistry.set(LogReportGrinderMessage.class, new AbstractHandler<LogReportGrinderMessage>() {
 			public void handle(final LogReportGrinderMessage message) {
 				m_logListeners.apply(new Informer<LogArrivedListener>() {
@@ -127,7 +142,38 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	public void addAgentStatusReport(AgentControllerProcessReportMessage message) {
 		AgentStatus agentStatus = getAgentStatus(message.getAgentIdentity());
 		agentStatus.setAgentProcessStatus(message);
-		m_newData = true;
+		markUpdated(message.getAgentIdentity(), agentStatus);
+	}
+
+	/**
+	 * Apply the agent heartbeat to the last status report of the agent.
+	 *
+	 * @param message {@link AgentControllerHeartbeatMessage}
+	 * @throws CommunicationException if the message is not from an agent
+	 * @since 3.4
+	 */
+	public void addAgentHeartbeat(AgentControllerHeartbeatMessage message) throws CommunicationException {
+		AgentStatus agentStatus = getAgentStatus(message.getAgentIdentity());
+		agentStatus.applyHeartbeat(message);
+		if (!message.isIdle()) {
+			markUpdated(message.getAgentIdentity(), agentStatus);
+		}
+	}
+
+	private void markUpdated(AgentIdentity agentIdentity, AgentStatus agentStatus) {
+		agentStatus.m_revision = m_revision.incrementAndGet();
+		m_purgedAgents.remove(agentIdentity);
+		m_updatedAgents.add(agentIdentity);
+	}
+
+	/**
+	 * Get the revision of the latest agent status update.
+	 *
+	 * @return revision
+	 * @since 3.4
+	 */
+	public long getRevision() {
+		return m_revision.get();
 	}
 
 	/**
@@ -137,32 +183,38 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 * @return {@link AgentStatus}
 	 */
 	private AgentStatus getAgentStatus(AgentIdentity agentIdentity) {
-		synchronized (m_agentMap) {
-			final AgentStatus existing = m_agentMap.get(agentIdentity);
-			if (existing != null) {
-				m_agentMap.put(agentIdentity, existing);
-				return existing;
-			}
-
-			final AgentStatus created = new AgentStatus(agentIdentity);
-			m_agentMap.put(agentIdentity, created);
-			return created;
+		final AgentStatus existing = m_agentMap.get(agentIdentity);
+		if (existing != null) {
+			return existing;
 		}
+		final AgentStatus created = new AgentStatus(agentIdentity);
+		final AgentStatus raced = m_agentMap.putIfAbsent(agentIdentity, created);
+		return raced == null ? created : raced;
 	}
 
 	/**
 	 * Update agent status.
 	 */
 	private void update() {
-		if (!m_newData) {
+		if (m_updatedAgents.isEmpty() && m_purgedAgents.isEmpty()) {
 			return;
 		}
-
-		m_newData = false;
-
+		final List<AgentStatus> updated = newArrayList();
+		for (Iterator<AgentIdentity> iterator = m_updatedAgents.iterator(); iterator.hasNext(); ) {
+			AgentStatus each = m_agentMap.get(iterator.next());
+			iterator.remove();
+			if (each != null) {
+				updated.add(each);
+			}
+		}
+		final Set<AgentIdentity> purged = newHashSet();
+		for (Iterator<AgentIdentity> iterator = m_purgedAgents.iterator(); iterator.hasNext(); ) {
+			purged.add(iterator.next());
+			iterator.remove();
+		}
 		m_listeners.apply(new ListenerSupport.Informer<Listener>() {
 			public void inform(Listener l) {
-				l.update(new ConcurrentHashMap<AgentIdentity, AgentStatus>(m_agentMap));
+				l.update(updated, purged);
 			}
 		});
 	}
@@ -176,32 +228,25 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 */
 	interface Listener extends EventListener {
 		/**
-		 * Update agent status.
+		 * Update agent status. Only the agents changed since the previous update are given.
 		 *
-		 * @param agentMap agent map
+		 * @param updated statuses of the agents which are added or updated
+		 * @param purged  identities of the agents which are purged
 		 */
-		public void update(Map<AgentIdentity, AgentStatus> agentMap);
+		public void update(Collection<AgentStatus> updated, Set<AgentIdentity> purged);
 	}
 
 	/**
-	 * Callers are for synchronization.
-	 *
-	 * @param purgableMap map for {@link ProcessIdentity}
+	 * Purge the agents which haven't reported for a while. The status is removed only if it's not replaced
+	 * in the meantime, so the map doesn't need to be locked.
 	 */
-	private void purge(Map<? extends ProcessIdentity, ? extends Purgable> purgableMap) {
-
-		final Set<ProcessIdentity> zombies = new HashSet<ProcessIdentity>();
-
-		for (Entry<? extends ProcessIdentity, ? extends Purgable> entry : purgableMap.entrySet()) {
-			if (entry.getValue().shouldPurge()) {
-				zombies.add(entry.getKey());
+	private void purge() {
+		for (Entry<AgentIdentity, AgentStatus> entry : m_agentMap.entrySet()) {
+			if (entry.getValue().shouldPurge() && m_agentMap.remove(entry.getKey(), entry.getValue())) {
+				m_updatedAgents.remove(entry.getKey());
+				m_purgedAgents.add(entry.getKey());
 			}
 		}
-
-		if (zombies.size() > 0) {
-			purgableMap.keySet().removeAll(zombies);
-			m_newData = true;
-		}
 	}
 
 	private interface Purgable {
@@ -241,18 +286,6 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 		AgentReference(AgentControllerProcessReportMessage agentProcessReportMessage) {
 			this.m_agentProcessReportMessage = agentProcessReportMessage;
 		}
-
-		@Override
-		public boolean shouldPurge() {
-			final boolean purge = super.shouldPurge();
-			if (purge) {
-				// Protected against race with add since the caller holds
-				// m_agentIdentityToAgentAndWorkers, and we are about to be
-				// removed from m_agentIdentityToAgentAndWorkers.
-				m_agentMap.remove(m_agentProcessReportMessage.getAgentIdentity());
-			}
-			return purge;
-		}
 	}
 
 	/**
@@ -262,6 +295,7 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 */
 	public final class AgentStatus implements Purgable {
 		private volatile AgentReference m_agentReference;
+		private volatile long m_revision;
 
 		/**
 		 * Constructor.
@@ -300,6 +334,27 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 			m_agentReference = new AgentReference(message);
 		}
 
+		/**
+		 * Apply the heartbeat to the current agent process message.
+		 *
+		 * @param message heartbeat
+		 * @throws CommunicationException if the message is not from an agent
+		 * @since 3.4
+		 */
+		public void applyHeartbeat(AgentControllerHeartbeatMessage message) throws CommunicationException {
+			setAgentProcessStatus(message.apply(m_agentReference.m_agentProcessReportMessage));
+		}
+
+		/**
+		 * Get the revision of the last update on this status. The later update has the bigger revision.
+		 *
+		 * @return revision
+		 * @since 3.4
+		 */
+		public long getRevision() {
+			return m_revision;
+		}
+
 		public String getVersion() {
 			return m_agentReference == null ? null : m_agentReference.m_agentProcessReportMessage.getVersion();
 		}
@@ -373,9 +428,7 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 */
 	@Override
 	public int getNumberOfLiveAgents() {
-		synchronized (m_agentMap) {
-			return m_agentMap.size();
-		}
+		return m_agentMap.size();
 	}
 
 	/*
@@ -387,16 +440,14 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	@Override
 	public Set<AgentIdentity> getAgents(AgentControllerState state, int count) {
 		count = count == 0 ? Integer.MAX_VALUE : count;
-		synchronized (m_agentMap) {
-			int i = 0;
-			Set<AgentIdentity> agents = new HashSet<AgentIdentity>();
-			for (Map.Entry<AgentIdentity, AgentStatus> each : m_agentMap.entrySet()) {
-				if (each.getValue().getAgentControllerState().equals(state) && ++i <= count) {
-					agents.add(each.getKey());
-				}
+		int i = 0;
+		Set<AgentIdentity> agents = new HashSet<AgentIdentity>();
+		for (Map.Entry<AgentIdentity, AgentStatus> each : m_agentMap.entrySet()) {
+			if (each.getValue().getAgentControllerState().equals(state) && ++i <= count) {
+				agents.add(each.getKey());
 			}
-			return agents;
 		}
+		return agents;
 	}
 
 	/*
@@ -406,9 +457,7 @@ public class AgentProcessControlImplementation implements AgentProcessControl {
 	 */
 	@Override
 	public Set<AgentIdentity> getAllAgents() {
-		synchronized (m_agentMap) {
-			return m_agentMap.keySet();
-		}
+		return m_agentMap.keySet();
 	}
 
 	private static class UnknownAgentProcessReport extends AgentControllerProcessReportMessage {
@@ -0,0 +1,193 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.console.communication;
+
+import net.grinder.communication.Address;
+import net.grinder.console.model.ConsoleProperties;
+import net.grinder.message.console.ConsoleIngestLagMessage;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
+import net.grinder.statistics.TestStatisticsMap;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.Timer;
+import java.util.TimerTask;
+
+/**
+ * Measure how far the console is behind the reports of the worker processes and advertise it to
+ * the worker processes.
+ * <p/>
+ * The lag of each report is the time from its sending to its handling minus the smallest one seen
+ * from the same worker, which absorbs the clock difference and the network latency. The largest
+ * lag in each {@link #ADVERTISE_INTERVAL} is sent to the agents as the
+ * {@link ConsoleIngestLagMessage}, and the agents pass it on to their workers. It's sent only when
+ * it changed by {@link #MIN_LAG_CHANGE} ms or more, or {@link #REFRESH_INTERVAL} ms passed.
+ * <p/>
+ * The statistics of the coalesced report intervals are replayed with their original spacing from
+ * the arrival of the report, so each interval falls into its own console sample instead of all of
+ * them landing in one sample. The spacing comes from the worker's timestamps only, so the clock
+ * difference doesn't matter. The state is reset whenever the console starts or stops sampling.
+ *
+ * @since 3.4
+ */
+public class ReportLagMonitor {
+	static final long ADVERTISE_INTERVAL = 1000;
+	static final long REFRESH_INTERVAL = 10000;
+	static final long MIN_LAG_CHANGE = 100;
+
+	private final ConsoleCommunication communication;
+	private final ConsoleProperties properties;
+	private final Timer timer;
+	private final Map<Address, Long> baselines = new HashMap<Address, Long>();
+	private final Set<TimerTask> replays = new HashSet<TimerTask>();
+	private long windowLag = -1;
+	private long advertisedLag = 0;
+	private long advertisedTime = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param communication console communication
+	 * @param properties    console properties
+	 * @param timer         console timer
+	 */
+	public ReportLagMonitor(ConsoleCommunication communication, ConsoleProperties properties, Timer timer) {
+		this.communication = communication;
+		this.properties = properties;
+		this.timer = timer;
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				advertise();
+			}
+		}, ADVERTISE_INTERVAL, ADVERTISE_INTERVAL);
+	}
+
+	/**
+	 * Record the lag of the given report which is being handled now, and pass its statistics to the
+	 * given sink at the times relative to the first interval in the report.
+	 *
+	 * @param message report
+	 * @param sink    sink of the statistics
+	 */
+	public void record(ReportStatisticsBatchMessage message, ReportSink sink) {
+		record(message.getAddress(), message.getSentTime(), System.currentTimeMillis());
+		for (int i = 0; i < message.size(); i++) {
+			long delay = message.getTimestamp(i) - message.getTimestamp(0);
+			if (delay <= 0) {
+				sink.addTestReport(message.getStatisticsDelta(i));
+			} else {
+				replay(message.getStatisticsDelta(i), sink, delay);
+			}
+		}
+	}
+
+	private void replay(final TestStatisticsMap statisticsDelta, final ReportSink sink, long delay) {
+		TimerTask task = new TimerTask() {
+			@Override
+			public void run() {
+				boolean pending;
+				synchronized (replays) {
+					pending = replays.remove(this);
+				}
+				if (pending) {
+					sink.addTestReport(statisticsDelta);
+				}
+			}
+		};
+		synchronized (replays) {
+			replays.add(task);
+		}
+		timer.schedule(task, delay);
+	}
+
+	/**
+	 * Forget the workers of the previous test and drop the statistics which are not replayed yet.
+	 */
+	public void reset() {
+		synchronized (replays) {
+			for (TimerTask each : replays) {
+				each.cancel();
+			}
+			replays.clear();
+		}
+		synchronized (this) {
+			baselines.clear();
+			windowLag = -1;
+			advertisedLag = 0;
+			advertisedTime = 0;
+		}
+	}
+
+	synchronized void record(Address address, long sentTime, long handledTime) {
+		long delay = handledTime - sentTime;
+		Long baseline = baselines.get(address);
+		if (baseline == null || delay < baseline) {
+			baseline = delay;
+			baselines.put(address, baseline);
+		}
+		windowLag = Math.max(windowLag, delay - baseline);
+	}
+
+	private void advertise() {
+		ConsoleIngestLagMessage message = poll(System.currentTimeMillis());
+		if (message != null) {
+			communication.sendToAgents(message);
+		}
+	}
+
+	/**
+	 * Close the current window and get the message to be advertised.
+	 *
+	 * @param now current time
+	 * @return message. null if nothing should be sent.
+	 */
+	synchronized ConsoleIngestLagMessage poll(long now) {
+		if (windowLag < 0) {
+			// No worker reports in batches to this console.
+			return null;
+		}
+		long lag = windowLag;
+		windowLag = -1;
+		if (Math.abs(lag - advertisedLag) < MIN_LAG_CHANGE && now - advertisedTime < REFRESH_INTERVAL) {
+			return null;
+		}
+		advertisedLag = lag;
+		advertisedTime = now;
+		return new ConsoleIngestLagMessage(lag, properties.getSampleInterval());
+	}
+
+	/**
+	 * Get the lag advertised lastly.
+	 *
+	 * @return lag in ms
+	 */
+	public synchronized long getIngestLag() {
+		return advertisedLag;
+	}
+
+	/**
+	 * Receiver of the statistics in the reports.
+	 */
+	public interface ReportSink {
+		/**
+		 * Add the statistics of a report interval.
+		 *
+		 * @param statisticsDelta statistics
+		 */
+		void addTestReport(TestStatisticsMap statisticsDelta);
+	}
+}
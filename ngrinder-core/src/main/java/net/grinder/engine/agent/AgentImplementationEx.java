@@ -78,6 +78,11 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 	 */
 	private volatile FileStore m_fileStore;
 
+	/**
+	 * Rebuilds the big files distributed through the peers. It's created along with the file store.
+	 */
+	private volatile PeerFileDistributionHandler m_peerDistributionHandler;
+
 	private final AgentConfig m_agentConfig;
 
 	/**
@@ -195,7 +200,9 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 							// The script directory may not be the file's direct parent.
 							script = new ScriptLocation(fileStoreDirectory, consoleScript);
 						}
-						m_agentIdentity.setNumber(startMessage.getAgentNumber());
+						// The shard consoles number their agents from 0, so each shard shifts the numbers.
+						m_agentIdentity.setNumber(startMessage.getAgentNumber()
+								+ properties.getInt(GrinderConstants.GRINDER_PROP_AGENT_NUMBER_OFFSET, 0));
 					} else {
 						m_agentIdentity.setNumber(-1);
 					}
@@ -335,6 +342,9 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 				m_timer = null;
 			}
 			shutdownConsoleCommunication(consoleCommunication);
+			if (m_peerDistributionHandler != null) {
+				m_peerDistributionHandler.shutdown();
+			}
 			if (m_fanOutStreamSender != null) {
 				m_fanOutStreamSender.shutdown();
 				m_fanOutStreamSender = null;
@@ -451,6 +461,9 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 		if (m_fanOutStreamSender != null) {
 			m_fanOutStreamSender.shutdown();
 		}
+		if (m_peerDistributionHandler != null) {
+			m_peerDistributionHandler.shutdown();
+		}
 		m_consoleListener.shutdown();
 
 		if (m_workerLauncherForShutdown != null && !m_workerLauncherForShutdown.allFinished()) {
@@ -502,6 +515,8 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 				File base = m_agentConfig.getHome().getDirectory();
 				File directory = new File(new File(base, "file-store"), user);
 				m_fileStore = new FileStore(directory, m_logger);
+				m_peerDistributionHandler = new PeerFileDistributionHandler(new File(base, "peer-cache"),
+						m_agentConfig.getRegion(), m_logger);
 			}
 
 			m_sender.send(new AgentProcessReportMessage(ProcessReport.STATE_STARTED, m_fileStore
@@ -518,7 +533,12 @@ public class AgentImplementationEx implements Agent, AgentConstants {
 			fileStoreMessageDispatcher.addFallback(new TeeSender(messageDispatcher, new IgnoreShutdownSender(
 					m_fanOutStreamSender)));
 
-			m_messagePump = new MessagePump(receiver, fileStoreMessageDispatcher, 1);
+			// The files in the peer manifest are rebuilt before the manifest itself reaches the file store.
+			final MessageDispatchSender peerMessageDispatcher = new MessageDispatchSender();
+			m_peerDistributionHandler.registerMessageHandlers(peerMessageDispatcher, fileStoreMessageDispatcher);
+			peerMessageDispatcher.addFallback(fileStoreMessageDispatcher);
+
+			m_messagePump = new MessagePump(receiver, peerMessageDispatcher, 1);
 
 			m_reportRunningTask = new TimerTask() {
 				public void run() {
@@ -14,6 +14,7 @@
 package net.grinder.engine.agent;
 
 import net.grinder.common.GrinderProperties;
+import net.grinder.common.UncheckedInterruptedException;
 import net.grinder.communication.FanOutStreamSender;
 import net.grinder.engine.common.ScriptLocation;
 import net.grinder.lang.AbstractLanguageHandler;
@@ -31,6 +32,8 @@ import org.slf4j.LoggerFactory;
 
 import java.io.*;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import static org.ngrinder.common.util.NoOp.noOp;
 
@@ -48,6 +51,12 @@ public class LocalScriptTestDriveService {
 	private static final Logger LOGGER = LoggerFactory.getLogger(LocalScriptTestDriveService.class);
 	public static final int DEFAULT_TIMEOUT = 100;
 
+	/**
+	 * The class paths derived from the current class loader don't change while running. They are
+	 * built once per language instead of scanning the class loader on every validation.
+	 */
+	private final ConcurrentMap<Lang, String[]> classPathCache = new ConcurrentHashMap<Lang, String[]>();
+
 	/**
 	 * Validate script with 100 sec timeout.
 	 *
@@ -91,8 +100,7 @@ public class LocalScriptTestDriveService {
 			fanOutStreamSender = new FanOutStreamSender(1);
 			deleteLogs(base);
 
-			AbstractLanguageHandler handler = Lang.getByFileName(script).getHandler();
-			AbstractGrinderClassPathProcessor classPathProcessor = handler.getClassPathProcessor();
+			String[] classPaths = getClassPaths(Lang.getByFileName(script));
 			GrinderProperties properties = new GrinderProperties();
 			PropertyBuilder builder = new PropertyBuilder(properties, new Directory(base), securityEnabled, hostString,
 					NetworkUtils.getLocalHostName());
@@ -100,14 +108,13 @@ public class LocalScriptTestDriveService {
 			properties.setInt("grinder.processes", 1);
 			properties.setInt("grinder.threads", 1);
 			properties.setBoolean("grinder.script.validation", true);
-			String grinderJVMClassPath = classPathProcessor.buildForemostClasspathBasedOnCurrentClassLoader(LOGGER)
-					+ File.pathSeparator + classPathProcessor.buildPatchClasspathBasedOnCurrentClassLoader(LOGGER)
+			String grinderJVMClassPath = classPaths[0] + File.pathSeparator + classPaths[1]
 					+ File.pathSeparator + builder.buildCustomClassPath(true);
 			properties.setProperty("grinder.jvm.classpath", grinderJVMClassPath);
 			LOGGER.info("grinder.jvm.classpath  : {} ", grinderJVMClassPath);
 			AgentIdentityImplementation agentIdentity = new AgentIdentityImplementation("validation");
 			agentIdentity.setNumber(0);
-			String newClassPath = classPathProcessor.buildClasspathBasedOnCurrentClassLoader(LOGGER);
+			String newClassPath = classPaths[2];
 			LOGGER.debug("validation class path " + newClassPath);
 			Properties systemProperties = new Properties();
 			systemProperties.put("java.class.path", base.getAbsolutePath() + File.pathSeparator + newClassPath);
@@ -141,7 +148,14 @@ public class LocalScriptTestDriveService {
 						stopByTooMuchExecution = true;
 						break;
 					}
-					eventSynchronisation.waitNoInterrruptException(sleep);
+					try {
+						eventSynchronisation.waitNoInterrruptException(sleep);
+					} catch (UncheckedInterruptedException e) {
+						// The caller gave up on the validation.
+						LOGGER.error("Validation of {} is interrupted. Stop it by force", script);
+						workerLauncher.destroyAllWorkers();
+						break;
+					}
 				}
 			}
 		} catch (Exception e) {
@@ -185,6 +199,21 @@ public class LocalScriptTestDriveService {
 		return file;
 	}
 
+	private String[] getClassPaths(Lang lang) {
+		String[] classPaths = classPathCache.get(lang);
+		if (classPaths == null) {
+			AbstractLanguageHandler handler = lang.getHandler();
+			AbstractGrinderClassPathProcessor classPathProcessor = handler.getClassPathProcessor();
+			classPaths = new String[]{
+					classPathProcessor.buildForemostClasspathBasedOnCurrentClassLoader(LOGGER),
+					classPathProcessor.buildPatchClasspathBasedOnCurrentClassLoader(LOGGER),
+					classPathProcessor.buildClasspathBasedOnCurrentClassLoader(LOGGER)
+			};
+			classPathCache.put(lang, classPaths);
+		}
+		return classPaths;
+	}
+
 	@SuppressWarnings("ResultOfMethodCallIgnored")
 	private void deleteLogs(File base) {
 		base.listFiles(new FileFilter() {
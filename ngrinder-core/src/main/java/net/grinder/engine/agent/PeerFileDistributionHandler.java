@@ -0,0 +1,248 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.engine.agent;
+
+import net.grinder.common.GrinderException;
+import net.grinder.communication.CommunicationException;
+import net.grinder.communication.MessageDispatchRegistry;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
+import net.grinder.communication.Sender;
+import net.grinder.messages.agent.DistributeFileMessage;
+import net.grinder.util.Directory;
+import net.grinder.util.FileContents;
+import net.grinder.util.peer.PeerChunkClient;
+import net.grinder.util.peer.PeerChunkServer;
+import net.grinder.util.peer.PeerManifest;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.slf4j.Logger;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.CollectionUtils.newHashSet;
+
+/**
+ * Handler which rebuilds the files listed in the {@link PeerManifest} distributed by the console.
+ * <p/>
+ * When the manifest arrives, the chunks of the listed files are fetched from the seed or from the
+ * peers and verified, and the rebuilt files are passed to the {@link FileStore} as if the console
+ * distributed them. The messages are handled in order, so the cache state reported to the console
+ * covers the rebuilt files. When any file can not be rebuilt, the manifest is not passed to the file
+ * store, so the cache state stays out of date and the console fails the distribution. The fetched
+ * chunks are kept in the cache directory and relayed to the other agents.
+ *
+ * @since 3.4
+ */
+class PeerFileDistributionHandler {
+	private static final int FETCH_THREAD_COUNT = 4;
+	private static final String STAGING_DIRECTORY = "staging";
+
+	private final File cacheDirectory;
+	private final String region;
+	private final Logger logger;
+	private PeerChunkServer server;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param cacheDirectory directory where the fetched chunks are kept
+	 * @param region         region of this agent. Only the agents in the same region relay the chunks to each other.
+	 * @param logger         logger
+	 */
+	PeerFileDistributionHandler(File cacheDirectory, String region, Logger logger) {
+		this.cacheDirectory = cacheDirectory;
+		this.region = region;
+		this.logger = logger;
+	}
+
+	/**
+	 * Register the handler of the file distribution messages. All the messages are passed to the given file store
+	 * sender after the manifest is handled. The manifest itself is passed only when all the listed files are
+	 * rebuilt.
+	 *
+	 * @param messageDispatcher message dispatcher
+	 * @param fileStoreSender   sender to the file store
+	 */
+	void registerMessageHandlers(MessageDispatchRegistry messageDispatcher, final Sender fileStoreSender) {
+		messageDispatcher.set(DistributeFileMessage.class, new AbstractHandler<DistributeFileMessage>() {
+			@Override
+			public void handle(DistributeFileMessage message) throws CommunicationException {
+				FileContents fileContents = message.getFileContents();
+				if (PeerManifest.FILE_NAME.equals(fileContents.getFilename().getPath())
+						&& !distribute(fileContents, fileStoreSender)) {
+					return;
+				}
+				fileStoreSender.send(message);
+			}
+		});
+	}
+
+	private boolean distribute(FileContents manifestContents, Sender fileStoreSender) {
+		File stagingDirectory = new File(cacheDirectory, STAGING_DIRECTORY);
+		FileUtils.deleteQuietly(stagingDirectory);
+		try {
+			FileUtils.forceMkdir(stagingDirectory);
+			manifestContents.create(new Directory(stagingDirectory));
+			PeerManifest manifest = PeerManifest.read(new File(stagingDirectory, PeerManifest.FILE_NAME));
+			logger.info("Fetching {} files from the peers", manifest.getEntries().size());
+			PeerChunkServer chunkServer = getServer();
+			removeStaleChunks(manifest, chunkServer);
+			fetchChunks(manifest, new PeerChunkClient(manifest.getSeedHost(), manifest.getSeedPort(), region,
+					chunkServer.getPort()), chunkServer);
+			for (PeerManifest.Entry each : manifest.getEntries()) {
+				File file = toRelativeFile(each.getPath());
+				File staged = new File(stagingDirectory, file.getPath());
+				rebuild(each, staged);
+				fileStoreSender.send(new DistributeFileMessage(new FileContents(stagingDirectory, file)));
+				FileUtils.deleteQuietly(staged);
+			}
+			return true;
+		} catch (IOException e) {
+			logger.error("Error while fetching the files from the peers : {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		} catch (GrinderException e) {
+			logger.error("Error while storing the files fetched from the peers : {}", e.getMessage());
+			logger.debug("The error detail is ", e);
+		} finally {
+			FileUtils.deleteQuietly(stagingDirectory);
+		}
+		return false;
+	}
+
+	private void removeStaleChunks(PeerManifest manifest, PeerChunkServer chunkServer) {
+		chunkServer.clearChunks();
+		Set<String> hashes = newHashSet();
+		for (PeerManifest.Entry each : manifest.getEntries()) {
+			hashes.addAll(each.getHashes());
+		}
+		File[] files = cacheDirectory.listFiles();
+		for (File each : files == null ? new File[0] : files) {
+			if (each.isFile() && !hashes.contains(each.getName())) {
+				FileUtils.deleteQuietly(each);
+			}
+		}
+	}
+
+	private void fetchChunks(PeerManifest manifest, final PeerChunkClient client, final PeerChunkServer chunkServer)
+			throws IOException {
+		ExecutorService executor = Executors.newFixedThreadPool(FETCH_THREAD_COUNT);
+		try {
+			List<Future<Void>> fetches = newArrayList();
+			Set<String> requested = newHashSet();
+			for (PeerManifest.Entry each : manifest.getEntries()) {
+				List<String> hashes = each.getHashes();
+				for (int i = 0; i < hashes.size(); i++) {
+					final String hash = hashes.get(i);
+					final int length = manifest.getChunkLength(each, i);
+					if (requested.add(hash)) {
+						fetches.add(executor.submit(new Callable<Void>() {
+							@Override
+							public Void call() throws IOException {
+								fetchChunk(client, chunkServer, hash, length);
+								return null;
+							}
+						}));
+					}
+				}
+			}
+			for (Future<Void> each : fetches) {
+				each.get();
+			}
+		} catch (ExecutionException e) {
+			throw new IOException(e.getCause().getMessage(), e.getCause());
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IOException("Fetching the chunks is interrupted", e);
+		} finally {
+			executor.shutdownNow();
+		}
+	}
+
+	private void fetchChunk(PeerChunkClient client, PeerChunkServer chunkServer, String hash, int length)
+			throws IOException {
+		File chunk = new File(cacheDirectory, hash);
+		if (!isCached(chunk, hash, length)) {
+			FileUtils.writeByteArrayToFile(chunk, client.fetch(hash, length));
+		}
+		chunkServer.addChunk(hash, chunk, 0, length);
+		client.announce(hash);
+	}
+
+	private boolean isCached(File chunk, String hash, int length) throws IOException {
+		if (chunk.length() != length) {
+			return false;
+		}
+		byte[] data = FileUtils.readFileToByteArray(chunk);
+		return hash.equals(PeerManifest.hash(data, 0, data.length));
+	}
+
+	private void rebuild(PeerManifest.Entry entry, File target) throws IOException {
+		FileUtils.forceMkdir(target.getParentFile());
+		OutputStream output = new BufferedOutputStream(new FileOutputStream(target));
+		try {
+			for (String each : entry.getHashes()) {
+				InputStream input = new FileInputStream(new File(cacheDirectory, each));
+				try {
+					IOUtils.copy(input, output);
+				} finally {
+					IOUtils.closeQuietly(input);
+				}
+			}
+			output.close();
+		} finally {
+			IOUtils.closeQuietly(output);
+		}
+	}
+
+	private File toRelativeFile(String path) throws IOException {
+		File file = new File(path.replace('/', File.separatorChar));
+		if (path.startsWith("/") || file.isAbsolute() || Arrays.asList(path.split("/")).contains("..")) {
+			throw new IOException(path + " is not a valid relative path");
+		}
+		return file;
+	}
+
+	private synchronized PeerChunkServer getServer() throws IOException {
+		if (server == null) {
+			server = new PeerChunkServer(0);
+			server.start();
+		}
+		return server;
+	}
+
+	/**
+	 * Stop relaying the chunks.
+	 */
+	synchronized void shutdown() {
+		if (server != null) {
+			server.shutdown();
+			server = null;
+		}
+	}
+}
@@ -0,0 +1,277 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.message.console;
+
+import net.grinder.common.processidentity.AgentIdentity;
+import net.grinder.communication.Address;
+import net.grinder.communication.AddressAwareMessage;
+import net.grinder.communication.CommunicationException;
+import net.grinder.messages.console.AgentAddress;
+import org.apache.commons.lang.ObjectUtils;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+
+/**
+ * Compact heartbeat of the agent controller.
+ * <p/>
+ * It carries only the fields changed since the previous {@link AgentControllerProcessReportMessage}
+ * sent on the same connection, and the console applies them to the last report of the agent. The
+ * changed fields are written by hand after the change mask instead of the default serialization.
+ *
+ * @since 3.4
+ */
+public class AgentControllerHeartbeatMessage implements AddressAwareMessage, Externalizable {
+
+	private static final long serialVersionUID = 1L;
+
+	private static final int STATE = 1;
+	private static final int CONNECTING_PORT = 1 << 1;
+	private static final int VERSION = 1 << 2;
+	private static final int SYSTEM = 1 << 3;
+	private static final int COLLECT_TIME = 1 << 4;
+	private static final int FREE_MEMORY = 1 << 5;
+	private static final int TOTAL_MEMORY = 1 << 6;
+	private static final int CPU_USED_PERCENTAGE = 1 << 7;
+	private static final int RECEIVED_PER_SEC = 1 << 8;
+	private static final int SENT_PER_SEC = 1 << 9;
+	private static final int CUSTOM_VALUES = 1 << 10;
+
+	private transient AgentAddress m_processAddress;
+
+	private int changes;
+	private AgentControllerState state;
+	private int connectingPort;
+	private String version;
+	private String system;
+	private long collectTime;
+	private long freeMemory;
+	private long totalMemory;
+	private float cpuUsedPercentage;
+	private long receivedPerSec;
+	private long sentPerSec;
+	private String customValues;
+
+	/**
+	 * Constructor for the deserialization.
+	 */
+	public AgentControllerHeartbeatMessage() {
+	}
+
+	/**
+	 * Create the heartbeat which carries the difference between the given reports.
+	 *
+	 * @param previous report sent previously
+	 * @param current  current report
+	 */
+	public AgentControllerHeartbeatMessage(AgentControllerProcessReportMessage previous,
+										   AgentControllerProcessReportMessage current) {
+		SystemDataModel before = previous.getSystemDataModel();
+		SystemDataModel after = current.getSystemDataModel();
+		state = current.getState();
+		connectingPort = current.getConnectingPort();
+		version = current.getVersion();
+		system = after.getSystem();
+		collectTime = after.getCollectTime();
+		freeMemory = after.getFreeMemory();
+		totalMemory = after.getTotalMemory();
+		cpuUsedPercentage = after.getCpuUsedPercentage();
+		receivedPerSec = after.getReceivedPerSec();
+		sentPerSec = after.getSentPerSec();
+		customValues = after.getCustomValues();
+		mark(STATE, state != previous.getState());
+		mark(CONNECTING_PORT, connectingPort != previous.getConnectingPort());
+		mark(VERSION, !ObjectUtils.equals(version, previous.getVersion()));
+		mark(SYSTEM, !ObjectUtils.equals(system, before.getSystem()));
+		mark(COLLECT_TIME, collectTime != before.getCollectTime());
+		mark(FREE_MEMORY, freeMemory != before.getFreeMemory());
+		mark(TOTAL_MEMORY, totalMemory != before.getTotalMemory());
+		mark(CPU_USED_PERCENTAGE, Float.compare(cpuUsedPercentage, before.getCpuUsedPercentage()) != 0);
+		mark(RECEIVED_PER_SEC, receivedPerSec != before.getReceivedPerSec());
+		mark(SENT_PER_SEC, sentPerSec != before.getSentPerSec());
+		mark(CUSTOM_VALUES, !ObjectUtils.equals(customValues, before.getCustomValues()));
+	}
+
+	/**
+	 * Check if the heartbeat can be made from the given reports.
+	 *
+	 * @param previous report sent previously. null if nothing was sent.
+	 * @param current  current report
+	 * @return true if both reports have the system data
+	 */
+	public static boolean isApplicable(AgentControllerProcessReportMessage previous,
+									   AgentControllerProcessReportMessage current) {
+		return previous != null && previous.getSystemDataModel() != null && current.getSystemDataModel() != null;
+	}
+
+	private void mark(int field, boolean changed) {
+		if (changed) {
+			changes |= field;
+		}
+	}
+
+	private boolean isChanged(int field) {
+		return (changes & field) != 0;
+	}
+
+	/**
+	 * Apply the changes to the given report.
+	 *
+	 * @param previous last report of the agent
+	 * @return new report which has the changes applied
+	 * @throws CommunicationException if the address of this message is not an agent address
+	 */
+	public AgentControllerProcessReportMessage apply(AgentControllerProcessReportMessage previous)
+			throws CommunicationException {
+		SystemDataModel before = previous.getSystemDataModel() == null ? new SystemDataModel() :
+				previous.getSystemDataModel();
+		String mergedVersion = isChanged(VERSION) ? version : previous.getVersion();
+		SystemDataModel after = new SystemDataModel();
+		after.setSystem(isChanged(SYSTEM) ? system : before.getSystem());
+		after.setCollectTime(isChanged(COLLECT_TIME) ? collectTime : before.getCollectTime());
+		after.setFreeMemory(isChanged(FREE_MEMORY) ? freeMemory : before.getFreeMemory());
+		after.setTotalMemory(isChanged(TOTAL_MEMORY) ? totalMemory : before.getTotalMemory());
+		after.setCpuUsedPercentage(isChanged(CPU_USED_PERCENTAGE) ? cpuUsedPercentage :
+				before.getCpuUsedPercentage());
+		after.setReceivedPerSec(isChanged(RECEIVED_PER_SEC) ? receivedPerSec : before.getReceivedPerSec());
+		after.setSentPerSec(isChanged(SENT_PER_SEC) ? sentPerSec : before.getSentPerSec());
+		after.setCustomValues(isChanged(CUSTOM_VALUES) ? customValues : before.getCustomValues());
+		after.setVersion(mergedVersion);
+		AgentControllerProcessReportMessage merged = new AgentControllerProcessReportMessage(
+				isChanged(STATE) ? state : previous.getState(), after,
+				isChanged(CONNECTING_PORT) ? connectingPort : previous.getConnectingPort(), mergedVersion);
+		merged.setAddress(m_processAddress);
+		return merged;
+	}
+
+	@Override
+	public void writeExternal(ObjectOutput out) throws IOException {
+		out.writeShort(changes);
+		if (isChanged(STATE)) {
+			out.writeByte(state.ordinal());
+		}
+		if (isChanged(CONNECTING_PORT)) {
+			out.writeInt(connectingPort);
+		}
+		if (isChanged(VERSION)) {
+			writeString(out, version);
+		}
+		if (isChanged(SYSTEM)) {
+			writeString(out, system);
+		}
+		if (isChanged(COLLECT_TIME)) {
+			out.writeLong(collectTime);
+		}
+		if (isChanged(FREE_MEMORY)) {
+			out.writeLong(freeMemory);
+		}
+		if (isChanged(TOTAL_MEMORY)) {
+			out.writeLong(totalMemory);
+		}
+		if (isChanged(CPU_USED_PERCENTAGE)) {
+			out.writeFloat(cpuUsedPercentage);
+		}
+		if (isChanged(RECEIVED_PER_SEC)) {
+			out.writeLong(receivedPerSec);
+		}
+		if (isChanged(SENT_PER_SEC)) {
+			out.writeLong(sentPerSec);
+		}
+		if (isChanged(CUSTOM_VALUES)) {
+			writeString(out, customValues);
+		}
+	}
+
+	@Override
+	public void readExternal(ObjectInput in) throws IOException {
+		changes = in.readShort();
+		if (isChanged(STATE)) {
+			state = AgentControllerState.values()[in.readByte()];
+		}
+		if (isChanged(CONNECTING_PORT)) {
+			connectingPort = in.readInt();
+		}
+		if (isChanged(VERSION)) {
+			version = readString(in);
+		}
+		if (isChanged(SYSTEM)) {
+			system = readString(in);
+		}
+		if (isChanged(COLLECT_TIME)) {
+			collectTime = in.readLong();
+		}
+		if (isChanged(FREE_MEMORY)) {
+			freeMemory = in.readLong();
+		}
+		if (isChanged(TOTAL_MEMORY)) {
+			totalMemory = in.readLong();
+		}
+		if (isChanged(CPU_USED_PERCENTAGE)) {
+			cpuUsedPercentage = in.readFloat();
+		}
+		if (isChanged(RECEIVED_PER_SEC)) {
+			receivedPerSec = in.readLong();
+		}
+		if (isChanged(SENT_PER_SEC)) {
+			sentPerSec = in.readLong();
+		}
+		if (isChanged(CUSTOM_VALUES)) {
+			customValues = readString(in);
+		}
+	}
+
+	private static void writeString(ObjectOutput out, String value) throws IOException {
+		out.writeBoolean(value != null);
+		if (value != null) {
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readString(ObjectInput in) throws IOException {
+		return in.readBoolean() ? in.readUTF() : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void setAddress(Address address) throws CommunicationException {
+		try {
+			m_processAddress = (AgentAddress) address;
+		} catch (ClassCastException e) {
+			throw new CommunicationException("Not an agent process address", e);
+		}
+	}
+
+	/**
+	 * Accessor for the process identity.
+	 *
+	 * @return The process identity.
+	 */
+	public AgentIdentity getAgentIdentity() {
+		return m_processAddress.getIdentity();
+	}
+
+	/**
+	 * Check if nothing but the collect time is changed.
+	 *
+	 * @return true if only the collect time is changed
+	 */
+	public boolean isIdle() {
+		return (changes & ~COLLECT_TIME) == 0;
+	}
+}
@@ -15,6 +15,8 @@ package net.grinder.util;
 
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.output.ByteArrayOutputStream;
+import org.ngrinder.eventlog.RequestEventWriter;
+import org.ngrinder.profile.WorkerProfiler;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -67,6 +69,12 @@ public abstract class LogCompressUtils {
 					ZipEntry zipEntry = new ZipEntry(each.getName());
 					zipEntry.setTime(each.lastModified());
 					zos.putNextEntry(zipEntry);
+					if (isBinaryLog(each.getName())) {
+						// Binary logs such as request events and profiles should be kept as they are.
+						IOUtils.copy(fis, zos);
+						zos.closeEntry();
+						continue;
+					}
 					char[] buffer = new char[COMPRESS_BUFFER_SIZE];
 					int count;
 					while ((count = isr.read(buffer, 0, COMPRESS_BUFFER_SIZE)) != -1) {
@@ -97,6 +105,11 @@ public abstract class LogCompressUtils {
 		}
 	}
 
+	private static boolean isBinaryLog(String fileName) {
+		return fileName.endsWith(RequestEventWriter.FILE_EXTENSION) || fileName.endsWith(WorkerProfiler.FILE_EXTENSION)
+				|| fileName.endsWith(WorkerProfiler.JFR_FILE_EXTENSION);
+	}
+
 	/**
 	 * Compress the given file with the system encoding.
 	 *
@@ -152,8 +165,11 @@ public abstract class LogCompressUtils {
 			byte[] buffer = new byte[COMPRESS_BUFFER_SIZE];
 			int count;
 			long total = 0;
-			checkNotNull(zipInputStream.getNextEntry(), "In zip, it should have at least one entry");
+			ZipEntry entry = checkNotNull(zipInputStream.getNextEntry(), "In zip, it should have at least one entry");
 			do {
+				if (isBinaryLog(entry.getName())) {
+					continue;
+				}
 				while ((count = zipInputStream.read(buffer, 0, COMPRESS_BUFFER_SIZE)) != -1) {
 					total += count;
 					if (total >= limit) {
@@ -161,7 +177,7 @@ public abstract class LogCompressUtils {
 					}
 					outputStream.write(buffer, 0, count);
 				}
-			} while (zipInputStream.getNextEntry() != null);
+			} while ((entry = zipInputStream.getNextEntry()) != null);
 			outputStream.flush();
 		} catch (IOException e) {
 			LOGGER.error("Error occurs while decompressing {}", e.getMessage());
@@ -0,0 +1,159 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.peer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Client which fetches the chunks from the seed, or from the peer to which the seed redirects.
+ * <p/>
+ * Every fetched chunk is verified with its hash. When the peer fails or returns a corrupted chunk, the chunk is
+ * fetched from the seed directly.
+ *
+ * @since 3.4
+ */
+public class PeerChunkClient {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PeerChunkClient.class);
+	private static final int CONNECTION_TIMEOUT = 5000;
+
+	private final String seedHost;
+	private final int seedPort;
+	private final String region;
+	private final int localPort;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seedHost  seed host
+	 * @param seedPort  seed port
+	 * @param region    region of the requester
+	 * @param localPort port of the requester's own {@link PeerChunkServer}. 0 if the requester does not relay.
+	 */
+	public PeerChunkClient(String seedHost, int seedPort, String region, int localPort) {
+		this.seedHost = seedHost;
+		this.seedPort = seedPort;
+		this.region = StringUtils.defaultString(region);
+		this.localPort = localPort;
+	}
+
+	/**
+	 * Fetch the chunk of the given hash.
+	 *
+	 * @param hash   chunk hash
+	 * @param length chunk length
+	 * @return verified chunk
+	 * @throws IOException occurs when no valid chunk is available
+	 */
+	public byte[] fetch(String hash, int length) throws IOException {
+		Response response = request(seedHost, seedPort, hash, length, false);
+		if (response.redirectHost != null) {
+			try {
+				byte[] relayed = request(response.redirectHost, response.redirectPort, hash, length, true).data;
+				if (isValid(relayed, hash, length)) {
+					return relayed;
+				}
+				LOGGER.debug("Chunk {} is not available in {}:{}", new Object[]{hash, response.redirectHost,
+						response.redirectPort});
+			} catch (IOException e) {
+				LOGGER.debug("Error while fetching chunk {} from {}:{} : {}", new Object[]{hash,
+						response.redirectHost, response.redirectPort, e.getMessage()});
+			}
+			response = request(seedHost, seedPort, hash, length, true);
+		}
+		if (!isValid(response.data, hash, length)) {
+			throw new IOException("Chunk " + hash + " is not available or corrupted in the seed");
+		}
+		return response.data;
+	}
+
+	/**
+	 * Announce to the seed that the requester's own server holds the verified chunk of the given hash, so that the
+	 * seed may redirect the other requesters to it. Nothing is announced if the requester does not relay.
+	 *
+	 * @param hash chunk hash
+	 */
+	public void announce(String hash) {
+		if (localPort <= 0) {
+			return;
+		}
+		Socket socket = new Socket();
+		try {
+			connect(socket, seedHost, seedPort, PeerChunkServer.REQUEST_HAVE, hash).flush();
+			new DataInputStream(socket.getInputStream()).readByte();
+		} catch (IOException e) {
+			LOGGER.debug("Error while announcing chunk {} to the seed : {}", hash, e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(socket);
+		}
+	}
+
+	private DataOutputStream connect(Socket socket, String host, int port, byte type, String hash)
+			throws IOException {
+		socket.connect(new InetSocketAddress(host, port), CONNECTION_TIMEOUT);
+		socket.setSoTimeout(PeerChunkServer.SOCKET_TIMEOUT);
+		DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+		output.writeByte(type);
+		output.writeUTF(hash);
+		output.writeUTF(region);
+		output.writeInt(localPort);
+		return output;
+	}
+
+	private boolean isValid(byte[] data, String hash, int length) {
+		return data != null && data.length == length && hash.equals(PeerManifest.hash(data, 0, data.length));
+	}
+
+	private Response request(String host, int port, String hash, int length, boolean direct) throws IOException {
+		Socket socket = new Socket();
+		try {
+			DataOutputStream output = connect(socket, host, port, PeerChunkServer.REQUEST_FETCH, hash);
+			output.writeBoolean(direct);
+			output.flush();
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			Response response = new Response();
+			byte type = input.readByte();
+			if (type == PeerChunkServer.DATA) {
+				int size = input.readInt();
+				if (size != length) {
+					throw new IOException("Chunk " + hash + " has " + size + " bytes but " + length + " is expected");
+				}
+				response.data = new byte[size];
+				input.readFully(response.data);
+			} else if (type == PeerChunkServer.REDIRECT) {
+				response.redirectHost = input.readUTF();
+				response.redirectPort = input.readInt();
+			}
+			return response;
+		} finally {
+			IOUtils.closeQuietly(socket);
+		}
+	}
+
+	private static class Response {
+		private byte[] data;
+		private String redirectHost;
+		private int redirectPort;
+	}
+}
@@ -0,0 +1,312 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.peer;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.lang.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+import static org.ngrinder.common.util.NoOp.noOp;
+
+/**
+ * Chunk server of the peer assisted file distribution.
+ * <p/>
+ * The controller runs the seed server which serves each chunk by itself to the given count of requesters only and
+ * redirects the rest to the requesters in the same region which hold the chunk. Each agent runs a server without the
+ * fan out limit to relay the chunks it holds. A request is the request type, a chunk hash, the requester region, the
+ * port of the requester's own server and, for the fetch, whether the redirection is disallowed. The requester is
+ * taken as a holder only when it announces the verified chunk with the {@link #REQUEST_HAVE} request, so nobody is
+ * redirected to a peer which is still fetching.
+ *
+ * @since 3.4
+ */
+public class PeerChunkServer {
+	private static final Logger LOGGER = LoggerFactory.getLogger(PeerChunkServer.class);
+	static final byte DATA = 0;
+	static final byte REDIRECT = 1;
+	static final byte NOT_FOUND = 2;
+	static final byte ACK = 3;
+	static final byte REQUEST_FETCH = 0;
+	static final byte REQUEST_HAVE = 1;
+	static final int SOCKET_TIMEOUT = 30000;
+	private static final int THREAD_COUNT = 8;
+
+	private final int fanOut;
+	private final ServerSocket serverSocket;
+	private final ExecutorService executor = Executors.newFixedThreadPool(THREAD_COUNT);
+	private final Map<String, Chunk> chunks = new ConcurrentHashMap<String, Chunk>();
+	private final Map<String, Holders> holders = new ConcurrentHashMap<String, Holders>();
+	private volatile boolean running = true;
+
+	/**
+	 * Constructor. The server binds to an ephemeral port on all interfaces.
+	 *
+	 * @param fanOut count of requesters each chunk is served to by this server before the redirection starts.
+	 *               0 to serve all requests by itself.
+	 * @throws IOException occurs when the port can not be bound
+	 */
+	public PeerChunkServer(int fanOut) throws IOException {
+		this.fanOut = fanOut;
+		this.serverSocket = new ServerSocket(0);
+	}
+
+	/**
+	 * Serve the chunks of all files in the given manifest.
+	 *
+	 * @param baseDirectory directory where the files in the manifest are located
+	 * @param manifest      manifest
+	 */
+	public void addChunks(File baseDirectory, PeerManifest manifest) {
+		for (PeerManifest.Entry each : manifest.getEntries()) {
+			File file = new File(baseDirectory, each.getPath());
+			List<String> hashes = each.getHashes();
+			for (int i = 0; i < hashes.size(); i++) {
+				addChunk(hashes.get(i), file, (long) i * manifest.getChunkSize(), manifest.getChunkLength(each, i));
+			}
+		}
+	}
+
+	/**
+	 * Serve the given range of the given file as the chunk of the given hash.
+	 *
+	 * @param hash   chunk hash
+	 * @param file   file containing the chunk
+	 * @param offset chunk offset in the file
+	 * @param length chunk length
+	 */
+	public void addChunk(String hash, File file, long offset, int length) {
+		chunks.put(hash, new Chunk(file, offset, length));
+	}
+
+	/**
+	 * Check if the chunk of the given hash is served.
+	 *
+	 * @param hash chunk hash
+	 * @return true if served
+	 */
+	public boolean hasChunk(String hash) {
+		return chunks.containsKey(hash);
+	}
+
+	/**
+	 * Stop serving all chunks.
+	 */
+	public void clearChunks() {
+		chunks.clear();
+		holders.clear();
+	}
+
+	/**
+	 * Start accepting the requests.
+	 */
+	public void start() {
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				while (running) {
+					try {
+						final Socket socket = serverSocket.accept();
+						executor.execute(new Runnable() {
+							@Override
+							public void run() {
+								handle(socket);
+							}
+						});
+					} catch (RejectedExecutionException e) {
+						break;
+					} catch (IOException e) {
+						if (running) {
+							LOGGER.error("Error while accepting the chunk request on {} : {}", getPort(),
+									e.getMessage());
+						}
+					}
+				}
+			}
+		}, "peer-chunk-server-" + getPort());
+		acceptor.setDaemon(true);
+		acceptor.start();
+	}
+
+	private void handle(Socket socket) {
+		try {
+			socket.setSoTimeout(SOCKET_TIMEOUT);
+			DataInputStream input = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+			DataOutputStream output = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+			byte type = input.readByte();
+			String hash = input.readUTF();
+			String region = input.readUTF();
+			int peerPort = input.readInt();
+			Peer requester = peerPort > 0 ? new Peer(socket.getInetAddress().getHostAddress(), peerPort,
+					region) : null;
+			Chunk chunk = chunks.get(hash);
+			if (type == REQUEST_HAVE) {
+				addHolder(hash, requester);
+				output.writeByte(ACK);
+			} else if (chunk == null) {
+				output.writeByte(NOT_FOUND);
+			} else {
+				boolean direct = input.readBoolean();
+				Peer holder = direct ? null : getHolder(hash, region, requester);
+				if (holder == null) {
+					output.writeByte(DATA);
+					output.writeInt(chunk.length);
+					chunk.writeTo(output);
+				} else {
+					output.writeByte(REDIRECT);
+					output.writeUTF(holder.host);
+					output.writeInt(holder.port);
+				}
+			}
+			output.flush();
+		} catch (IOException e) {
+			LOGGER.debug("Error while serving the chunk : {}", e.getMessage());
+		} finally {
+			IOUtils.closeQuietly(socket);
+		}
+	}
+
+	private Peer getHolder(String hash, String region, Peer requester) {
+		if (fanOut <= 0) {
+			return null;
+		}
+		Holders each = getHolders(hash);
+		synchronized (each) {
+			if (each.served < fanOut) {
+				each.served++;
+				return null;
+			}
+			for (int i = 0; i < each.peers.size(); i++) {
+				Peer candidate = each.peers.get(each.next++ % each.peers.size());
+				if (!candidate.equals(requester) && StringUtils.equals(candidate.region, region)) {
+					return candidate;
+				}
+			}
+			return null;
+		}
+	}
+
+	private void addHolder(String hash, Peer requester) {
+		if (fanOut <= 0 || requester == null) {
+			return;
+		}
+		Holders each = getHolders(hash);
+		synchronized (each) {
+			if (!each.peers.contains(requester)) {
+				each.peers.add(requester);
+			}
+		}
+	}
+
+	private Holders getHolders(String hash) {
+		synchronized (holders) {
+			Holders each = holders.get(hash);
+			if (each == null) {
+				each = new Holders();
+				holders.put(hash, each);
+			}
+			return each;
+		}
+	}
+
+	public int getPort() {
+		return serverSocket.getLocalPort();
+	}
+
+	/**
+	 * Stop the server.
+	 */
+	public void shutdown() {
+		running = false;
+		try {
+			serverSocket.close();
+		} catch (IOException e) {
+			noOp();
+		}
+		executor.shutdownNow();
+	}
+
+	private static class Chunk {
+		private final File file;
+		private final long offset;
+		private final int length;
+
+		Chunk(File file, long offset, int length) {
+			this.file = file;
+			this.offset = offset;
+			this.length = length;
+		}
+
+		void writeTo(DataOutputStream output) throws IOException {
+			byte[] buffer = new byte[length];
+			RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r");
+			try {
+				randomAccessFile.seek(offset);
+				randomAccessFile.readFully(buffer);
+			} finally {
+				randomAccessFile.close();
+			}
+			output.write(buffer);
+		}
+	}
+
+	private static class Holders {
+		private final List<Peer> peers = newArrayList();
+		private int served;
+		private int next;
+	}
+
+	private static class Peer {
+		private final String host;
+		private final int port;
+		private final String region;
+
+		Peer(String host, int port, String region) {
+			this.host = host;
+			this.port = port;
+			this.region = region;
+		}
+
+		@Override
+		public boolean equals(Object o) {
+			if (!(o instanceof Peer)) {
+				return false;
+			}
+			Peer peer = (Peer) o;
+			return port == peer.port && host.equals(peer.host);
+		}
+
+		@Override
+		public int hashCode() {
+			return 31 * host.hashCode() + port;
+		}
+	}
+}
@@ -0,0 +1,258 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.peer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.apache.commons.io.filefilter.TrueFileFilter;
+
+import static org.ngrinder.common.util.CollectionUtils.newArrayList;
+
+/**
+ * Manifest of the files distributed with the help of the agents.
+ * <p/>
+ * It lists the SHA-1 hash of each chunk of the files and the seed from which the chunks can be fetched. The
+ * console distributes this manifest in place of the big files, and the agents rebuild the files from the chunks
+ * fetched from the seed or from the peers to which the seed redirects them.
+ *
+ * @since 3.4
+ */
+public class PeerManifest {
+	public static final String FILE_NAME = "ngrinder_peer.manifest";
+	public static final int DEFAULT_CHUNK_SIZE = 2 * 1024 * 1024;
+	private static final Charset CHARSET = Charset.forName("UTF-8");
+	private static final String HASH_ALGORITHM = "SHA-1";
+
+	private final String seedHost;
+	private final int seedPort;
+	private final int chunkSize;
+	private final List<Entry> entries;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param seedHost  host of the seed chunk server
+	 * @param seedPort  port of the seed chunk server
+	 * @param chunkSize chunk size in bytes
+	 * @param entries   distributed files
+	 */
+	public PeerManifest(String seedHost, int seedPort, int chunkSize, List<Entry> entries) {
+		this.seedHost = seedHost;
+		this.seedPort = seedPort;
+		this.chunkSize = chunkSize;
+		this.entries = entries;
+	}
+
+	/**
+	 * Collect the entries of all files in the given directory.
+	 *
+	 * @param directory base directory
+	 * @param chunkSize chunk size in bytes
+	 * @return entries which have the path relative to the given directory
+	 * @throws IOException occurs when a file can not be read
+	 */
+	public static List<Entry> collect(File directory, int chunkSize) throws IOException {
+		List<Entry> entries = newArrayList();
+		if (!directory.isDirectory()) {
+			return entries;
+		}
+		String base = directory.getAbsolutePath();
+		Collection<File> files = FileUtils.listFiles(directory, TrueFileFilter.INSTANCE, TrueFileFilter.INSTANCE);
+		for (File each : files) {
+			String path = each.getAbsolutePath().substring(base.length() + 1).replace(File.separatorChar, '/');
+			entries.add(new Entry(path, each.length(), hashChunks(each, chunkSize)));
+		}
+		return entries;
+	}
+
+	private static List<String> hashChunks(File file, int chunkSize) throws IOException {
+		List<String> hashes = newArrayList();
+		byte[] buffer = new byte[chunkSize];
+		DataInputStream input = new DataInputStream(new FileInputStream(file));
+		try {
+			for (long remaining = file.length(); remaining > 0; remaining -= chunkSize) {
+				int length = (int) Math.min(chunkSize, remaining);
+				input.readFully(buffer, 0, length);
+				hashes.add(hash(buffer, 0, length));
+			}
+		} finally {
+			IOUtils.closeQuietly(input);
+		}
+		return hashes;
+	}
+
+	/**
+	 * Get the hex encoded SHA-1 hash of the given bytes.
+	 *
+	 * @param data   data
+	 * @param offset offset in data
+	 * @param length length to be hashed
+	 * @return hash
+	 */
+	public static String hash(byte[] data, int offset, int length) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance(HASH_ALGORITHM);
+			digest.update(data, offset, length);
+			StringBuilder hex = new StringBuilder();
+			for (byte each : digest.digest()) {
+				hex.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+			}
+			return hex.toString();
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(HASH_ALGORITHM + " is not supported", e);
+		}
+	}
+
+	/**
+	 * Write this manifest into the given file.
+	 *
+	 * @param file file to be written
+	 * @throws IOException occurs when the file can not be written
+	 */
+	public void write(File file) throws IOException {
+		BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), CHARSET));
+		try {
+			writer.write("seed " + seedHost + " " + seedPort + "\n");
+			writer.write("chunk " + chunkSize + "\n");
+			for (Entry each : entries) {
+				writer.write("file " + each.getLength() + " " + each.getPath() + "\n");
+				for (String hash : each.getHashes()) {
+					writer.write(hash + "\n");
+				}
+			}
+		} finally {
+			IOUtils.closeQuietly(writer);
+		}
+	}
+
+	/**
+	 * Read the manifest from the given file.
+	 *
+	 * @param file manifest file
+	 * @return manifest
+	 * @throws IOException occurs when the file can not be read or is malformed
+	 */
+	public static PeerManifest read(File file) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET));
+		try {
+			String[] seed = readLine(reader, "seed ").split(" ");
+			if (seed.length != 2) {
+				throw new IOException("Malformed seed in " + file.getName());
+			}
+			int chunkSize = Integer.parseInt(readLine(reader, "chunk "));
+			List<Entry> entries = newArrayList();
+			List<String> hashes = null;
+			String line;
+			while ((line = reader.readLine()) != null) {
+				if (line.startsWith("file ")) {
+					String[] fields = line.substring(5).split(" ", 2);
+					hashes = newArrayList();
+					entries.add(new Entry(fields[1], Long.parseLong(fields[0]), hashes));
+				} else if (hashes != null && !line.isEmpty()) {
+					hashes.add(line);
+				}
+			}
+			return new PeerManifest(seed[0], Integer.parseInt(seed[1]), chunkSize, entries);
+		} catch (RuntimeException e) {
+			throw new IOException("Malformed " + file.getName(), e);
+		} finally {
+			IOUtils.closeQuietly(reader);
+		}
+	}
+
+	private static String readLine(BufferedReader reader, String prefix) throws IOException {
+		String line = reader.readLine();
+		if (line == null || !line.startsWith(prefix)) {
+			throw new IOException("Expected " + prefix.trim() + " but was " + line);
+		}
+		return line.substring(prefix.length());
+	}
+
+	/**
+	 * Get the length of the chunk at the given index of the given entry.
+	 *
+	 * @param entry entry
+	 * @param index chunk index
+	 * @return chunk length in bytes
+	 */
+	public int getChunkLength(Entry entry, int index) {
+		return (int) Math.min(chunkSize, entry.getLength() - (long) index * chunkSize);
+	}
+
+	public String getSeedHost() {
+		return seedHost;
+	}
+
+	public int getSeedPort() {
+		return seedPort;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	public List<Entry> getEntries() {
+		return Collections.unmodifiableList(entries);
+	}
+
+	/**
+	 * A distributed file.
+	 */
+	public static class Entry {
+		private final String path;
+		private final long length;
+		private final List<String> hashes;
+
+		/**
+		 * Constructor.
+		 *
+		 * @param path   path relative to the distribution directory. It's separated by '/'.
+		 * @param length file length
+		 * @param hashes chunk hashes in order
+		 */
+		public Entry(String path, long length, List<String> hashes) {
+			this.path = path;
+			this.length = length;
+			this.hashes = hashes;
+		}
+
+		public String getPath() {
+			return path;
+		}
+
+		public long getLength() {
+			return length;
+		}
+
+		public List<String> getHashes() {
+			return Collections.unmodifiableList(hashes);
+		}
+	}
+}
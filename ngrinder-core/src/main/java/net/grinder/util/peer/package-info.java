@@ -0,0 +1,4 @@
+/**
+ * Peer assisted file distribution in which the agents relay the chunks of the big files to each other.
+ */
+package net.grinder.util.peer;
@@ -39,6 +39,7 @@ public interface GrinderConstants {
 	public static final String GRINDER_PROP_INITIAL_THREAD_SLEEP_TIME = "grinder.initialThreadSleepTime";
 	public static final String GRINDER_PROP_THREAD_RAMPUP ="grinder.threadRampUp";
 	public static final String GRINDER_PROP_TEST_ID = "grinder.test.id";
+	public static final String GRINDER_PROP_AGENT_NUMBER_OFFSET = "grinder.agentNumberOffset";
 	public static final String GRINDER_PROP_IGNORE_SAMPLE_COUNT = "grinder.ignoreSampleCount";
 	public static final String GRINDER_PROP_SECURITY = "grinder.security";
 	public static final String GRINDER_PROP_USER = "grinder.user";
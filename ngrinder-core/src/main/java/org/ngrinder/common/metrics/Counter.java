@@ -0,0 +1,47 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.common.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock free counter.
+ *
+ * @since 3.4
+ */
+public class Counter {
+	private final AtomicLong value = new AtomicLong();
+
+	/**
+	 * Increase the counter by 1.
+	 */
+	public void increment() {
+		add(1);
+	}
+
+	/**
+	 * Increase the counter by the given amount. Nothing is counted when the metrics are disabled.
+	 *
+	 * @param amount amount to be added
+	 */
+	public void add(long amount) {
+		if (Metrics.isEnabled()) {
+			value.addAndGet(amount);
+		}
+	}
+
+	public long getValue() {
+		return value.get();
+	}
+}
@@ -0,0 +1,121 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.common.metrics;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Registry of the internal metrics.
+ * <p/>
+ * The metrics are registered by name and shared in the JVM, so any class including the ones
+ * which are not managed by Spring can record them. While the metrics are disabled, recording
+ * costs only a volatile read. The timers can also record only 1 of every N calls.
+ *
+ * @since 3.4
+ */
+public abstract class Metrics {
+	private static final ConcurrentMap<String, Counter> COUNTERS = new ConcurrentHashMap<String, Counter>();
+	private static final ConcurrentMap<String, Timer> TIMERS = new ConcurrentHashMap<String, Timer>();
+	private static final ConcurrentMap<String, Gauge> GAUGES = new ConcurrentHashMap<String, Gauge>();
+
+	private static volatile boolean enabled = false;
+	private static volatile int samplingRate = 1;
+
+	/**
+	 * Enable or disable the metrics.
+	 *
+	 * @param enable       true if the metrics should be recorded
+	 * @param samplingRate the timers record 1 of every samplingRate calls. 1 to record all.
+	 */
+	public static void configure(boolean enable, int samplingRate) {
+		Metrics.samplingRate = Math.max(1, samplingRate);
+		Metrics.enabled = enable;
+	}
+
+	public static boolean isEnabled() {
+		return enabled;
+	}
+
+	public static int getSamplingRate() {
+		return samplingRate;
+	}
+
+	/**
+	 * Get the counter having the given name. It's created if not exists.
+	 *
+	 * @param name counter name
+	 * @return counter
+	 */
+	public static Counter counter(String name) {
+		Counter counter = COUNTERS.get(name);
+		if (counter == null) {
+			COUNTERS.putIfAbsent(name, new Counter());
+			counter = COUNTERS.get(name);
+		}
+		return counter;
+	}
+
+	/**
+	 * Get the timer having the given name. It's created if not exists.
+	 *
+	 * @param name timer name
+	 * @return timer
+	 */
+	public static Timer timer(String name) {
+		Timer timer = TIMERS.get(name);
+		if (timer == null) {
+			TIMERS.putIfAbsent(name, new Timer());
+			timer = TIMERS.get(name);
+		}
+		return timer;
+	}
+
+	/**
+	 * Register the gauge with the given name. The existing gauge having the same name is replaced.
+	 *
+	 * @param name  gauge name
+	 * @param gauge gauge
+	 */
+	public static void gauge(String name, Gauge gauge) {
+		GAUGES.put(name, gauge);
+	}
+
+	/**
+	 * Get the current values of all metrics sorted by name.
+	 *
+	 * @return map containing counters, gauges and timers
+	 */
+	public static Map<String, Object> getSnapshot() {
+		Map<String, Object> counters = new TreeMap<String, Object>();
+		for (Map.Entry<String, Counter> each : COUNTERS.entrySet()) {
+			counters.put(each.getKey(), each.getValue().getValue());
+		}
+		Map<String, Object> gauges = new TreeMap<String, Object>();
+		for (Map.Entry<String, Gauge> each : GAUGES.entrySet()) {
+			gauges.put(each.getKey(), each.getValue().getValue());
+		}
+		Map<String, Object> timers = new TreeMap<String, Object>();
+		for (Map.Entry<String, Timer> each : TIMERS.entrySet()) {
+			timers.put(each.getKey(), each.getValue().getSummary());
+		}
+		Map<String, Object> snapshot = new TreeMap<String, Object>();
+		snapshot.put("counters", counters);
+		snapshot.put("gauges", gauges);
+		snapshot.put("timers", timers);
+		return snapshot;
+	}
+}
@@ -0,0 +1,163 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.common.metrics;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock free timer which keeps the count, the sum, the max and the histogram of the elapsed times.
+ * <p/>
+ * The histogram has 16 linear buckets in each power of 2 range, so the percentiles are reported
+ * with the error less than 1/16 of the value in any magnitude, as HDR histograms do.
+ * <p/>
+ * <code>
+ * long start = timer.start();
+ * try {
+ *     ...
+ * } finally {
+ *     timer.stop(start);
+ * }
+ * </code>
+ *
+ * @since 3.4
+ */
+public class Timer {
+	/**
+	 * The start time returned when the call is not sampled.
+	 */
+	public static final long NOT_SAMPLED = Long.MIN_VALUE;
+
+	private static final int SUB_BUCKET_BITS = 4;
+	private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS;
+	private static final int BUCKET_COUNT = (64 - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT;
+	private static final double NANOS_PER_MILLI = 1000000D;
+
+	private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+	private final AtomicLong calls = new AtomicLong();
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong();
+
+	/**
+	 * Start timing. The returned value should be passed to {@link #stop(long)}.
+	 *
+	 * @return start time in nano seconds or {@link #NOT_SAMPLED}
+	 */
+	public long start() {
+		if (!Metrics.isEnabled()) {
+			return NOT_SAMPLED;
+		}
+		int samplingRate = Metrics.getSamplingRate();
+		if (samplingRate > 1 && calls.incrementAndGet() % samplingRate != 0) {
+			return NOT_SAMPLED;
+		}
+		return System.nanoTime();
+	}
+
+	/**
+	 * Stop timing and record the elapsed time.
+	 *
+	 * @param start the value returned by {@link #start()}
+	 */
+	public void stop(long start) {
+		if (start != NOT_SAMPLED) {
+			record(System.nanoTime() - start);
+		}
+	}
+
+	/**
+	 * Record the given elapsed time.
+	 *
+	 * @param nanos elapsed time in nano seconds
+	 */
+	public void record(long nanos) {
+		long value = Math.max(0, nanos);
+		buckets.incrementAndGet(getBucketIndex(value));
+		count.incrementAndGet();
+		sum.addAndGet(value);
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	static int getBucketIndex(long value) {
+		int magnitude = 63 - Long.numberOfLeadingZeros(value);
+		if (magnitude < SUB_BUCKET_BITS) {
+			return (int) value;
+		}
+		int shift = magnitude - SUB_BUCKET_BITS;
+		return (shift + 1) * SUB_BUCKET_COUNT + (int) ((value >>> shift) - SUB_BUCKET_COUNT);
+	}
+
+	static long getBucketUpperBound(int index) {
+		int row = index / SUB_BUCKET_COUNT;
+		int sub = index % SUB_BUCKET_COUNT;
+		if (row == 0) {
+			return sub;
+		}
+		return ((long) (SUB_BUCKET_COUNT + sub + 1) << (row - 1)) - 1;
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	/**
+	 * Get the elapsed time at the given percentile.
+	 *
+	 * @param percentile percentile between 0 and 100
+	 * @return elapsed time in nano seconds
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		long[] snapshot = new long[BUCKET_COUNT];
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			snapshot[i] = buckets.get(i);
+			total += snapshot[i];
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(total * percentile / 100));
+		long seen = 0;
+		for (int i = 0; i < BUCKET_COUNT; i++) {
+			seen += snapshot[i];
+			if (seen >= rank) {
+				return Math.min(getBucketUpperBound(i), max.get());
+			}
+		}
+		return max.get();
+	}
+
+	/**
+	 * Get the summary of this timer. The times are in milliseconds.
+	 *
+	 * @return map of count, mean, p50, p90, p99 and max
+	 */
+	public Map<String, Object> getSummary() {
+		Map<String, Object> summary = new LinkedHashMap<String, Object>();
+		long currentCount = count.get();
+		summary.put("count", currentCount);
+		summary.put("mean", currentCount == 0 ? 0 : sum.get() / currentCount / NANOS_PER_MILLI);
+		summary.put("p50", getPercentile(50) / NANOS_PER_MILLI);
+		summary.put("p90", getPercentile(90) / NANOS_PER_MILLI);
+		summary.put("p99", getPercentile(99) / NANOS_PER_MILLI);
+		summary.put("max", max.get() / NANOS_PER_MILLI);
+		return summary;
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Lightweight internal metrics of the controller.
+ */
+package org.ngrinder.common.metrics;
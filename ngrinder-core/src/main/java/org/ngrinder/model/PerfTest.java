@@ -314,6 +314,11 @@ public class PerfTest extends BaseModel<PerfTest> {
 	@Column(name = "param")
 	private String param;
 
+	@Expose
+	@Cloneable
+	@Column(name = "stop_rules", length = 2000)
+	private String stopRules;
+
 	@PrePersist
 	@PreUpdate
 	public void init() {
@@ -338,6 +343,7 @@ public class PerfTest extends BaseModel<PerfTest> {
 		this.samplingInterval = getSafe(this.samplingInterval, 2);
 		this.scriptRevision = getSafe(this.scriptRevision, -1L);
 		this.param = getSafe(this.param, "");
+		this.stopRules = getSafe(this.stopRules, "");
 		this.region = getSafe(this.region, "NONE");
 		this.targetHosts = getSafe(this.targetHosts, "");
 		this.description = getSafe(this.description, "");
@@ -849,6 +855,14 @@ public class PerfTest extends BaseModel<PerfTest> {
 		this.param = param;
 	}
 
+	public String getStopRules() {
+		return stopRules;
+	}
+
+	public void setStopRules(String stopRules) {
+		this.stopRules = stopRules;
+	}
+
 	public void prepare(boolean isClone) {
 		if (isClone) {
 			this.setId(null);
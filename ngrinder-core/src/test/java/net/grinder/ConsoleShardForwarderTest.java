@@ -0,0 +1,155 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder;
+
+import net.grinder.common.AbstractTestSemantics;
+import net.grinder.communication.Address;
+import net.grinder.communication.MessageDispatchSender;
+import net.grinder.console.communication.ConsoleCommunication;
+import net.grinder.console.communication.ReportLagMonitor;
+import net.grinder.console.model.ConsoleProperties;
+import net.grinder.console.model.SampleModelImplementationEx;
+import net.grinder.console.model.SampleModelViews;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
+import net.grinder.messages.console.RegisterTestsMessage;
+import net.grinder.messages.console.ReportStatisticsMessage;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.StatisticsSet;
+import net.grinder.statistics.TestStatisticsMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Timer;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class ConsoleShardForwarderTest {
+	private final StatisticsIndexMap.LongIndex errorsIndex = StatisticsServicesImplementation.getInstance()
+			.getStatisticsIndexMap().getLongIndex("errors");
+	private Timer timer;
+	private SampleModelImplementationEx model;
+	private MessageDispatchSender shardDispatcher;
+	private ConsoleShardForwarder forwarder;
+
+	@Before
+	public void before() {
+		timer = new Timer(true);
+		model = mock(SampleModelImplementationEx.class);
+		SingleConsole coordinator = mock(SingleConsole.class);
+		when(coordinator.getConsoleComponent(SampleModelImplementationEx.class)).thenReturn(model);
+		when(coordinator.getConsoleComponent(SampleModelViews.class)).thenReturn(mock(SampleModelViews.class));
+
+		shardDispatcher = new MessageDispatchSender();
+		ConsoleCommunication communication = mock(ConsoleCommunication.class);
+		when(communication.getMessageDispatchRegistry()).thenReturn(shardDispatcher);
+		ConsoleProperties properties = mock(ConsoleProperties.class);
+		when(properties.getSampleInterval()).thenReturn(1000);
+		SingleConsole shard = mock(SingleConsole.class);
+		when(shard.getConsoleComponent(ConsoleCommunication.class)).thenReturn(communication);
+		when(shard.getConsoleComponent(ReportLagMonitor.class)).thenReturn(
+				new ReportLagMonitor(mock(ConsoleCommunication.class), properties, timer));
+		// The periodic flush is not scheduled, so that the test flushes by itself.
+		when(shard.getConsoleComponent(Timer.class)).thenReturn(mock(Timer.class));
+
+		forwarder = new ConsoleShardForwarder(shard, coordinator);
+		forwarder.start();
+	}
+
+	@After
+	public void after() {
+		timer.cancel();
+	}
+
+	@Test
+	public void testRegisterTests() throws Exception {
+		List<net.grinder.common.Test> tests = Arrays.asList(createTest(1), createTest(2));
+		shardDispatcher.send(new RegisterTestsMessage(tests));
+		verify(model).registerTests(tests);
+	}
+
+	@Test
+	public void testFlushMergesReports() throws Exception {
+		shardDispatcher.send(new ReportStatisticsMessage(createStatistics(1, 1)));
+		shardDispatcher.send(new ReportStatisticsMessage(createStatistics(2, 2)));
+		shardDispatcher.send(new ReportStatisticsMessage(createStatistics(1, 3)));
+		verify(model, never()).addTestReport(any(TestStatisticsMap.class));
+
+		// The reports of the worker processes are passed to the coordinator at once.
+		forwarder.flush(model);
+		ArgumentCaptor<TestStatisticsMap> captor = ArgumentCaptor.forClass(TestStatisticsMap.class);
+		verify(model).addTestReport(captor.capture());
+		assertThat(captor.getValue().size(), is(2));
+		assertThat(captor.getValue().nonCompositeStatisticsTotals().getValue(errorsIndex), is(6L));
+
+		// Nothing is passed when no report has arrived since the last flush.
+		forwarder.flush(model);
+		verify(model, times(1)).addTestReport(any(TestStatisticsMap.class));
+
+		shardDispatcher.send(new ReportStatisticsMessage(createStatistics(2, 4)));
+		forwarder.flush(model);
+		verify(model, times(2)).addTestReport(captor.capture());
+		assertThat(captor.getValue().size(), is(1));
+		assertThat(captor.getValue().nonCompositeStatisticsTotals().getValue(errorsIndex), is(4L));
+	}
+
+	@Test
+	public void testFlushMergesBatchReports() throws Exception {
+		ReportStatisticsBatchMessage message = new ReportStatisticsBatchMessage(new long[]{1000},
+				new TestStatisticsMap[]{createStatistics(1, 5)});
+		message.setAddress(mock(Address.class));
+		shardDispatcher.send(message);
+		shardDispatcher.send(new ReportStatisticsMessage(createStatistics(1, 2)));
+
+		forwarder.flush(model);
+		ArgumentCaptor<TestStatisticsMap> captor = ArgumentCaptor.forClass(TestStatisticsMap.class);
+		verify(model).addTestReport(captor.capture());
+		assertThat(captor.getValue().size(), is(1));
+		assertThat(captor.getValue().nonCompositeStatisticsTotals().getValue(errorsIndex), is(7L));
+	}
+
+	private TestStatisticsMap createStatistics(int testNumber, long errors) {
+		TestStatisticsMap statisticsMap = new TestStatisticsMap(StatisticsServicesImplementation.getInstance()
+				.getStatisticsSetFactory());
+		StatisticsSet statistics = StatisticsServicesImplementation.getInstance().getStatisticsSetFactory().create();
+		statistics.addValue(errorsIndex, errors);
+		statisticsMap.put(createTest(testNumber), statistics);
+		return statisticsMap;
+	}
+
+	private net.grinder.common.Test createTest(final int number) {
+		return new AbstractTestSemantics() {
+			@Override
+			public int getNumber() {
+				return number;
+			}
+
+			@Override
+			public String getDescription() {
+				return "test" + number;
+			}
+		};
+	}
+}
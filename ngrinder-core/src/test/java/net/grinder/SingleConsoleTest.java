@@ -147,6 +147,48 @@ public class SingleConsoleTest {
 		}
 	}
 
+	@Test
+	public void testShardRunningCounts() {
+		SingleConsole singleConsole = new SingleConsole(getFreePort());
+		SingleConsole shard = new SingleConsole(getFreePort());
+		singleConsole.addShard(shard);
+		assertThat(singleConsole.getShards().size(), is(1));
+
+		singleConsole.update(new ProcessReports[]{createProcessReports(3)});
+		shard.update(new ProcessReports[]{createProcessReports(2, 2), createProcessReports(0)});
+		assertThat(singleConsole.getRunningProcess(), is(4));
+		assertThat(singleConsole.getRunningThread(), is(7));
+		assertThat(shard.getRunningThread(), is(4));
+		assertThat(singleConsole.isAllTestFinished(), is(false));
+
+		// The test is not finished while the agents of a shard are running.
+		singleConsole.update(new ProcessReports[]{createProcessReports(0)});
+		assertThat(singleConsole.getRunningThread(), is(4));
+		assertThat(singleConsole.isAllTestFinished(), is(false));
+
+		shard.update(new ProcessReports[]{createProcessReports(0, 0), createProcessReports(0)});
+		assertThat(singleConsole.getRunningThread(), is(0));
+		assertThat(singleConsole.isAllTestFinished(), is(true));
+	}
+
+	/**
+	 * Create the reports of an agent. The processes without the running threads are finished.
+	 *
+	 * @param runningThreads running thread count of each process
+	 * @return agent process reports
+	 */
+	private ProcessReports createProcessReports(int... runningThreads) {
+		WorkerProcessReport[] workerProcessReports = new WorkerProcessReport[runningThreads.length];
+		for (int i = 0; i < runningThreads.length; i++) {
+			workerProcessReports[i] = mock(WorkerProcessReport.class);
+			when(workerProcessReports[i].getNumberOfRunningThreads()).thenReturn((short) runningThreads[i]);
+			when(workerProcessReports[i].getState()).thenReturn((short) (runningThreads[i] == 0 ? 3 : 1));
+		}
+		ProcessReports report = mock(ProcessReports.class);
+		when(report.getWorkerProcessReports()).thenReturn(workerProcessReports);
+		return report;
+	}
+
 	@Test
 	public void testTpsValue() {
 		SingleConsole singleConsole = new SingleConsole(getFreePort());
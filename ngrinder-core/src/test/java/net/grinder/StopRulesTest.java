@@ -0,0 +1,97 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder;
+
+import org.junit.Test;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class StopRulesTest {
+
+	@Test
+	public void testParse() {
+		StopRules rules = StopRules.parse("tps < 1 for 60s; total.error_rate[2] > 0.3 for 10s\ncpu >= 90 for 1m");
+		assertThat(rules.getRules().size(), is(3));
+		StopRule errorRate = rules.getRules().get(1);
+		assertThat(errorRate.getMetric(), is(StopRule.Metric.ERROR_RATE));
+		assertThat(errorRate.isCumulative(), is(true));
+		assertThat(errorRate.getTestNumber(), is(2));
+		assertThat(rules.getRules().get(2).getStopReason(), is(StopReason.TOO_HIGH_TARGET_CPU));
+		assertThat(StopRules.withDefaults(null).getRules().size(), is(2));
+		assertThat(StopRules.parse(" ").getRules().size(), is(0));
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseUnknownMetric() {
+		StopRule.parse("p99 > 100");
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void testParseInvalidClearThreshold() {
+		StopRule.parse("mean_time > 800 clear 900");
+	}
+
+	@Test
+	public void testDuration() {
+		StopRule rule = StopRule.parse("tps < 1 for 10s");
+		assertThat(rule.check(0, 0, 1000), is(false));
+		assertThat(rule.check(0, 5000, 1000), is(false));
+		assertThat(rule.check(5, 6000, 1000), is(false));
+		assertThat(rule.check(0, 7000, 1000), is(false));
+		assertThat(rule.check(0, 17000, 1000), is(true));
+		assertThat(rule.check(Double.NaN, 30000, 1000), is(false));
+	}
+
+	@Test
+	public void testHysteresis() {
+		StopRule rule = StopRule.parse("mean_time > 800 for 10s clear 600");
+		assertThat(rule.check(900, 0, 1000), is(false));
+		// Still violated between the clear threshold and the threshold.
+		assertThat(rule.check(700, 5000, 1000), is(false));
+		assertThat(rule.check(700, 10000, 1000), is(true));
+		assertThat(rule.check(900, 11000, 1000), is(false));
+		assertThat(rule.check(500, 12000, 1000), is(false));
+		assertThat(rule.check(700, 30000, 1000), is(false));
+	}
+
+	@Test
+	public void testWindow() {
+		StopRule rule = StopRule.parse("mean_time avg 3s > 100");
+		assertThat(rule.check(250, 0, 1000), is(true));
+		assertThat(rule.check(0, 1000, 1000), is(true));
+		assertThat(rule.check(0, 2000, 1000), is(false));
+		assertThat(rule.check(0, 3000, 1000), is(false));
+		assertThat(rule.check(400, 4000, 1000), is(true));
+	}
+
+	@Test
+	public void testCheckReturnsFirstViolatedRule() {
+		StopRules rules = StopRules.parse("tps < 1; errors > 10");
+		StopRule violated = rules.check(new StopRules.MetricProvider() {
+			@Override
+			public double getValue(StopRule rule) {
+				return rule.getMetric() == StopRule.Metric.ERRORS ? 20 : 5;
+			}
+		}, 0, 1000);
+		assertThat(violated.getMetric(), is(StopRule.Metric.ERRORS));
+		assertThat(rules.check(new StopRules.MetricProvider() {
+			@Override
+			public double getValue(StopRule rule) {
+				return Double.NaN;
+			}
+		}, 1000, 1000), nullValue());
+	}
+}
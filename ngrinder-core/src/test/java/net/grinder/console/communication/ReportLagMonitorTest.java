@@ -0,0 +1,118 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.console.communication;
+
+import net.grinder.communication.Address;
+import net.grinder.console.model.ConsoleProperties;
+import net.grinder.message.console.ConsoleIngestLagMessage;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
+import net.grinder.statistics.StatisticsServicesImplementation;
+import net.grinder.statistics.TestStatisticsMap;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Timer;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ReportLagMonitorTest {
+	private Timer timer;
+	private ReportLagMonitor monitor;
+
+	@Before
+	public void before() {
+		timer = new Timer(true);
+		ConsoleProperties properties = mock(ConsoleProperties.class);
+		when(properties.getSampleInterval()).thenReturn(1000);
+		monitor = new ReportLagMonitor(mock(ConsoleCommunication.class), properties, timer);
+	}
+
+	@After
+	public void after() {
+		timer.cancel();
+	}
+
+	@Test
+	public void testPoll() {
+		// Nothing to advertise without the batched reports.
+		assertThat(monitor.poll(1000), nullValue());
+
+		// The clock difference of each worker is absorbed by its own baseline.
+		Address worker1 = mock(Address.class);
+		Address worker2 = mock(Address.class);
+		monitor.record(worker1, 1000, 1050);
+		monitor.record(worker2, 1000, -2000);
+		monitor.record(worker1, 2000, 2060);
+		monitor.record(worker2, 2000, -1000);
+		assertThat(monitor.poll(2000), nullValue());
+
+		monitor.record(worker1, 3000, 3050);
+		monitor.record(worker2, 3000, 1500);
+		ConsoleIngestLagMessage message = monitor.poll(3000);
+		assertThat(message, notNullValue());
+		assertThat(message.getIngestLag(), is(1500L));
+		assertThat(message.getSampleInterval(), is(1000));
+		assertThat(monitor.getIngestLag(), is(1500L));
+
+		// Small changes are advertised only when refreshed.
+		monitor.record(worker1, 4000, 4050 + 1450);
+		assertThat(monitor.poll(4000), nullValue());
+		monitor.record(worker1, 5000, 5050 + 1450);
+		assertThat(monitor.poll(3000 + ReportLagMonitor.REFRESH_INTERVAL), notNullValue());
+		assertThat(monitor.getIngestLag(), is(1450L));
+	}
+
+	@Test
+	public void testReplay() throws Exception {
+		TestStatisticsMap[] statisticsDeltas = new TestStatisticsMap[3];
+		for (int i = 0; i < statisticsDeltas.length; i++) {
+			statisticsDeltas[i] = new TestStatisticsMap(StatisticsServicesImplementation.getInstance()
+					.getStatisticsSetFactory());
+		}
+		ReportStatisticsBatchMessage message = new ReportStatisticsBatchMessage(new long[]{1000, 1200, 1400},
+				statisticsDeltas);
+		message.setAddress(mock(Address.class));
+		final List<TestStatisticsMap> received = Collections.synchronizedList(new ArrayList<TestStatisticsMap>());
+		ReportLagMonitor.ReportSink sink = new ReportLagMonitor.ReportSink() {
+			@Override
+			public void addTestReport(TestStatisticsMap statisticsDelta) {
+				received.add(statisticsDelta);
+			}
+		};
+
+		// The intervals are replayed with their own spacing.
+		monitor.record(message, sink);
+		assertThat(received.size(), is(1));
+		Thread.sleep(300);
+		assertThat(received.size(), is(2));
+		Thread.sleep(300);
+		assertThat(received.size(), is(3));
+		assertThat(received.get(2), is(statisticsDeltas[2]));
+
+		// The statistics of the previous test are dropped on reset.
+		monitor.record(message, sink);
+		monitor.reset();
+		Thread.sleep(600);
+		assertThat(received.size(), is(4));
+	}
+}
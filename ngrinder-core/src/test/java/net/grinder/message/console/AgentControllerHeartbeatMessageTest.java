@@ -0,0 +1,81 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.message.console;
+
+import org.junit.Test;
+import org.ngrinder.monitor.controller.model.SystemDataModel;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.assertThat;
+
+public class AgentControllerHeartbeatMessageTest {
+
+	private SystemDataModel createSystemDataModel(long collectTime, float cpu) {
+		SystemDataModel systemDataModel = new SystemDataModel();
+		systemDataModel.setSystem("LINUX");
+		systemDataModel.setCollectTime(collectTime);
+		systemDataModel.setFreeMemory(1000);
+		systemDataModel.setTotalMemory(4000);
+		systemDataModel.setCpuUsedPercentage(cpu);
+		systemDataModel.setVersion("3.4");
+		return systemDataModel;
+	}
+
+	private byte[] serialize(Object object) throws IOException {
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		ObjectOutputStream output = new ObjectOutputStream(bytes);
+		output.writeObject(object);
+		output.close();
+		return bytes.toByteArray();
+	}
+
+	@Test
+	public void testApply() throws Exception {
+		AgentControllerProcessReportMessage previous = new AgentControllerProcessReportMessage(
+				AgentControllerState.READY, createSystemDataModel(1000, 10f), 12000, "3.4");
+		AgentControllerProcessReportMessage current = new AgentControllerProcessReportMessage(
+				AgentControllerState.BUSY, createSystemDataModel(2000, 20f), 12000, "3.4");
+		byte[] heartbeat = serialize(new AgentControllerHeartbeatMessage(previous, current));
+		assertThat(heartbeat.length, lessThan(serialize(current).length));
+
+		AgentControllerHeartbeatMessage received = (AgentControllerHeartbeatMessage) new ObjectInputStream(
+				new ByteArrayInputStream(heartbeat)).readObject();
+		AgentControllerProcessReportMessage merged = received.apply(previous);
+		assertThat(merged.getState(), is(AgentControllerState.BUSY));
+		assertThat(merged.getConnectingPort(), is(12000));
+		assertThat(merged.getVersion(), is("3.4"));
+		assertThat(merged.getSystemDataModel().getCollectTime(), is(2000L));
+		assertThat(merged.getSystemDataModel().getCpuUsedPercentage(), is(20f));
+		assertThat(merged.getSystemDataModel().getTotalMemory(), is(4000L));
+		assertThat(merged.getSystemDataModel().getSystem(), is("LINUX"));
+		assertThat(received.isIdle(), is(false));
+	}
+
+	@Test
+	public void testIdle() {
+		AgentControllerProcessReportMessage previous = new AgentControllerProcessReportMessage(
+				AgentControllerState.READY, createSystemDataModel(1000, 10f), 0, "3.4");
+		AgentControllerProcessReportMessage current = new AgentControllerProcessReportMessage(
+				AgentControllerState.READY, createSystemDataModel(2000, 10f), 0, "3.4");
+		assertThat(new AgentControllerHeartbeatMessage(previous, current).isIdle(), is(true));
+		assertThat(AgentControllerHeartbeatMessage.isApplicable(null, current), is(false));
+	}
+}
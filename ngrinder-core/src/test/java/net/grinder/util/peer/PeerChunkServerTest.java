@@ -0,0 +1,166 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.peer;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PeerChunkServerTest {
+	private static final int CHUNK_SIZE = 64 * 1024;
+	private static final int REQUESTER_COUNT = 6;
+	private File directory;
+	private byte[] content;
+	private PeerManifest manifest;
+	private PeerChunkServer seed;
+	private PeerChunkServer peer;
+
+	@Before
+	public void before() throws IOException {
+		directory = new File(FileUtils.getTempDirectory(), "peer" + System.nanoTime());
+		content = new byte[CHUNK_SIZE * 3 + 100];
+		new Random(1).nextBytes(content);
+		FileUtils.writeByteArrayToFile(new File(directory, "lib/big.jar"), content);
+		seed = new PeerChunkServer(1);
+		manifest = new PeerManifest("127.0.0.1", seed.getPort(), CHUNK_SIZE, PeerManifest.collect(directory,
+				CHUNK_SIZE));
+		seed.addChunks(directory, manifest);
+		seed.start();
+		peer = new PeerChunkServer(0);
+		peer.start();
+	}
+
+	@After
+	public void after() {
+		seed.shutdown();
+		peer.shutdown();
+		FileUtils.deleteQuietly(directory);
+	}
+
+	@Test
+	public void testManifest() throws IOException {
+		File file = new File(directory, PeerManifest.FILE_NAME);
+		manifest.write(file);
+		PeerManifest read = PeerManifest.read(file);
+		assertThat(read.getSeedPort(), is(seed.getPort()));
+		assertThat(read.getEntries().size(), is(1));
+		PeerManifest.Entry entry = read.getEntries().get(0);
+		assertThat(entry.getPath(), is("lib/big.jar"));
+		assertThat(entry.getLength(), is((long) content.length));
+		assertThat(entry.getHashes().size(), is(4));
+		assertThat(read.getChunkLength(entry, 3), is(100));
+	}
+
+	@Test
+	public void testRelayedByPeer() throws IOException {
+		List<String> hashes = manifest.getEntries().get(0).getHashes();
+		String hash = hashes.get(0);
+		PeerChunkClient client = new PeerChunkClient("127.0.0.1", seed.getPort(), "", peer.getPort());
+		byte[] first = client.fetch(hash, CHUNK_SIZE);
+		File chunk = new File(directory, hash);
+		FileUtils.writeByteArrayToFile(chunk, first);
+		peer.addChunk(hash, chunk, 0, CHUNK_SIZE);
+		client.announce(hash);
+
+		// The seed served the chunk once already, so the next requester gets it from the peer.
+		FileUtils.deleteQuietly(new File(directory, "lib"));
+		byte[] relayed = new PeerChunkClient("127.0.0.1", seed.getPort(), "", 0).fetch(hash, CHUNK_SIZE);
+		assertThat(relayed, is(first));
+	}
+
+	@Test
+	public void testFallbackToSeed() throws IOException {
+		String hash = manifest.getEntries().get(0).getHashes().get(1);
+		PeerChunkClient client = new PeerChunkClient("127.0.0.1", seed.getPort(), "", peer.getPort());
+		client.fetch(hash, CHUNK_SIZE);
+		// The peer serves a corrupted chunk.
+		File chunk = new File(directory, hash);
+		FileUtils.writeByteArrayToFile(chunk, new byte[CHUNK_SIZE]);
+		peer.addChunk(hash, chunk, 0, CHUNK_SIZE);
+		client.announce(hash);
+
+		byte[] fetched = new PeerChunkClient("127.0.0.1", seed.getPort(), "", 0).fetch(hash, CHUNK_SIZE);
+		byte[] expected = new byte[CHUNK_SIZE];
+		System.arraycopy(content, CHUNK_SIZE, expected, 0, CHUNK_SIZE);
+		assertThat(fetched, is(expected));
+	}
+
+	@Test
+	public void testNotRedirectedToFetchingPeers() throws Exception {
+		final String hash = manifest.getEntries().get(0).getHashes().get(2);
+		final byte[] expected = new byte[CHUNK_SIZE];
+		System.arraycopy(content, CHUNK_SIZE * 2, expected, 0, CHUNK_SIZE);
+		// The requesters are still fetching, so their servers don't hold the chunk yet.
+		final ServerSocket fetchingPeer = new ServerSocket(0);
+		final AtomicInteger redirected = new AtomicInteger();
+		Thread acceptor = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					while (true) {
+						fetchingPeer.accept().close();
+						redirected.incrementAndGet();
+					}
+				} catch (IOException e) {
+					// Closed
+				}
+			}
+		});
+		acceptor.start();
+		ExecutorService executor = Executors.newFixedThreadPool(REQUESTER_COUNT);
+		try {
+			List<Future<byte[]>> fetches = new ArrayList<Future<byte[]>>();
+			for (int i = 0; i < REQUESTER_COUNT; i++) {
+				fetches.add(executor.submit(new Callable<byte[]>() {
+					@Override
+					public byte[] call() throws IOException {
+						return new PeerChunkClient("127.0.0.1", seed.getPort(), "", fetchingPeer.getLocalPort())
+								.fetch(hash, CHUNK_SIZE);
+					}
+				}));
+			}
+			for (Future<byte[]> each : fetches) {
+				assertThat(each.get(), is(expected));
+			}
+			assertThat(redirected.get(), is(0));
+		} finally {
+			executor.shutdownNow();
+			fetchingPeer.close();
+		}
+
+		// Once the peer announces the verified chunk, the next requester gets it from the peer.
+		File chunk = new File(directory, hash);
+		FileUtils.writeByteArrayToFile(chunk, expected);
+		peer.addChunk(hash, chunk, 0, CHUNK_SIZE);
+		new PeerChunkClient("127.0.0.1", seed.getPort(), "", peer.getPort()).announce(hash);
+		FileUtils.deleteQuietly(new File(directory, "lib"));
+		assertThat(new PeerChunkClient("127.0.0.1", seed.getPort(), "", 0).fetch(hash, CHUNK_SIZE), is(expected));
+	}
+}
@@ -0,0 +1,82 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.common.metrics;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Map;
+
+import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertThat;
+
+public class MetricsTest {
+
+	@After
+	public void after() {
+		Metrics.configure(false, 1);
+	}
+
+	@Test
+	public void testBucketBounds() {
+		for (long value : new long[]{0, 1, 15, 16, 17, 31, 32, 1000, 123456789, Long.MAX_VALUE}) {
+			int index = Timer.getBucketIndex(value);
+			assertThat(Timer.getBucketUpperBound(index), greaterThanOrEqualTo(value));
+			if (index > 0) {
+				assertThat(Timer.getBucketUpperBound(index - 1), lessThan(value));
+			}
+		}
+	}
+
+	@Test
+	public void testTimerPercentile() {
+		Timer timer = new Timer();
+		for (int i = 1; i <= 1000; i++) {
+			timer.record(i * 1000000L);
+		}
+		assertThat(timer.getCount(), is(1000L));
+		assertThat((double) timer.getPercentile(50), closeTo(500000000D, 500000000D / 16));
+		assertThat((double) timer.getPercentile(99), closeTo(990000000D, 990000000D / 16));
+		assertThat(timer.getPercentile(100), is(1000000000L));
+	}
+
+	@Test
+	public void testDisabledMetricsRecordNothing() {
+		Metrics.configure(false, 1);
+		Timer timer = Metrics.timer("test.disabled");
+		timer.stop(timer.start());
+		Metrics.counter("test.disabled").increment();
+		assertThat(timer.getCount(), is(0L));
+		assertThat(Metrics.counter("test.disabled").getValue(), is(0L));
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void testSampling() {
+		Metrics.configure(true, 10);
+		Timer timer = Metrics.timer("test.sampling");
+		for (int i = 0; i < 100; i++) {
+			timer.stop(timer.start());
+		}
+		assertThat(timer.getCount(), is(10L));
+		Metrics.gauge("test.gauge", new Gauge() {
+			@Override
+			public long getValue() {
+				return 3;
+			}
+		});
+		Map<String, Object> gauges = (Map<String, Object>) Metrics.getSnapshot().get("gauges");
+		assertThat((Long) gauges.get("test.gauge"), is(3L));
+	}
+}
@@ -0,0 +1,389 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.http;
+
+import net.grinder.common.GrinderException;
+import net.grinder.script.Grinder;
+import net.grinder.script.NonInstrumentableTypeException;
+import net.grinder.script.Statistics;
+import net.grinder.script.Statistics.StatisticsForTest;
+import net.grinder.script.Test;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.Header;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Non blocking HTTP client for the groovy test scripts.
+ * <p/>
+ * All clients in a worker process share the connection pool of {@link AsyncHTTPClientPool},
+ * so a client is cheap enough to be created per thread and recorded by a test. The blocking
+ * methods such as {@link #GET(String)} wait for the response in the calling thread, so the
+ * time recorded by the test is the time of the whole exchange. The methods whose names end
+ * with Async return immediately and the responses can be collected by {@link #await(Future)}
+ * or {@link #awaitAll(List)}.
+ * <p/>
+ * Each request is recorded against the test given by {@link #setTest(Test)} when its response
+ * is collected, so a batch of async requests counts as many tests as it has requests. The time
+ * of each request is measured from the submission to the completion in the IO dispatcher and
+ * reported in the {@value #STATISTIC_REQUEST_TIME} statistic, which
+ * {@link #registerStatistics()} shows as the mean request time.
+ * <p/>
+ * <code>
+ * &#64;BeforeProcess
+ * public static void beforeProcess() {
+ *     AsyncHTTPClient.registerStatistics()
+ * }
+ *
+ * &#64;BeforeThread
+ * public void beforeThread() {
+ *     client = new AsyncHTTPClient()
+ *     client.setTest(test)
+ * }
+ * ...
+ * def responses = client.awaitAll([client.GETAsync(url1), client.GETAsync(url2)])
+ * </code>
+ *
+ * @since 3.4
+ */
+public class AsyncHTTPClient {
+	private static final Charset DEFAULT_CHARSET = Charset.forName("ISO-8859-1");
+
+	/**
+	 * Statistic holding the time of each request measured in the IO dispatcher.
+	 */
+	public static final String STATISTIC_REQUEST_TIME = "userLong0";
+
+	private final AsyncHTTPClientPool pool;
+	private final Map<String, String> headers = new LinkedHashMap<String, String>();
+	private long timeout = 0;
+	private RequestRecorder recorder;
+
+	/**
+	 * Constructor using the process wide default pool.
+	 */
+	public AsyncHTTPClient() {
+		this(AsyncHTTPClientPool.getDefault());
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param pool connection pool
+	 */
+	public AsyncHTTPClient(AsyncHTTPClientPool pool) {
+		this.pool = pool;
+	}
+
+	/**
+	 * Register the request time statistic in the summary and the data log. It should be called
+	 * in the process context, such as a method annotated with BeforeProcess.
+	 *
+	 * @throws GrinderException if the expressions can't be registered
+	 */
+	public static void registerStatistics() throws GrinderException {
+		Statistics statistics = Grinder.grinder.getStatistics();
+		statistics.registerSummaryExpression("Mean request time (ms)",
+				"(/ " + STATISTIC_REQUEST_TIME + " (count timedTests))");
+		statistics.registerDataLogExpression("Request time (ms)", STATISTIC_REQUEST_TIME);
+	}
+
+	/**
+	 * Record each request of this client against the given test. A request is recorded on the
+	 * calling thread when its response is collected by {@link #await(Future)}, including the
+	 * blocking methods which collect it right away. The recorded test time is the time spent
+	 * waiting for that response, and the whole time of the request is added to the
+	 * {@value #STATISTIC_REQUEST_TIME} statistic.
+	 *
+	 * @param test test to record the requests
+	 * @throws NonInstrumentableTypeException if the recorder can't be instrumented
+	 */
+	public void setTest(Test test) throws NonInstrumentableTypeException {
+		RequestRecorder requestRecorder = new RequestRecorder();
+		test.record(requestRecorder);
+		this.recorder = requestRecorder;
+	}
+
+	/**
+	 * Set the headers sent with every request of this client.
+	 *
+	 * @param headers headers
+	 */
+	public void setHeaders(Map<String, String> headers) {
+		this.headers.clear();
+		this.headers.putAll(headers);
+	}
+
+	/**
+	 * Set the maximum time to wait for a response in the blocking methods.
+	 *
+	 * @param timeout timeout in ms. 0 means waiting until the pool timeout.
+	 */
+	public void setTimeout(long timeout) {
+		this.timeout = timeout;
+	}
+
+	public AsyncResponse GET(String uri) {
+		return await(GETAsync(uri));
+	}
+
+	public AsyncResponse GET(String uri, Map<String, String> headers) {
+		return await(GETAsync(uri, headers));
+	}
+
+	public AsyncResponse HEAD(String uri) {
+		return await(HEADAsync(uri));
+	}
+
+	public AsyncResponse DELETE(String uri) {
+		return await(DELETEAsync(uri));
+	}
+
+	public AsyncResponse POST(String uri, byte[] body, String contentType) {
+		return await(POSTAsync(uri, body, contentType));
+	}
+
+	public AsyncResponse POST(String uri, String body, String contentType) {
+		return await(POSTAsync(uri, body, contentType));
+	}
+
+	public AsyncResponse PUT(String uri, byte[] body, String contentType) {
+		return await(PUTAsync(uri, body, contentType));
+	}
+
+	public Future<AsyncResponse> GETAsync(String uri) {
+		return execute("GET", uri, null, null, null);
+	}
+
+	public Future<AsyncResponse> GETAsync(String uri, Map<String, String> headers) {
+		return execute("GET", uri, headers, null, null);
+	}
+
+	public Future<AsyncResponse> HEADAsync(String uri) {
+		return execute("HEAD", uri, null, null, null);
+	}
+
+	public Future<AsyncResponse> DELETEAsync(String uri) {
+		return execute("DELETE", uri, null, null, null);
+	}
+
+	public Future<AsyncResponse> POSTAsync(String uri, byte[] body, String contentType) {
+		return execute("POST", uri, null, body, contentType);
+	}
+
+	public Future<AsyncResponse> POSTAsync(String uri, String body, String contentType) {
+		return execute("POST", uri, null, body.getBytes(charsetOf(contentType)), contentType);
+	}
+
+	public Future<AsyncResponse> PUTAsync(String uri, byte[] body, String contentType) {
+		return execute("PUT", uri, null, body, contentType);
+	}
+
+	/**
+	 * Submit the request without waiting for the response.
+	 *
+	 * @param method      HTTP method
+	 * @param uri         request uri
+	 * @param headers     additional headers. can be null.
+	 * @param body        body. can be null.
+	 * @param contentType content type of the body. can be null.
+	 * @return future of the response
+	 */
+	public Future<AsyncResponse> execute(String method, String uri, Map<String, String> headers, byte[] body,
+	                                     String contentType) {
+		SimpleHttpRequest request = new SimpleHttpRequest(method, URI.create(uri));
+		for (Map.Entry<String, String> each : this.headers.entrySet()) {
+			request.setHeader(each.getKey(), each.getValue());
+		}
+		if (headers != null) {
+			for (Map.Entry<String, String> each : headers.entrySet()) {
+				request.setHeader(each.getKey(), each.getValue());
+			}
+		}
+		if (body != null) {
+			request.setBody(body, contentType == null ? ContentType.APPLICATION_OCTET_STREAM :
+					ContentType.parse(contentType));
+		}
+		ResponseFuture future = new ResponseFuture(System.currentTimeMillis());
+		future.delegate = pool.execute(request, future);
+		return future;
+	}
+
+	/**
+	 * Wait for the given response. It's recorded against the test given by
+	 * {@link #setTest(Test)}.
+	 *
+	 * @param future future returned by the async methods
+	 * @return response
+	 */
+	public AsyncResponse await(Future<AsyncResponse> future) {
+		return recorder == null ? get(future) : recorder.record(this, future);
+	}
+
+	private AsyncResponse get(Future<AsyncResponse> future) {
+		try {
+			return timeout > 0 ? future.get(timeout, TimeUnit.MILLISECONDS) : future.get();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new AsyncHTTPException("Interrupted while waiting for the response", e);
+		} catch (ExecutionException e) {
+			throw new AsyncHTTPException("Error while executing the request", e.getCause());
+		} catch (TimeoutException e) {
+			future.cancel(true);
+			throw new AsyncHTTPException("No response in " + timeout + " ms", e);
+		}
+	}
+
+	/**
+	 * Wait for all the given responses.
+	 *
+	 * @param futures futures returned by the async methods
+	 * @return responses in the same order
+	 */
+	public List<AsyncResponse> awaitAll(List<Future<AsyncResponse>> futures) {
+		List<AsyncResponse> responses = new ArrayList<AsyncResponse>(futures.size());
+		for (Future<AsyncResponse> each : futures) {
+			responses.add(await(each));
+		}
+		return responses;
+	}
+
+	private static Charset charsetOf(String contentType) {
+		if (contentType != null) {
+			Charset charset = ContentType.parse(contentType).getCharset();
+			if (charset != null) {
+				return charset;
+			}
+		}
+		return DEFAULT_CHARSET;
+	}
+
+	static AsyncResponse toResponse(SimpleHttpResponse response, long elapsedTime) {
+		Map<String, List<String>> headers = new LinkedHashMap<String, List<String>>();
+		for (Header each : response.getHeaders()) {
+			String name = each.getName().toLowerCase(Locale.ENGLISH);
+			List<String> values = headers.get(name);
+			if (values == null) {
+				values = new ArrayList<String>(1);
+				headers.put(name, values);
+			}
+			values.add(each.getValue());
+		}
+		ContentType contentType = response.getContentType();
+		Charset charset = (contentType == null || contentType.getCharset() == null) ? DEFAULT_CHARSET :
+				contentType.getCharset();
+		byte[] body = response.getBodyBytes();
+		return new AsyncResponse(response.getCode(), response.getReasonPhrase(),
+				response.getVersion() == null ? null : response.getVersion().toString(),
+				Collections.unmodifiableMap(headers), body == null ? new byte[0] : body,
+				contentType == null ? null : contentType.getMimeType(), charset, elapsedTime);
+	}
+
+	/**
+	 * Target instrumented by the test of the client. Each call of {@link #record} is a test
+	 * whose statistics are updated with the collected response.
+	 */
+	private static class RequestRecorder {
+		AsyncResponse record(AsyncHTTPClient client, Future<AsyncResponse> future) {
+			AsyncResponse response = client.get(future);
+			try {
+				StatisticsForTest statistics = Grinder.grinder.getStatistics().getForCurrentTest();
+				if (statistics != null) {
+					statistics.setLong(STATISTIC_REQUEST_TIME, response.getElapsedTime());
+				}
+			} catch (GrinderException e) {
+				// Fall through. The request is still counted by the test.
+			}
+			return response;
+		}
+	}
+
+	/**
+	 * Future converting the response of the underlying client. The elapsed time is taken when
+	 * the response is completed in the IO dispatcher, not when it's collected.
+	 */
+	private static class ResponseFuture implements Future<AsyncResponse>, FutureCallback<SimpleHttpResponse> {
+		private final long startTime;
+		private volatile long endTime;
+		private volatile Future<SimpleHttpResponse> delegate;
+		private volatile AsyncResponse response;
+
+		ResponseFuture(long startTime) {
+			this.startTime = startTime;
+		}
+
+		@Override
+		public void completed(SimpleHttpResponse result) {
+			endTime = System.currentTimeMillis();
+		}
+
+		@Override
+		public void failed(Exception ex) {
+			endTime = System.currentTimeMillis();
+		}
+
+		@Override
+		public void cancelled() {
+			endTime = System.currentTimeMillis();
+		}
+
+		@Override
+		public boolean cancel(boolean mayInterruptIfRunning) {
+			return delegate.cancel(mayInterruptIfRunning);
+		}
+
+		@Override
+		public boolean isCancelled() {
+			return delegate.isCancelled();
+		}
+
+		@Override
+		public boolean isDone() {
+			return delegate.isDone();
+		}
+
+		@Override
+		public AsyncResponse get() throws InterruptedException, ExecutionException {
+			return convert(delegate.get());
+		}
+
+		@Override
+		public AsyncResponse get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException,
+				TimeoutException {
+			return convert(delegate.get(timeout, unit));
+		}
+
+		private AsyncResponse convert(SimpleHttpResponse httpResponse) {
+			if (response == null) {
+				long end = (endTime == 0) ? System.currentTimeMillis() : endTime;
+				response = toResponse(httpResponse, end - startTime);
+			}
+			return response;
+		}
+	}
+}
@@ -0,0 +1,177 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.http;
+
+import net.grinder.script.Grinder;
+import org.apache.hc.client5.http.ConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.async.methods.SimpleHttpRequest;
+import org.apache.hc.client5.http.async.methods.SimpleHttpResponse;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.DefaultConnectionKeepAliveStrategy;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.HttpResponse;
+import org.apache.hc.core5.http.protocol.HttpContext;
+import org.apache.hc.core5.http2.HttpVersionPolicy;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+
+import java.io.Closeable;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+/**
+ * Per process pool of non blocking HTTP connections shared by {@link AsyncHTTPClient}s.
+ * <p/>
+ * The pool is configured by the following grinder properties.
+ * <ul>
+ * <li>grinder.http.maxConnections : maximum connection count in the pool. 2000 by default.</li>
+ * <li>grinder.http.maxConnectionsPerRoute : maximum connection count per host. 500 by default.</li>
+ * <li>grinder.http.keepAlive : maximum keep alive time of idle connections in ms. 30000 by default.</li>
+ * <li>grinder.http.timeout : connect and response timeout in ms. 60000 by default.</li>
+ * <li>grinder.http.version : negotiate, http1 or http2. http2 uses HTTP/2 with prior knowledge.
+ * negotiate by default.</li>
+ * <li>grinder.http.ioThreads : IO dispatcher thread count. the count of cores by default.</li>
+ * </ul>
+ *
+ * @since 3.4
+ */
+public class AsyncHTTPClientPool implements Closeable {
+	public static final String PROP_MAX_CONNECTIONS = "grinder.http.maxConnections";
+	public static final String PROP_MAX_CONNECTIONS_PER_ROUTE = "grinder.http.maxConnectionsPerRoute";
+	public static final String PROP_KEEP_ALIVE = "grinder.http.keepAlive";
+	public static final String PROP_TIMEOUT = "grinder.http.timeout";
+	public static final String PROP_VERSION = "grinder.http.version";
+	public static final String PROP_IO_THREADS = "grinder.http.ioThreads";
+
+	private static AsyncHTTPClientPool defaultPool;
+
+	private final CloseableHttpAsyncClient client;
+	private final PoolingAsyncClientConnectionManager connectionManager;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param properties properties containing the pool configuration
+	 */
+	public AsyncHTTPClientPool(Properties properties) {
+		final long keepAlive = getLong(properties, PROP_KEEP_ALIVE, 30000);
+		Timeout timeout = Timeout.ofMilliseconds(getLong(properties, PROP_TIMEOUT, 60000));
+		connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+				.setMaxConnTotal((int) getLong(properties, PROP_MAX_CONNECTIONS, 2000))
+				.setMaxConnPerRoute((int) getLong(properties, PROP_MAX_CONNECTIONS_PER_ROUTE, 500))
+				.build();
+		client = HttpAsyncClients.custom()
+				.setConnectionManager(connectionManager)
+				.setVersionPolicy(toVersionPolicy(properties.getProperty(PROP_VERSION, "negotiate")))
+				.setIOReactorConfig(IOReactorConfig.custom()
+						.setIoThreadCount((int) getLong(properties, PROP_IO_THREADS,
+								Runtime.getRuntime().availableProcessors()))
+						.setSoTimeout(timeout)
+						.build())
+				.setDefaultRequestConfig(RequestConfig.custom()
+						.setConnectTimeout(timeout)
+						.setResponseTimeout(timeout)
+						.build())
+				.setKeepAliveStrategy(new ConnectionKeepAliveStrategy() {
+					@Override
+					public TimeValue getKeepAliveDuration(HttpResponse response, HttpContext context) {
+						TimeValue duration = DefaultConnectionKeepAliveStrategy.INSTANCE
+								.getKeepAliveDuration(response, context);
+						if (duration == null || duration.toMilliseconds() < 0 || duration.toMilliseconds() > keepAlive) {
+							return TimeValue.ofMilliseconds(keepAlive);
+						}
+						return duration;
+					}
+				})
+				.evictIdleConnections(TimeValue.ofMilliseconds(keepAlive))
+				.build();
+		client.start();
+	}
+
+	/**
+	 * Get the pool shared in the current process. It's configured by the grinder properties
+	 * when it's running in the worker process. Otherwise system properties are used.
+	 *
+	 * @return default pool
+	 */
+	public static synchronized AsyncHTTPClientPool getDefault() {
+		if (defaultPool == null) {
+			Properties properties = (Grinder.grinder != null && Grinder.grinder.getProperties() != null) ?
+					Grinder.grinder.getProperties() : System.getProperties();
+			defaultPool = new AsyncHTTPClientPool(properties);
+			Runtime.getRuntime().addShutdownHook(new Thread("async http client pool shutdown") {
+				@Override
+				public void run() {
+					defaultPool.close();
+				}
+			});
+		}
+		return defaultPool;
+	}
+
+	private static HttpVersionPolicy toVersionPolicy(String version) {
+		if ("http1".equalsIgnoreCase(version)) {
+			return HttpVersionPolicy.FORCE_HTTP_1;
+		} else if ("http2".equalsIgnoreCase(version)) {
+			return HttpVersionPolicy.FORCE_HTTP_2;
+		}
+		return HttpVersionPolicy.NEGOTIATE;
+	}
+
+	private static long getLong(Properties properties, String key, long defaultValue) {
+		String value = properties.getProperty(key);
+		if (value == null) {
+			return defaultValue;
+		}
+		try {
+			return Long.parseLong(value.trim());
+		} catch (NumberFormatException e) {
+			return defaultValue;
+		}
+	}
+
+	/**
+	 * Submit the given request.
+	 *
+	 * @param request  request
+	 * @param callback callback notified in the IO dispatcher thread
+	 * @return future of the response
+	 */
+	Future<SimpleHttpResponse> execute(SimpleHttpRequest request, FutureCallback<SimpleHttpResponse> callback) {
+		return client.execute(request, callback);
+	}
+
+	/**
+	 * Get the count of connections in the pool.
+	 *
+	 * @return leased and available connection count
+	 */
+	public int getConnectionCount() {
+		return connectionManager.getTotalStats().getLeased() + connectionManager.getTotalStats().getAvailable();
+	}
+
+	@Override
+	public void close() {
+		try {
+			client.close();
+		} catch (Exception e) {
+			// Fall through
+		}
+	}
+}
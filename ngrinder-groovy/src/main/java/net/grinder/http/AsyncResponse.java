@@ -0,0 +1,132 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.http;
+
+import java.nio.charset.Charset;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Response of the {@link AsyncHTTPClient}. The body is fully read.
+ *
+ * @since 3.4
+ */
+public class AsyncResponse {
+	private final int statusCode;
+	private final String reasonPhrase;
+	private final String version;
+	private final Map<String, List<String>> headers;
+	private final byte[] body;
+	private final String contentType;
+	private final Charset charset;
+	private final long elapsedTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param statusCode   status code
+	 * @param reasonPhrase reason phrase
+	 * @param version      protocol version such as HTTP/1.1 or HTTP/2.0
+	 * @param headers      response headers. the header names are in lower case.
+	 * @param body         body
+	 * @param contentType  content type. null if not provided
+	 * @param charset      charset of the body
+	 * @param elapsedTime  time in ms from the request submission to the response completion
+	 */
+	public AsyncResponse(int statusCode, String reasonPhrase, String version, Map<String, List<String>> headers,
+	                     byte[] body, String contentType, Charset charset, long elapsedTime) {
+		this.statusCode = statusCode;
+		this.reasonPhrase = reasonPhrase;
+		this.version = version;
+		this.headers = headers;
+		this.body = body;
+		this.contentType = contentType;
+		this.charset = charset;
+		this.elapsedTime = elapsedTime;
+	}
+
+	public int getStatusCode() {
+		return statusCode;
+	}
+
+	public String getReasonPhrase() {
+		return reasonPhrase;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public Map<String, List<String>> getHeaders() {
+		return headers;
+	}
+
+	/**
+	 * Get the first value of the given header.
+	 *
+	 * @param name header name which is case insensitive
+	 * @return header value. null if it doesn't exist.
+	 */
+	public String getHeader(String name) {
+		List<String> values = headers.get(name.toLowerCase());
+		return (values == null || values.isEmpty()) ? null : values.get(0);
+	}
+
+	/**
+	 * Get all values of the given header.
+	 *
+	 * @param name header name which is case insensitive
+	 * @return header values
+	 */
+	public List<String> getHeaders(String name) {
+		List<String> values = headers.get(name.toLowerCase());
+		return values == null ? Collections.<String>emptyList() : values;
+	}
+
+	public byte[] getBody() {
+		return body;
+	}
+
+	/**
+	 * Get the body as the text decoded by the response charset.
+	 *
+	 * @return body text
+	 */
+	public String getText() {
+		return new String(body, charset);
+	}
+
+	public String getContentType() {
+		return contentType;
+	}
+
+	public long getElapsedTime() {
+		return elapsedTime;
+	}
+
+	/**
+	 * Check if the status code is 2xx or 3xx.
+	 *
+	 * @return true if succeeded
+	 */
+	public boolean isSuccess() {
+		return statusCode >= 200 && statusCode < 400;
+	}
+
+	@Override
+	public String toString() {
+		return version + " " + statusCode + " " + reasonPhrase;
+	}
+}
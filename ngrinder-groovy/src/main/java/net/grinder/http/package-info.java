@@ -0,0 +1,4 @@
+/**
+ * Non blocking HTTP client library for the groovy test scripts.
+ */
+package net.grinder.http;
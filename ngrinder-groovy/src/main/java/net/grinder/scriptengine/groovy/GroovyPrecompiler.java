@@ -0,0 +1,337 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy;
+
+import groovy.lang.GroovyClassLoader;
+import groovy.transform.CompileStatic;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.codehaus.groovy.control.CompilationUnit;
+import org.codehaus.groovy.control.CompilerConfiguration;
+import org.codehaus.groovy.control.Phases;
+import org.codehaus.groovy.control.SourceUnit;
+import org.codehaus.groovy.control.customizers.ASTTransformationCustomizer;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.jar.JarOutputStream;
+import java.util.jar.Manifest;
+
+/**
+ * Groovy script precompiler.
+ * <p/>
+ * The controller compiles the script and the groovy sources it refers once before the
+ * distribution, and writes the classes into {@code [script name].[source hash].jar} beside the
+ * script. The worker loads the classes from the jar instead of compiling the script when the
+ * hash of its sources matches, so the script is not compiled in each worker process and the
+ * compile errors are found before the agents are launched.
+ * <p/>
+ * The compile runs the AST transformations of the script and its libraries. So the controller
+ * runs {@link #main(String[])} in a separate JVM under the nGrinder security manager instead of
+ * compiling in its own JVM.
+ *
+ * @since 3.4
+ */
+public abstract class GroovyPrecompiler {
+	public static final String JAR_EXTENSION = ".jar";
+	/**
+	 * Exit code of {@link #main(String[])} when the script has compile errors.
+	 */
+	public static final int EXIT_COMPILE_ERROR = 2;
+	/**
+	 * Exit code of {@link #main(String[])} when the compile is failed by other reasons.
+	 */
+	public static final int EXIT_FAILURE = 1;
+	private static final String GROOVY_EXTENSION = ".groovy";
+	private static final String ATTR_SOURCE_HASH = "Source-Hash";
+	private static final String ATTR_COMPILE_STATIC = "Compile-Static";
+	private static final int BUFFER_SIZE = 8192;
+
+	/**
+	 * Get the precompiled jar of the given script.
+	 *
+	 * @param script script file
+	 * @param hash   source hash
+	 * @return jar file. It may not exist.
+	 */
+	public static File getCompiledJar(File script, String hash) {
+		return new File(script.getParentFile(), script.getName() + "." + hash + JAR_EXTENSION);
+	}
+
+	/**
+	 * Calculate the hash of the given script and all groovy sources under the given base
+	 * directory which can be referred by the script.
+	 *
+	 * @param baseDirectory base directory of the distribution
+	 * @param script        script file
+	 * @return hex encoded SHA-1 hash
+	 * @throws IOException occurs when a source can not be read
+	 */
+	public static String hash(File baseDirectory, File script) throws IOException {
+		MessageDigest digest = createDigest();
+		update(digest, script);
+		File canonicalScript = script.getCanonicalFile();
+		List<String> sources = new ArrayList<String>();
+		collectSources(baseDirectory, "", sources);
+		Collections.sort(sources);
+		for (String each : sources) {
+			File source = new File(baseDirectory, each);
+			if (!source.getCanonicalFile().equals(canonicalScript)) {
+				digest.update(each.getBytes("UTF-8"));
+				update(digest, source);
+			}
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Calculate the hash of the names and the contents of all files under the given directory.
+	 *
+	 * @param directory directory. It may not exist.
+	 * @return hex encoded SHA-1 hash
+	 * @throws IOException occurs when a file can not be read
+	 */
+	public static String hashDirectory(File directory) throws IOException {
+		MessageDigest digest = createDigest();
+		List<String> files = new ArrayList<String>();
+		collectFiles(directory, "", files, null);
+		Collections.sort(files);
+		for (String each : files) {
+			digest.update(each.getBytes("UTF-8"));
+			update(digest, new File(directory, each));
+		}
+		return toHex(digest.digest());
+	}
+
+	/**
+	 * Calculate the hash of the given text.
+	 *
+	 * @param text text
+	 * @return hex encoded SHA-1 hash
+	 */
+	public static String hash(String text) {
+		try {
+			return toHex(createDigest().digest(text.getBytes("UTF-8")));
+		} catch (IOException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	/**
+	 * Compile the given script and write the classes into the precompiled jar.
+	 *
+	 * @param baseDirectory base directory of the distribution
+	 * @param script        script file
+	 * @param classpath     classpath entries used for the compilation
+	 * @param compileStatic true if the sources should be compiled with {@link CompileStatic}
+	 * @param parent        parent class loader which contains groovy and grinder classes
+	 * @return created jar file
+	 * @throws IOException occurs when the classes can not be written
+	 * @throws org.codehaus.groovy.control.CompilationFailedException
+	 *                     occurs when the script has errors
+	 */
+	public static File compile(File baseDirectory, File script, List<String> classpath, boolean compileStatic,
+	                           ClassLoader parent) throws IOException {
+		String hash = hash(baseDirectory, script);
+		File classesDirectory = File.createTempFile("groovy_classes", "");
+		if (!classesDirectory.delete() || !classesDirectory.mkdirs()) {
+			throw new IOException("Can not create " + classesDirectory);
+		}
+		try {
+			CompilerConfiguration configuration = new CompilerConfiguration();
+			configuration.setSourceEncoding("UTF-8");
+			configuration.setTargetDirectory(classesDirectory);
+			configuration.setClasspathList(classpath);
+			if (compileStatic) {
+				configuration.addCompilationCustomizers(new ASTTransformationCustomizer(CompileStatic.class));
+			}
+			GroovyClassLoader loader = new GroovyClassLoader(parent, configuration, true);
+			CompilationUnit unit = new CompilationUnit(configuration, null, loader);
+			SourceUnit source = unit.addSource(script);
+			unit.compile(Phases.OUTPUT);
+			String mainClass = source.getAST().getClasses().get(0).getName();
+			File jar = getCompiledJar(script, hash);
+			writeJar(classesDirectory, jar, mainClass, hash, compileStatic);
+			return jar;
+		} finally {
+			deleteQuietly(classesDirectory);
+		}
+	}
+
+	/**
+	 * Compile the script in this process and exit. The arguments are the base directory, the
+	 * script, whether to compile statically and the classpath joined by the path separator. The
+	 * compile errors are printed to the standard output and the process exits with
+	 * {@link #EXIT_COMPILE_ERROR}.
+	 *
+	 * @param args arguments
+	 */
+	public static void main(String[] args) {
+		try {
+			List<String> classpath = new ArrayList<String>();
+			for (String each : args[3].split(File.pathSeparator)) {
+				if (each.length() != 0) {
+					classpath.add(each);
+				}
+			}
+			compile(new File(args[0]), new File(args[1]), classpath, Boolean.parseBoolean(args[2]),
+					GroovyPrecompiler.class.getClassLoader());
+		} catch (CompilationFailedException e) {
+			System.out.println(e.getMessage());
+			System.exit(EXIT_COMPILE_ERROR);
+		} catch (Throwable e) {
+			e.printStackTrace(System.out);
+			System.exit(EXIT_FAILURE);
+		}
+		System.exit(0);
+	}
+
+	/**
+	 * Load the precompiled main class of the given script if the jar matching the current
+	 * sources exists.
+	 *
+	 * @param baseDirectory base directory of the distribution
+	 * @param script        script file
+	 * @param parent        parent class loader. It should not compile the groovy sources by itself.
+	 * @return loaded class. null if there is no matching precompiled jar.
+	 * @throws IOException            occurs when the jar can not be read
+	 * @throws ClassNotFoundException occurs when the main class is not in the jar
+	 */
+	public static Class<?> load(File baseDirectory, File script, ClassLoader parent) throws IOException,
+			ClassNotFoundException {
+		File jar = getCompiledJar(script, hash(baseDirectory, script));
+		if (!jar.exists()) {
+			return null;
+		}
+		String mainClass;
+		JarFile jarFile = new JarFile(jar);
+		try {
+			Manifest manifest = jarFile.getManifest();
+			mainClass = (manifest == null) ? null : manifest.getMainAttributes().getValue(Attributes.Name.MAIN_CLASS);
+		} finally {
+			jarFile.close();
+		}
+		if (mainClass == null) {
+			return null;
+		}
+		URLClassLoader loader = new URLClassLoader(new URL[]{jar.toURI().toURL()}, parent);
+		return loader.loadClass(mainClass);
+	}
+
+	private static void writeJar(File classesDirectory, File jar, String mainClass, String hash,
+	                             boolean compileStatic) throws IOException {
+		Manifest manifest = new Manifest();
+		Attributes attributes = manifest.getMainAttributes();
+		attributes.put(Attributes.Name.MANIFEST_VERSION, "1.0");
+		attributes.put(Attributes.Name.MAIN_CLASS, mainClass);
+		attributes.putValue(ATTR_SOURCE_HASH, hash);
+		attributes.putValue(ATTR_COMPILE_STATIC, String.valueOf(compileStatic));
+		JarOutputStream output = new JarOutputStream(new FileOutputStream(jar), manifest);
+		try {
+			List<String> classes = new ArrayList<String>();
+			collectFiles(classesDirectory, "", classes, null);
+			for (String each : classes) {
+				output.putNextEntry(new JarEntry(each));
+				copy(new File(classesDirectory, each), output);
+				output.closeEntry();
+			}
+		} finally {
+			output.close();
+		}
+	}
+
+	private static void collectSources(File directory, String prefix, List<String> sources) {
+		collectFiles(directory, prefix, sources, GROOVY_EXTENSION);
+	}
+
+	private static void collectFiles(File directory, String prefix, List<String> files, String extension) {
+		File[] children = directory.listFiles();
+		if (children == null) {
+			return;
+		}
+		for (File each : children) {
+			String path = prefix + each.getName();
+			if (each.isDirectory()) {
+				collectFiles(each, path + "/", files, extension);
+			} else if (extension == null || each.getName().endsWith(extension)) {
+				files.add(path);
+			}
+		}
+	}
+
+	private static void update(MessageDigest digest, File file) throws IOException {
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				digest.update(buffer, 0, read);
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	private static void copy(File file, JarOutputStream output) throws IOException {
+		InputStream input = new FileInputStream(file);
+		try {
+			byte[] buffer = new byte[BUFFER_SIZE];
+			int read;
+			while ((read = input.read(buffer)) != -1) {
+				output.write(buffer, 0, read);
+			}
+		} finally {
+			input.close();
+		}
+	}
+
+	private static MessageDigest createDigest() {
+		try {
+			return MessageDigest.getInstance("SHA-1");
+		} catch (NoSuchAlgorithmException e) {
+			throw new IllegalStateException(e);
+		}
+	}
+
+	private static String toHex(byte[] bytes) {
+		StringBuilder builder = new StringBuilder(bytes.length * 2);
+		for (byte each : bytes) {
+			builder.append(Character.forDigit((each >> 4) & 0xF, 16)).append(Character.forDigit(each & 0xF, 16));
+		}
+		return builder.toString();
+	}
+
+	private static void deleteQuietly(File file) {
+		File[] children = file.listFiles();
+		if (children != null) {
+			for (File each : children) {
+				deleteQuietly(each);
+			}
+		}
+		//noinspection ResultOfMethodCallIgnored
+		file.delete();
+	}
+}
@@ -28,6 +28,8 @@ import org.junit.runner.notification.Failure;
 import org.junit.runner.notification.RunListener;
 import org.junit.runner.notification.RunNotifier;
 import org.junit.runners.model.InitializationError;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 
@@ -40,6 +42,7 @@ import static net.grinder.util.NoOp.noOp;
  * @author JunHo Yoon (modified by)
  */
 public class GroovyScriptEngine implements ScriptEngine {
+	private static final Logger LOGGER = LoggerFactory.getLogger(GroovyScriptEngine.class);
 	private AbstractExceptionProcessor exceptionProcessor = new GroovyExceptionProcessor();
 	// For unit test, make it package protected.
 	Class<?> m_groovyClass;
@@ -59,7 +62,10 @@ public class GroovyScriptEngine implements ScriptEngine {
 		configuration.setSourceEncoding("UTF-8");
 		final GroovyClassLoader loader = new GroovyClassLoader(parent, configuration, true);
 		try {
-			m_groovyClass = loader.parseClass(script.getFile());
+			m_groovyClass = loadPrecompiledClass(script, parent);
+			if (m_groovyClass == null) {
+				m_groovyClass = loader.parseClass(script.getFile());
+			}
 			m_grinderRunner = new GrinderContextExecutor(m_groovyClass);
 			m_grinderRunner.runBeforeProcess();
 			assert m_grinderRunner.testCount() > 0;
@@ -72,6 +78,27 @@ public class GroovyScriptEngine implements ScriptEngine {
 		}
 	}
 
+	/**
+	 * Load the script class precompiled by the controller if it matches the current sources.
+	 *
+	 * @param script location of the .groovy script file
+	 * @param parent parent class loader
+	 * @return precompiled class. null if not available.
+	 */
+	private Class<?> loadPrecompiledClass(ScriptLocation script, ClassLoader parent) {
+		try {
+			return GroovyPrecompiler.load(script.getDirectory().getFile(), script.getFile(), parent);
+		} catch (Exception e) {
+			LOGGER.warn("Precompiled {} can not be loaded. It's compiled again. {}", script.getFile().getName(),
+					e.toString());
+			return null;
+		} catch (LinkageError e) {
+			LOGGER.warn("Precompiled {} can not be linked. It's compiled again. {}", script.getFile().getName(),
+					e.toString());
+			return null;
+		}
+	}
+
 	/**
 	 * {@inheritDoc}
 	 */
@@ -23,7 +23,7 @@ import org.apache.commons.lang.math.NumberUtils;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Convenient NGrinder utilities.
@@ -62,8 +62,6 @@ public abstract class GrinderUtils {
 		return grinder;
 	}
 
-	private static Random random = new Random();
-
 	/**
 	 * Convert nvpair map to array. With this user can create NVPair array using
 	 * following code.
@@ -103,7 +101,7 @@ public abstract class GrinderUtils {
 	 * @since 3.2.3
 	 */
 	public static <T> T any(List<T> from) {
-		return from.get(random.nextInt(from.size()));
+		return from.get(ThreadLocalRandom.current().nextInt(from.size()));
 	}
 
 	/**
@@ -114,7 +112,7 @@ public abstract class GrinderUtils {
 	 * @since 3.2.3
 	 */
 	public static <T> T any(T[] from) {
-		return from[random.nextInt(from.length)];
+		return from[ThreadLocalRandom.current().nextInt(from.length)];
 	}
 
 	/**
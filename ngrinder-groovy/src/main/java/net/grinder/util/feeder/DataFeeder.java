@@ -0,0 +1,289 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.util.feeder;
+
+import net.grinder.common.GrinderProperties;
+import net.grinder.script.Grinder;
+import net.grinder.script.InternalScriptContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Test data feeder shared by all threads in a worker process.
+ * <p/>
+ * The data file is memory mapped once per process, and rows are served in the given
+ * {@link FeedMode}. When the controller split the file into per agent slices, only the slice of
+ * the current agent is mapped. The original file is not distributed in that case, so open it by
+ * the original path with this feeder. When the file starts with a header row, open it with the header
+ * flag so that the header is skipped in each slice and served by {@link #getHeader()}.
+ * <p/>
+ * <code>
+ * import net.grinder.util.feeder.*
+ * ...
+ * &#64;BeforeProcess
+ * public static void beforeProcess() {
+ *     users = DataFeeder.open("./resources/users.csv", FeedMode.UNIQUE)
+ * }
+ * ...
+ * def (id, password) = users.next()
+ * </code>
+ *
+ * @since 3.4
+ */
+public class DataFeeder {
+	private static final ConcurrentMap<String, DataFeeder> FEEDERS = new ConcurrentHashMap<String, DataFeeder>();
+
+	private final MappedLineReader reader;
+	private final FeedMode mode;
+	private final char separator;
+	private final boolean sliced;
+	private final int firstRow;
+	private final AtomicLong sequence = new AtomicLong();
+	private final ThreadLocal<int[]> cursor = new ThreadLocal<int[]>() {
+		@Override
+		protected int[] initialValue() {
+			return new int[1];
+		}
+	};
+
+	DataFeeder(MappedLineReader reader, FeedMode mode, char separator, boolean sliced) {
+		this(reader, mode, separator, sliced, false);
+	}
+
+	DataFeeder(MappedLineReader reader, FeedMode mode, char separator, boolean sliced, boolean header) {
+		this.reader = reader;
+		this.mode = mode;
+		this.separator = separator;
+		this.sliced = sliced;
+		this.firstRow = header ? 1 : 0;
+	}
+
+	/**
+	 * Open the comma separated data file in the {@link FeedMode#SEQUENTIAL} mode.
+	 *
+	 * @param path data file path
+	 * @return feeder shared in the current process
+	 */
+	public static DataFeeder open(String path) {
+		return open(path, FeedMode.SEQUENTIAL);
+	}
+
+	/**
+	 * Open the comma separated data file in the given mode.
+	 *
+	 * @param path data file path
+	 * @param mode feed mode
+	 * @return feeder shared in the current process
+	 */
+	public static DataFeeder open(String path, FeedMode mode) {
+		return open(path, mode, ',');
+	}
+
+	/**
+	 * Open the data file in the given mode. The same feeder is returned for the same path and
+	 * mode in a process, so the threads share the file mapping and the sequence.
+	 *
+	 * @param path      data file path
+	 * @param mode      feed mode
+	 * @param separator column separator
+	 * @return feeder shared in the current process
+	 */
+	public static DataFeeder open(String path, FeedMode mode, char separator) {
+		return open(path, mode, separator, false);
+	}
+
+	/**
+	 * Open the data file in the given mode. The same feeder is returned for the same path, mode,
+	 * separator and header flag in a process, so the threads share the file mapping and the sequence.
+	 *
+	 * @param path      data file path
+	 * @param mode      feed mode
+	 * @param separator column separator
+	 * @param header    true if the first row is the header
+	 * @return feeder shared in the current process
+	 */
+	public static DataFeeder open(String path, FeedMode mode, char separator, boolean header) {
+		String key = path + ":" + mode + ":" + separator + ":" + header;
+		DataFeeder feeder = FEEDERS.get(key);
+		if (feeder != null) {
+			return feeder;
+		}
+		synchronized (FEEDERS) {
+			feeder = FEEDERS.get(key);
+			if (feeder == null) {
+				feeder = create(new File(path), mode, separator, header);
+				FEEDERS.put(key, feeder);
+			}
+		}
+		return feeder;
+	}
+
+	private static DataFeeder create(File file, FeedMode mode, char separator, boolean header) {
+		InternalScriptContext grinder = Grinder.grinder;
+		File slice = (grinder == null) ? null : DataFileSplitter.getSliceFile(file, grinder.getAgentNumber());
+		boolean sliced = slice != null && slice.exists();
+		if (!sliced && !file.exists()) {
+			throw new IllegalArgumentException(file.getPath() + " and its slice for the agent "
+					+ ((grinder == null) ? "" : grinder.getAgentNumber() + " ") + "do not exist.");
+		}
+		try {
+			MappedLineReader reader = new MappedLineReader(sliced ? slice : file, Charset.defaultCharset());
+			if (reader.size() <= (header ? 1 : 0)) {
+				reader.close();
+				throw new IllegalArgumentException(file.getPath() + " has no data.");
+			}
+			return new DataFeeder(reader, mode, separator, sliced, header);
+		} catch (IOException e) {
+			throw new IllegalArgumentException("Error while opening the data file " + file.getPath(), e);
+		}
+	}
+
+	/**
+	 * Get the next row split by the separator.
+	 *
+	 * @return columns of the next row
+	 */
+	public String[] next() {
+		return split(nextLine(), separator);
+	}
+
+	/**
+	 * Get the next raw line.
+	 *
+	 * @return next line
+	 */
+	public String nextLine() {
+		InternalScriptContext grinder = Grinder.grinder;
+		if (grinder == null || grinder.getThreadNumber() == -1) {
+			return getLine(0, 1);
+		}
+		GrinderProperties properties = grinder.getProperties();
+		int processCount = properties.getInt("grinder.processes", 1);
+		int threadCount = properties.getInt("grinder.threads", 1);
+		int vuserIndex = (grinder.getProcessNumber() * threadCount) + grinder.getThreadNumber();
+		int vuserCount = processCount * threadCount;
+		if (!sliced) {
+			vuserIndex += grinder.getAgentNumber() * vuserCount;
+			vuserCount *= properties.getInt("grinder.agents", 1);
+		}
+		return getLine(vuserIndex, vuserCount);
+	}
+
+	/**
+	 * Get the next line for the given vuser.
+	 *
+	 * @param vuserIndex unique index of the current vuser among the vusers sharing the file
+	 * @param vuserCount count of vusers sharing the file
+	 * @return next line
+	 */
+	String getLine(int vuserIndex, int vuserCount) {
+		return reader.getLine(firstRow + nextIndex(vuserIndex, vuserCount));
+	}
+
+	private int nextIndex(int vuserIndex, int vuserCount) {
+		int size = size();
+		switch (mode) {
+			case RANDOM:
+				return ThreadLocalRandom.current().nextInt(size);
+			case UNIQUE:
+				if (vuserIndex >= size) {
+					return vuserIndex % size;
+				}
+				int rowsPerVuser = (size - vuserIndex + vuserCount - 1) / vuserCount;
+				return vuserIndex + (nextCursor() % rowsPerVuser) * vuserCount;
+			case PARTITIONED:
+				int from = (int) ((long) size * vuserIndex / vuserCount);
+				int to = (int) ((long) size * (vuserIndex + 1) / vuserCount);
+				if (from == to) {
+					return vuserIndex % size;
+				}
+				return from + (nextCursor() % (to - from));
+			default:
+				return (int) ((sequence.getAndIncrement() & Long.MAX_VALUE) % size);
+		}
+	}
+
+	private int nextCursor() {
+		int[] each = cursor.get();
+		int current = each[0];
+		each[0] = (current == Integer.MAX_VALUE) ? 0 : current + 1;
+		return current;
+	}
+
+	/**
+	 * Get the count of rows served by this feeder.
+	 *
+	 * @return row count
+	 */
+	public int size() {
+		return reader.size() - firstRow;
+	}
+
+	/**
+	 * Get the header row split by the separator.
+	 *
+	 * @return columns of the header. null if the feeder is opened without the header.
+	 */
+	public String[] getHeader() {
+		return firstRow == 0 ? null : split(reader.getLine(0), separator);
+	}
+
+	public FeedMode getMode() {
+		return mode;
+	}
+
+	/**
+	 * Split the given line by the separator. Double quoted columns may contain the separator
+	 * and the escaped double quote("").
+	 *
+	 * @param line      line
+	 * @param separator separator
+	 * @return columns
+	 */
+	static String[] split(String line, char separator) {
+		List<String> columns = new ArrayList<String>();
+		StringBuilder column = new StringBuilder();
+		boolean quoted = false;
+		for (int i = 0; i < line.length(); i++) {
+			char each = line.charAt(i);
+			if (quoted) {
+				if (each != '"') {
+					column.append(each);
+				} else if (i + 1 < line.length() && line.charAt(i + 1) == '"') {
+					column.append('"');
+					i++;
+				} else {
+					quoted = false;
+				}
+			} else if (each == '"') {
+				quoted = true;
+			} else if (each == separator) {
+				columns.add(column.toString());
+				column.setLength(0);
+			} else {
+				column.append(each);
+			}
+		}
+		columns.add(column.toString());
+		return columns.toArray(new String[columns.size()]);
+	}
+}
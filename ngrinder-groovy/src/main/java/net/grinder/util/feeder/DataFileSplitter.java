@@ -0,0 +1,113 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.util.feeder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Split a data file into the per agent slices.
+ * <p/>
+ * The controller splits the big data files before the distribution so that the {@link DataFeeder}
+ * running in each agent maps only the slice for the agent. The slice of the agent N is named as
+ * {@code [file name].slice[N]}. The original file is kept by the splitter. The controller removes it
+ * after the split so that it's not distributed along with the slices.
+ *
+ * @since 3.4
+ */
+public abstract class DataFileSplitter {
+	public static final String SLICE_SUFFIX = ".slice";
+
+	/**
+	 * Get the slice file of the given data file for the given agent.
+	 *
+	 * @param file        original data file
+	 * @param agentNumber agent number
+	 * @return slice file. It may not exist.
+	 */
+	public static File getSliceFile(File file, int agentNumber) {
+		return new File(file.getParentFile(), file.getName() + SLICE_SUFFIX + agentNumber);
+	}
+
+	/**
+	 * Split the given file into the given count of slices which have the same count of lines.
+	 * The content is copied by the byte ranges, so each line stays intact.
+	 *
+	 * @param file       file to be split
+	 * @param sliceCount slice count
+	 * @return created slice files
+	 * @throws IOException occurs when the file can not be read or written
+	 */
+	public static List<File> split(File file, int sliceCount) throws IOException {
+		return split(file, sliceCount, false);
+	}
+
+	/**
+	 * Split the given file into the given count of slices which have the same count of lines.
+	 * If the file has the header, the header is copied into every slice and the remaining lines
+	 * are split.
+	 *
+	 * @param file       file to be split
+	 * @param sliceCount slice count
+	 * @param header     true if the first line is the header
+	 * @return created slice files
+	 * @throws IOException occurs when the file can not be read or written
+	 */
+	public static List<File> split(File file, int sliceCount, boolean header) throws IOException {
+		List<File> slices = new ArrayList<File>(sliceCount);
+		MappedLineReader reader = new MappedLineReader(file, Charset.defaultCharset());
+		FileInputStream input = null;
+		try {
+			input = new FileInputStream(file);
+			FileChannel source = input.getChannel();
+			int firstLine = (header && reader.size() > 0) ? 1 : 0;
+			int lineCount = reader.size() - firstLine;
+			for (int i = 0; i < sliceCount; i++) {
+				long from = reader.getLineOffset(firstLine + (int) ((long) lineCount * i / sliceCount));
+				long to = reader.getLineOffset(firstLine + (int) ((long) lineCount * (i + 1) / sliceCount));
+				File slice = getSliceFile(file, i);
+				FileOutputStream output = new FileOutputStream(slice);
+				try {
+					if (firstLine > 0) {
+						transfer(source, 0, reader.getLineOffset(1), output);
+					}
+					transfer(source, from, to, output);
+				} finally {
+					output.close();
+				}
+				slices.add(slice);
+			}
+		} finally {
+			if (input != null) {
+				input.close();
+			}
+			reader.close();
+		}
+		return slices;
+	}
+
+	private static void transfer(FileChannel source, long from, long to, FileOutputStream output)
+			throws IOException {
+		long position = from;
+		while (position < to) {
+			position += source.transferTo(position, to - position, output.getChannel());
+		}
+	}
+}
@@ -0,0 +1,40 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.feeder;
+
+/**
+ * Row selection modes of {@link DataFeeder}.
+ *
+ * @since 3.4
+ */
+public enum FeedMode {
+	/**
+	 * All threads in a process walk through the rows in order. Rows are reused after the last row.
+	 */
+	SEQUENTIAL,
+	/**
+	 * Each call picks a random row.
+	 */
+	RANDOM,
+	/**
+	 * Each vuser owns the rows whose index modulo the total vuser count equals its unique id. No
+	 * row is shared among vusers as long as there are more rows than vusers.
+	 */
+	UNIQUE,
+	/**
+	 * The rows are split into contiguous blocks by agent, process and thread number and each vuser
+	 * walks through its own block.
+	 */
+	PARTITIONED
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package net.grinder.util.feeder;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+
+/**
+ * Line reader backed by the memory mapped file.
+ * <p/>
+ * The file content is not copied into the heap. Only the start offset of each non blank line is
+ * kept, so any line can be fetched by its index from any thread without locking.
+ *
+ * @since 3.4
+ */
+public class MappedLineReader implements Closeable {
+	private static final int REGION_SIZE = 1 << 30;
+	private static final int DEFAULT_LINE_BUFFER_SIZE = 256;
+
+	private final File file;
+	private final Charset charset;
+	private final RandomAccessFile randomAccessFile;
+	private final MappedByteBuffer[] regions;
+	private final long length;
+	private final long[] lineOffsets;
+	private final int lineCount;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file    file to be mapped
+	 * @param charset charset of the file
+	 * @throws IOException occurs when the file can not be mapped
+	 */
+	public MappedLineReader(File file, Charset charset) throws IOException {
+		this.file = file;
+		this.charset = charset;
+		this.randomAccessFile = new RandomAccessFile(file, "r");
+		try {
+			FileChannel channel = randomAccessFile.getChannel();
+			this.length = channel.size();
+			int regionCount = (int) ((length + REGION_SIZE - 1) / REGION_SIZE);
+			this.regions = new MappedByteBuffer[regionCount];
+			for (int i = 0; i < regionCount; i++) {
+				long position = (long) i * REGION_SIZE;
+				regions[i] = channel.map(FileChannel.MapMode.READ_ONLY, position,
+						Math.min(REGION_SIZE, length - position));
+			}
+			long[] offsets = new long[1024];
+			int count = 0;
+			boolean lineStart = true;
+			for (long position = 0; position < length; position++) {
+				byte each = byteAt(position);
+				if (each == '\n') {
+					lineStart = true;
+				} else if (lineStart) {
+					lineStart = false;
+					if (each == '\r') {
+						continue;
+					}
+					if (count == offsets.length) {
+						offsets = Arrays.copyOf(offsets, count * 2);
+					}
+					offsets[count++] = position;
+				}
+			}
+			this.lineOffsets = offsets;
+			this.lineCount = count;
+		} catch (IOException e) {
+			randomAccessFile.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Get the count of non blank lines.
+	 *
+	 * @return line count
+	 */
+	public int size() {
+		return lineCount;
+	}
+
+	/**
+	 * Get the line at the given index. Line terminators are excluded.
+	 *
+	 * @param index zero based line index
+	 * @return line
+	 */
+	public String getLine(int index) {
+		if (index < 0 || index >= lineCount) {
+			throw new IndexOutOfBoundsException("Line " + index + " is out of " + file.getName() + " which has "
+					+ lineCount + " lines.");
+		}
+		byte[] buffer = new byte[DEFAULT_LINE_BUFFER_SIZE];
+		int size = 0;
+		for (long position = lineOffsets[index]; position < length; position++) {
+			byte each = byteAt(position);
+			if (each == '\n') {
+				break;
+			}
+			if (size == buffer.length) {
+				buffer = Arrays.copyOf(buffer, size * 2);
+			}
+			buffer[size++] = each;
+		}
+		if (size > 0 && buffer[size - 1] == '\r') {
+			size--;
+		}
+		return new String(buffer, 0, size, charset);
+	}
+
+	/**
+	 * Get the byte offset where the given line starts. The file length is returned for
+	 * the index just after the last line.
+	 *
+	 * @param index zero based line index
+	 * @return offset in the file
+	 */
+	long getLineOffset(int index) {
+		return index >= lineCount ? length : lineOffsets[index];
+	}
+
+	/**
+	 * Get the mapped file length.
+	 *
+	 * @return byte length
+	 */
+	public long length() {
+		return length;
+	}
+
+	public File getFile() {
+		return file;
+	}
+
+	private byte byteAt(long position) {
+		return regions[(int) (position / REGION_SIZE)].get((int) (position % REGION_SIZE));
+	}
+
+	@Override
+	public void close() throws IOException {
+		randomAccessFile.close();
+	}
+}
@@ -0,0 +1,4 @@
+/**
+ * Shared test data feeders which serve the rows of memory mapped data files to the worker threads.
+ */
+package net.grinder.util.feeder;
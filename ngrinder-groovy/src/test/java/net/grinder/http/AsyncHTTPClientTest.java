@@ -0,0 +1,91 @@
+package net.grinder.http;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Future;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class AsyncHTTPClientTest {
+	private HttpServer server;
+	private AsyncHTTPClientPool pool;
+	private String url;
+
+	@Before
+	public void before() throws IOException {
+		server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+		server.createContext("/", new HttpHandler() {
+			@Override
+			public void handle(HttpExchange exchange) throws IOException {
+				byte[] request = IOUtils.toByteArray(exchange.getRequestBody());
+				String body = exchange.getRequestMethod() + ":" + exchange.getRequestURI().getPath() + ":"
+						+ new String(request, "UTF-8");
+				byte[] response = body.getBytes("UTF-8");
+				exchange.getResponseHeaders().add("Content-Type", "text/plain; charset=UTF-8");
+				exchange.getResponseHeaders().add("X-Test", "1");
+				exchange.sendResponseHeaders(200, response.length);
+				exchange.getResponseBody().write(response);
+				exchange.close();
+			}
+		});
+		server.start();
+		url = "http://127.0.0.1:" + server.getAddress().getPort();
+		Properties properties = new Properties();
+		properties.setProperty(AsyncHTTPClientPool.PROP_VERSION, "http1");
+		properties.setProperty(AsyncHTTPClientPool.PROP_IO_THREADS, "1");
+		pool = new AsyncHTTPClientPool(properties);
+	}
+
+	@After
+	public void after() {
+		pool.close();
+		server.stop(0);
+	}
+
+	@Test
+	public void testBlockingRequests() {
+		AsyncHTTPClient client = new AsyncHTTPClient(pool);
+		AsyncResponse response = client.GET(url + "/hello");
+		assertThat(response.getStatusCode(), is(200));
+		assertThat(response.isSuccess(), is(true));
+		assertThat(response.getText(), is("GET:/hello:"));
+		assertThat(response.getHeader("x-TEST"), is("1"));
+		assertThat(response.getContentType(), is("text/plain"));
+
+		response = client.POST(url + "/post", "한글", "text/plain; charset=UTF-8");
+		assertThat(response.getText(), is("POST:/post:한글"));
+	}
+
+	@Test
+	public void testAsyncRequests() {
+		AsyncHTTPClient client = new AsyncHTTPClient(pool);
+		List<Future<AsyncResponse>> futures = new ArrayList<Future<AsyncResponse>>();
+		for (int i = 0; i < 20; i++) {
+			futures.add(client.GETAsync(url + "/" + i));
+		}
+		List<AsyncResponse> responses = client.awaitAll(futures);
+		assertThat(responses.size(), is(20));
+		for (int i = 0; i < 20; i++) {
+			assertThat(responses.get(i).getText(), is("GET:/" + i + ":"));
+		}
+		assertThat(pool.getConnectionCount() > 0, is(true));
+	}
+
+	@Test(expected = AsyncHTTPException.class)
+	public void testConnectionFailure() {
+		server.stop(0);
+		new AsyncHTTPClient(pool).GET(url + "/closed");
+	}
+}
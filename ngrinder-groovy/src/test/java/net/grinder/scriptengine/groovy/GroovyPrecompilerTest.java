@@ -0,0 +1,101 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.scriptengine.groovy;
+
+import org.apache.commons.io.FileUtils;
+import org.codehaus.groovy.control.CompilationFailedException;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.hamcrest.CoreMatchers.not;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class GroovyPrecompilerTest {
+	private File baseDirectory;
+	private File script;
+	private List<String> classpath;
+
+	@Before
+	public void before() throws IOException {
+		baseDirectory = File.createTempFile("precompile", "");
+		FileUtils.deleteQuietly(baseDirectory);
+		File libDirectory = new File(baseDirectory, "lib");
+		FileUtils.writeStringToFile(new File(libDirectory, "Helper.groovy"),
+				"class Helper { static String greet(String name) { 'hello ' + name } }");
+		script = new File(baseDirectory, "TestRunner.groovy");
+		FileUtils.writeStringToFile(script, "class TestRunner { String test() { Helper.greet('world') } }");
+		classpath = Arrays.asList(baseDirectory.getAbsolutePath(), libDirectory.getAbsolutePath());
+	}
+
+	@After
+	public void after() {
+		FileUtils.deleteQuietly(baseDirectory);
+	}
+
+	@Test
+	public void testCompileAndLoad() throws Exception {
+		assertThat(GroovyPrecompiler.load(baseDirectory, script, getClass().getClassLoader()), nullValue());
+		File jar = GroovyPrecompiler.compile(baseDirectory, script, classpath, false, getClass().getClassLoader());
+		assertThat(jar.exists(), is(true));
+		assertThat(jar, is(GroovyPrecompiler.getCompiledJar(script, GroovyPrecompiler.hash(baseDirectory, script))));
+
+		Class<?> loaded = GroovyPrecompiler.load(baseDirectory, script, getClass().getClassLoader());
+		assertThat(loaded.getName(), is("TestRunner"));
+		assertThat((String) loaded.getMethod("test").invoke(loaded.newInstance()), is("hello world"));
+	}
+
+	@Test
+	public void testCompileStatic() throws Exception {
+		GroovyPrecompiler.compile(baseDirectory, script, classpath, true, getClass().getClassLoader());
+		Class<?> loaded = GroovyPrecompiler.load(baseDirectory, script, getClass().getClassLoader());
+		assertThat((String) loaded.getMethod("test").invoke(loaded.newInstance()), is("hello world"));
+	}
+
+	@Test
+	public void testHashChangesWithLibSource() throws Exception {
+		String hash = GroovyPrecompiler.hash(baseDirectory, script);
+		assertThat(GroovyPrecompiler.hash(baseDirectory, script), is(hash));
+		GroovyPrecompiler.compile(baseDirectory, script, classpath, false, getClass().getClassLoader());
+		FileUtils.writeStringToFile(new File(baseDirectory, "lib/Helper.groovy"),
+				"class Helper { static String greet(String name) { 'hi ' + name } }");
+		assertThat(GroovyPrecompiler.hash(baseDirectory, script), not(hash));
+		assertThat(GroovyPrecompiler.load(baseDirectory, script, getClass().getClassLoader()), nullValue());
+	}
+
+	@Test
+	public void testHashDirectory() throws Exception {
+		File libDirectory = new File(baseDirectory, "lib");
+		String hash = GroovyPrecompiler.hashDirectory(libDirectory);
+		assertThat(GroovyPrecompiler.hashDirectory(libDirectory), is(hash));
+		FileUtils.writeByteArrayToFile(new File(libDirectory, "helper.jar"), new byte[]{1, 2, 3});
+		String withJar = GroovyPrecompiler.hashDirectory(libDirectory);
+		assertThat(withJar, not(hash));
+		FileUtils.writeByteArrayToFile(new File(libDirectory, "helper.jar"), new byte[]{1, 2, 4});
+		assertThat(GroovyPrecompiler.hashDirectory(libDirectory), not(withJar));
+	}
+
+	@Test(expected = CompilationFailedException.class)
+	public void testCompileError() throws Exception {
+		FileUtils.writeStringToFile(script, "class TestRunner { void test() { ");
+		GroovyPrecompiler.compile(baseDirectory, script, classpath, false, getClass().getClassLoader());
+	}
+}
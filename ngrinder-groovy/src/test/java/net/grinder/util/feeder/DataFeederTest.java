@@ -0,0 +1,147 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.util.feeder;
+
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class DataFeederTest {
+	private File dataFile;
+	private MappedLineReader reader;
+
+	@Before
+	public void before() throws IOException {
+		dataFile = File.createTempFile("feeder", ".csv");
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 10; i++) {
+			content.append("id").append(i).append(",\"pass,").append(i).append("\"\r\n");
+		}
+		content.append("\n\nlast,row");
+		FileUtils.writeStringToFile(dataFile, content.toString());
+		reader = new MappedLineReader(dataFile, Charset.defaultCharset());
+	}
+
+	@After
+	public void after() throws IOException {
+		reader.close();
+		FileUtils.deleteQuietly(dataFile);
+	}
+
+	@Test
+	public void testMappedLineReader() {
+		assertThat(reader.size(), is(11));
+		assertThat(reader.getLine(0), is("id0,\"pass,0\""));
+		assertThat(reader.getLine(10), is("last,row"));
+	}
+
+	@Test
+	public void testSplit() {
+		String[] columns = DataFeeder.split("id3,\"pass,3\",\"a\"\"b\"", ',');
+		assertThat(columns.length, is(3));
+		assertThat(columns[1], is("pass,3"));
+		assertThat(columns[2], is("a\"b"));
+	}
+
+	@Test
+	public void testSequential() {
+		DataFeeder feeder = new DataFeeder(reader, FeedMode.SEQUENTIAL, ',', false);
+		for (int i = 0; i < 11; i++) {
+			feeder.getLine(0, 1);
+		}
+		assertThat(feeder.getLine(0, 1), is("id0,\"pass,0\""));
+	}
+
+	@Test
+	public void testUnique() {
+		DataFeeder feeder = new DataFeeder(reader, FeedMode.UNIQUE, ',', false);
+		assertThat(feeder.getLine(1, 3), is("id1,\"pass,1\""));
+		assertThat(feeder.getLine(1, 3), is("id4,\"pass,4\""));
+		assertThat(feeder.getLine(1, 3), is("id7,\"pass,7\""));
+		assertThat(feeder.getLine(1, 3), is("last,row"));
+		assertThat(feeder.getLine(1, 3), is("id1,\"pass,1\""));
+	}
+
+	@Test
+	public void testPartitioned() {
+		DataFeeder feeder = new DataFeeder(reader, FeedMode.PARTITIONED, ',', false);
+		assertThat(feeder.getLine(2, 3), is("id7,\"pass,7\""));
+		assertThat(feeder.getLine(2, 3), is("id8,\"pass,8\""));
+		assertThat(feeder.getLine(2, 3), is("id9,\"pass,9\""));
+		assertThat(feeder.getLine(2, 3), is("last,row"));
+		assertThat(feeder.getLine(2, 3), is("id7,\"pass,7\""));
+	}
+
+	@Test
+	public void testRandom() {
+		DataFeeder feeder = new DataFeeder(reader, FeedMode.RANDOM, ',', false);
+		Set<String> lines = new HashSet<String>();
+		for (int i = 0; i < 10000 && lines.size() < 11; i++) {
+			lines.add(feeder.getLine(0, 1));
+		}
+		assertThat(lines.size(), is(11));
+	}
+
+	@Test
+	public void testDataFileSplitter() throws IOException {
+		List<File> slices = DataFileSplitter.split(dataFile, 3);
+		try {
+			assertThat(slices.size(), is(3));
+			int total = 0;
+			for (File each : slices) {
+				MappedLineReader sliceReader = new MappedLineReader(each, Charset.defaultCharset());
+				total += sliceReader.size();
+				sliceReader.close();
+			}
+			assertThat(total, is(11));
+			assertThat(slices.get(2).getName(), is(dataFile.getName() + ".slice2"));
+		} finally {
+			for (File each : slices) {
+				FileUtils.deleteQuietly(each);
+			}
+		}
+	}
+
+	@Test
+	public void testDataFileSplitterWithHeader() throws IOException {
+		List<File> slices = DataFileSplitter.split(dataFile, 3, true);
+		try {
+			int total = 0;
+			for (File each : slices) {
+				MappedLineReader sliceReader = new MappedLineReader(each, Charset.defaultCharset());
+				DataFeeder feeder = new DataFeeder(sliceReader, FeedMode.SEQUENTIAL, ',', true, true);
+				assertThat(feeder.getHeader()[0], is("id0"));
+				total += feeder.size();
+				sliceReader.close();
+			}
+			assertThat(total, is(10));
+			assertThat(dataFile.exists(), is(true));
+		} finally {
+			for (File each : slices) {
+				FileUtils.deleteQuietly(each);
+			}
+		}
+	}
+}
@@ -32,11 +32,14 @@ import net.grinder.common.*;
 import net.grinder.common.processidentity.ProcessReport;
 import net.grinder.common.processidentity.WorkerIdentity;
 import net.grinder.communication.*;
+import net.grinder.communication.MessageDispatchRegistry.AbstractHandler;
 import net.grinder.engine.common.ConnectorFactory;
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.communication.ConsoleListener;
 import net.grinder.engine.messages.InitialiseGrinderMessage;
 import net.grinder.engine.process.dcr.DCRContextImplementation;
+import net.grinder.message.console.ConsoleIngestLagMessage;
+import net.grinder.message.console.ReportStatisticsBatchMessage;
 import net.grinder.messages.console.RegisterTestsMessage;
 import net.grinder.messages.console.ReportStatisticsMessage;
 import net.grinder.messages.console.WorkerAddress;
@@ -58,10 +61,14 @@ import net.grinder.util.*;
 import net.grinder.util.ListenerSupport.Informer;
 import net.grinder.util.thread.BooleanCondition;
 import net.grinder.util.thread.Condition;
+import org.ngrinder.eventlog.RequestEventWriter;
+import org.ngrinder.profile.WorkerProfiler;
 import org.slf4j.ILoggerFactory;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.File;
+import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.UnknownHostException;
@@ -85,9 +92,12 @@ final class GrinderProcess {
 	private final Logger m_terminalLogger;
 	private Logger m_logger = null;
 	private final Logger m_dataLogger;
+	private final RequestEventWriter m_requestEventWriter;
+	private final WorkerProfiler m_profiler;
 	private final LoggerContext m_logbackLoggerContext;
 	private final boolean m_reportTimesToConsole;
 	private final QueuedSender m_consoleSender;
+	private final ReportCoalescer m_reportCoalescer;
 	private final Sleeper m_sleeper;
 	private final InitialiseGrinderMessage m_initialisationMessage;
 	private final ConsoleListener m_consoleListener;
@@ -141,6 +151,8 @@ final class GrinderProcess {
 			m_logbackLoggerContext = configureLogging(workerName, logDirectory);
 			m_logger = LoggerFactory.getLogger("worker." + workerName);
 			m_dataLogger = LoggerFactory.getLogger("data");
+			m_requestEventWriter = createRequestEventWriter(properties, workerName, logDirectory);
+			m_profiler = createProfiler(properties, workerName, logDirectory);
 
 			m_logger.info("The Grinder version {}", GrinderBuild.getVersionString());
 			m_logger.info(JVM.getInstance().toString());
@@ -155,9 +167,11 @@ final class GrinderProcess {
 						ConnectionType.WORKER).create(properties), new WorkerAddress(workerIdentity)));
 
 				barrierGroups = new ClientBarrierGroups(m_consoleSender, messageDispatcher);
+				m_reportCoalescer = createReportCoalescer(properties);
 			} else {
 				m_consoleSender = new NullQueuedSender();
 				barrierGroups = new LocalBarrierGroups();
+				m_reportCoalescer = null;
 			}
 
 			final BarrierIdentityGenerator barrierIdentityGenerator = new BarrierIdentityGenerator(
@@ -231,6 +245,16 @@ final class GrinderProcess {
 			m_consoleListener = new ConsoleListener(m_eventSynchronisation, m_logger);
 
 			m_consoleListener.registerMessageHandlers(messageDispatcher);
+			if (m_reportCoalescer != null) {
+				messageDispatcher.set(ConsoleIngestLagMessage.class, new AbstractHandler<ConsoleIngestLagMessage>() {
+					public void handle(ConsoleIngestLagMessage message) {
+						if (m_reportCoalescer.update(message.getIngestLag(), message.getSampleInterval())) {
+							m_logger.info("Report interval is changed to {} ms by the console ingest lag {} ms",
+									m_reportCoalescer.getReportInterval(), message.getIngestLag());
+						}
+					}
+				});
+			}
 			m_messagePump = new MessagePump(agentReceiver, messageDispatcher, 1);
 		} catch (GrinderException e) {
 			if (m_logger != null) {
@@ -240,6 +264,49 @@ final class GrinderProcess {
 		}
 	}
 
+	private RequestEventWriter createRequestEventWriter(final GrinderProperties properties, final String workerName,
+	                                                    final String logDirectory) {
+		final double sampleRate = properties.getDouble(RequestEventWriter.PROP_SAMPLE_RATE, 0);
+		final long slowThreshold = properties.getLong(RequestEventWriter.PROP_SLOW_THRESHOLD, 0);
+		if (!RequestEventWriter.isEnabled(sampleRate, slowThreshold)) {
+			return null;
+		}
+		final File eventFile = new File(logDirectory, workerName + RequestEventWriter.FILE_EXTENSION);
+		try {
+			m_logger.info("Request events are recorded in {} with sample rate {} and slow threshold {} ms",
+					new Object[]{eventFile, sampleRate, slowThreshold});
+			return new RequestEventWriter(eventFile, sampleRate, slowThreshold);
+		} catch (IOException e) {
+			m_logger.error("Failed to create the request event file {}", eventFile, e);
+			return null;
+		}
+	}
+
+	private WorkerProfiler createProfiler(final GrinderProperties properties, final String workerName,
+	                                      final String logDirectory) {
+		final long duration = properties.getLong(WorkerProfiler.PROP_DURATION, 0);
+		if (!WorkerProfiler.isEnabled(duration)) {
+			return null;
+		}
+		final long delay = properties.getLong(WorkerProfiler.PROP_DELAY, 0);
+		final long interval = properties.getLong(WorkerProfiler.PROP_INTERVAL, WorkerProfiler.DEFAULT_INTERVAL);
+		final File profileFile = new File(logDirectory, workerName + WorkerProfiler.FILE_EXTENSION);
+		final File recordingFile = properties.getBoolean(WorkerProfiler.PROP_JFR, false) ?
+				new File(logDirectory, workerName + WorkerProfiler.JFR_FILE_EXTENSION) : null;
+		m_logger.info("Profiling for {} sec after {} sec with {} ms interval into {}",
+				new Object[]{duration, delay, interval, profileFile});
+		return new WorkerProfiler(profileFile, recordingFile, delay * 1000, duration * 1000, interval);
+	}
+
+	private ReportCoalescer createReportCoalescer(final GrinderProperties properties) {
+		final int maxCoalesce = properties.getInt(ReportCoalescer.PROP_MAX_COALESCE,
+				ReportCoalescer.DEFAULT_MAX_COALESCE);
+		if (!ReportCoalescer.isEnabled(maxCoalesce)) {
+			return null;
+		}
+		return new ReportCoalescer(properties.getInt("grinder.reportToConsole.interval", 500), maxCoalesce);
+	}
+
 	private LoggerContext configureLogging(final String workerName, final String logDirectory) throws EngineException {
 
 		final ILoggerFactory iLoggerFactory = LoggerFactory.getILoggerFactory();
@@ -371,7 +438,7 @@ final class GrinderProcess {
 
 			m_logger.info("Start time is {} ms since Epoch", m_times.getExecutionStartTime());
 
-			final TimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
+			final ReportToConsoleTimerTask reportTimerTask = new ReportToConsoleTimerTask(threadSynchronisation);
 			final TimerTask shutdownTimerTask = new ShutdownTimerTask();
 
 			// Schedule a regular statistics report to the console. We don't
@@ -442,7 +509,15 @@ final class GrinderProcess {
 			scriptEngine.shutdown();
 
 			// Final report to the console.
-			reportTimerTask.run();
+			reportTimerTask.report(true);
+
+			if (m_requestEventWriter != null) {
+				m_requestEventWriter.close();
+			}
+
+			if (m_profiler != null) {
+				m_profiler.close();
+			}
 
 			if (!m_communicationShutdown) {
 				sendStatusMessage(ProcessReport.STATE_FINISHED, (short) 0, (short) 0);
@@ -504,6 +579,16 @@ final class GrinderProcess {
 
 		@Override
 		public void run() {
+			report(false);
+		}
+
+		/**
+		 * Take the sample of the last interval and report it to the console. While the console is
+		 * behind, the samples are held by the {@link ReportCoalescer} and sent together later.
+		 *
+		 * @param flush true if the held samples should be sent right away
+		 */
+		public void report(boolean flush) {
 			if (!m_communicationShutdown) {
 				try {
 					final TestStatisticsMap sample = m_testRegistryImplementation.getTestStatisticsMap().reset();
@@ -517,12 +602,23 @@ final class GrinderProcess {
 						m_consoleSender.send(new RegisterTestsMessage(newTests));
 					}
 
-					if (sample.size() > 0) {
-						if (!m_reportTimesToConsole) {
-							m_testStatisticsHelper.removeTestTimeFromSample(sample);
+					if (sample.size() > 0 && !m_reportTimesToConsole) {
+						m_testStatisticsHelper.removeTestTimeFromSample(sample);
+					}
+
+					if (m_reportCoalescer == null) {
+						if (sample.size() > 0) {
+							m_consoleSender.send(new ReportStatisticsMessage(sample));
 						}
+					} else if (m_reportCoalescer.add(System.currentTimeMillis(), sample) || flush) {
+						final ReportStatisticsBatchMessage batch = m_reportCoalescer.drain();
 
-						m_consoleSender.send(new ReportStatisticsMessage(sample));
+						if (batch != null) {
+							m_consoleSender.send(batch);
+						}
+					} else {
+						// The status is sent along with the coalesced samples.
+						return;
 					}
 
 					sendStatusMessage(ProcessReport.STATE_RUNNING, m_threads.getNumberOfRunningThreads(),
@@ -832,7 +928,8 @@ final class GrinderProcess {
 			}
 
 			final ThreadContext threadContext = new ThreadContextImplementation(
-					m_initialisationMessage.getProperties(), m_statisticsServices, threadNumber, m_dataLogger);
+					m_initialisationMessage.getProperties(), m_statisticsServices, threadNumber, m_dataLogger,
+					m_requestEventWriter);
 
 			final WorkerRunnableFactory workerRunnableFactory;
 
@@ -0,0 +1,145 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.engine.process;
+
+import net.grinder.message.console.ReportStatisticsBatchMessage;
+import net.grinder.statistics.TestStatisticsMap;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Coalesce the statistics reports of the worker process while the console is behind.
+ * <p/>
+ * A sample is still taken every base report interval, but the samples are sent together every
+ * {@link #getFactor()} intervals. The factor is doubled while the ingest lag advertised by the
+ * console exceeds the current report interval, and halved once the lag falls under the half of
+ * the base interval. The coalesced interval never exceeds the console sampling interval, so each
+ * sample reaches the console at most one console sample late.
+ *
+ * @since 3.4
+ */
+final class ReportCoalescer {
+	public static final String PROP_MAX_COALESCE = "grinder.reportToConsole.maxCoalesce";
+	public static final int DEFAULT_MAX_COALESCE = 8;
+
+	private final int m_baseInterval;
+	private final int m_maxFactor;
+	private final List<Long> m_timestamps = new ArrayList<Long>();
+	private final List<TestStatisticsMap> m_statisticsDeltas = new ArrayList<TestStatisticsMap>();
+	private int m_factor = 1;
+	private int m_ticks = 0;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param baseInterval base report interval in ms
+	 * @param maxFactor    maximum count of the report intervals coalesced into one report
+	 */
+	ReportCoalescer(int baseInterval, int maxFactor) {
+		m_baseInterval = Math.max(baseInterval, 1);
+		m_maxFactor = Math.max(maxFactor, 1);
+	}
+
+	/**
+	 * Check if the coalescing should be enabled with the given maximum factor.
+	 *
+	 * @param maxFactor maximum count of the coalesced report intervals
+	 * @return true if enabled
+	 */
+	static boolean isEnabled(int maxFactor) {
+		return maxFactor > 1;
+	}
+
+	/**
+	 * Add the sample taken at the end of a report interval.
+	 *
+	 * @param timestamp       time when the sample was taken
+	 * @param statisticsDelta statistics of the interval. null if nothing was recorded.
+	 * @return true if the pending samples should be sent now
+	 */
+	synchronized boolean add(long timestamp, TestStatisticsMap statisticsDelta) {
+		if (statisticsDelta != null && statisticsDelta.size() > 0) {
+			m_timestamps.add(timestamp);
+			m_statisticsDeltas.add(statisticsDelta);
+		}
+		if (++m_ticks < m_factor) {
+			return false;
+		}
+		m_ticks = 0;
+		return true;
+	}
+
+	/**
+	 * Take all pending samples.
+	 *
+	 * @return the message carrying the pending samples. null if there is no pending sample.
+	 */
+	synchronized ReportStatisticsBatchMessage drain() {
+		m_ticks = 0;
+		if (m_timestamps.isEmpty()) {
+			return null;
+		}
+		long[] timestamps = new long[m_timestamps.size()];
+		for (int i = 0; i < timestamps.length; i++) {
+			timestamps[i] = m_timestamps.get(i);
+		}
+		TestStatisticsMap[] statisticsDeltas = m_statisticsDeltas.toArray(
+				new TestStatisticsMap[m_statisticsDeltas.size()]);
+		m_timestamps.clear();
+		m_statisticsDeltas.clear();
+		return new ReportStatisticsBatchMessage(timestamps, statisticsDeltas);
+	}
+
+	/**
+	 * Adjust the factor by the ingest lag advertised by the console.
+	 *
+	 * @param ingestLag      ms by which the console is behind
+	 * @param sampleInterval console sampling interval in ms
+	 * @return true if the factor is changed
+	 */
+	synchronized boolean update(long ingestLag, int sampleInterval) {
+		int limit = Math.max(1, Math.min(m_maxFactor, sampleInterval / m_baseInterval));
+		int factor = m_factor;
+		if (ingestLag > (long) m_baseInterval * m_factor) {
+			factor = m_factor * 2;
+		} else if (ingestLag < m_baseInterval / 2) {
+			factor = m_factor / 2;
+		}
+		factor = Math.max(1, Math.min(limit, factor));
+		if (factor == m_factor) {
+			return false;
+		}
+		m_factor = factor;
+		return true;
+	}
+
+	/**
+	 * Get the count of the report intervals coalesced into one report.
+	 *
+	 * @return factor
+	 */
+	synchronized int getFactor() {
+		return m_factor;
+	}
+
+	/**
+	 * Get the current report interval.
+	 *
+	 * @return interval in ms
+	 */
+	synchronized int getReportInterval() {
+		return m_baseInterval * m_factor;
+	}
+}
@@ -33,11 +33,17 @@ import net.grinder.common.ThreadLifeCycleListener;
 import net.grinder.engine.common.EngineException;
 import net.grinder.engine.process.DispatchContext.DispatchStateException;
 import net.grinder.script.Statistics.StatisticsForTest;
+import net.grinder.statistics.StatisticsIndexMap;
+import net.grinder.statistics.StatisticsIndexMap.LongIndex;
+import net.grinder.statistics.StatisticsIndexMap.LongSampleIndex;
 import net.grinder.statistics.StatisticsServices;
 import net.grinder.statistics.StatisticsSet;
 import net.grinder.util.ListenerSupport;
 import net.grinder.util.ListenerSupport.Informer;
 
+import org.ngrinder.eventlog.RequestEventBuffer;
+import org.ngrinder.eventlog.RequestEventColumns;
+import org.ngrinder.eventlog.RequestEventWriter;
 import org.slf4j.Logger;
 import org.slf4j.Marker;
 import org.slf4j.MarkerFactory;
@@ -75,11 +81,14 @@ final class ThreadContextImplementation implements ThreadContext {
 
 	public ThreadContextImplementation(GrinderProperties properties,
 			StatisticsServices statisticsServices, int threadNumber,
-			Logger dataLogger) throws EngineException {
+			Logger dataLogger, final RequestEventWriter requestEventWriter)
+			throws EngineException {
 
 		m_threadNumber = threadNumber;
 		m_threadMarker = MarkerFactory.getMarker("thread-" + threadNumber);
 
+		final DispatchResultReporter dataLogReporter;
+
 		// Undocumented property. Added so Tom Barnes can investigate overhead
 		// of data logging.
 		if (properties.getBoolean("grinder.logData", true)) {
@@ -87,7 +96,7 @@ final class ThreadContextImplementation implements ThreadContext {
 					dataLogger, statisticsServices.getDetailStatisticsView()
 							.getExpressionViews(), m_threadNumber);
 
-			m_dispatchResultReporter = new DispatchResultReporter() {
+			dataLogReporter = new DispatchResultReporter() {
 				public void report(Test test, long startTime,
 						StatisticsSet statistics) {
 					threadDataLogger.report(getRunNumber(), test, startTime,
@@ -95,7 +104,7 @@ final class ThreadContextImplementation implements ThreadContext {
 				}
 			};
 		} else {
-			m_dispatchResultReporter = new DispatchResultReporter() {
+			dataLogReporter = new DispatchResultReporter() {
 				public void report(Test test, long startTime,
 						StatisticsSet statistics) {
 					// Null reporter.
@@ -103,6 +112,34 @@ final class ThreadContextImplementation implements ThreadContext {
 			};
 		}
 
+		if (requestEventWriter != null) {
+			// Record the sampled requests into the binary event log as well.
+			final RequestEventBuffer requestEventBuffer = requestEventWriter
+					.createBuffer(threadNumber);
+			final StatisticsIndexMap indexMap = statisticsServices
+					.getStatisticsIndexMap();
+			final LongSampleIndex timedTestsIndex = indexMap
+					.getLongSampleIndex("timedTests");
+			final LongIndex errorsIndex = indexMap.getLongIndex("errors");
+
+			m_dispatchResultReporter = new DispatchResultReporter() {
+				public void report(Test test, long startTime,
+						StatisticsSet statistics) {
+					dataLogReporter.report(test, startTime, statistics);
+					final long duration = statistics.getSum(timedTestsIndex);
+					final boolean error = statistics.getValue(errorsIndex) > 0;
+					if (requestEventWriter.accept(duration, error)) {
+						requestEventBuffer.offer(startTime, test.getNumber(),
+								(int) duration,
+								error ? RequestEventColumns.STATUS_ERROR
+										: RequestEventColumns.STATUS_SUCCESS);
+					}
+				}
+			};
+		} else {
+			m_dispatchResultReporter = dataLogReporter;
+		}
+
 		registerThreadLifeCycleListener(new SkeletonThreadLifeCycleListener() {
 			public void endRun() {
 				reportPendingDispatchContext();
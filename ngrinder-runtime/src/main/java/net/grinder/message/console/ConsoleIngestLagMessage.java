@@ -0,0 +1,52 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.message.console;
+
+import net.grinder.communication.Message;
+
+/**
+ * Ingest lag advertised by the console to the worker processes through the agents.
+ * <p/>
+ * The worker processes coalesce more report intervals into one
+ * {@link ReportStatisticsBatchMessage} while the lag grows, and return to the base interval once
+ * the console catches up.
+ *
+ * @since 3.4
+ */
+public class ConsoleIngestLagMessage implements Message {
+
+	private static final long serialVersionUID = 1L;
+
+	private final long m_ingestLag;
+	private final int m_sampleInterval;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param ingestLag      ms by which the console is behind the reports
+	 * @param sampleInterval sampling interval of the console in ms
+	 */
+	public ConsoleIngestLagMessage(long ingestLag, int sampleInterval) {
+		m_ingestLag = ingestLag;
+		m_sampleInterval = sampleInterval;
+	}
+
+	public long getIngestLag() {
+		return m_ingestLag;
+	}
+
+	public int getSampleInterval() {
+		return m_sampleInterval;
+	}
+}
@@ -0,0 +1,102 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.message.console;
+
+import net.grinder.communication.Address;
+import net.grinder.communication.AddressAwareMessage;
+import net.grinder.statistics.TestStatisticsMap;
+
+/**
+ * Statistics of several report intervals sent at once by a worker process.
+ * <p/>
+ * While the console is behind, the worker keeps taking a sample every report interval but sends
+ * them together in this message. Each sample keeps the time when it was taken, so the console can
+ * tell the queueing lag from the coalescing delay.
+ *
+ * @since 3.4
+ */
+public class ReportStatisticsBatchMessage implements AddressAwareMessage {
+
+	private static final long serialVersionUID = 1L;
+
+	private transient Address m_address;
+
+	private final long[] m_timestamps;
+	private final TestStatisticsMap[] m_statisticsDeltas;
+	private final long m_sentTime;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param timestamps       time when each sample was taken in ms since epoch
+	 * @param statisticsDeltas statistics of each report interval
+	 */
+	public ReportStatisticsBatchMessage(long[] timestamps, TestStatisticsMap[] statisticsDeltas) {
+		m_timestamps = timestamps;
+		m_statisticsDeltas = statisticsDeltas;
+		m_sentTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Get the count of the report intervals in this message.
+	 *
+	 * @return interval count
+	 */
+	public int size() {
+		return m_timestamps.length;
+	}
+
+	/**
+	 * Get the time when the sample at the given index was taken.
+	 *
+	 * @param index sample index
+	 * @return ms since epoch in the worker clock
+	 */
+	public long getTimestamp(int index) {
+		return m_timestamps[index];
+	}
+
+	/**
+	 * Get the statistics of the report interval at the given index.
+	 *
+	 * @param index sample index
+	 * @return statistics delta
+	 */
+	public TestStatisticsMap getStatisticsDelta(int index) {
+		return m_statisticsDeltas[index];
+	}
+
+	/**
+	 * Get the time when this message was sent.
+	 *
+	 * @return ms since epoch in the worker clock
+	 */
+	public long getSentTime() {
+		return m_sentTime;
+	}
+
+	@Override
+	public void setAddress(Address address) {
+		m_address = address;
+	}
+
+	/**
+	 * Get the address of the worker process which sent this message.
+	 *
+	 * @return worker address
+	 */
+	public Address getAddress() {
+		return m_address;
+	}
+}
@@ -0,0 +1,103 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.eventlog;
+
+/**
+ * Fixed size ring buffer of the request events recorded by one worker thread.
+ * <p/>
+ * Only the owning worker thread offers events and only the flushing thread drains them, so no
+ * lock is needed. When the flushing thread falls behind, new events are dropped instead of
+ * blocking the worker thread.
+ *
+ * @since 3.4
+ */
+public class RequestEventBuffer {
+	private final int threadNumber;
+	private final int mask;
+	private final long[] timestamps;
+	private final int[] testNumbers;
+	private final int[] durations;
+	private final byte[] statuses;
+
+	private volatile long head;
+	private volatile long tail;
+	private volatile long dropped;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param threadNumber thread number
+	 * @param capacity     capacity which is rounded up to the power of 2
+	 */
+	public RequestEventBuffer(int threadNumber, int capacity) {
+		int size = Integer.highestOneBit(Math.max(capacity - 1, 1)) << 1;
+		this.threadNumber = threadNumber;
+		this.mask = size - 1;
+		this.timestamps = new long[size];
+		this.testNumbers = new int[size];
+		this.durations = new int[size];
+		this.statuses = new byte[size];
+	}
+
+	/**
+	 * Offer an event. This should be called only by the owning worker thread.
+	 *
+	 * @param timestamp  start time in ms since epoch
+	 * @param testNumber test number
+	 * @param duration   duration in ms
+	 * @param status     status
+	 * @return false if the buffer is full and the event is dropped
+	 */
+	public boolean offer(long timestamp, int testNumber, int duration, byte status) {
+		long current = tail;
+		if (current - head > mask) {
+			//noinspection NonAtomicOperationOnVolatileField
+			dropped++;
+			return false;
+		}
+		int index = (int) (current & mask);
+		timestamps[index] = timestamp;
+		testNumbers[index] = testNumber;
+		durations[index] = duration;
+		statuses[index] = status;
+		tail = current + 1;
+		return true;
+	}
+
+	/**
+	 * Move all buffered events into the given columns. This should be called only by the
+	 * flushing thread.
+	 *
+	 * @param columns columns to be filled
+	 * @return count of moved events
+	 */
+	public int drainTo(RequestEventColumns columns) {
+		long from = head;
+		long to = tail;
+		for (long each = from; each < to; each++) {
+			int index = (int) (each & mask);
+			columns.add(timestamps[index], testNumbers[index], threadNumber, durations[index], statuses[index]);
+		}
+		head = to;
+		return (int) (to - from);
+	}
+
+	public long getDropped() {
+		return dropped;
+	}
+
+	public int getThreadNumber() {
+		return threadNumber;
+	}
+}
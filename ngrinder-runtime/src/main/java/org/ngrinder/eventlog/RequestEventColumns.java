@@ -0,0 +1,163 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.eventlog;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Column oriented container of request events which is the unit of the event log file.
+ * <p/>
+ * Each block is stored as the event count, the base timestamp and then each column in turn.
+ * Timestamps are stored as the int offset from the base timestamp.
+ *
+ * @since 3.4
+ */
+public class RequestEventColumns {
+	public static final byte STATUS_SUCCESS = 0;
+	public static final byte STATUS_ERROR = 1;
+
+	private int size;
+	private long[] timestamps;
+	private int[] testNumbers;
+	private int[] threadNumbers;
+	private int[] durations;
+	private byte[] statuses;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param capacity initial capacity
+	 */
+	public RequestEventColumns(int capacity) {
+		capacity = Math.max(capacity, 16);
+		timestamps = new long[capacity];
+		testNumbers = new int[capacity];
+		threadNumbers = new int[capacity];
+		durations = new int[capacity];
+		statuses = new byte[capacity];
+	}
+
+	/**
+	 * Add an event.
+	 *
+	 * @param timestamp    start time in ms since epoch
+	 * @param testNumber   test number
+	 * @param threadNumber thread number
+	 * @param duration     duration in ms
+	 * @param status       {@link #STATUS_SUCCESS} or {@link #STATUS_ERROR}
+	 */
+	public void add(long timestamp, int testNumber, int threadNumber, int duration, byte status) {
+		if (size == timestamps.length) {
+			int capacity = size * 2;
+			timestamps = Arrays.copyOf(timestamps, capacity);
+			testNumbers = Arrays.copyOf(testNumbers, capacity);
+			threadNumbers = Arrays.copyOf(threadNumbers, capacity);
+			durations = Arrays.copyOf(durations, capacity);
+			statuses = Arrays.copyOf(statuses, capacity);
+		}
+		timestamps[size] = timestamp;
+		testNumbers[size] = testNumber;
+		threadNumbers[size] = threadNumber;
+		durations[size] = duration;
+		statuses[size] = status;
+		size++;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Remove all events while keeping the allocated columns.
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	public long getTimestamp(int index) {
+		return timestamps[index];
+	}
+
+	public int getTestNumber(int index) {
+		return testNumbers[index];
+	}
+
+	public int getThreadNumber(int index) {
+		return threadNumbers[index];
+	}
+
+	public int getDuration(int index) {
+		return durations[index];
+	}
+
+	public byte getStatus(int index) {
+		return statuses[index];
+	}
+
+	/**
+	 * Write the events as a block.
+	 *
+	 * @param output output
+	 * @throws IOException occurs when writing fails
+	 */
+	public void write(DataOutputStream output) throws IOException {
+		long base = Long.MAX_VALUE;
+		for (int i = 0; i < size; i++) {
+			base = Math.min(base, timestamps[i]);
+		}
+		output.writeInt(size);
+		output.writeLong(size == 0 ? 0 : base);
+		for (int i = 0; i < size; i++) {
+			output.writeInt((int) (timestamps[i] - base));
+		}
+		writeColumn(output, testNumbers);
+		writeColumn(output, threadNumbers);
+		writeColumn(output, durations);
+		output.write(statuses, 0, size);
+	}
+
+	private void writeColumn(DataOutputStream output, int[] column) throws IOException {
+		for (int i = 0; i < size; i++) {
+			output.writeInt(column[i]);
+		}
+	}
+
+	/**
+	 * Replace the current events with the next block of the given input.
+	 *
+	 * @param input input
+	 * @throws IOException occurs when reading fails
+	 */
+	public void read(DataInputStream input) throws IOException {
+		int count = input.readInt();
+		long base = input.readLong();
+		clear();
+		for (int i = 0; i < count; i++) {
+			add(base + input.readInt(), 0, 0, 0, STATUS_SUCCESS);
+		}
+		readColumn(input, testNumbers);
+		readColumn(input, threadNumbers);
+		readColumn(input, durations);
+		input.readFully(statuses, 0, size);
+	}
+
+	private void readColumn(DataInputStream input, int[] column) throws IOException {
+		for (int i = 0; i < size; i++) {
+			column[i] = input.readInt();
+		}
+	}
+}
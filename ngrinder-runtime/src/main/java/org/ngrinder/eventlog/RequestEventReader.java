@@ -0,0 +1,75 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.eventlog;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Reader of the event file written by {@link RequestEventWriter}.
+ *
+ * @since 3.4
+ */
+public class RequestEventReader {
+
+	/**
+	 * Visitor of each event.
+	 */
+	public interface Visitor {
+		/**
+		 * Visit the event at the given index of the columns.
+		 *
+		 * @param columns current block
+		 * @param index   event index in the block
+		 */
+		void visit(RequestEventColumns columns, int index);
+	}
+
+	/**
+	 * Read all events from the given stream. The stream is not closed.
+	 *
+	 * @param inputStream event file stream
+	 * @param visitor     visitor of each event
+	 * @return count of read events
+	 * @throws IOException occurs when the stream is not the event file
+	 */
+	public static long read(InputStream inputStream, Visitor visitor) throws IOException {
+		DataInputStream input = new DataInputStream(new BufferedInputStream(inputStream));
+		if (input.readInt() != RequestEventWriter.MAGIC) {
+			throw new IOException("Not a request event file");
+		}
+		short version = input.readShort();
+		if (version != RequestEventWriter.VERSION) {
+			throw new IOException("Unsupported request event file version " + version);
+		}
+		RequestEventColumns columns = new RequestEventColumns(1024);
+		long count = 0;
+		while (true) {
+			try {
+				columns.read(input);
+			} catch (EOFException e) {
+				// The last block might be partially written when the worker was killed.
+				break;
+			}
+			for (int i = 0; i < columns.size(); i++) {
+				visitor.visit(columns, i);
+			}
+			count += columns.size();
+		}
+		return count;
+	}
+}
@@ -0,0 +1,188 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.eventlog;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Process wide request event log writer.
+ * <p/>
+ * Worker threads record the sampled events into their own {@link RequestEventBuffer} and a
+ * background daemon thread periodically drains all buffers and appends them as a column oriented
+ * block into the event file. The event file is placed in the worker log directory, so it's sent
+ * to the controller with the logs.
+ * <p/>
+ * The writer is enabled by setting one of the following grinder properties.
+ * <ul>
+ * <li>grinder.requestLog.sampleRate : ratio(0~1) of the requests to be recorded.</li>
+ * <li>grinder.requestLog.slowThreshold : requests taking this ms or more are always recorded.</li>
+ * </ul>
+ * Failed requests are always recorded while the writer is enabled.
+ *
+ * @since 3.4
+ */
+public class RequestEventWriter implements Runnable, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(RequestEventWriter.class);
+
+	public static final String PROP_SAMPLE_RATE = "grinder.requestLog.sampleRate";
+	public static final String PROP_SLOW_THRESHOLD = "grinder.requestLog.slowThreshold";
+	public static final String FILE_EXTENSION = ".events";
+	public static final int MAGIC = 0x4E474556;
+	public static final short VERSION = 1;
+
+	private static final int BUFFER_CAPACITY = 8192;
+	private static final long FLUSH_INTERVAL = 1000;
+
+	private final double sampleRate;
+	private final long slowThreshold;
+	private final List<RequestEventBuffer> buffers = new CopyOnWriteArrayList<RequestEventBuffer>();
+	private final RequestEventColumns columns = new RequestEventColumns(BUFFER_CAPACITY);
+	private final DataOutputStream output;
+	private final Thread flushThread;
+	private volatile boolean closed;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file          event file
+	 * @param sampleRate    ratio of the recorded requests
+	 * @param slowThreshold duration in ms from which requests are always recorded. 0 if disabled.
+	 * @throws IOException occurs when the file can not be created
+	 */
+	public RequestEventWriter(File file, double sampleRate, long slowThreshold) throws IOException {
+		this.sampleRate = sampleRate;
+		this.slowThreshold = slowThreshold;
+		this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 64 * 1024));
+		this.output.writeInt(MAGIC);
+		this.output.writeShort(VERSION);
+		this.flushThread = new Thread(this, "request event writer");
+		this.flushThread.setDaemon(true);
+		this.flushThread.start();
+	}
+
+	/**
+	 * Check if the writer should be enabled with the given options.
+	 *
+	 * @param sampleRate    sample rate
+	 * @param slowThreshold slow request threshold
+	 * @return true if enabled
+	 */
+	public static boolean isEnabled(double sampleRate, long slowThreshold) {
+		return sampleRate > 0 || slowThreshold > 0;
+	}
+
+	/**
+	 * Create the buffer for the given thread.
+	 *
+	 * @param threadNumber thread number
+	 * @return buffer owned by the thread
+	 */
+	public RequestEventBuffer createBuffer(int threadNumber) {
+		RequestEventBuffer buffer = new RequestEventBuffer(threadNumber, BUFFER_CAPACITY);
+		buffers.add(buffer);
+		return buffer;
+	}
+
+	/**
+	 * Check if the request having the given result should be recorded.
+	 *
+	 * @param duration duration in ms
+	 * @param error    true if the request failed
+	 * @return true if it should be recorded
+	 */
+	public boolean accept(long duration, boolean error) {
+		return error || (slowThreshold > 0 && duration >= slowThreshold)
+				|| (sampleRate > 0 && (sampleRate >= 1 || ThreadLocalRandom.current().nextDouble() < sampleRate));
+	}
+
+	@Override
+	public void run() {
+		while (!closed) {
+			try {
+				Thread.sleep(FLUSH_INTERVAL);
+			} catch (InterruptedException e) {
+				break;
+			}
+			flush();
+		}
+	}
+
+	/**
+	 * Drain all buffers and write them as a block.
+	 */
+	public synchronized void flush() {
+		if (!closed) {
+			writeBlock();
+		}
+	}
+
+	private void writeBlock() {
+		columns.clear();
+		for (RequestEventBuffer each : buffers) {
+			each.drainTo(columns);
+		}
+		if (columns.size() == 0) {
+			return;
+		}
+		try {
+			columns.write(output);
+			output.flush();
+		} catch (IOException e) {
+			LOGGER.error("Error while writing the request events", e);
+		}
+	}
+
+	/**
+	 * Get the total count of the events dropped because the buffers were full.
+	 *
+	 * @return dropped event count
+	 */
+	public long getDropped() {
+		long dropped = 0;
+		for (RequestEventBuffer each : buffers) {
+			dropped += each.getDropped();
+		}
+		return dropped;
+	}
+
+	@Override
+	public synchronized void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		flushThread.interrupt();
+		writeBlock();
+		try {
+			output.close();
+		} catch (IOException e) {
+			LOGGER.error("Error while closing the request event file", e);
+		}
+		long dropped = getDropped();
+		if (dropped > 0) {
+			LOGGER.info("{} request events were dropped because the event buffer was full", dropped);
+		}
+	}
+}
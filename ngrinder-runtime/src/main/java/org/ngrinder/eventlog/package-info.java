@@ -0,0 +1,4 @@
+/**
+ * Binary per request event log written by the worker process.
+ */
+package org.ngrinder.eventlog;
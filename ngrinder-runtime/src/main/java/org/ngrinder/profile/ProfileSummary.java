@@ -0,0 +1,313 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.profile;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Hot method and allocation summary collected by {@link WorkerProfiler}.
+ * <p/>
+ * The summary is stored as a small tab separated text file, so the summaries of all workers can
+ * be merged on the controller without keeping the raw samples.
+ *
+ * @since 3.4
+ */
+public class ProfileSummary {
+	public static final String HEADER = "# ngrinder worker profile 1";
+	private static final String CHARSET = "UTF-8";
+
+	private int workers = 1;
+	private long samples;
+	private long duration;
+	private long gcCount;
+	private long gcTime;
+	private final Map<String, Method> methods = new HashMap<String, Method>();
+
+	/**
+	 * Profiled method.
+	 */
+	public static class Method {
+		private final String name;
+		private long selfSamples;
+		private long totalSamples;
+		private long allocatedBytes;
+
+		Method(String name) {
+			this.name = name;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		/**
+		 * Get the count of the samples in which this method was on the top of the stack.
+		 *
+		 * @return self sample count
+		 */
+		public long getSelfSamples() {
+			return selfSamples;
+		}
+
+		/**
+		 * Get the count of the samples in which this method was anywhere in the stack.
+		 *
+		 * @return total sample count
+		 */
+		public long getTotalSamples() {
+			return totalSamples;
+		}
+
+		/**
+		 * Get the bytes allocated by the threads while this method was on the top of the stack.
+		 *
+		 * @return allocated bytes
+		 */
+		public long getAllocatedBytes() {
+			return allocatedBytes;
+		}
+	}
+
+	private Method getMethod(String name) {
+		Method method = methods.get(name);
+		if (method == null) {
+			method = new Method(name);
+			methods.put(name, method);
+		}
+		return method;
+	}
+
+	/**
+	 * Add the sampled stack of a thread.
+	 *
+	 * @param stack          sampled stack. The first element is the top of the stack.
+	 * @param allocatedBytes bytes allocated by the thread since its previous sample
+	 */
+	public void addSample(StackTraceElement[] stack, long allocatedBytes) {
+		if (stack.length == 0) {
+			return;
+		}
+		samples++;
+		Set<String> counted = new HashSet<String>();
+		for (int i = 0; i < stack.length; i++) {
+			String name = stack[i].getClassName() + "." + stack[i].getMethodName();
+			if (!counted.add(name)) {
+				continue;
+			}
+			Method method = getMethod(name);
+			method.totalSamples++;
+			if (i == 0) {
+				method.selfSamples++;
+				method.allocatedBytes += allocatedBytes;
+			}
+		}
+	}
+
+	/**
+	 * Add the garbage collections happened in the profiling window.
+	 *
+	 * @param count collection count
+	 * @param time  collection time in ms
+	 */
+	public void addGc(long count, long time) {
+		this.gcCount += count;
+		this.gcTime += time;
+	}
+
+	/**
+	 * Merge the given summary into this.
+	 *
+	 * @param other summary of another worker
+	 */
+	public void merge(ProfileSummary other) {
+		workers += other.workers;
+		samples += other.samples;
+		duration += other.duration;
+		gcCount += other.gcCount;
+		gcTime += other.gcTime;
+		for (Method each : other.methods.values()) {
+			Method method = getMethod(each.name);
+			method.selfSamples += each.selfSamples;
+			method.totalSamples += each.totalSamples;
+			method.allocatedBytes += each.allocatedBytes;
+		}
+	}
+
+	/**
+	 * Get the methods which were on the top of the stack most often.
+	 *
+	 * @param size maximum count of the methods
+	 * @return methods sorted by the self sample count in the descending order
+	 */
+	public List<Method> getHotMethods(int size) {
+		return getTop(size, new Comparator<Method>() {
+			@Override
+			public int compare(Method o1, Method o2) {
+				return compareDescending(o1.selfSamples, o2.selfSamples);
+			}
+		});
+	}
+
+	/**
+	 * Get the methods which allocated the most.
+	 *
+	 * @param size maximum count of the methods
+	 * @return methods sorted by the allocated bytes in the descending order
+	 */
+	public List<Method> getAllocatingMethods(int size) {
+		List<Method> top = getTop(size, new Comparator<Method>() {
+			@Override
+			public int compare(Method o1, Method o2) {
+				return compareDescending(o1.allocatedBytes, o2.allocatedBytes);
+			}
+		});
+		for (int i = top.size() - 1; i >= 0 && top.get(i).allocatedBytes == 0; i--) {
+			top.remove(i);
+		}
+		return top;
+	}
+
+	private static int compareDescending(long value1, long value2) {
+		return (value1 < value2) ? 1 : ((value1 == value2) ? 0 : -1);
+	}
+
+	private List<Method> getTop(int size, Comparator<Method> comparator) {
+		List<Method> sorted = new ArrayList<Method>(methods.values());
+		Collections.sort(sorted, comparator);
+		return new ArrayList<Method>(sorted.subList(0, Math.min(size, sorted.size())));
+	}
+
+	/**
+	 * Write this summary into the given stream. The stream is not closed.
+	 *
+	 * @param outputStream output stream
+	 * @throws IOException occurs when the stream can not be written
+	 */
+	public void write(OutputStream outputStream) throws IOException {
+		PrintWriter writer = new PrintWriter(new OutputStreamWriter(outputStream, CHARSET));
+		writer.println(HEADER);
+		writer.println("workers\t" + workers);
+		writer.println("samples\t" + samples);
+		writer.println("duration\t" + duration);
+		writer.println("gc\t" + gcCount + "\t" + gcTime);
+		for (Method each : methods.values()) {
+			writer.println("method\t" + each.selfSamples + "\t" + each.totalSamples + "\t" + each.allocatedBytes
+					+ "\t" + each.name);
+		}
+		writer.flush();
+		if (writer.checkError()) {
+			throw new IOException("Error while writing the profile summary");
+		}
+	}
+
+	/**
+	 * Read the summary from the given stream. The stream is not closed.
+	 *
+	 * @param inputStream input stream
+	 * @return summary
+	 * @throws IOException occurs when the stream is not the profile summary
+	 */
+	public static ProfileSummary read(InputStream inputStream) throws IOException {
+		BufferedReader reader = new BufferedReader(new InputStreamReader(inputStream, CHARSET));
+		if (!HEADER.equals(reader.readLine())) {
+			throw new IOException("Not a profile summary");
+		}
+		ProfileSummary summary = new ProfileSummary();
+		String line;
+		try {
+			while ((line = reader.readLine()) != null) {
+				String[] fields = line.split("\t");
+				if ("workers".equals(fields[0])) {
+					summary.workers = Integer.parseInt(fields[1]);
+				} else if ("samples".equals(fields[0])) {
+					summary.samples = Long.parseLong(fields[1]);
+				} else if ("duration".equals(fields[0])) {
+					summary.duration = Long.parseLong(fields[1]);
+				} else if ("gc".equals(fields[0])) {
+					summary.addGc(Long.parseLong(fields[1]), Long.parseLong(fields[2]));
+				} else if ("method".equals(fields[0]) && fields.length == 5) {
+					Method method = summary.getMethod(fields[4]);
+					method.selfSamples += Long.parseLong(fields[1]);
+					method.totalSamples += Long.parseLong(fields[2]);
+					method.allocatedBytes += Long.parseLong(fields[3]);
+				}
+			}
+		} catch (RuntimeException e) {
+			throw new IOException("Invalid profile summary line", e);
+		}
+		return summary;
+	}
+
+	/**
+	 * Get the count of the merged workers.
+	 *
+	 * @return worker count
+	 */
+	public int getWorkers() {
+		return workers;
+	}
+
+	public long getSamples() {
+		return samples;
+	}
+
+	/**
+	 * Get the sum of the profiled windows of all workers in ms.
+	 *
+	 * @return duration
+	 */
+	public long getDuration() {
+		return duration;
+	}
+
+	void setDuration(long duration) {
+		this.duration = duration;
+	}
+
+	public long getGcCount() {
+		return gcCount;
+	}
+
+	/**
+	 * Get the sum of the garbage collection time of all workers in ms.
+	 *
+	 * @return gc time
+	 */
+	public long getGcTime() {
+		return gcTime;
+	}
+
+	/**
+	 * Get the count of the distinct profiled methods.
+	 *
+	 * @return method count
+	 */
+	public int getMethodCount() {
+		return methods.size();
+	}
+}
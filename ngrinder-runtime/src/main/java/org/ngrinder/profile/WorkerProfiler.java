@@ -0,0 +1,290 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.profile;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.management.ObjectName;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Sampling profiler of the worker process.
+ * <p/>
+ * A background daemon thread takes the stacks of the runnable threads at the given interval for
+ * the given window and counts the hot methods. When the JVM supports the thread allocation
+ * counters, the bytes allocated by each thread between two samples are charged to the method on
+ * the top of the stack, which gives an approximate allocation profile. The summary is written
+ * into the worker log directory when the window ends, so it's sent to the controller with the
+ * logs.
+ * <p/>
+ * The profiler is enabled by setting the following grinder properties.
+ * <ul>
+ * <li>grinder.profile.duration : profiling window in sec. 0 if disabled.</li>
+ * <li>grinder.profile.delay : sec from the worker start to the window start. 0 by default.</li>
+ * <li>grinder.profile.interval : sampling interval in ms. 50 by default.</li>
+ * <li>grinder.profile.jfr : true if a flight recording should be taken in the same window.</li>
+ * </ul>
+ * The flight recording is started through the diagnostic command MBean when the window starts, so
+ * it's named after the worker. It needs JDK 11 or later on the worker. On the older JVMs only the
+ * sampling profiler runs.
+ *
+ * @since 3.4
+ */
+public class WorkerProfiler implements Runnable, Closeable {
+	private static final Logger LOGGER = LoggerFactory.getLogger(WorkerProfiler.class);
+
+	public static final String PROP_DURATION = "grinder.profile.duration";
+	public static final String PROP_DELAY = "grinder.profile.delay";
+	public static final String PROP_INTERVAL = "grinder.profile.interval";
+	public static final String PROP_JFR = "grinder.profile.jfr";
+	public static final String FILE_EXTENSION = ".profile";
+	public static final String JFR_FILE_EXTENSION = ".jfr";
+
+	public static final long DEFAULT_INTERVAL = 50;
+	private static final long MIN_INTERVAL = 10;
+	private static final int MAX_STACK_DEPTH = 64;
+	private static final int MIN_JFR_JAVA_VERSION = 11;
+	private static final String DIAGNOSTIC_COMMAND = "com.sun.management:type=DiagnosticCommand";
+
+	private final File file;
+	private final File recording;
+	private final long delay;
+	private final long duration;
+	private final long interval;
+	private final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	private final Map<Long, Long> allocatedBytes = new HashMap<Long, Long>();
+	private final ProfileSummary summary = new ProfileSummary();
+	private final Thread samplingThread;
+	private long gcCount;
+	private long gcTime;
+	private long startTime;
+	private volatile boolean closed;
+	private boolean written;
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file     summary file
+	 * @param delay    ms from now to the window start
+	 * @param duration window in ms
+	 * @param interval sampling interval in ms
+	 */
+	public WorkerProfiler(File file, long delay, long duration, long interval) {
+		this(file, null, delay, duration, interval);
+	}
+
+	/**
+	 * Constructor.
+	 *
+	 * @param file      summary file
+	 * @param recording flight recording file. null if no flight recording is taken.
+	 * @param delay     ms from now to the window start
+	 * @param duration  window in ms
+	 * @param interval  sampling interval in ms
+	 */
+	public WorkerProfiler(File file, File recording, long delay, long duration, long interval) {
+		this.file = file;
+		this.recording = recording;
+		this.delay = Math.max(delay, 0);
+		this.duration = duration;
+		this.interval = Math.max(interval, MIN_INTERVAL);
+		this.samplingThread = new Thread(this, "worker profiler");
+		this.samplingThread.setDaemon(true);
+		this.samplingThread.start();
+	}
+
+	/**
+	 * Check if the profiler should be enabled with the given window.
+	 *
+	 * @param duration window in sec
+	 * @return true if enabled
+	 */
+	public static boolean isEnabled(long duration) {
+		return duration > 0;
+	}
+
+	/**
+	 * Check if the flight recording can be started on the JVM of the given specification version.
+	 *
+	 * @param specificationVersion java.specification.version of the JVM
+	 * @return true if supported
+	 */
+	static boolean isFlightRecordingSupported(String specificationVersion) {
+		if (specificationVersion == null) {
+			return false;
+		}
+		String[] versions = specificationVersion.split("\\.");
+		String major = ("1".equals(versions[0]) && versions.length > 1) ? versions[1] : versions[0];
+		try {
+			return Integer.parseInt(major) >= MIN_JFR_JAVA_VERSION;
+		} catch (NumberFormatException e) {
+			return false;
+		}
+	}
+
+	@Override
+	public void run() {
+		try {
+			Thread.sleep(delay);
+			start();
+			while (!closed && System.currentTimeMillis() - startTime < duration) {
+				sample();
+				Thread.sleep(interval);
+			}
+		} catch (InterruptedException e) {
+			return;
+		}
+		finish();
+	}
+
+	private synchronized void start() {
+		if (closed) {
+			return;
+		}
+		startTime = System.currentTimeMillis();
+		gcCount = getGcCount();
+		gcTime = getGcTime();
+		LOGGER.info("Profiling is started for {} ms", duration);
+		if (recording != null) {
+			startFlightRecording();
+		}
+	}
+
+	private void startFlightRecording() {
+		String version = System.getProperty("java.specification.version");
+		if (!isFlightRecordingSupported(version)) {
+			LOGGER.warn("Flight recording needs JDK {} or later but the worker runs on {}. "
+					+ "Only the sampling profiler is used.", MIN_JFR_JAVA_VERSION, version);
+			return;
+		}
+		String[] arguments = new String[]{"name=" + recording.getName(), "settings=profile",
+				"duration=" + (duration / 1000) + "s", "dumponexit=true", "filename=" + recording.getAbsolutePath()};
+		try {
+			ManagementFactory.getPlatformMBeanServer().invoke(new ObjectName(DIAGNOSTIC_COMMAND), "jfrStart",
+					new Object[]{arguments}, new String[]{String[].class.getName()});
+			LOGGER.info("Flight recording is started into {}", recording);
+		} catch (Exception e) {
+			LOGGER.warn("Flight recording can not be started. Only the sampling profiler is used. {}",
+					e.getMessage());
+		}
+	}
+
+	private synchronized void sample() {
+		if (closed) {
+			return;
+		}
+		long[] threadIds = threadMXBean.getAllThreadIds();
+		ThreadInfo[] threadInfos = threadMXBean.getThreadInfo(threadIds, MAX_STACK_DEPTH);
+		long[] allocated = getAllocatedBytes(threadIds);
+		long currentThreadId = Thread.currentThread().getId();
+		for (int i = 0; i < threadIds.length; i++) {
+			ThreadInfo each = threadInfos[i];
+			if (each == null || threadIds[i] == currentThreadId) {
+				continue;
+			}
+			long allocatedDelta = 0;
+			if (allocated != null && allocated[i] >= 0) {
+				Long previous = allocatedBytes.put(threadIds[i], allocated[i]);
+				allocatedDelta = (previous == null) ? 0 : allocated[i] - previous;
+			}
+			// Only running threads are counted, so the think time and the idle threads are excluded.
+			if (each.getThreadState() == Thread.State.RUNNABLE) {
+				summary.addSample(each.getStackTrace(), allocatedDelta);
+			}
+		}
+	}
+
+	private long[] getAllocatedBytes(long[] threadIds) {
+		if (threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			com.sun.management.ThreadMXBean sunThreadMXBean = (com.sun.management.ThreadMXBean) threadMXBean;
+			if (sunThreadMXBean.isThreadAllocatedMemorySupported() && sunThreadMXBean.isThreadAllocatedMemoryEnabled()) {
+				return sunThreadMXBean.getThreadAllocatedBytes(threadIds);
+			}
+		}
+		return null;
+	}
+
+	private static long getGcCount() {
+		long count = 0;
+		for (GarbageCollectorMXBean each : ManagementFactory.getGarbageCollectorMXBeans()) {
+			count += Math.max(each.getCollectionCount(), 0);
+		}
+		return count;
+	}
+
+	private static long getGcTime() {
+		long time = 0;
+		for (GarbageCollectorMXBean each : ManagementFactory.getGarbageCollectorMXBeans()) {
+			time += Math.max(each.getCollectionTime(), 0);
+		}
+		return time;
+	}
+
+	/**
+	 * Write the summary of the samples taken so far.
+	 */
+	private synchronized void finish() {
+		if (written || startTime == 0) {
+			return;
+		}
+		written = true;
+		summary.setDuration(System.currentTimeMillis() - startTime);
+		summary.addGc(getGcCount() - gcCount, getGcTime() - gcTime);
+		FileOutputStream output = null;
+		try {
+			output = new FileOutputStream(file);
+			summary.write(output);
+			LOGGER.info("Profiling is finished with {} samples and written in {}", summary.getSamples(), file);
+		} catch (IOException e) {
+			LOGGER.error("Error while writing the profile summary {}", file, e);
+		} finally {
+			if (output != null) {
+				try {
+					output.close();
+				} catch (IOException e) {
+					LOGGER.error("Error while closing the profile summary {}", file, e);
+				}
+			}
+		}
+	}
+
+	/**
+	 * Stop the profiling. If the window is not finished yet, the samples taken so far are written.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		samplingThread.interrupt();
+		finish();
+	}
+
+	/**
+	 * Get the summary. Only for the test.
+	 *
+	 * @return summary
+	 */
+	ProfileSummary getSummary() {
+		return summary;
+	}
+}
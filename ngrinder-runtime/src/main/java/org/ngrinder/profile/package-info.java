@@ -0,0 +1,4 @@
+/**
+ * Sampling profiler running in the worker process.
+ */
+package org.ngrinder.profile;
@@ -18,16 +18,25 @@ import java.io.FileDescriptor;
 import java.net.InetAddress;
 import java.security.Permission;
 import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * nGrinder security manager.
+ * <p/>
+ * The checks run on every socket and file operation of the vusers. So the allowed hosts are
+ * kept in a hash set, the allowed directories are compiled into {@link PathPrefixTrie}s and the
+ * recent decisions on the file paths are cached.
  *
  * @author JunHo Yoon
  * @author Tobi
  * @since 3.0
  */
 public class NGrinderSecurityManager extends SecurityManager {
+	private static final int MAX_DECISION_CACHE_SIZE = 4096;
 
 	private String workDirectory = System.getProperty("user.dir");
 
@@ -40,10 +49,15 @@ public class NGrinderSecurityManager extends SecurityManager {
 	private final String pythonCache = System.getProperty("python.cachedir");
 	private final String etcHosts = System.getProperty("ngrinder.etc.hosts", "");
 	private final String consoleIP = System.getProperty("ngrinder.console.ip", "127.0.0.1");
-	private final List<String> allowedHost = new ArrayList<String>();
+	private final Set<String> allowedHost = new HashSet<String>();
 	private final List<String> readAllowedDirectory = new ArrayList<String>();
 	private final List<String> writeAllowedDirectory = new ArrayList<String>();
 	private final List<String> deleteAllowedDirectory = new ArrayList<String>();
+	private final ConcurrentMap<String, Boolean> writeDecisions = new ConcurrentHashMap<String, Boolean>();
+	private final ConcurrentMap<String, Boolean> deleteDecisions = new ConcurrentHashMap<String, Boolean>();
+	private PathPrefixTrie readAllowedTrie;
+	private PathPrefixTrie writeAllowedTrie;
+	private PathPrefixTrie deleteAllowedTrie;
 
 	{
 		this.init();
@@ -52,6 +66,11 @@ public class NGrinderSecurityManager extends SecurityManager {
 	void init() {
 		this.initAccessOfDirectories();
 		this.initAccessOfHosts();
+		readAllowedTrie = new PathPrefixTrie(readAllowedDirectory);
+		writeAllowedTrie = new PathPrefixTrie(writeAllowedDirectory);
+		deleteAllowedTrie = new PathPrefixTrie(deleteAllowedDirectory);
+		writeDecisions.clear();
+		deleteDecisions.clear();
 	}
 	/**
 	 * Set default accessed of directories. <br>
@@ -233,10 +252,8 @@ public class NGrinderSecurityManager extends SecurityManager {
 	private void fileAccessReadAllowed(String file) {
 		// We don't use this for a while.
 		String filePath = normalize(file, workDirectory);
-		for (String dir : readAllowedDirectory) {
-			if (filePath != null && filePath.startsWith(dir)) {
-				return;
-			}
+		if (readAllowedTrie.matches(filePath)) {
+			return;
 		}
 		throw new SecurityException("File Read access on " + file + "(" + filePath + ") is not allowed.");
 	}
@@ -252,12 +269,10 @@ public class NGrinderSecurityManager extends SecurityManager {
 			return;
 		}
 
-		String filePath = normalize(file, workDirectory);
-		for (String dir : writeAllowedDirectory) {
-			if (filePath != null && filePath.startsWith(dir)) {
-				return;
-			}
+		if (isAllowed(file, writeAllowedTrie, writeDecisions)) {
+			return;
 		}
+		String filePath = normalize(file, workDirectory);
 		throw new SecurityException("File write access on " + file + "(" + filePath + ") is not allowed.");
 	}
 
@@ -268,13 +283,35 @@ public class NGrinderSecurityManager extends SecurityManager {
 	 * @param file file path
 	 */
 	private void fileAccessDeleteAllowed(String file) {
+		if (isAllowed(file, deleteAllowedTrie, deleteDecisions)) {
+			return;
+		}
 		String filePath = normalize(file, workDirectory);
-		for (String dir : deleteAllowedDirectory) {
-			if (filePath != null && filePath.startsWith(dir)) {
-				return;
+		throw new SecurityException("File delete access on " + file + "(" + filePath + ") is not allowed.");
+	}
+
+	/**
+	 * Check if the given file is under the allowed directories. The decision is cached by the
+	 * given path, so the path is normalized only once. The cache is cleared when it's full.
+	 *
+	 * @param file      file path
+	 * @param allowed   allowed directories
+	 * @param decisions decision cache
+	 * @return true if allowed
+	 */
+	private boolean isAllowed(String file, PathPrefixTrie allowed, ConcurrentMap<String, Boolean> decisions) {
+		if (file == null) {
+			return false;
+		}
+		Boolean decision = decisions.get(file);
+		if (decision == null) {
+			decision = allowed.matches(normalize(file, workDirectory));
+			if (decisions.size() >= MAX_DECISION_CACHE_SIZE) {
+				decisions.clear();
 			}
+			decisions.put(file, decision);
 		}
-		throw new SecurityException("File delete access on " + file + "(" + filePath + ") is not allowed.");
+		return decision;
 	}
 
 	@Override
@@ -0,0 +1,102 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.sm;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+/**
+ * Character trie of the allowed directory prefixes.
+ * <p/>
+ * A path is matched if any of the registered prefixes is the prefix of the path, which is the
+ * same as calling {@link String#startsWith(String)} on every prefix. The path is walked only once
+ * regardless of the count of prefixes.
+ *
+ * @since 3.4
+ */
+class PathPrefixTrie {
+	private final Node root = new Node();
+
+	/**
+	 * Constructor.
+	 *
+	 * @param prefixes allowed prefixes. null or empty prefixes are ignored.
+	 */
+	PathPrefixTrie(Collection<String> prefixes) {
+		for (String each : prefixes) {
+			if (each != null && !each.isEmpty()) {
+				add(each);
+			}
+		}
+	}
+
+	private void add(String prefix) {
+		Node node = root;
+		for (int i = 0; i < prefix.length(); i++) {
+			node = node.getOrCreateChild(prefix.charAt(i));
+		}
+		node.terminal = true;
+	}
+
+	/**
+	 * Check if the given path starts with one of the prefixes.
+	 *
+	 * @param path path
+	 * @return true if matched
+	 */
+	boolean matches(String path) {
+		if (path == null) {
+			return false;
+		}
+		Node node = root;
+		for (int i = 0; i < path.length(); i++) {
+			node = node.getChild(path.charAt(i));
+			if (node == null) {
+				return false;
+			}
+			if (node.terminal) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Node {
+		private char[] keys = new char[0];
+		private Node[] children = new Node[0];
+		private boolean terminal;
+
+		Node getChild(char key) {
+			char[] keys = this.keys;
+			for (int i = 0; i < keys.length; i++) {
+				if (keys[i] == key) {
+					return children[i];
+				}
+			}
+			return null;
+		}
+
+		Node getOrCreateChild(char key) {
+			Node child = getChild(key);
+			if (child == null) {
+				child = new Node();
+				keys = Arrays.copyOf(keys, keys.length + 1);
+				keys[keys.length - 1] = key;
+				children = Arrays.copyOf(children, children.length + 1);
+				children[children.length - 1] = child;
+			}
+			return child;
+		}
+	}
+}
@@ -0,0 +1,65 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package net.grinder.engine.process;
+
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+public class ReportCoalescerTest {
+
+	@Test
+	public void testUpdate() {
+		ReportCoalescer coalescer = new ReportCoalescer(500, 8);
+		assertThat(coalescer.update(100, 5000), is(false));
+		assertThat(coalescer.getFactor(), is(1));
+
+		// Double while the console is behind by more than the current interval.
+		assertThat(coalescer.update(800, 5000), is(true));
+		assertThat(coalescer.getReportInterval(), is(1000));
+		assertThat(coalescer.update(1500, 5000), is(true));
+		assertThat(coalescer.getFactor(), is(4));
+		assertThat(coalescer.update(1500, 5000), is(false));
+
+		// Capped by the console sampling interval.
+		assertThat(coalescer.update(10000, 5000), is(true));
+		assertThat(coalescer.getFactor(), is(8));
+		assertThat(coalescer.update(10000, 5000), is(false));
+		assertThat(new ReportCoalescer(500, 8).update(10000, 500), is(false));
+
+		// Halve once the console caught up.
+		assertThat(coalescer.update(200, 5000), is(true));
+		assertThat(coalescer.getFactor(), is(4));
+		coalescer.update(0, 5000);
+		coalescer.update(0, 5000);
+		assertThat(coalescer.getFactor(), is(1));
+	}
+
+	@Test
+	public void testAdd() {
+		ReportCoalescer coalescer = new ReportCoalescer(500, 8);
+		assertThat(coalescer.add(1000, null), is(true));
+		coalescer.update(1000, 1000);
+		assertThat(coalescer.getFactor(), is(2));
+		assertThat(coalescer.add(1500, null), is(false));
+		assertThat(coalescer.add(2000, null), is(true));
+		assertThat(coalescer.add(2500, null), is(false));
+
+		// Empty intervals are not sent at all.
+		assertThat(coalescer.drain(), nullValue());
+		assertThat(coalescer.add(3000, null), is(false));
+	}
+}
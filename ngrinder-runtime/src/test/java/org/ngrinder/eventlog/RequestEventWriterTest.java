@@ -0,0 +1,87 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.eventlog;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class RequestEventWriterTest {
+
+	@Test
+	public void testWriteAndRead() throws IOException {
+		File file = File.createTempFile("worker", RequestEventWriter.FILE_EXTENSION);
+		file.deleteOnExit();
+		RequestEventWriter writer = new RequestEventWriter(file, 1, 0);
+		RequestEventBuffer buffer0 = writer.createBuffer(0);
+		RequestEventBuffer buffer1 = writer.createBuffer(1);
+		long now = System.currentTimeMillis();
+		buffer0.offer(now, 1, 10, RequestEventColumns.STATUS_SUCCESS);
+		buffer1.offer(now + 5, 2, 20, RequestEventColumns.STATUS_ERROR);
+		writer.flush();
+		buffer0.offer(now + 10, 1, 30, RequestEventColumns.STATUS_SUCCESS);
+		writer.close();
+
+		final List<String> events = new ArrayList<String>();
+		FileInputStream inputStream = new FileInputStream(file);
+		try {
+			long count = RequestEventReader.read(inputStream, new RequestEventReader.Visitor() {
+				@Override
+				public void visit(RequestEventColumns columns, int index) {
+					events.add(columns.getThreadNumber(index) + ":" + columns.getTestNumber(index) + ":"
+							+ columns.getDuration(index) + ":" + columns.getStatus(index));
+				}
+			});
+			assertThat(count, is(3L));
+		} finally {
+			inputStream.close();
+		}
+		assertThat(events.get(0), is("0:1:10:0"));
+		assertThat(events.get(1), is("1:2:20:1"));
+		assertThat(events.get(2), is("0:1:30:0"));
+	}
+
+	@Test
+	public void testBufferDropsWhenFull() {
+		RequestEventBuffer buffer = new RequestEventBuffer(0, 4);
+		for (int i = 0; i < 6; i++) {
+			buffer.offer(i, 1, i, RequestEventColumns.STATUS_SUCCESS);
+		}
+		assertThat(buffer.getDropped(), is(2L));
+		RequestEventColumns columns = new RequestEventColumns(4);
+		assertThat(buffer.drainTo(columns), is(4));
+		assertThat(columns.getDuration(3), is(3));
+	}
+
+	@Test
+	public void testAccept() throws IOException {
+		File file = File.createTempFile("worker", RequestEventWriter.FILE_EXTENSION);
+		file.deleteOnExit();
+		RequestEventWriter writer = new RequestEventWriter(file, 0, 100);
+		try {
+			assertThat(writer.accept(99, false), is(false));
+			assertThat(writer.accept(100, false), is(true));
+			assertThat(writer.accept(1, true), is(true));
+		} finally {
+			writer.close();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.profile;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
+public class WorkerProfilerTest {
+	private volatile boolean running = true;
+
+	@Test
+	public void testProfile() throws Exception {
+		File file = File.createTempFile("worker", WorkerProfiler.FILE_EXTENSION);
+		file.deleteOnExit();
+		Thread busyThread = new Thread(new Runnable() {
+			@Override
+			public void run() {
+				spin();
+			}
+		});
+		busyThread.start();
+		WorkerProfiler profiler = new WorkerProfiler(file, 0, 500, 10);
+		try {
+			Thread.sleep(300);
+		} finally {
+			profiler.close();
+			running = false;
+			busyThread.join();
+		}
+
+		FileInputStream inputStream = new FileInputStream(file);
+		try {
+			ProfileSummary summary = ProfileSummary.read(inputStream);
+			assertThat(summary.getSamples(), greaterThan(0L));
+			List<ProfileSummary.Method> hotMethods = summary.getHotMethods(100);
+			boolean found = false;
+			for (ProfileSummary.Method each : hotMethods) {
+				found |= each.getName().equals(WorkerProfilerTest.class.getName() + ".spin");
+			}
+			assertThat(found, is(true));
+		} finally {
+			inputStream.close();
+		}
+	}
+
+	@Test
+	public void testFlightRecordingSupported() {
+		assertThat(WorkerProfiler.isFlightRecordingSupported("1.7"), is(false));
+		assertThat(WorkerProfiler.isFlightRecordingSupported("1.8"), is(false));
+		assertThat(WorkerProfiler.isFlightRecordingSupported("11"), is(true));
+		assertThat(WorkerProfiler.isFlightRecordingSupported("17"), is(true));
+		assertThat(WorkerProfiler.isFlightRecordingSupported(null), is(false));
+	}
+
+	private long spin() {
+		long sum = 0;
+		while (running) {
+			sum += System.nanoTime() % 7;
+		}
+		return sum;
+	}
+
+	@Test
+	public void testMerge() throws IOException {
+		ProfileSummary summary1 = new ProfileSummary();
+		summary1.addSample(stack("a.B.hot", "a.B.run"), 100);
+		summary1.addSample(stack("a.B.hot", "a.B.run"), 50);
+		summary1.addGc(1, 10);
+		ProfileSummary summary2 = new ProfileSummary();
+		summary2.addSample(stack("a.B.cold", "a.B.run", "a.B.run"), 1000);
+		summary2.addGc(2, 20);
+
+		ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+		summary2.write(outputStream);
+		summary1.merge(ProfileSummary.read(new ByteArrayInputStream(outputStream.toByteArray())));
+
+		assertThat(summary1.getWorkers(), is(2));
+		assertThat(summary1.getSamples(), is(3L));
+		assertThat(summary1.getGcCount(), is(3L));
+		assertThat(summary1.getGcTime(), is(30L));
+		List<ProfileSummary.Method> hotMethods = summary1.getHotMethods(2);
+		assertThat(hotMethods.size(), is(2));
+		assertThat(hotMethods.get(0).getName(), is("a.B.hot"));
+		assertThat(hotMethods.get(0).getSelfSamples(), is(2L));
+		List<ProfileSummary.Method> allocatingMethods = summary1.getAllocatingMethods(10);
+		assertThat(allocatingMethods.size(), is(2));
+		assertThat(allocatingMethods.get(0).getName(), is("a.B.cold"));
+		assertThat(allocatingMethods.get(1).getAllocatedBytes(), is(150L));
+		for (ProfileSummary.Method each : summary1.getHotMethods(10)) {
+			if (each.getName().equals("a.B.run")) {
+				assertThat(each.getTotalSamples(), is(3L));
+				assertThat(each.getSelfSamples(), is(0L));
+			}
+		}
+	}
+
+	private StackTraceElement[] stack(String... methods) {
+		StackTraceElement[] stack = new StackTraceElement[methods.length];
+		for (int i = 0; i < methods.length; i++) {
+			int index = methods[i].lastIndexOf('.');
+			stack[i] = new StackTraceElement(methods[i].substring(0, index), methods[i].substring(index + 1), null, -1);
+		}
+		return stack;
+	}
+}
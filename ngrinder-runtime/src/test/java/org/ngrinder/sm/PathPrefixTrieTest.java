@@ -0,0 +1,44 @@
+/* 
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ *  you may not use this file except in compliance with the License.
+ *  You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License. 
+ */
+package org.ngrinder.sm;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.hamcrest.CoreMatchers.is;
+import static org.junit.Assert.assertThat;
+
+public class PathPrefixTrieTest {
+	@Test
+	public void testMatches() {
+		PathPrefixTrie trie = new PathPrefixTrie(Arrays.asList("/home/ngrinder/work", "/tmp", "/home/ngrinder/log",
+				"", null));
+		assertThat(trie.matches("/home/ngrinder/work/script.groovy"), is(true));
+		assertThat(trie.matches("/home/ngrinder/work"), is(true));
+		assertThat(trie.matches("/home/ngrinder/log/agent.log"), is(true));
+		assertThat(trie.matches("/tmp/a"), is(true));
+		assertThat(trie.matches("/home/ngrinder"), is(false));
+		assertThat(trie.matches("/home/ngrinder/.ngrinder/database.conf"), is(false));
+		assertThat(trie.matches("/etc/passwd"), is(false));
+		assertThat(trie.matches(""), is(false));
+		assertThat(trie.matches(null), is(false));
+	}
+
+	@Test
+	public void testEmptyTrie() {
+		PathPrefixTrie trie = new PathPrefixTrie(Arrays.<String>asList());
+		assertThat(trie.matches("/tmp"), is(false));
+	}
+}